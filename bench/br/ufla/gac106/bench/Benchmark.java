@@ -0,0 +1,247 @@
+package br.ufla.gac106.bench;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Classe que mede o desempenho de uma operação (no estilo do JMH, mas sem
+ * dependências): executa iterações de aquecimento, para que o JIT compile o
+ * código medido, e depois iterações de medição com duração fixa.
+ * 
+ * Para cada operação são informados o tempo médio por execução (com o desvio
+ * padrão entre as iterações), os bytes alocados por execução, a taxa de
+ * alocação e a atividade do coletor de lixo durante a medição (equivalente ao
+ * profiler "gc" do JMH).
+ */
+public class Benchmark {
+    // Recebe os resultados das operações, para que o JIT não elimine o código medido
+    private static volatile Object sumidouro;
+
+    private final int iteracoesAquecimento;
+    private final int iteracoesMedicao;
+    private final long duracaoIteracaoNanos;
+    private final List<Resultado> resultados = new ArrayList<>();
+
+    /**
+     * Interface funcional da operação medida. O valor retornado é consumido
+     * pelo benchmark (retorne o resultado da operação para que ela não seja
+     * eliminada pelo JIT).
+     */
+    public interface Operacao {
+        Object executar() throws Exception;
+    }
+
+    /**
+     * Constrói o benchmark com 5 iterações de aquecimento e 5 de medição, de 1
+     * segundo cada
+     */
+    public Benchmark() {
+        this(5, 5, 1000);
+    }
+
+    /**
+     * Constrói o benchmark
+     * 
+     * @param iteracoesAquecimento  Quantidade de iterações de aquecimento
+     * @param iteracoesMedicao      Quantidade de iterações de medição
+     * @param duracaoIteracaoMillis Duração de cada iteração em milissegundos
+     */
+    public Benchmark(int iteracoesAquecimento, int iteracoesMedicao, long duracaoIteracaoMillis) {
+        this.iteracoesAquecimento = iteracoesAquecimento;
+        this.iteracoesMedicao = iteracoesMedicao;
+        this.duracaoIteracaoNanos = duracaoIteracaoMillis * 1_000_000;
+    }
+
+    /**
+     * Cria o benchmark com as configurações passadas nas propriedades do sistema
+     * bench.aquecimento, bench.medicao e bench.duracao (em milissegundos)
+     * 
+     * @return O benchmark
+     */
+    public static Benchmark dasPropriedades() {
+        return new Benchmark(Integer.getInteger("bench.aquecimento", 5), Integer.getInteger("bench.medicao", 5),
+                Long.getLong("bench.duracao", 1000));
+    }
+
+    /**
+     * Lê um arquivo de dados usado nos benchmarks (do diretório indicado pela
+     * propriedade do sistema bench.fixtures, que por padrão é bench/fixtures)
+     * 
+     * @param nome Nome do arquivo
+     * 
+     * @return O conteúdo do arquivo
+     */
+    public static byte[] lerFixture(String nome) throws IOException {
+        return Files.readAllBytes(Path.of(System.getProperty("bench.fixtures", "bench/fixtures"), nome));
+    }
+
+    /**
+     * Lê uma lista de tamanhos separados por vírgula de uma propriedade do sistema
+     * 
+     * @param propriedade Nome da propriedade
+     * @param padrao      Valor usado se a propriedade não foi definida
+     * 
+     * @return Os tamanhos
+     */
+    public static int[] tamanhos(String propriedade, String padrao) {
+        String[] valores = System.getProperty(propriedade, padrao).split(",");
+        int[] tamanhos = new int[valores.length];
+        for (int i = 0; i < valores.length; i++) {
+            tamanhos[i] = Integer.parseInt(valores[i].trim());
+        }
+        return tamanhos;
+    }
+
+    /**
+     * Mede a operação passada e exibe o resultado
+     * 
+     * @param nome     Nome da operação (exibido no resultado)
+     * @param operacao Operação a ser medida
+     * 
+     * @return O resultado da medição
+     */
+    public Resultado medir(String nome, Operacao operacao) throws Exception {
+        for (int i = 0; i < iteracoesAquecimento; i++) {
+            executarIteracao(operacao);
+        }
+
+        double[] nanosPorOperacao = new double[iteracoesMedicao];
+        long operacoes = 0;
+        long bytes = 0;
+        long nanos = 0;
+        long coletasAntes = quantidadeColetas();
+        long tempoColetasAntes = tempoColetasMillis();
+        for (int i = 0; i < iteracoesMedicao; i++) {
+            long[] iteracao = executarIteracao(operacao);
+            nanosPorOperacao[i] = (double) iteracao[1] / iteracao[0];
+            operacoes += iteracao[0];
+            nanos += iteracao[1];
+            bytes += iteracao[2];
+        }
+
+        Resultado resultado = new Resultado(nome, nanosPorOperacao, (double) bytes / operacoes, bytes * 1e9 / nanos,
+                quantidadeColetas() - coletasAntes, tempoColetasMillis() - tempoColetasAntes);
+        resultados.add(resultado);
+        System.out.println(resultado);
+        return resultado;
+    }
+
+    /**
+     * Resultados de todas as operações medidas por este benchmark
+     * 
+     * @return Os resultados (na ordem em que foram medidos)
+     */
+    public List<Resultado> getResultados() {
+        return resultados;
+    }
+
+    /**
+     * Executa a operação repetidamente durante uma iteração
+     * 
+     * @return Quantidade de execuções, duração em nanossegundos e bytes alocados
+     */
+    private long[] executarIteracao(Operacao operacao) throws Exception {
+        long execucoes = 0;
+        long bytesAntes = bytesAlocados();
+        long inicio = System.nanoTime();
+        long agora;
+        do {
+            sumidouro = operacao.executar();
+            execucoes++;
+            agora = System.nanoTime();
+        } while (agora - inicio < duracaoIteracaoNanos);
+        long bytes = bytesAlocados() - bytesAntes;
+        return new long[] { execucoes, agora - inicio, bytes };
+    }
+
+    /**
+     * Bytes alocados pela thread atual até agora (-1 se a JVM não informa)
+     */
+    private static long bytesAlocados() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static long quantidadeColetas() {
+        long total = 0;
+        for (GarbageCollectorMXBean coletor : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, coletor.getCollectionCount());
+        }
+        return total;
+    }
+
+    private static long tempoColetasMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean coletor : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, coletor.getCollectionTime());
+        }
+        return total;
+    }
+
+    /**
+     * Resultado da medição de uma operação
+     */
+    public static class Resultado {
+        private final String nome;
+        private final double nanosPorOperacao;
+        private final double desvioPadrao;
+        private final double bytesPorOperacao;
+        private final double bytesPorSegundo;
+        private final long coletas;
+        private final long tempoColetasMillis;
+
+        Resultado(String nome, double[] nanosPorIteracao, double bytesPorOperacao, double bytesPorSegundo,
+                long coletas, long tempoColetasMillis) {
+            this.nome = nome;
+            double soma = 0;
+            for (double valor : nanosPorIteracao) {
+                soma += valor;
+            }
+            this.nanosPorOperacao = soma / nanosPorIteracao.length;
+            double somaQuadrados = 0;
+            for (double valor : nanosPorIteracao) {
+                somaQuadrados += (valor - nanosPorOperacao) * (valor - nanosPorOperacao);
+            }
+            this.desvioPadrao = Math.sqrt(somaQuadrados / Math.max(1, nanosPorIteracao.length - 1));
+            this.bytesPorOperacao = bytesPorOperacao;
+            this.bytesPorSegundo = bytesPorSegundo;
+            this.coletas = coletas;
+            this.tempoColetasMillis = tempoColetasMillis;
+        }
+
+        public String getNome() {
+            return nome;
+        }
+
+        /** Tempo médio por execução em nanossegundos */
+        public double getNanosPorOperacao() {
+            return nanosPorOperacao;
+        }
+
+        /** Bytes alocados por execução (negativo se a JVM não informa) */
+        public double getBytesPorOperacao() {
+            return bytesPorOperacao;
+        }
+
+        /** Taxa de alocação em bytes por segundo */
+        public double getBytesPorSegundo() {
+            return bytesPorSegundo;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-50s %14.1f +- %10.1f ns/op %14.1f B/op %9.1f MB/s  gc: %d (%d ms)",
+                    nome, nanosPorOperacao, desvioPadrao, bytesPorOperacao, bytesPorSegundo / (1 << 20), coletas,
+                    tempoColetasMillis);
+        }
+    }
+}
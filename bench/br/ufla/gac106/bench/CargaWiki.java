@@ -0,0 +1,221 @@
+package br.ufla.gac106.bench;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import br.ufla.gac106.javaWikiAPI.MetricasMemoria;
+import br.ufla.gac106.javaWikiAPI.PaginaWiki;
+import br.ufla.gac106.javaWikiAPI.Wiki;
+
+/**
+ * Teste de carga da classe Wiki contra o ServidorMediaWikiFalso (sem acesso à
+ * rede): várias threads chamam consultarPagina e/ou pesquisarTitulosDePaginas
+ * ao mesmo tempo, e são medidas a vazão e a latência (inclusive a latência de
+ * cauda) para cada nível de concorrência. As respostas também são conferidas,
+ * de forma que o teste serve como teste de regressão da Wiki.
+ * 
+ * Configurações (propriedades do sistema):
+ * - carga.concorrencia: níveis de concorrência (padrão 1,4,16,64)
+ * - carga.duracao / carga.aquecimento: duração em ms de cada nível e do
+ *   aquecimento (padrão 10000 / 2000)
+ * - carga.operacao: consulta, pesquisa ou misto (padrão misto)
+ * - carga.imagens: se true, também baixa as imagens das páginas consultadas
+ * - carga.paginas: quantidade de páginas sintéticas do servidor (padrão 10000)
+ * - carga.latencia: latência do servidor em ms, ex: 20 ou 10-50 (padrão 20)
+ * - carga.erros / carga.statusErro: fração de respostas com erro e o status
+ *   delas (padrão 0 / 503)
+ * - carga.endpoint: se definida, usa essa Wiki em vez de iniciar o servidor
+ *   falso (ex: o servidor iniciado em outro processo)
+ */
+public class CargaWiki {
+    // Fração das consultas feitas por títulos que não existem
+    private static final double FRACAO_INEXISTENTES = 0.05;
+
+    public static void main(String[] args) throws Exception {
+        int[] niveis = Benchmark.tamanhos("carga.concorrencia", "1,4,16,64");
+        long duracao = Long.getLong("carga.duracao", 10_000);
+        long aquecimento = Long.getLong("carga.aquecimento", 2_000);
+        String operacao = System.getProperty("carga.operacao", "misto");
+        boolean imagens = Boolean.getBoolean("carga.imagens");
+        String[] latencia = System.getProperty("carga.latencia", "20").split("-");
+
+        try (ServidorMediaWikiFalso servidor = ServidorMediaWikiFalso.builder()
+                .paginasSinteticas(Integer.getInteger("carga.paginas", 10_000))
+                .latencia(Duration.ofMillis(Long.parseLong(latencia[0])), Duration.ofMillis(Long.parseLong(latencia[latencia.length - 1])))
+                .erros(Double.parseDouble(System.getProperty("carga.erros", "0")), Integer.getInteger("carga.statusErro", 503))
+                .iniciar()) {
+            String endpoint = System.getProperty("carga.endpoint", servidor.getEndpoint());
+            List<String> titulos = servidor.getTitulos();
+            System.out.println("Endpoint: " + endpoint + " (" + titulos.size() + " páginas), operação: " + operacao);
+
+            for (int concorrencia : niveis) {
+                MetricasMemoria metricas = new MetricasMemoria();
+                // O servidor falso só fala HTTP/1.1
+                try (Wiki wiki = Wiki.builder().endpoint(endpoint).http2(false).metricas(metricas)
+                        .tamanhoPoolConexoes(concorrencia).build()) {
+                    executar(wiki, titulos, operacao, imagens, concorrencia, aquecimento);
+                    metricas.zerar();
+                    System.out.println(executar(wiki, titulos, operacao, imagens, concorrencia, duracao));
+                    System.out.println(metricas);
+                }
+            }
+        }
+    }
+
+    /**
+     * Executa a carga com a concorrência e duração passadas
+     * 
+     * @return O resultado da execução
+     */
+    public static ResultadoCarga executar(Wiki wiki, List<String> titulos, String operacao, boolean imagens,
+            int concorrencia, long duracaoMillis) throws InterruptedException {
+        long[][] latencias = new long[concorrencia][];
+        int[] quantidades = new int[concorrencia];
+        LongAdder erros = new LongAdder();
+        LongAdder incorretas = new LongAdder();
+        CountDownLatch inicio = new CountDownLatch(1);
+        Thread[] threads = new Thread[concorrencia];
+
+        long fim = System.nanoTime() + duracaoMillis * 1_000_000 + 50_000_000;
+        for (int t = 0; t < concorrencia; t++) {
+            int indice = t;
+            threads[t] = new Thread(() -> {
+                long[] minhas = new long[1024];
+                int quantidade = 0;
+                ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+                try {
+                    inicio.await();
+                }
+                catch (InterruptedException e) {
+                    return;
+                }
+                while (System.nanoTime() < fim) {
+                    long antes = System.nanoTime();
+                    try {
+                        boolean pesquisa = operacao.equals("pesquisa") || (operacao.equals("misto") && aleatorio.nextBoolean());
+                        if (!(pesquisa ? pesquisar(wiki, titulos, aleatorio) : consultar(wiki, titulos, imagens, aleatorio))) {
+                            incorretas.increment();
+                        }
+                    }
+                    catch (Exception e) {
+                        erros.increment();
+                    }
+                    if (quantidade == minhas.length) {
+                        minhas = Arrays.copyOf(minhas, quantidade * 2);
+                    }
+                    minhas[quantidade++] = System.nanoTime() - antes;
+                }
+                latencias[indice] = minhas;
+                quantidades[indice] = quantidade;
+            }, "carga-" + t);
+            threads[t].start();
+        }
+
+        long comeco = System.nanoTime();
+        inicio.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long decorrido = System.nanoTime() - comeco;
+
+        int total = 0;
+        for (int quantidade : quantidades) {
+            total += quantidade;
+        }
+        long[] todas = new long[total];
+        int posicao = 0;
+        for (int t = 0; t < concorrencia; t++) {
+            System.arraycopy(latencias[t], 0, todas, posicao, quantidades[t]);
+            posicao += quantidades[t];
+        }
+        Arrays.sort(todas);
+        return new ResultadoCarga(concorrencia, todas, decorrido, erros.sum(), incorretas.sum());
+    }
+
+    /**
+     * Consulta uma página sorteada e confere o resultado
+     * 
+     * @return true se o resultado está correto
+     */
+    private static boolean consultar(Wiki wiki, List<String> titulos, boolean imagens, ThreadLocalRandom aleatorio) throws Exception {
+        if (aleatorio.nextDouble() < FRACAO_INEXISTENTES) {
+            return wiki.consultarPagina("Inexistente " + aleatorio.nextInt(1_000_000)) == null;
+        }
+        String titulo = titulos.get(aleatorio.nextInt(titulos.size()));
+        PaginaWiki pagina = wiki.consultarPagina(titulo);
+        if (pagina != null && imagens && pagina.temImagem()) {
+            return pagina.getBytesImagem() != null;
+        }
+        return pagina != null && pagina.getTitulo().equals(titulo);
+    }
+
+    /**
+     * Pesquisa pelo prefixo de um título sorteado e confere o resultado
+     * 
+     * @return true se o resultado está correto
+     */
+    private static boolean pesquisar(Wiki wiki, List<String> titulos, ThreadLocalRandom aleatorio) throws Exception {
+        String titulo = titulos.get(aleatorio.nextInt(titulos.size()));
+        String prefixo = titulo.substring(0, Math.min(titulo.length(), 1 + aleatorio.nextInt(6)));
+        List<String> encontrados = wiki.pesquisarTitulosDePaginas(prefixo);
+        return !encontrados.isEmpty() && encontrados.stream().allMatch(t -> t.toLowerCase().startsWith(prefixo.toLowerCase()));
+    }
+
+    /**
+     * Resultado de uma execução da carga
+     */
+    public static class ResultadoCarga {
+        private final int concorrencia;
+        private final long[] latenciasOrdenadas;
+        private final long duracaoNanos;
+        private final long erros;
+        private final long incorretas;
+
+        ResultadoCarga(int concorrencia, long[] latenciasOrdenadas, long duracaoNanos, long erros, long incorretas) {
+            this.concorrencia = concorrencia;
+            this.latenciasOrdenadas = latenciasOrdenadas;
+            this.duracaoNanos = duracaoNanos;
+            this.erros = erros;
+            this.incorretas = incorretas;
+        }
+
+        /** Operações concluídas por segundo */
+        public double getVazao() {
+            return latenciasOrdenadas.length * 1e9 / duracaoNanos;
+        }
+
+        /**
+         * Percentil da latência das operações em milissegundos
+         * 
+         * @param percentil Percentil desejado (entre 0 e 100)
+         */
+        public double percentilMillis(double percentil) {
+            if (latenciasOrdenadas.length == 0) {
+                return 0;
+            }
+            int indice = (int) Math.ceil(latenciasOrdenadas.length * percentil / 100) - 1;
+            return latenciasOrdenadas[Math.max(0, Math.min(indice, latenciasOrdenadas.length - 1))] / 1e6;
+        }
+
+        public long getErros() {
+            return erros;
+        }
+
+        public long getIncorretas() {
+            return incorretas;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "concorrência=%-4d ops=%-8d vazão=%9.1f ops/s  p50=%7.2fms p90=%7.2fms p99=%7.2fms p99.9=%7.2fms max=%7.2fms  erros=%d incorretas=%d",
+                    concorrencia, latenciasOrdenadas.length, getVazao(), percentilMillis(50), percentilMillis(90),
+                    percentilMillis(99), percentilMillis(99.9), percentilMillis(100), erros, incorretas);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package br.ufla.gac106.bench;
+
+import java.util.List;
+
+import br.ufla.gac106.javaWikiAPI.BenchmarkWiki;
+import br.ufla.gac106.s2022_2.base.BenchmarkAvaliacoes;
+import br.ufla.gac106.s2022_2.base.estatisticas.BenchmarkEstatisticas;
+import br.ufla.gac106.s2022_2.base.relatorios.BenchmarkGrafico;
+
+/**
+ * Executa os benchmarks do projeto. Os benchmarks ficam no diretório bench (nos
+ * mesmos pacotes das classes medidas, para que possam acessar métodos internos)
+ * e usam os dados do diretório bench/fixtures.
+ * 
+ * Para compilar e executar (a partir da raiz do projeto):
+ * 
+ * <pre>
+ * javac -encoding UTF-8 -cp "lib/*" -d bin $(find src bench -name "*.java")
+ * java -cp "bin:lib/*" br.ufla.gac106.bench.ExecutarBenchmarks [wiki] [avaliacoes] [estatisticas] [grafico]
+ * </pre>
+ * 
+ * Sem argumentos, todos os grupos de benchmarks são executados. As iterações
+ * podem ser configuradas pelas propriedades -Dbench.aquecimento, -Dbench.medicao
+ * e -Dbench.duracao (em ms); os tamanhos medidos, por -Dbench.tamanhos (ex:
+ * -Dbench.tamanhos=1000,100000), -Dbench.tamanhosEstatisticas e
+ * -Dbench.tamanhosGrafico. Para medir 10^7 avaliações, use um heap de pelo
+ * menos 2 GB (-Xmx2g).
+ */
+public class ExecutarBenchmarks {
+    public static void main(String[] args) throws Exception {
+        List<String> grupos = (args.length == 0) ? List.of("wiki", "avaliacoes", "estatisticas", "grafico") : List.of(args);
+        Benchmark benchmark = Benchmark.dasPropriedades();
+
+        if (grupos.contains("wiki")) {
+            BenchmarkWiki.executar(benchmark);
+        }
+        if (grupos.contains("avaliacoes")) {
+            BenchmarkAvaliacoes.executar(benchmark);
+        }
+        if (grupos.contains("estatisticas")) {
+            BenchmarkEstatisticas.executar(benchmark);
+        }
+        if (grupos.contains("grafico")) {
+            BenchmarkGrafico.executar(benchmark);
+        }
+    }
+}
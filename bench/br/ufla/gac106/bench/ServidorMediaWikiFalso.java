@@ -0,0 +1,633 @@
+package br.ufla.gac106.bench;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+import javax.imageio.ImageIO;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Servidor HTTP local que imita a API de uma Wiki (MediaWiki), para testar e
+ * medir o desempenho da classe Wiki sem acessar a rede.
+ * 
+ * Atende às ações usadas pela classe Wiki: action=query (com prop=extracts e
+ * pageimages, títulos normalizados, redirecionamentos e páginas inexistentes)
+ * e action=opensearch (pesquisa pelo prefixo do título), sempre no formato JSON
+ * da versão 2. As páginas vêm de um arquivo de respostas gravado (por padrão
+ * bench/fixtures/consulta.json), opcionalmente completadas com páginas
+ * sintéticas, e as imagens (thumbnails) são geradas e servidas pelo próprio
+ * servidor.
+ * 
+ * A latência das respostas e a injeção de erros (ex: 503 com Retry-After) são
+ * configuráveis. Use ServidorMediaWikiFalso.builder() para configurar e iniciar
+ * o servidor, e getEndpoint() como endpoint da Wiki.
+ */
+public class ServidorMediaWikiFalso implements Closeable {
+    private static final String CARACTERES_INVALIDOS = "#<>[]{}|";
+    // Instante da última atualização das páginas que não foram editadas
+    private static final Instant INSTANTE_INICIAL = Instant.parse("2024-01-01T00:00:00Z");
+
+    private final HttpServer servidor;
+    private final ExecutorService executor;
+    // Páginas indexadas pelo título
+    private final Map<String, PaginaFalsa> paginas;
+    // Títulos de redirecionamento e os títulos de destino
+    private final Map<String, String> redirecionamentos;
+    // Títulos indexados em minúsculas (para a pesquisa por prefixo)
+    private final TreeMap<String, String> indicePesquisa = new TreeMap<>();
+    private final long latenciaMinimaNanos;
+    private final long latenciaMaximaNanos;
+    private final double taxaErros;
+    private final int statusErro;
+    private final Duration retryAfter;
+    // Imagens já geradas, indexadas pelo caminho
+    private final Map<String, byte[]> thumbnails = new ConcurrentHashMap<>();
+    private final LongAdder requisicoes = new LongAdder();
+    // Revisão atribuída à próxima edição (acima dos identificadores das páginas)
+    private final AtomicLong proximaRevisao = new AtomicLong(100_000_000);
+    private final LongAdder errosInjetados = new LongAdder();
+
+    private ServidorMediaWikiFalso(Builder builder) throws IOException {
+        paginas = new LinkedHashMap<>();
+        redirecionamentos = new HashMap<>();
+        carregarFixture(builder.fixture != null ? builder.fixture : Benchmark.lerFixture("consulta.json"));
+        for (int i = 0; i < builder.paginasSinteticas; i++) {
+            PaginaFalsa pagina = new PaginaFalsa(1_000_000 + i, "Página sintética " + i,
+                    "Página sintética " + i + " é uma página gerada para testes de carga. " + "Lorem ipsum dolor sit amet. ".repeat(1 + i % 12),
+                    i % 5 != 0, 1 + (i % 3) / 2.0);
+            paginas.put(pagina.titulo, pagina);
+        }
+        for (String titulo : paginas.keySet()) {
+            indicePesquisa.put(titulo.toLowerCase(), titulo);
+        }
+        for (String titulo : redirecionamentos.keySet()) {
+            indicePesquisa.putIfAbsent(titulo.toLowerCase(), redirecionamentos.get(titulo));
+        }
+
+        latenciaMinimaNanos = builder.latenciaMinima.toNanos();
+        latenciaMaximaNanos = Math.max(latenciaMinimaNanos, builder.latenciaMaxima.toNanos());
+        taxaErros = builder.taxaErros;
+        statusErro = builder.statusErro;
+        retryAfter = builder.retryAfter;
+
+        // Sem isso, o algoritmo de Nagle somado ao ACK atrasado do cliente acrescenta
+        // dezenas de milissegundos às respostas (cabeçalhos e corpo são enviados separados)
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        executor = Executors.newCachedThreadPool(tarefa -> {
+            Thread thread = new Thread(tarefa, "servidor-mediawiki-falso");
+            thread.setDaemon(true);
+            return thread;
+        });
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", builder.porta), 0);
+        servidor.createContext("/w/api.php", this::atenderApi);
+        servidor.createContext("/thumb/", this::atenderThumbnail);
+        servidor.setExecutor(executor);
+        servidor.start();
+    }
+
+    /**
+     * Cria um builder para configurar e iniciar o servidor
+     * 
+     * @return O builder, com as configurações padrões (sem latência e sem erros)
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Endpoint da API do servidor (a ser passado para a Wiki)
+     * 
+     * @return O endpoint
+     */
+    public String getEndpoint() {
+        return "http://127.0.0.1:" + servidor.getAddress().getPort() + "/w/api.php";
+    }
+
+    /**
+     * Títulos de todas as páginas existentes no servidor
+     * 
+     * @return Os títulos
+     */
+    public List<String> getTitulos() {
+        return Collections.unmodifiableList(new ArrayList<>(paginas.keySet()));
+    }
+
+    /**
+     * Quantidade de requisições recebidas (inclusive de imagens)
+     * 
+     * @return A quantidade
+     */
+    public long getRequisicoes() {
+        return requisicoes.sum();
+    }
+
+    /**
+     * Quantidade de erros injetados nas respostas
+     * 
+     * @return A quantidade
+     */
+    public long getErrosInjetados() {
+        return errosInjetados.sum();
+    }
+
+    /**
+     * Encerra o servidor
+     */
+    @Override
+    public void close() {
+        servidor.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Carrega as páginas e redirecionamentos de uma resposta gravada de
+     * action=query (formatversion=2)
+     */
+    private void carregarFixture(byte[] json) {
+        JsonObject consulta = JsonParser.parseString(new String(json, StandardCharsets.UTF_8)).getAsJsonObject().getAsJsonObject("query");
+        for (JsonElement elemento : consulta.getAsJsonArray("pages")) {
+            JsonObject pagina = elemento.getAsJsonObject();
+            if (!pagina.has("pageid")) {
+                continue;
+            }
+            JsonObject thumbnail = pagina.getAsJsonObject("thumbnail");
+            double proporcao = (thumbnail == null) ? 1
+                    : thumbnail.get("height").getAsDouble() / thumbnail.get("width").getAsDouble();
+            PaginaFalsa paginaFalsa = new PaginaFalsa(pagina.get("pageid").getAsInt(), pagina.get("title").getAsString(),
+                    pagina.has("extract") ? pagina.get("extract").getAsString() : "", thumbnail != null, proporcao);
+            paginas.put(paginaFalsa.titulo, paginaFalsa);
+        }
+        JsonArray redirecoes = consulta.getAsJsonArray("redirects");
+        if (redirecoes != null) {
+            for (JsonElement elemento : redirecoes) {
+                redirecionamentos.put(elemento.getAsJsonObject().get("from").getAsString(), elemento.getAsJsonObject().get("to").getAsString());
+            }
+        }
+    }
+
+    /**
+     * Atende às requisições da API
+     */
+    private void atenderApi(HttpExchange troca) throws IOException {
+        try (troca) {
+            requisicoes.increment();
+            aguardarLatencia();
+            if (injetarErro(troca)) {
+                return;
+            }
+
+            Map<String, String> parametros = lerParametros(troca.getRequestURI().getRawQuery());
+            StringWriter texto = new StringWriter();
+            JsonWriter escritor = new JsonWriter(texto);
+            int status = 200;
+            switch (parametros.getOrDefault("action", "")) {
+                case "query":
+                    escreverConsulta(escritor, parametros);
+                    break;
+                case "opensearch":
+                    escreverPesquisa(escritor, parametros);
+                    break;
+                default:
+                    status = 400;
+                    escritor.beginObject().name("error").beginObject().name("code").value("badvalue").endObject().endObject();
+            }
+            escritor.flush();
+
+            troca.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+            responder(troca, status, texto.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Escreve a resposta de action=query
+     */
+    private void escreverConsulta(JsonWriter escritor, Map<String, String> parametros) throws IOException {
+        String prop = parametros.getOrDefault("prop", "");
+        boolean comResumo = prop.contains("extracts");
+        boolean comImagem = prop.contains("pageimages");
+        int larguraThumbnail = Integer.parseInt(parametros.getOrDefault("pithumbsize", "50"));
+
+        Map<String, String> normalizacoes = new LinkedHashMap<>();
+        Map<String, String> redirecoes = new LinkedHashMap<>();
+        Map<String, PaginaFalsa> resultado = new LinkedHashMap<>();
+        for (String titulo : parametros.getOrDefault("titles", "").split("\\|")) {
+            if (titulo.isEmpty()) {
+                continue;
+            }
+            String normalizado = normalizar(titulo);
+            if (!normalizado.equals(titulo)) {
+                normalizacoes.put(titulo, normalizado);
+            }
+            String destino = redirecionamentos.get(normalizado);
+            if (destino != null) {
+                redirecoes.put(normalizado, destino);
+                normalizado = destino;
+            }
+            resultado.putIfAbsent(normalizado, paginas.get(normalizado));
+        }
+
+        escritor.beginObject();
+        escritor.name("batchcomplete").value(true);
+        escritor.name("query").beginObject();
+        escreverMapeamentos(escritor, "normalized", normalizacoes);
+        escreverMapeamentos(escritor, "redirects", redirecoes);
+        escritor.name("pages").beginArray();
+        for (Map.Entry<String, PaginaFalsa> item : resultado.entrySet()) {
+            PaginaFalsa pagina = item.getValue();
+            escritor.beginObject();
+            if (pagina == null) {
+                escritor.name("title").value(item.getKey());
+                if (item.getKey().chars().anyMatch(c -> CARACTERES_INVALIDOS.indexOf(c) >= 0)) {
+                    escritor.name("invalidreason").value("O título solicitado contém caracteres inválidos.");
+                    escritor.name("invalid").value(true);
+                } else {
+                    escritor.name("ns").value(0);
+                    escritor.name("missing").value(true);
+                }
+            } else {
+                escritor.name("pageid").value(pagina.id);
+                escritor.name("ns").value(0);
+                escritor.name("title").value(pagina.titulo);
+                if (comResumo) {
+                    escritor.name("extract").value(pagina.resumo);
+                }
+                if (prop.contains("info")) {
+                    escritor.name("lastrevid").value(pagina.revisao);
+                    escritor.name("touched").value(pagina.atualizadaEm.toString());
+                }
+                if (comImagem && pagina.temImagem) {
+                    int altura = Math.max(1, (int) Math.round(larguraThumbnail * pagina.proporcao));
+                    escritor.name("thumbnail").beginObject()
+                            .name("source").value(getEndpoint().replace("/w/api.php", "/thumb/" + pagina.id + "/" + larguraThumbnail + "px.png"))
+                            .name("width").value(larguraThumbnail)
+                            .name("height").value(altura)
+                            .endObject();
+                    escritor.name("pageimage").value(pagina.titulo.replace(' ', '_') + ".png");
+                }
+            }
+            escritor.endObject();
+        }
+        escritor.endArray();
+        escritor.endObject();
+        escritor.endObject();
+    }
+
+    private static void escreverMapeamentos(JsonWriter escritor, String nome, Map<String, String> mapeamentos) throws IOException {
+        if (mapeamentos.isEmpty()) {
+            return;
+        }
+        escritor.name(nome).beginArray();
+        for (Map.Entry<String, String> mapeamento : mapeamentos.entrySet()) {
+            escritor.beginObject().name("from").value(mapeamento.getKey()).name("to").value(mapeamento.getValue()).endObject();
+        }
+        escritor.endArray();
+    }
+
+    /**
+     * Escreve a resposta de action=opensearch (títulos que começam com o termo)
+     */
+    private void escreverPesquisa(JsonWriter escritor, Map<String, String> parametros) throws IOException {
+        String termo = parametros.getOrDefault("search", "");
+        int limite = Integer.parseInt(parametros.getOrDefault("limit", "10"));
+        String prefixo = termo.toLowerCase();
+
+        List<String> titulos = new ArrayList<>();
+        for (String titulo : indicePesquisa.subMap(prefixo, prefixo + Character.MAX_VALUE).values()) {
+            if (titulos.size() >= limite) {
+                break;
+            }
+            if (!titulos.contains(titulo)) {
+                titulos.add(titulo);
+            }
+        }
+
+        escritor.beginArray();
+        escritor.value(termo);
+        escritor.beginArray();
+        for (String titulo : titulos) {
+            escritor.value(titulo);
+        }
+        escritor.endArray();
+        escritor.beginArray();
+        for (int i = 0; i < titulos.size(); i++) {
+            escritor.value("");
+        }
+        escritor.endArray();
+        escritor.beginArray();
+        for (String titulo : titulos) {
+            escritor.value("https://pt.wikipedia.org/wiki/" + titulo.replace(' ', '_'));
+        }
+        escritor.endArray();
+        escritor.endArray();
+    }
+
+    /**
+     * Atende às requisições de imagens (/thumb/{id}/{largura}px.png)
+     */
+    private void atenderThumbnail(HttpExchange troca) throws IOException {
+        try (troca) {
+            requisicoes.increment();
+            aguardarLatencia();
+            if (injetarErro(troca)) {
+                return;
+            }
+
+            String caminho = troca.getRequestURI().getPath();
+            byte[] imagem;
+            try {
+                imagem = thumbnails.computeIfAbsent(caminho, ServidorMediaWikiFalso::gerarThumbnail);
+            }
+            catch (RuntimeException e) {
+                troca.sendResponseHeaders(404, -1);
+                return;
+            }
+            troca.getResponseHeaders().add("Content-Type", "image/png");
+            troca.sendResponseHeaders(200, imagem.length);
+            troca.getResponseBody().write(imagem);
+        }
+    }
+
+    /**
+     * Gera a imagem PNG correspondente ao caminho /thumb/{id}/{largura}px.png
+     */
+    private static byte[] gerarThumbnail(String caminho) {
+        String[] partes = caminho.split("/");
+        int id = Integer.parseInt(partes[2]);
+        int largura = Math.min(2000, Integer.parseInt(partes[3].replace("px.png", "")));
+        int altura = Math.max(1, largura * (2 + id % 3) / 3);
+
+        BufferedImage imagem = new BufferedImage(largura, altura, BufferedImage.TYPE_INT_RGB);
+        Graphics2D grafico = imagem.createGraphics();
+        try {
+            grafico.setColor(new Color(Color.HSBtoRGB((id % 360) / 360f, 0.6f, 0.9f)));
+            grafico.fillRect(0, 0, largura, altura);
+            grafico.setColor(Color.DARK_GRAY);
+            grafico.drawString(String.valueOf(id), 5, Math.min(altura - 5, 20));
+        }
+        finally {
+            grafico.dispose();
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(imagem, "png", bytes);
+        }
+        catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Aguarda a latência configurada (sorteada entre a mínima e a máxima)
+     */
+    private void aguardarLatencia() {
+        long latencia = (latenciaMaximaNanos == latenciaMinimaNanos) ? latenciaMinimaNanos
+                : ThreadLocalRandom.current().nextLong(latenciaMinimaNanos, latenciaMaximaNanos + 1);
+        if (latencia > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(latencia);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Sorteia se a resposta deve ser um erro e, nesse caso, responde com ele
+     * 
+     * @return true se um erro foi respondido
+     */
+    private boolean injetarErro(HttpExchange troca) throws IOException {
+        if (taxaErros <= 0 || ThreadLocalRandom.current().nextDouble() >= taxaErros) {
+            return false;
+        }
+        errosInjetados.increment();
+        if (retryAfter != null) {
+            troca.getResponseHeaders().add("Retry-After", String.valueOf(retryAfter.toSeconds()));
+        }
+        troca.sendResponseHeaders(statusErro, -1);
+        return true;
+    }
+
+    /**
+     * Envia a resposta, compactando-a (gzip) se o cliente aceitar
+     */
+    private static void responder(HttpExchange troca, int status, byte[] corpo) throws IOException {
+        String aceita = troca.getRequestHeaders().getFirst("Accept-Encoding");
+        if (aceita != null && aceita.contains("gzip")) {
+            ByteArrayOutputStream compactado = new ByteArrayOutputStream();
+            try (OutputStream gzip = new GZIPOutputStream(compactado)) {
+                gzip.write(corpo);
+            }
+            corpo = compactado.toByteArray();
+            troca.getResponseHeaders().add("Content-Encoding", "gzip");
+        }
+        troca.sendResponseHeaders(status, corpo.length);
+        troca.getResponseBody().write(corpo);
+    }
+
+    private static Map<String, String> lerParametros(String query) {
+        Map<String, String> parametros = new HashMap<>();
+        if (query != null) {
+            for (String parametro : query.split("&")) {
+                String[] chaveValor = parametro.split("=", 2);
+                parametros.put(URLDecoder.decode(chaveValor[0], StandardCharsets.UTF_8),
+                        chaveValor.length > 1 ? URLDecoder.decode(chaveValor[1], StandardCharsets.UTF_8) : "");
+            }
+        }
+        return parametros;
+    }
+
+    /**
+     * Normaliza o título da mesma forma que a Wiki ('_' trocado por espaço,
+     * espaços repetidos e nas extremidades removidos, primeira letra maiúscula)
+     */
+    private static String normalizar(String titulo) {
+        String normalizado = titulo.replace('_', ' ').trim().replaceAll("\\s+", " ");
+        if (normalizado.isEmpty()) {
+            return normalizado;
+        }
+        int primeiraLetra = normalizado.codePointAt(0);
+        return new StringBuilder().appendCodePoint(Character.toUpperCase(primeiraLetra))
+                .append(normalizado, Character.charCount(primeiraLetra), normalizado.length()).toString();
+    }
+
+    /**
+     * Simula uma edição da página: troca o resumo e cria uma nova revisão
+     * 
+     * @param titulo     Título da página
+     * @param novoResumo Novo resumo da página
+     * 
+     * @return true se a página existe
+     */
+    public boolean editar(String titulo, String novoResumo) {
+        PaginaFalsa pagina = paginas.get(titulo);
+        if (pagina == null) {
+            return false;
+        }
+        synchronized (pagina) {
+            pagina.resumo = novoResumo;
+            pagina.revisao = proximaRevisao.incrementAndGet();
+            pagina.atualizadaEm = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        }
+        return true;
+    }
+
+    /**
+     * Página servida pelo servidor
+     */
+    private static class PaginaFalsa {
+        private final int id;
+        private final String titulo;
+        private volatile String resumo;
+        private final boolean temImagem;
+        // Altura da imagem dividida pela largura
+        private final double proporcao;
+        // Revisão atual e instante da última atualização (mudam em editar)
+        private volatile long revisao;
+        private volatile Instant atualizadaEm = INSTANTE_INICIAL;
+
+        public PaginaFalsa(int id, String titulo, String resumo, boolean temImagem, double proporcao) {
+            this.id = id;
+            this.titulo = titulo;
+            this.resumo = resumo;
+            this.temImagem = temImagem;
+            this.proporcao = proporcao;
+            this.revisao = id;
+        }
+    }
+
+    /**
+     * Classe que permite configurar e iniciar o servidor.
+     * Todos os métodos retornam o próprio builder, para que possam ser encadeados.
+     */
+    public static class Builder {
+        private int porta = 0;
+        private byte[] fixture = null;
+        private int paginasSinteticas = 0;
+        private Duration latenciaMinima = Duration.ZERO;
+        private Duration latenciaMaxima = Duration.ZERO;
+        private double taxaErros = 0;
+        private int statusErro = 503;
+        private Duration retryAfter = null;
+
+        private Builder() {
+        }
+
+        /**
+         * Porta do servidor (o padrão é 0, ou seja, uma porta livre qualquer)
+         */
+        public Builder porta(int porta) {
+            this.porta = porta;
+            return this;
+        }
+
+        /**
+         * Resposta gravada de action=query (formatversion=2) de onde vêm as
+         * páginas (o padrão é bench/fixtures/consulta.json)
+         */
+        public Builder fixture(byte[] fixture) {
+            this.fixture = fixture;
+            return this;
+        }
+
+        /**
+         * Quantidade de páginas sintéticas ("Página sintética 0", "Página
+         * sintética 1", ...) adicionadas às páginas da resposta gravada
+         */
+        public Builder paginasSinteticas(int paginasSinteticas) {
+            this.paginasSinteticas = paginasSinteticas;
+            return this;
+        }
+
+        /**
+         * Latência de cada resposta (sorteada entre a mínima e a máxima)
+         */
+        public Builder latencia(Duration minima, Duration maxima) {
+            this.latenciaMinima = minima;
+            this.latenciaMaxima = maxima;
+            return this;
+        }
+
+        /**
+         * Fração das requisições que são respondidas com erro
+         * 
+         * @param taxaErros  Fração entre 0 e 1
+         * @param statusErro Código de status HTTP dos erros (ex: 503 ou 429)
+         */
+        public Builder erros(double taxaErros, int statusErro) {
+            this.taxaErros = taxaErros;
+            this.statusErro = statusErro;
+            return this;
+        }
+
+        /**
+         * Tempo enviado no cabeçalho Retry-After das respostas de erro (o padrão
+         * é não enviar o cabeçalho)
+         */
+        public Builder retryAfter(Duration retryAfter) {
+            this.retryAfter = retryAfter;
+            return this;
+        }
+
+        /**
+         * Inicia o servidor com as configurações definidas.
+         * Lembre-se de usar o método close para encerrá-lo.
+         * 
+         * @return O servidor iniciado
+         */
+        public ServidorMediaWikiFalso iniciar() throws IOException {
+            return new ServidorMediaWikiFalso(this);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        ServidorMediaWikiFalso servidor = builder()
+                .porta(Integer.getInteger("servidor.porta", 8089))
+                .paginasSinteticas(Integer.getInteger("servidor.paginas", 10_000))
+                .latencia(Duration.ofMillis(Long.getLong("servidor.latenciaMinima", 0)),
+                          Duration.ofMillis(Long.getLong("servidor.latenciaMaxima", 0)))
+                .erros(Double.parseDouble(System.getProperty("servidor.erros", "0")), Integer.getInteger("servidor.statusErro", 503))
+                .iniciar();
+        System.out.println("Servidor MediaWiki falso em " + servidor.getEndpoint() + " (" + servidor.getTitulos().size() + " páginas)");
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,50 @@
+package br.ufla.gac106.javaWikiAPI;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+import com.google.gson.stream.JsonReader;
+
+import br.ufla.gac106.bench.Benchmark;
+
+/**
+ * Benchmarks do processamento das respostas da API da Wiki (sem acesso à
+ * rede), usando respostas no formato da API guardadas em bench/fixtures
+ */
+public class BenchmarkWiki {
+    /**
+     * Executa os benchmarks
+     * 
+     * @param benchmark Benchmark usado nas medições
+     */
+    public static void executar(Benchmark benchmark) throws Exception {
+        byte[] consulta = Benchmark.lerFixture("consulta.json");
+        byte[] pesquisa = Benchmark.lerFixture("pesquisa.json");
+        String textoConsulta = new String(consulta, StandardCharsets.UTF_8);
+
+        try (Wiki wiki = Wiki.builder().build()) {
+            benchmark.medir("Wiki.processarRespostaConsulta", () -> {
+                Wiki.RespostaConsulta resposta = new Wiki.RespostaConsulta();
+                wiki.processarRespostaConsulta(leitor(consulta), resposta);
+                return resposta;
+            });
+
+            benchmark.medir("Wiki.processarRespostaPesquisa", () -> wiki.processarRespostaPesquisa(leitor(pesquisa)));
+        }
+
+        benchmark.medir("JSONUtils.stringAmigavel", () -> JSONUtils.stringAmigavel(textoConsulta));
+    }
+
+    /**
+     * Cria um leitor JSON sobre os bytes passados (da mesma forma que a Wiki lê
+     * o corpo das respostas)
+     */
+    private static JsonReader leitor(byte[] json) {
+        return new JsonReader(new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8));
+    }
+
+    public static void main(String[] args) throws Exception {
+        executar(Benchmark.dasPropriedades());
+    }
+}
@@ -0,0 +1,80 @@
+package br.ufla.gac106.s2022_2.base;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Conjunto de avaliações geradas aleatoriamente, usado nos benchmarks
+ */
+public class AvaliacoesSinteticas implements Avaliacoes {
+    private final List<Avaliacao> avaliacoes;
+
+    /**
+     * Gera as avaliações. Os nomes dos itens se repetem a cada 1000 itens, para
+     * que a memória ocupada seja dominada pelas avaliações e não pelos nomes.
+     * 
+     * @param quantidade Quantidade de avaliações
+     * @param semente    Semente do gerador aleatório (a mesma semente gera as
+     *                   mesmas avaliações)
+     */
+    public AvaliacoesSinteticas(int quantidade, long semente) {
+        this(quantidade, semente, 1000);
+    }
+
+    /**
+     * Gera as avaliações
+     * 
+     * @param quantidade      Quantidade de avaliações
+     * @param semente         Semente do gerador aleatório (a mesma semente gera
+     *                        as mesmas avaliações)
+     * @param quantidadeNomes Quantidade de nomes distintos de itens (os nomes se
+     *                        repetem a cada quantidadeNomes itens)
+     */
+    public AvaliacoesSinteticas(int quantidade, long semente, int quantidadeNomes) {
+        String[] nomes = new String[Math.max(1, Math.min(quantidade, quantidadeNomes))];
+        for (int i = 0; i < nomes.length; i++) {
+            nomes[i] = "Item " + i;
+        }
+
+        Random aleatorio = new Random(semente);
+        avaliacoes = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            avaliacoes.add(new AvaliacaoSintetica(nomes[i % nomes.length], 1 + aleatorio.nextInt(41) / 10.0));
+        }
+    }
+
+    @Override
+    public String temaAvaliacao() {
+        return "Itens sintéticos";
+    }
+
+    @Override
+    public Collection<Avaliacao> colecaoAvaliacoes() {
+        return avaliacoes;
+    }
+
+    /**
+     * Avaliação de um item sintético
+     */
+    private static class AvaliacaoSintetica implements Avaliacao {
+        private final String nome;
+        private final double media;
+
+        public AvaliacaoSintetica(String nome, double media) {
+            this.nome = nome;
+            this.media = media;
+        }
+
+        @Override
+        public String nomeItemAvaliado() {
+            return nome;
+        }
+
+        @Override
+        public double classificacaoMedia() {
+            return media;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package br.ufla.gac106.s2022_2.base;
+
+import java.util.Random;
+
+import br.ufla.gac106.bench.Benchmark;
+
+/**
+ * Benchmarks da iteração sobre as avaliações (colecaoAvaliacoes), com
+ * quantidades de 10^3 a 10^7 avaliações, comparando a implementação com um
+ * objeto por item e a implementação colunar (AvaliacoesColunares)
+ */
+public class BenchmarkAvaliacoes {
+    /**
+     * Executa os benchmarks
+     * 
+     * @param benchmark Benchmark usado nas medições
+     */
+    public static void executar(Benchmark benchmark) throws Exception {
+        for (int tamanho : Benchmark.tamanhos("bench.tamanhos", "1000,10000,100000,1000000,10000000")) {
+            Avaliacoes avaliacoes = new AvaliacoesSinteticas(tamanho, 42);
+
+            benchmark.medir("Avaliacoes.colecaoAvaliacoes (n=" + tamanho + ")", () -> {
+                double soma = 0;
+                for (Avaliacao avaliacao : avaliacoes.colecaoAvaliacoes()) {
+                    soma += avaliacao.classificacaoMedia();
+                }
+                return soma;
+            });
+
+            // Os nomes do conjunto colunar são distintos, como em um conjunto real de itens
+            AvaliacoesColunares colunares = new AvaliacoesColunares("Itens sintéticos", tamanho);
+            Random aleatorio = new Random(42);
+            for (int i = 0; i < tamanho; i++) {
+                colunares.definirAvaliacoes("Item " + i, 1 + aleatorio.nextInt(41) / 10.0, 1 + aleatorio.nextInt(100));
+            }
+
+            benchmark.medir("AvaliacoesColunares.colecaoAvaliacoes (n=" + tamanho + ")", () -> {
+                double soma = 0;
+                for (Avaliacao avaliacao : colunares.colecaoAvaliacoes()) {
+                    soma += avaliacao.classificacaoMedia();
+                }
+                return soma;
+            });
+
+            benchmark.medir("AvaliacoesColunares.classificacaoMedia(id) (n=" + tamanho + ")", () -> {
+                double soma = 0;
+                for (int id = 0, quantidade = colunares.quantidadeItens(); id < quantidade; id++) {
+                    soma += colunares.classificacaoMedia(id);
+                }
+                return soma;
+            });
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        executar(Benchmark.dasPropriedades());
+    }
+}
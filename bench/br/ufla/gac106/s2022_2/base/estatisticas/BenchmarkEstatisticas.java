@@ -0,0 +1,86 @@
+package br.ufla.gac106.s2022_2.base.estatisticas;
+
+import java.util.Random;
+
+import br.ufla.gac106.bench.Benchmark;
+
+/**
+ * Benchmarks do registro, da combinação e das consultas dos resumos
+ * aproximados (ResumoQuantis e ContadorDistintos) e das estatísticas de
+ * avaliações por item
+ */
+public class BenchmarkEstatisticas {
+    /**
+     * Executa os benchmarks
+     * 
+     * @param benchmark Benchmark usado nas medições
+     */
+    public static void executar(Benchmark benchmark) throws Exception {
+        for (int tamanho : Benchmark.tamanhos("bench.tamanhosEstatisticas", "10000,1000000")) {
+            double[] notas = new double[tamanho];
+            String[] usuarios = new String[tamanho];
+            Random aleatorio = new Random(42);
+            for (int i = 0; i < tamanho; i++) {
+                notas[i] = 1 + aleatorio.nextInt(41) / 10.0;
+                usuarios[i] = "Usuário " + aleatorio.nextInt(Math.max(1, tamanho / 4));
+            }
+
+            benchmark.medir("ResumoQuantis.registrar (n=" + tamanho + ")", () -> {
+                ResumoQuantis resumo = new ResumoQuantis();
+                for (double nota : notas) {
+                    resumo.registrar(nota);
+                }
+                return resumo;
+            });
+            benchmark.medir("ContadorDistintos.registrar (n=" + tamanho + ")", () -> {
+                ContadorDistintos contador = new ContadorDistintos();
+                for (String usuario : usuarios) {
+                    contador.registrar(usuario);
+                }
+                return contador;
+            });
+            benchmark.medir("EstatisticasAvaliacoes.registrarAvaliacao (1000 itens, n=" + tamanho + ")", () -> {
+                EstatisticasAvaliacoes estatisticas = new EstatisticasAvaliacoes("Itens sintéticos");
+                for (int i = 0; i < tamanho; i++) {
+                    estatisticas.registrarAvaliacao("Item " + (i % 1000), usuarios[i], notas[i]);
+                }
+                return estatisticas;
+            });
+        }
+
+        // Combinação de resumos cheios (ex: um por thread) e consultas sobre o resultado
+        ResumoQuantis[] partes = new ResumoQuantis[8];
+        ContadorDistintos[] contadores = new ContadorDistintos[8];
+        Random aleatorio = new Random(42);
+        for (int p = 0; p < partes.length; p++) {
+            partes[p] = new ResumoQuantis();
+            contadores[p] = new ContadorDistintos();
+            for (int i = 0; i < 100000; i++) {
+                partes[p].registrar(aleatorio.nextGaussian());
+                contadores[p].registrar(aleatorio.nextLong());
+            }
+        }
+        benchmark.medir("ResumoQuantis.combinar (8 partes)", () -> {
+            ResumoQuantis combinado = new ResumoQuantis();
+            for (ResumoQuantis parte : partes) {
+                combinado.combinar(parte);
+            }
+            return combinado;
+        });
+        benchmark.medir("ContadorDistintos.combinar (8 partes)", () -> {
+            ContadorDistintos combinado = new ContadorDistintos();
+            for (ContadorDistintos contador : contadores) {
+                combinado.combinar(contador);
+            }
+            return combinado.estimativa();
+        });
+        benchmark.medir("ResumoQuantis.quantis (p50, p90, p99)", () -> {
+            // A cópia descarta a visão ordenada, que é refeita na primeira consulta
+            return partes[0].copiar().quantis(0.5, 0.9, 0.99);
+        });
+    }
+
+    public static void main(String[] args) throws Exception {
+        executar(Benchmark.dasPropriedades());
+    }
+}
@@ -0,0 +1,41 @@
+package br.ufla.gac106.s2022_2.base.relatorios;
+
+import br.ufla.gac106.bench.Benchmark;
+import br.ufla.gac106.s2022_2.base.Avaliacoes;
+import br.ufla.gac106.s2022_2.base.AvaliacoesSinteticas;
+
+/**
+ * Benchmarks da criação do dataset e da exportação do gráfico de avaliações
+ * (sem exibir a tela)
+ */
+public class BenchmarkGrafico {
+    /**
+     * Executa os benchmarks
+     * 
+     * @param benchmark Benchmark usado nas medições
+     */
+    public static void executar(Benchmark benchmark) throws Exception {
+        for (int tamanho : Benchmark.tamanhos("bench.tamanhosGrafico", "100,1000,10000,100000")) {
+            // Os nomes dos itens devem ser distintos (cada um é uma barra do gráfico)
+            Avaliacoes avaliacoes = new AvaliacoesSinteticas(tamanho, 42, tamanho);
+
+            benchmark.medir("Grafico.criarDataset (n=" + tamanho + ")", () -> Grafico.criarDataset(avaliacoes));
+            benchmark.medir("Grafico.selecionar (k=20, n=" + tamanho + ")",
+                    () -> Grafico.selecionar(avaliacoes.colecaoAvaliacoes(), 20, true));
+            benchmark.medir("Grafico.criarHistograma (20 faixas, n=" + tamanho + ")",
+                    () -> Grafico.criarHistograma(avaliacoes, 20));
+        }
+
+        // Exportação sem tela (o gráfico modelo da thread é reaproveitado entre as execuções)
+        Grafico grafico = new Grafico();
+        Avaliacoes avaliacoes = new AvaliacoesSinteticas(50, 42, 50);
+        for (Grafico.Formato formato : Grafico.Formato.values()) {
+            benchmark.medir("Grafico.exportar " + formato + " 800x600 (n=50)",
+                    () -> grafico.exportar("Benchmark", avaliacoes, formato, 800, 600));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        executar(Benchmark.dasPropriedades());
+    }
+}
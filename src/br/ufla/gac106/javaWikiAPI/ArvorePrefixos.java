@@ -0,0 +1,273 @@
+package br.ufla.gac106.javaWikiAPI;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Árvore de prefixos compacta (radix trie) de títulos com pesos de
+ * popularidade, usada para sugerir títulos a partir do começo digitado.
+ * 
+ * Os títulos são indexados normalizados (minúsculas e sem acentos, veja
+ * Tokenizador.normalizar), de forma que "sao" encontra "São Paulo". Cada aresta
+ * da árvore guarda uma sequência de caracteres (e não um só), e cada nó guarda
+ * o maior peso entre os títulos abaixo dele; assim, os títulos mais populares
+ * com um prefixo são encontrados visitando só os ramos mais promissores, sem
+ * percorrer todos os títulos com aquele prefixo.
+ * 
+ * Os métodos podem ser chamados por várias threads; as sugestões podem ser
+ * feitas simultaneamente entre si.
+ */
+public class ArvorePrefixos {
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+    private final No raiz = new No("");
+    private int tamanho;
+
+    /**
+     * Adiciona o título à árvore (ou aumenta o peso dele, se já estiver nela)
+     * 
+     * @param titulo Título a ser adicionado
+     * @param peso   Peso somado à popularidade do título (não negativo)
+     */
+    public void adicionar(String titulo, double peso) {
+        if (peso < 0) {
+            throw new IllegalArgumentException("O peso não pode ser negativo");
+        }
+        String chave = Tokenizador.normalizar(titulo);
+        trava.writeLock().lock();
+        try {
+            No no = raiz;
+            int posicao = 0;
+            // Desce pela árvore, dividindo as arestas que só coincidem em parte
+            while (posicao < chave.length()) {
+                int indice = no.indiceFilho(chave.charAt(posicao));
+                if (indice < 0) {
+                    No folha = new No(chave.substring(posicao));
+                    no.inserirFilho(-indice - 1, folha);
+                    no = folha;
+                    posicao = chave.length();
+                    break;
+                }
+                No filho = no.filhos[indice];
+                int comum = prefixoComum(filho.rotulo, chave, posicao);
+                if (comum < filho.rotulo.length()) {
+                    filho = dividir(no, indice, comum);
+                }
+                no = filho;
+                posicao += comum;
+            }
+
+            if (no.titulo == null) {
+                tamanho++;
+                no.titulo = titulo;
+            } else if (!no.titulo.equals(titulo) && peso > 0) {
+                // Títulos que diferem só em acentos/maiúsculas: fica o mais recente
+                no.titulo = titulo;
+            }
+            no.peso += peso;
+
+            // Atualiza o maior peso no caminho da raiz até o nó
+            double novoPeso = no.peso;
+            No atual = raiz;
+            atual.maiorPeso = Math.max(atual.maiorPeso, novoPeso);
+            for (int p = 0; p < chave.length(); ) {
+                atual = atual.filhos[atual.indiceFilho(chave.charAt(p))];
+                atual.maiorPeso = Math.max(atual.maiorPeso, novoPeso);
+                p += atual.rotulo.length();
+            }
+        }
+        finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quantidade de caracteres iguais no começo do rótulo e da chave (a partir
+     * da posição)
+     */
+    private static int prefixoComum(String rotulo, String chave, int posicao) {
+        int limite = Math.min(rotulo.length(), chave.length() - posicao);
+        int comum = 0;
+        while (comum < limite && rotulo.charAt(comum) == chave.charAt(posicao + comum)) {
+            comum++;
+        }
+        return comum;
+    }
+
+    /**
+     * Divide a aresta do filho em duas, criando um nó intermediário após os
+     * primeiros caracteres do rótulo
+     * 
+     * @return O nó intermediário
+     */
+    private static No dividir(No pai, int indice, int tamanhoPrefixo) {
+        No filho = pai.filhos[indice];
+        No intermediario = new No(filho.rotulo.substring(0, tamanhoPrefixo));
+        filho.rotulo = filho.rotulo.substring(tamanhoPrefixo);
+        intermediario.filhos = new No[] { filho };
+        intermediario.primeiros = new char[] { filho.rotulo.charAt(0) };
+        intermediario.maiorPeso = filho.maiorPeso;
+        pai.filhos[indice] = intermediario;
+        return intermediario;
+    }
+
+    /**
+     * Sugere os títulos mais populares que começam com o prefixo
+     * 
+     * @param prefixo    Começo do título (maiúsculas e acentos são ignorados)
+     * @param quantidade Quantidade máxima de títulos sugeridos
+     * 
+     * @return Os títulos, do mais popular para o menos popular
+     */
+    public List<String> sugerir(String prefixo, int quantidade) {
+        String chave = Tokenizador.normalizar(prefixo);
+        List<String> sugestoes = new ArrayList<>();
+        trava.readLock().lock();
+        try {
+            // Encontra o nó onde terminam os títulos com o prefixo
+            No no = raiz;
+            int posicao = 0;
+            while (posicao < chave.length()) {
+                int indice = no.indiceFilho(chave.charAt(posicao));
+                if (indice < 0) {
+                    return sugestoes;
+                }
+                no = no.filhos[indice];
+                int comum = prefixoComum(no.rotulo, chave, posicao);
+                if (comum < no.rotulo.length() && posicao + comum < chave.length()) {
+                    return sugestoes;
+                }
+                posicao += comum;
+            }
+
+            // Busca pela melhor opção primeiro: nós entram na fila com o maior peso
+            // abaixo deles, e títulos com o próprio peso; um título só sai da fila
+            // quando nenhum nó restante pode ter um título mais pesado
+            PriorityQueue<Candidato> fila = new PriorityQueue<>();
+            fila.add(new Candidato(no, false));
+            while (!fila.isEmpty() && sugestoes.size() < quantidade) {
+                Candidato candidato = fila.poll();
+                if (candidato.titulo) {
+                    sugestoes.add(candidato.no.titulo);
+                    continue;
+                }
+                if (candidato.no.titulo != null) {
+                    fila.add(new Candidato(candidato.no, true));
+                }
+                for (No filho : candidato.no.filhos) {
+                    fila.add(new Candidato(filho, false));
+                }
+            }
+            return sugestoes;
+        }
+        finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Popularidade do título
+     * 
+     * @return O peso (ou 0 se o título não estiver na árvore)
+     */
+    public double peso(String titulo) {
+        String chave = Tokenizador.normalizar(titulo);
+        trava.readLock().lock();
+        try {
+            No no = raiz;
+            int posicao = 0;
+            while (posicao < chave.length()) {
+                int indice = no.indiceFilho(chave.charAt(posicao));
+                if (indice < 0) {
+                    return 0;
+                }
+                no = no.filhos[indice];
+                if (!chave.startsWith(no.rotulo, posicao)) {
+                    return 0;
+                }
+                posicao += no.rotulo.length();
+            }
+            return (no.titulo == null) ? 0 : no.peso;
+        }
+        finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Quantidade de títulos na árvore
+     */
+    public int tamanho() {
+        trava.readLock().lock();
+        try {
+            return tamanho;
+        }
+        finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Nó da árvore. Os filhos ficam em um vetor ordenado pelo primeiro caractere
+     * do rótulo (guardado à parte, para a busca binária)
+     */
+    private static class No {
+        private static final No[] SEM_FILHOS = new No[0];
+        private static final char[] SEM_CARACTERES = new char[0];
+
+        private String rotulo;
+        private No[] filhos = SEM_FILHOS;
+        private char[] primeiros = SEM_CARACTERES;
+        // Título que termina neste nó (null se nenhum) e seu peso
+        private String titulo;
+        private double peso;
+        // Maior peso entre os títulos deste nó e dos nós abaixo dele
+        private double maiorPeso;
+
+        public No(String rotulo) {
+            this.rotulo = rotulo;
+        }
+
+        public int indiceFilho(char primeiro) {
+            return Arrays.binarySearch(primeiros, primeiro);
+        }
+
+        public void inserirFilho(int indice, No filho) {
+            No[] novosFilhos = new No[filhos.length + 1];
+            char[] novosPrimeiros = new char[filhos.length + 1];
+            System.arraycopy(filhos, 0, novosFilhos, 0, indice);
+            System.arraycopy(primeiros, 0, novosPrimeiros, 0, indice);
+            novosFilhos[indice] = filho;
+            novosPrimeiros[indice] = filho.rotulo.charAt(0);
+            System.arraycopy(filhos, indice, novosFilhos, indice + 1, filhos.length - indice);
+            System.arraycopy(primeiros, indice, novosPrimeiros, indice + 1, filhos.length - indice);
+            filhos = novosFilhos;
+            primeiros = novosPrimeiros;
+        }
+    }
+
+    /**
+     * Item da fila da busca: um nó (com o maior peso abaixo dele) ou o título
+     * de um nó (com seu peso)
+     */
+    private static class Candidato implements Comparable<Candidato> {
+        private final No no;
+        private final boolean titulo;
+        private final double peso;
+
+        public Candidato(No no, boolean titulo) {
+            this.no = no;
+            this.titulo = titulo;
+            this.peso = titulo ? no.peso : no.maiorPeso;
+        }
+
+        @Override
+        public int compareTo(Candidato outro) {
+            int comparacao = Double.compare(outro.peso, peso);
+            // Em caso de empate, o título sai antes dos nós
+            return (comparacao != 0) ? comparacao : Boolean.compare(outro.titulo, titulo);
+        }
+    }
+}
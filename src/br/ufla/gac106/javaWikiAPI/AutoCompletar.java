@@ -0,0 +1,185 @@
+package br.ufla.gac106.javaWikiAPI;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Classe que sugere títulos de páginas enquanto o usuário digita, evitando
+ * fazer uma pesquisa na Wiki a cada tecla.
+ * 
+ * Os títulos ficam em uma ArvorePrefixos, alimentada pelos títulos do catálogo
+ * (adicionarTitulos), pelos resultados das pesquisas já feitas na Wiki e pelas
+ * escolhas dos usuários (registrarEscolha), que aumentam a popularidade dos
+ * títulos. Uma sugestão só vai à Wiki quando a árvore não consegue respondê-la:
+ * o prefixo nunca foi pesquisado, a árvore não tem títulos suficientes com ele
+ * e nenhum prefixo menor já teve todos os seus títulos obtidos (uma pesquisa
+ * que retorna menos que o máximo de títulos obtém todos os títulos com aquele
+ * prefixo, e portanto também todos os títulos com prefixos maiores). Os
+ * resultados da Wiki são então incorporados à árvore.
+ */
+public class AutoCompletar {
+    // Quantidade máxima de títulos retornados por uma pesquisa na Wiki
+    private static final int MAXIMO_RESULTADOS_PESQUISA = 10;
+    // Peso de um título do catálogo, de um resultado de pesquisa e de uma escolha
+    private static final double PESO_CATALOGO = 1;
+    private static final double PESO_PESQUISA = 1;
+    private static final double PESO_ESCOLHA = 5;
+
+    private final Wiki wiki;
+    private final ArvorePrefixos arvore;
+    // Prefixos (normalizados) já pesquisados na Wiki
+    private final Set<String> prefixosPesquisados = ConcurrentHashMap.newKeySet();
+    // Prefixos (normalizados) cujos títulos já foram todos obtidos da Wiki
+    private final Set<String> prefixosCompletos = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constrói o objeto com uma árvore de prefixos vazia
+     * 
+     * @param wiki Wiki usada quando os títulos locais não são suficientes
+     */
+    public AutoCompletar(Wiki wiki) {
+        this(wiki, new ArvorePrefixos());
+    }
+
+    /**
+     * Constrói o objeto
+     * 
+     * @param wiki   Wiki usada quando os títulos locais não são suficientes
+     * @param arvore Árvore de prefixos com os títulos conhecidos
+     */
+    public AutoCompletar(Wiki wiki, ArvorePrefixos arvore) {
+        this.wiki = wiki;
+        this.arvore = arvore;
+    }
+
+    /**
+     * Adiciona títulos conhecidos (ex: os itens do catálogo) às sugestões
+     * 
+     * @param titulos Títulos a serem adicionados
+     */
+    public void adicionarTitulos(Collection<String> titulos) {
+        for (String titulo : titulos) {
+            arvore.adicionar(titulo, PESO_CATALOGO);
+        }
+    }
+
+    /**
+     * Registra que o usuário escolheu o título, tornando-o mais popular nas
+     * próximas sugestões
+     * 
+     * @param titulo Título escolhido
+     */
+    public void registrarEscolha(String titulo) {
+        arvore.adicionar(titulo, PESO_ESCOLHA);
+    }
+
+    /**
+     * Sugere até 10 títulos que começam com o prefixo (veja sugerir(String, int))
+     */
+    public List<String> sugerir(String prefixo) throws JavaWikiInternalException, UnsuccessfulHTTPRequestException {
+        return sugerir(prefixo, MAXIMO_RESULTADOS_PESQUISA);
+    }
+
+    /**
+     * Sugere títulos que começam com o prefixo, pesquisando na Wiki somente se
+     * os títulos locais não forem suficientes
+     * 
+     * @param prefixo    Começo do título digitado
+     * @param quantidade Quantidade máxima de títulos sugeridos
+     * 
+     * @return Os títulos, do mais popular para o menos popular
+     */
+    public List<String> sugerir(String prefixo, int quantidade) throws JavaWikiInternalException, UnsuccessfulHTTPRequestException {
+        List<String> locais = arvore.sugerir(prefixo, quantidade);
+        if (respondeLocalmente(prefixo, locais, quantidade)) {
+            return locais;
+        }
+        return incorporar(prefixo, wiki.pesquisarTitulosDePaginas(prefixo), quantidade);
+    }
+
+    /**
+     * Versão assíncrona de sugerir. Quando os títulos locais são suficientes, o
+     * futuro retornado já está completo.
+     * Em caso de erro, o futuro é completado com uma UnsuccessfulHTTPRequestException
+     * ou uma JavaWikiInternalException.
+     * 
+     * @param prefixo    Começo do título digitado
+     * @param quantidade Quantidade máxima de títulos sugeridos
+     * 
+     * @return Futuro com os títulos, do mais popular para o menos popular
+     */
+    public CompletableFuture<List<String>> sugerirAsync(String prefixo, int quantidade) {
+        List<String> locais = arvore.sugerir(prefixo, quantidade);
+        if (respondeLocalmente(prefixo, locais, quantidade)) {
+            return CompletableFuture.completedFuture(locais);
+        }
+        return wiki.pesquisarTitulosDePaginasAsync(prefixo)
+                .thenApply(titulos -> incorporar(prefixo, titulos, quantidade));
+    }
+
+    /**
+     * Sugere títulos que começam com o prefixo usando somente os títulos locais
+     * 
+     * @param prefixo    Começo do título digitado
+     * @param quantidade Quantidade máxima de títulos sugeridos
+     * 
+     * @return Os títulos, do mais popular para o menos popular
+     */
+    public List<String> sugerirLocalmente(String prefixo, int quantidade) {
+        return arvore.sugerir(prefixo, quantidade);
+    }
+
+    /**
+     * Indica se as sugestões locais bastam para responder ao prefixo
+     */
+    private boolean respondeLocalmente(String prefixo, List<String> locais, int quantidade) {
+        String chave = Tokenizador.normalizar(prefixo).strip();
+        if (chave.isEmpty() || locais.size() >= quantidade || prefixosPesquisados.contains(chave)) {
+            return true;
+        }
+        for (int tamanho = 1; tamanho <= chave.length(); tamanho++) {
+            if (prefixosCompletos.contains(chave.substring(0, tamanho))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Incorpora à árvore os títulos retornados pela pesquisa na Wiki e monta as
+     * sugestões: as da árvore (já com os novos títulos) seguidas dos títulos da
+     * pesquisa que não começam com o prefixo (a Wiki também considera
+     * redirecionamentos e pequenas diferenças de grafia)
+     */
+    private List<String> incorporar(String prefixo, List<String> titulos, int quantidade) {
+        String chave = Tokenizador.normalizar(prefixo).strip();
+        for (String titulo : titulos) {
+            arvore.adicionar(titulo, PESO_PESQUISA);
+        }
+        prefixosPesquisados.add(chave);
+        if (titulos.size() < MAXIMO_RESULTADOS_PESQUISA) {
+            prefixosCompletos.add(chave);
+        }
+
+        Set<String> sugestoes = new LinkedHashSet<>(arvore.sugerir(prefixo, quantidade));
+        for (String titulo : titulos) {
+            if (sugestoes.size() >= quantidade) {
+                break;
+            }
+            sugestoes.add(titulo);
+        }
+        return new ArrayList<>(sugestoes);
+    }
+
+    /**
+     * Árvore de prefixos com os títulos conhecidos
+     */
+    public ArvorePrefixos getArvore() {
+        return arvore;
+    }
+}
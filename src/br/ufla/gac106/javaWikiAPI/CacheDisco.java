@@ -0,0 +1,604 @@
+package br.ufla.gac106.javaWikiAPI;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Cache de páginas Wiki persistido em um arquivo em disco, de forma que as
+ * páginas consultadas continuam disponíveis quando o programa é reiniciado.
+ * 
+ * O arquivo é um log em que os registros são sempre acrescentados ao final. Um
+ * índice em memória guarda a posição de cada entrada no arquivo, e o conteúdo
+ * das entradas só é lido do disco quando elas são consultadas. Quando o arquivo
+ * ultrapassa o tamanho máximo, ele é compactado: registros substituídos ou
+ * removidos são descartados, assim como as entradas usadas há mais tempo.
+ * 
+ * Cada registro tem um CRC do seu conteúdo: ao abrir o arquivo, o primeiro
+ * registro incompleto ou corrompido (ex: o programa foi encerrado durante uma
+ * escrita) e os que vêm depois dele são descartados.
+ */
+public class CacheDisco implements CachePaginas, Flushable {
+    // Identificador do formato do arquivo ("JWC" + versão)
+    private static final int IDENTIFICADOR_FORMATO = 0x4A574304;
+    // Identificador da versão anterior do formato, cujos registros não têm CRC
+    // (arquivos nessa versão são convertidos ao serem abertos)
+    private static final int IDENTIFICADOR_FORMATO_SEM_CRC = 0x4A574303;
+    // Tamanho do cabeçalho do arquivo em bytes
+    private static final int TAMANHO_CABECALHO = 4;
+    // Posição do instante dentro de um registro (depois do tamanho e do CRC)
+    private static final int DESLOCAMENTO_INSTANTE = 8;
+
+    // Tipos de registro do arquivo
+    private static final byte REGISTRO_PAGINA = 0;
+    private static final byte REGISTRO_PAGINA_INEXISTENTE = 1;
+    private static final byte REGISTRO_REMOCAO = 2;
+    // Página com a revisão e o instante da última atualização (os registros do
+    // tipo REGISTRO_PAGINA, de versões anteriores, não têm esses campos)
+    private static final byte REGISTRO_PAGINA_REVISAO = 3;
+
+    // Caminho do arquivo do cache
+    private Path arquivo;
+    // Tempo de validade das entradas em milissegundos (0 se não expiram)
+    private long validadeMillis;
+    // Tamanho máximo do arquivo em bytes
+    private long tamanhoMaximo;
+    // Canal usado para ler e escrever no arquivo
+    private FileChannel canal;
+    // Posição dos registros válidos no arquivo, em ordem de acesso
+    private LinkedHashMap<String, PosicaoRegistro> indice;
+    // Soma dos tamanhos dos registros válidos (usada para decidir a compactação)
+    private long tamanhoValido;
+
+    /**
+     * Abre (ou cria) um cache em disco cujas entradas não expiram, com tamanho
+     * máximo de 256 MB
+     * 
+     * @param arquivo Caminho do arquivo do cache
+     */
+    public CacheDisco(Path arquivo) throws IOException {
+        this(arquivo, Duration.ZERO, 256L * 1024 * 1024);
+    }
+
+    /**
+     * Abre (ou cria) um cache em disco
+     * 
+     * @param arquivo       Caminho do arquivo do cache
+     * @param validade      Tempo de validade das entradas (Duration.ZERO se não expiram)
+     * @param tamanhoMaximo Tamanho máximo do arquivo em bytes
+     */
+    public CacheDisco(Path arquivo, Duration validade, long tamanhoMaximo) throws IOException {
+        this.arquivo = arquivo;
+        this.validadeMillis = validade.toMillis();
+        this.tamanhoMaximo = tamanhoMaximo;
+        indice = new LinkedHashMap<>(16, 0.75f, true);
+
+        abrirArquivo();
+    }
+
+    /**
+     * Abre o arquivo do cache, criando-o se não existir ou reconstruindo o índice
+     * a partir dos registros se ele já existir
+     */
+    private void abrirArquivo() throws IOException {
+        canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        int identificador = (canal.size() < TAMANHO_CABECALHO) ? 0 : lerInteiro(0);
+        if (identificador == IDENTIFICADOR_FORMATO) {
+            reconstruirIndice(true);
+        } else if (identificador == IDENTIFICADOR_FORMATO_SEM_CRC) {
+            // Versão anterior: lê os registros e reescreve o arquivo com os CRCs
+            reconstruirIndice(false);
+            reescrever(new ArrayList<>(indice.entrySet()), true);
+        } else {
+            // Arquivo novo (ou de formato desconhecido): começa um cache vazio
+            canal.truncate(0);
+            ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO).putInt(0, IDENTIFICADOR_FORMATO);
+            escreverTudo(cabecalho, 0);
+        }
+    }
+
+    /**
+     * Percorre os registros do arquivo reconstruindo o índice. O arquivo é
+     * truncado no primeiro registro incompleto ou corrompido (ex: o programa
+     * foi encerrado durante uma escrita).
+     * 
+     * @param comCrc Indica se os registros têm CRC (os da versão anterior do
+     *               formato não têm)
+     */
+    private void reconstruirIndice(boolean comCrc) throws IOException {
+        long posicao = TAMANHO_CABECALHO;
+        long tamanhoArquivo = canal.size();
+        int deslocamentoInstante = comCrc ? DESLOCAMENTO_INSTANTE : 4;
+
+        while (posicao + 4 <= tamanhoArquivo) {
+            int tamanho = lerInteiro(posicao);
+            if (tamanho <= 0 || posicao + 4 + tamanho > tamanhoArquivo) {
+                break;
+            }
+
+            byte[] conteudo = new byte[tamanho];
+            lerTudo(ByteBuffer.wrap(conteudo), posicao + 4);
+            if (comCrc && ByteBuffer.wrap(conteudo).getInt(0) != crc(conteudo, deslocamentoInstante + 4)) {
+                break;
+            }
+
+            long instante;
+            byte tipo;
+            String chave;
+            try {
+                DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(conteudo,
+                        deslocamentoInstante - 4, tamanho - (deslocamentoInstante - 4)));
+                instante = entrada.readLong();
+                tipo = entrada.readByte();
+                chave = entrada.readUTF();
+            }
+            catch (IOException e) {
+                // Registro com lixo (EOFException, UTFDataFormatException)
+                break;
+            }
+            if (tipo < REGISTRO_PAGINA || tipo > REGISTRO_PAGINA_REVISAO) {
+                break;
+            }
+
+            descartarDoIndice(chave);
+            if (tipo != REGISTRO_REMOCAO) {
+                indice.put(chave, new PosicaoRegistro(posicao, tamanho, instante));
+                tamanhoValido += 4 + tamanho;
+            }
+            posicao += 4 + tamanho;
+        }
+
+        if (posicao < tamanhoArquivo) {
+            canal.truncate(posicao);
+        }
+    }
+
+    @Override
+    public synchronized EntradaCache obter(String chave) {
+        PosicaoRegistro registro = indice.get(chave);
+        if (registro == null) {
+            return null;
+        }
+        if (validadeMillis > 0 && System.currentTimeMillis() - registro.instante > validadeMillis) {
+            remover(chave);
+            return null;
+        }
+
+        try {
+            DataInputStream entrada = lerRegistro(registro.posicao, registro.tamanho);
+            long instante = entrada.readLong();
+            byte tipo = entrada.readByte();
+            entrada.readUTF();
+
+            if (tipo == REGISTRO_PAGINA_INEXISTENTE) {
+                return new EntradaCache(null, instante);
+            }
+            return new EntradaCache(lerPagina(entrada, tipo == REGISTRO_PAGINA_REVISAO), instante);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reescreve somente o instante do registro da entrada (sem reescrever a
+     * página)
+     */
+    @Override
+    public synchronized void renovar(String chave) {
+        PosicaoRegistro registro = indice.get(chave);
+        if (registro == null) {
+            return;
+        }
+        try {
+            long instante = System.currentTimeMillis();
+            escreverTudo(ByteBuffer.allocate(8).putLong(0, instante), registro.posicao + DESLOCAMENTO_INSTANTE);
+            indice.put(chave, new PosicaoRegistro(registro.posicao, registro.tamanho, instante));
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void armazenar(String chave, EntradaCache entrada) {
+        try {
+            PaginaWiki pagina = entrada.getPagina();
+            byte tipo = pagina == null ? REGISTRO_PAGINA_INEXISTENTE : REGISTRO_PAGINA_REVISAO;
+
+            long posicao = acrescentarRegistro(chave, entrada.getInstante(), tipo, pagina);
+
+            descartarDoIndice(chave);
+            int tamanho = (int) (canal.size() - posicao - 4);
+            indice.put(chave, new PosicaoRegistro(posicao, tamanho, entrada.getInstante()));
+            tamanhoValido += 4 + tamanho;
+
+            if (canal.size() > tamanhoMaximo) {
+                compactar();
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void remover(String chave) {
+        if (indice.containsKey(chave)) {
+            try {
+                // Registra a remoção para que a entrada não volte quando o arquivo for reaberto
+                acrescentarRegistro(chave, System.currentTimeMillis(), REGISTRO_REMOCAO, null);
+                descartarDoIndice(chave);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void limpar() {
+        try {
+            canal.truncate(TAMANHO_CABECALHO);
+            indice.clear();
+            tamanhoValido = 0;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Quantidade de entradas armazenadas no cache
+     * 
+     * @return A quantidade de entradas
+     */
+    public synchronized int tamanho() {
+        return indice.size();
+    }
+
+    /**
+     * Garante que os registros já escritos estão gravados no disco (e não só nos
+     * buffers do sistema operacional), de forma que não se percam se o sistema
+     * cair
+     */
+    @Override
+    public boolean persistente() {
+        return true;
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        canal.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        canal.close();
+    }
+
+    /**
+     * Reescreve o arquivo somente com os registros válidos. Se eles ainda
+     * ocuparem mais de 3/4 do tamanho máximo, descarta também as entradas
+     * usadas há mais tempo.
+     */
+    private void compactar() throws IOException {
+        List<Map.Entry<String, PosicaoRegistro>> registros = new ArrayList<>(indice.entrySet());
+        long tamanhoMantido = tamanhoValido;
+        int primeiroMantido = 0;
+        while (tamanhoMantido > tamanhoMaximo / 4 * 3 && primeiroMantido < registros.size()) {
+            tamanhoMantido -= 4 + registros.get(primeiroMantido++).getValue().tamanho;
+        }
+        reescrever(registros.subList(primeiroMantido, registros.size()), false);
+    }
+
+    /**
+     * Reescreve o arquivo somente com os registros passados (na ordem passada).
+     * 
+     * Os registros são copiados para um arquivo temporário, que substitui o
+     * arquivo do cache somente depois de gravado no disco. O índice e o canal só
+     * são trocados depois que a substituição dá certo: se algo falhar, o cache
+     * continua usando o arquivo antigo.
+     * 
+     * @param registros      Registros mantidos, com suas posições no arquivo atual
+     * @param acrescentarCrc Indica se os registros são da versão anterior do
+     *                       formato e precisam receber o CRC
+     */
+    private void reescrever(List<Map.Entry<String, PosicaoRegistro>> registros, boolean acrescentarCrc)
+            throws IOException {
+        Path arquivoTemporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        // Novo índice, com as posições dos registros no arquivo temporário
+        LinkedHashMap<String, PosicaoRegistro> novoIndice = new LinkedHashMap<>(16, 0.75f, true);
+        long novoTamanhoValido = 0;
+
+        try (FileChannel novoCanal = FileChannel.open(arquivoTemporario, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO).putInt(0, IDENTIFICADOR_FORMATO);
+            while (cabecalho.hasRemaining()) {
+                novoCanal.write(cabecalho);
+            }
+
+            // Copia os registros na ordem de acesso
+            long novaPosicao = TAMANHO_CABECALHO;
+            for (Map.Entry<String, PosicaoRegistro> registro : registros) {
+                PosicaoRegistro antiga = registro.getValue();
+                int novoTamanho = antiga.tamanho;
+                if (acrescentarCrc) {
+                    // O CRC é inserido antes do instante, e o restante do registro é mantido
+                    byte[] conteudo = new byte[antiga.tamanho];
+                    lerTudo(ByteBuffer.wrap(conteudo), antiga.posicao + 4);
+                    novoTamanho = antiga.tamanho + 4;
+                    ByteBuffer convertido = ByteBuffer.allocate(4 + novoTamanho);
+                    convertido.putInt(novoTamanho).putInt(crc(conteudo, 8)).put(conteudo).flip();
+                    while (convertido.hasRemaining()) {
+                        novoCanal.write(convertido);
+                    }
+                } else {
+                    transferirTudo(antiga.posicao, 4L + antiga.tamanho, novoCanal);
+                }
+                novoIndice.put(registro.getKey(), new PosicaoRegistro(novaPosicao, novoTamanho, antiga.instante));
+                novaPosicao += 4L + novoTamanho;
+                novoTamanhoValido += 4L + novoTamanho;
+            }
+            novoCanal.force(true);
+        }
+        catch (IOException | RuntimeException e) {
+            descartarTemporario(arquivoTemporario, e);
+            throw e;
+        }
+
+        try {
+            Files.move(arquivoTemporario, arquivo, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (IOException | RuntimeException e) {
+            descartarTemporario(arquivoTemporario, e);
+            throw e;
+        }
+
+        // Se a abertura falhar, o canal antigo continua apontando para o
+        // conteúdo antigo, coerente com o índice antigo
+        FileChannel canalCompactado = FileChannel.open(arquivo, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileChannel canalAntigo = canal;
+        canal = canalCompactado;
+        indice = novoIndice;
+        tamanhoValido = novoTamanhoValido;
+        try {
+            canalAntigo.close();
+        }
+        catch (IOException e) {
+            // O arquivo antigo já foi substituído: a falha ao fechá-lo não afeta o cache
+        }
+    }
+
+    /**
+     * Copia bytes do arquivo do cache para a posição atual do canal de destino,
+     * repetindo a transferência até que todos os bytes tenham sido copiados
+     */
+    private void transferirTudo(long posicao, long tamanho, FileChannel destino) throws IOException {
+        long transferidos = 0;
+        while (transferidos < tamanho) {
+            long copiados = canal.transferTo(posicao + transferidos, tamanho - transferidos, destino);
+            if (copiados <= 0 && posicao + transferidos >= canal.size()) {
+                throw new EOFException("Fim inesperado do arquivo de cache " + arquivo);
+            }
+            transferidos += copiados;
+        }
+    }
+
+    /**
+     * Apaga o arquivo temporário de uma compactação que falhou
+     */
+    private static void descartarTemporario(Path arquivoTemporario, Exception erro) {
+        try {
+            Files.deleteIfExists(arquivoTemporario);
+        }
+        catch (IOException e) {
+            erro.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Remove a chave do índice (se existir), atualizando o tamanho válido
+     */
+    private void descartarDoIndice(String chave) {
+        PosicaoRegistro anterior = indice.remove(chave);
+        if (anterior != null) {
+            tamanhoValido -= 4 + anterior.tamanho;
+        }
+    }
+
+    /**
+     * Acrescenta um registro ao final do arquivo
+     * 
+     * @return A posição do registro no arquivo
+     */
+    private long acrescentarRegistro(String chave, long instante, byte tipo, PaginaWiki pagina) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream saida = new DataOutputStream(bytes);
+
+        saida.writeInt(0); // tamanho do registro (preenchido abaixo)
+        saida.writeInt(0); // CRC (preenchido abaixo)
+        saida.writeLong(instante);
+        saida.writeByte(tipo);
+        saida.writeUTF(chave);
+        if (pagina != null) {
+            escreverPagina(saida, pagina);
+        }
+        saida.flush();
+
+        byte[] conteudo = bytes.toByteArray();
+        ByteBuffer registro = ByteBuffer.wrap(conteudo);
+        registro.putInt(0, registro.capacity() - 4);
+        registro.putInt(4, crc(conteudo, DESLOCAMENTO_INSTANTE + 8));
+
+        long posicao = canal.size();
+        escreverTudo(registro, posicao);
+        return posicao;
+    }
+
+    /**
+     * Escreve os dados de uma página
+     */
+    private static void escreverPagina(DataOutputStream saida, PaginaWiki pagina) throws IOException {
+        saida.writeUTF(pagina.getTitulo());
+        saida.writeInt(pagina.getId());
+        escreverBytes(saida, pagina.getResumo().getBytes(StandardCharsets.UTF_8));
+
+        // Da imagem, são guardados somente o endereço e as dimensões
+        String enderecoImagem = pagina.getEnderecoImagem();
+        escreverBytes(saida, enderecoImagem == null ? null : enderecoImagem.getBytes(StandardCharsets.UTF_8));
+        saida.writeInt(pagina.getLarguraImagem());
+        saida.writeInt(pagina.getAlturaImagem());
+
+        // Se a imagem já foi baixada, guarda também seus bytes (no formato original)
+        ByteBuffer bytesImagem = pagina.bytesImagemBaixados();
+        byte[] bytes = null;
+        if (bytesImagem != null) {
+            bytes = new byte[bytesImagem.remaining()];
+            bytesImagem.get(bytes);
+        }
+        escreverBytes(saida, bytes);
+
+        saida.writeLong(pagina.getRevisao());
+        saida.writeLong(pagina.getAtualizadaEm() == null ? Long.MIN_VALUE : pagina.getAtualizadaEm().toEpochMilli());
+    }
+
+    /**
+     * Lê os dados de uma página escritos por escreverPagina
+     * 
+     * @param comRevisao Indica se o registro tem a revisão da página (registros
+     *                   de versões anteriores não têm)
+     */
+    private static PaginaWiki lerPagina(DataInputStream entrada, boolean comRevisao) throws IOException {
+        String titulo = entrada.readUTF();
+        int id = entrada.readInt();
+        String resumo = new String(lerBytes(entrada), StandardCharsets.UTF_8);
+
+        byte[] enderecoImagem = lerBytes(entrada);
+        int larguraImagem = entrada.readInt();
+        int alturaImagem = entrada.readInt();
+        byte[] bytesImagem = lerBytes(entrada);
+        PaginaWiki pagina = new PaginaWiki(titulo, id, resumo,
+                                           enderecoImagem == null ? null : new String(enderecoImagem, StandardCharsets.UTF_8),
+                                           larguraImagem, alturaImagem,
+                                           bytesImagem == null ? null : ByteBuffer.wrap(bytesImagem));
+        if (comRevisao) {
+            long revisao = entrada.readLong();
+            long atualizadaEm = entrada.readLong();
+            pagina.configurarRevisao(revisao, atualizadaEm == Long.MIN_VALUE ? null : Instant.ofEpochMilli(atualizadaEm));
+        }
+        return pagina;
+    }
+
+    /**
+     * Escreve um vetor de bytes precedido de seu tamanho (-1 se for null)
+     */
+    private static void escreverBytes(DataOutputStream saida, byte[] bytes) throws IOException {
+        if (bytes == null) {
+            saida.writeInt(-1);
+        } else {
+            saida.writeInt(bytes.length);
+            saida.write(bytes);
+        }
+    }
+
+    /**
+     * Lê um vetor de bytes escrito por escreverBytes
+     */
+    private static byte[] lerBytes(DataInputStream entrada) throws IOException {
+        int tamanho = entrada.readInt();
+        if (tamanho < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[tamanho];
+        entrada.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * Lê o conteúdo de um registro do arquivo a partir do instante (sem o
+     * tamanho e o CRC)
+     */
+    private DataInputStream lerRegistro(long posicao, int tamanho) throws IOException {
+        ByteBuffer conteudo = ByteBuffer.allocate(tamanho - 4);
+        lerTudo(conteudo, posicao + DESLOCAMENTO_INSTANTE);
+        return new DataInputStream(new ByteArrayInputStream(conteudo.array()));
+    }
+
+    /**
+     * CRC dos bytes do vetor a partir da posição passada. O instante não entra
+     * no CRC, pois é reescrito no lugar quando a entrada é renovada.
+     */
+    private static int crc(byte[] bytes, int inicio) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, inicio, bytes.length - inicio);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Lê um inteiro na posição passada do arquivo
+     */
+    private int lerInteiro(long posicao) throws IOException {
+        ByteBuffer inteiro = ByteBuffer.allocate(4);
+        lerTudo(inteiro, posicao);
+        return inteiro.getInt(0);
+    }
+
+    /**
+     * Lê do arquivo até preencher o buffer
+     */
+    private void lerTudo(ByteBuffer buffer, long posicao) throws IOException {
+        while (buffer.hasRemaining()) {
+            int lidos = canal.read(buffer, posicao + buffer.position());
+            if (lidos < 0) {
+                throw new EOFException("Fim inesperado do arquivo de cache " + arquivo);
+            }
+        }
+    }
+
+    /**
+     * Escreve todo o buffer no arquivo
+     */
+    private void escreverTudo(ByteBuffer buffer, long posicao) throws IOException {
+        while (buffer.hasRemaining()) {
+            canal.write(buffer, posicao + buffer.position());
+        }
+    }
+
+    /**
+     * Posição e tamanho de um registro no arquivo, e o instante em que a entrada
+     * foi obtida
+     */
+    private static class PosicaoRegistro {
+        private final long posicao;
+        private final int tamanho;
+        private final long instante;
+
+        public PosicaoRegistro(long posicao, int tamanho, long instante) {
+            this.posicao = posicao;
+            this.tamanho = tamanho;
+            this.instante = instante;
+        }
+    }
+}
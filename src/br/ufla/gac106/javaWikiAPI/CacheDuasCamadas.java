@@ -0,0 +1,92 @@
+package br.ufla.gac106.javaWikiAPI;
+
+import java.io.Flushable;
+import java.io.IOException;
+
+/**
+ * Cache de páginas Wiki com duas camadas: uma primeira camada rápida (ex: em
+ * memória) e uma segunda camada maior (ex: em disco).
+ * 
+ * Entradas encontradas somente na segunda camada são promovidas para a
+ * primeira. Novas entradas são armazenadas nas duas camadas. O cache é
+ * persistente se alguma das camadas for, e flush grava as camadas que podem ser
+ * gravadas (as que implementam Flushable).
+ */
+public class CacheDuasCamadas implements CachePaginas, Flushable {
+    // Primeira camada do cache (consultada primeiro)
+    private CachePaginas primeiraCamada;
+    // Segunda camada do cache (consultada quando a primeira não tem a entrada)
+    private CachePaginas segundaCamada;
+
+    /**
+     * Constrói um cache com as duas camadas passadas
+     * 
+     * @param primeiraCamada Primeira camada (ex: CacheMemoriaLRU)
+     * @param segundaCamada  Segunda camada (ex: CacheDisco)
+     */
+    public CacheDuasCamadas(CachePaginas primeiraCamada, CachePaginas segundaCamada) {
+        this.primeiraCamada = primeiraCamada;
+        this.segundaCamada = segundaCamada;
+    }
+
+    @Override
+    public EntradaCache obter(String chave) {
+        EntradaCache entrada = primeiraCamada.obter(chave);
+        if (entrada == null) {
+            entrada = segundaCamada.obter(chave);
+            if (entrada != null) {
+                primeiraCamada.armazenar(chave, entrada);
+            }
+        }
+        return entrada;
+    }
+
+    @Override
+    public void armazenar(String chave, EntradaCache entrada) {
+        primeiraCamada.armazenar(chave, entrada);
+        segundaCamada.armazenar(chave, entrada);
+    }
+
+    @Override
+    public void renovar(String chave) {
+        primeiraCamada.renovar(chave);
+        segundaCamada.renovar(chave);
+    }
+
+    @Override
+    public void remover(String chave) {
+        primeiraCamada.remover(chave);
+        segundaCamada.remover(chave);
+    }
+
+    @Override
+    public void limpar() {
+        primeiraCamada.limpar();
+        segundaCamada.limpar();
+    }
+
+    @Override
+    public boolean persistente() {
+        return primeiraCamada.persistente() || segundaCamada.persistente();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (primeiraCamada instanceof Flushable) {
+            ((Flushable) primeiraCamada).flush();
+        }
+        if (segundaCamada instanceof Flushable) {
+            ((Flushable) segundaCamada).flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            primeiraCamada.close();
+        }
+        finally {
+            segundaCamada.close();
+        }
+    }
+}
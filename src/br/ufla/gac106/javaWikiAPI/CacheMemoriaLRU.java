@@ -0,0 +1,87 @@
+package br.ufla.gac106.javaWikiAPI;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache de páginas Wiki em memória, com quantidade máxima de entradas.
+ * 
+ * Quando o cache fica cheio, a entrada usada há mais tempo é descartada (LRU).
+ * Entradas mais antigas que o tempo de validade também são descartadas.
+ */
+public class CacheMemoriaLRU implements CachePaginas {
+    // Quantidade máxima de entradas no cache
+    private int capacidade;
+    // Tempo de validade das entradas em milissegundos (0 se não expiram)
+    private long validadeMillis;
+    // Entradas do cache, em ordem de acesso (a primeira é a usada há mais tempo)
+    private LinkedHashMap<String, EntradaCache> entradas;
+
+    /**
+     * Constrói um cache em memória cujas entradas não expiram
+     * 
+     * @param capacidade Quantidade máxima de entradas no cache
+     */
+    public CacheMemoriaLRU(int capacidade) {
+        this(capacidade, Duration.ZERO);
+    }
+
+    /**
+     * Constrói um cache em memória
+     * 
+     * @param capacidade Quantidade máxima de entradas no cache
+     * @param validade   Tempo de validade das entradas (Duration.ZERO se não expiram)
+     */
+    public CacheMemoriaLRU(int capacidade, Duration validade) {
+        if (capacidade <= 0) {
+            throw new IllegalArgumentException("A capacidade do cache deve ser positiva");
+        }
+        this.capacidade = capacidade;
+        this.validadeMillis = validade.toMillis();
+
+        // O terceiro parâmetro indica que a ordem das entradas é a ordem de acesso
+        entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, EntradaCache> maisAntiga) {
+                return size() > CacheMemoriaLRU.this.capacidade;
+            }
+        };
+    }
+
+    @Override
+    public synchronized EntradaCache obter(String chave) {
+        EntradaCache entrada = entradas.get(chave);
+        if (entrada != null && entrada.expirou(validadeMillis)) {
+            entradas.remove(chave);
+            return null;
+        }
+        return entrada;
+    }
+
+    @Override
+    public synchronized void armazenar(String chave, EntradaCache entrada) {
+        entradas.put(chave, entrada);
+    }
+
+    @Override
+    public synchronized void remover(String chave) {
+        entradas.remove(chave);
+    }
+
+    @Override
+    public synchronized void limpar() {
+        entradas.clear();
+    }
+
+    /**
+     * Quantidade de entradas armazenadas no cache
+     * 
+     * @return A quantidade de entradas
+     */
+    public synchronized int tamanho() {
+        return entradas.size();
+    }
+}
@@ -0,0 +1,73 @@
+package br.ufla.gac106.javaWikiAPI;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Interface que representa um cache de páginas Wiki consultadas.
+ * 
+ * As chaves são montadas pela classe Wiki a partir do endpoint e do título
+ * normalizado da página (veja Wiki.chaveCache), de forma que um mesmo cache
+ * pode ser compartilhado por objetos Wiki de endpoints diferentes.
+ */
+public interface CachePaginas extends Closeable {
+    /**
+     * Retorna a entrada armazenada para a chave passada
+     * 
+     * @param chave Chave da entrada
+     * 
+     * @return A entrada (ou null se não há entrada válida para a chave)
+     */
+    EntradaCache obter(String chave);
+
+    /**
+     * Armazena uma entrada no cache, substituindo a anterior (se houver)
+     * 
+     * @param chave   Chave da entrada
+     * @param entrada Entrada a ser armazenada
+     */
+    void armazenar(String chave, EntradaCache entrada);
+
+    /**
+     * Marca a entrada da chave passada como obtida agora, sem alterar seu
+     * conteúdo (usado quando a Wiki confirma que a página não mudou). Por
+     * padrão, armazena novamente a entrada.
+     * 
+     * @param chave Chave da entrada
+     */
+    default void renovar(String chave) {
+        EntradaCache entrada = obter(chave);
+        if (entrada != null) {
+            armazenar(chave, new EntradaCache(entrada.getPagina()));
+        }
+    }
+
+    /**
+     * Remove a entrada da chave passada (se houver)
+     * 
+     * @param chave Chave da entrada
+     */
+    void remover(String chave);
+
+    /**
+     * Remove todas as entradas do cache
+     */
+    void limpar();
+
+    /**
+     * Indica se as entradas do cache sobrevivem ao fim do programa (ex: são
+     * gravadas em disco). Por padrão, retorna false.
+     * 
+     * @return true se o cache é persistente
+     */
+    default boolean persistente() {
+        return false;
+    }
+
+    /**
+     * Libera os recursos utilizados pelo cache (por padrão, não faz nada)
+     */
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,232 @@
+package br.ufla.gac106.javaWikiAPI;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Classe que obtém as imagens (thumbnails) de várias páginas Wiki em paralelo.
+ *
+ * O trabalho é dividido em duas etapas, cada uma com seu próprio pool de
+ * threads: o download dos bytes das imagens (limitado pela rede) e a
+ * decodificação e redimensionamento das imagens (limitados pelo processador).
+ * As filas dos pools são limitadas: quando uma fila está cheia, a thread que
+ * envia a tarefa espera até haver espaço, o que evita acumular um número muito
+ * grande de imagens em memória (os downloads e as decodificações continuam
+ * sempre nos pools).
+ *
+ * Lembre-se de usar o método close quando não for mais usar o objeto. Depois
+ * dele, os futuros retornados por baixar e carregar falham com
+ * IllegalStateException.
+ */
+public class CarregadorImagens implements Closeable {
+    // Tamanho das filas de tarefas de cada pool de threads
+    private static final int TAMANHO_FILA = 256;
+
+    // Pool de threads que baixa os bytes das imagens
+    private ThreadPoolExecutor executorDownloads;
+    // Pool de threads que decodifica e redimensiona as imagens
+    private ThreadPoolExecutor executorDecodificacao;
+
+    /**
+     * Constrói o carregador com 8 threads de download e uma thread de
+     * decodificação por processador
+     */
+    public CarregadorImagens() {
+        this(8, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constrói o carregador
+     *
+     * @param threadsDownload      Quantidade de downloads simultâneos
+     * @param threadsDecodificacao Quantidade de imagens decodificadas simultaneamente
+     */
+    public CarregadorImagens(int threadsDownload, int threadsDecodificacao) {
+        executorDecodificacao = criarPool(threadsDecodificacao, "javaWikiAPI-decodificacao", null);
+        // As decodificações são enviadas pelas threads de download, então o pool
+        // de decodificação só é encerrado quando os downloads terminam
+        executorDownloads = criarPool(threadsDownload, "javaWikiAPI-download", executorDecodificacao::shutdown);
+    }
+
+    /**
+     * Cria um pool de threads (daemon) com tamanho e fila limitados; quando a
+     * fila está cheia, quem envia a tarefa espera por espaço nela
+     *
+     * @param aoTerminar Ação executada quando o pool termina (ou null)
+     */
+    private static ThreadPoolExecutor criarPool(int threads, String nome, Runnable aoTerminar) {
+        return new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(TAMANHO_FILA),
+                tarefa -> {
+                    Thread thread = new Thread(tarefa, nome);
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                CarregadorImagens::esperarEspacoNaFila) {
+            @Override
+            protected void terminated() {
+                if (aoTerminar != null) {
+                    aoTerminar.run();
+                }
+            }
+        };
+    }
+
+    /**
+     * Tratamento das tarefas recusadas pelos pools: espera haver espaço na fila
+     * ou, se o pool foi encerrado, recusa a tarefa (o que faz o futuro
+     * correspondente falhar)
+     */
+    private static void esperarEspacoNaFila(Runnable tarefa, ThreadPoolExecutor pool) {
+        if (pool.isShutdown()) {
+            throw new RejectedExecutionException("O carregador de imagens foi encerrado");
+        }
+        try {
+            pool.getQueue().put(tarefa);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrompido esperando espaço na fila", e);
+        }
+        // Se o pool foi encerrado enquanto esperava, a tarefa pode não ser mais executada
+        if (pool.isShutdown() && pool.getQueue().remove(tarefa)) {
+            throw new RejectedExecutionException("O carregador de imagens foi encerrado");
+        }
+    }
+
+    /**
+     * Envia uma tarefa para um pool, retornando um futuro que falha (em vez de
+     * lançar a exceção) se a tarefa for recusada
+     */
+    private static <T> CompletableFuture<T> enviar(Supplier<T> tarefa, ThreadPoolExecutor pool) {
+        try {
+            return CompletableFuture.supplyAsync(tarefa, pool);
+        }
+        catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new IllegalStateException(e.getMessage(), e));
+        }
+    }
+
+    /**
+     * Baixa (em paralelo) os bytes das imagens das páginas passadas, sem
+     * decodificá-las. Depois disso, as chamadas a getImagem das páginas não
+     * precisam mais acessar a rede.
+     *
+     * @param paginas Páginas cujas imagens devem ser baixadas
+     *
+     * @return Futuro completado quando todos os downloads terminarem
+     */
+    public CompletableFuture<Void> baixar(Collection<PaginaWiki> paginas) {
+        if (executorDownloads.isShutdown()) {
+            return CompletableFuture.failedFuture(new IllegalStateException("O carregador de imagens foi encerrado"));
+        }
+        List<CompletableFuture<ByteBuffer>> downloads = new ArrayList<>();
+        for (PaginaWiki pagina : paginas) {
+            if (pagina.temImagem()) {
+                downloads.add(enviar(pagina::getBytesImagem, executorDownloads));
+            }
+        }
+        return CompletableFuture.allOf(downloads.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Baixa, decodifica e redimensiona (em paralelo) as imagens das páginas
+     * passadas. As imagens são reduzidas de forma que sua largura e altura não
+     * passem do tamanho máximo (mantendo a proporção); imagens menores não são
+     * alteradas.
+     *
+     * @param paginas       Páginas cujas imagens devem ser obtidas
+     * @param tamanhoMaximo Largura e altura máximas das imagens em pixels
+     *
+     * @return Futuro com o mapa do título de cada página para sua imagem
+     *         (páginas sem imagem não aparecem no mapa)
+     */
+    public CompletableFuture<Map<String, BufferedImage>> carregar(Collection<PaginaWiki> paginas, int tamanhoMaximo) {
+        if (executorDownloads.isShutdown()) {
+            return CompletableFuture.failedFuture(new IllegalStateException("O carregador de imagens foi encerrado"));
+        }
+        Map<String, CompletableFuture<BufferedImage>> imagens = new HashMap<>();
+        for (PaginaWiki pagina : paginas) {
+            if (pagina.temImagem()) {
+                imagens.put(pagina.getTitulo(),
+                        enviar(pagina::getBytesImagem, executorDownloads)
+                                .thenApplyAsync(bytes -> decodificarERedimensionar(bytes, tamanhoMaximo), executorDecodificacao));
+            }
+        }
+
+        return CompletableFuture.allOf(imagens.values().toArray(new CompletableFuture<?>[0])).thenApply(nada -> {
+            Map<String, BufferedImage> resultado = new HashMap<>();
+            for (Map.Entry<String, CompletableFuture<BufferedImage>> imagem : imagens.entrySet()) {
+                if (imagem.getValue().join() != null) {
+                    resultado.put(imagem.getKey(), imagem.getValue().join());
+                }
+            }
+            return resultado;
+        });
+    }
+
+    /**
+     * Decodifica os bytes de uma imagem e a redimensiona
+     */
+    private static BufferedImage decodificarERedimensionar(ByteBuffer bytes, int tamanhoMaximo) {
+        if (bytes == null) {
+            return null;
+        }
+        BufferedImage imagem = PaginaWiki.decodificarImagem(bytes);
+        return (imagem == null) ? null : redimensionar(imagem, tamanhoMaximo);
+    }
+
+    /**
+     * Reduz a imagem de forma que sua largura e altura não passem do tamanho
+     * máximo, mantendo a proporção
+     *
+     * @param imagem        Imagem original
+     * @param tamanhoMaximo Largura e altura máximas em pixels
+     *
+     * @return A imagem reduzida (ou a própria imagem, se ela já for menor)
+     */
+    public static BufferedImage redimensionar(BufferedImage imagem, int tamanhoMaximo) {
+        double escala = Math.min((double) tamanhoMaximo / imagem.getWidth(), (double) tamanhoMaximo / imagem.getHeight());
+        if (escala >= 1) {
+            return imagem;
+        }
+
+        int largura = Math.max(1, (int) Math.round(imagem.getWidth() * escala));
+        int altura = Math.max(1, (int) Math.round(imagem.getHeight() * escala));
+        int tipo = imagem.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        BufferedImage reduzida = new BufferedImage(largura, altura, tipo);
+        Graphics2D grafico = reduzida.createGraphics();
+        try {
+            grafico.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            grafico.drawImage(imagem, 0, 0, largura, altura, null);
+        }
+        finally {
+            grafico.dispose();
+        }
+        return reduzida;
+    }
+
+    /**
+     * Encerra os pools de threads (as tarefas já enviadas ainda são concluídas;
+     * as enviadas depois falham com IllegalStateException)
+     */
+    @Override
+    public void close() {
+        executorDownloads.shutdown();
+    }
+}
@@ -0,0 +1,560 @@
+package br.ufla.gac106.javaWikiAPI;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Classe que consulta uma grande quantidade de títulos na Wiki (ex: para
+ * preencher o cache de uma nova instalação), guardando as páginas no cache
+ * persistente do objeto Wiki.
+ * 
+ * Os títulos são lidos em lotes e colocados em uma fila de tamanho limitado,
+ * consumida por um número fixo de threads: quando a Wiki responde mais devagar
+ * do que os títulos são lidos, a leitura espera (os títulos nunca são todos
+ * carregados em memória). Periodicamente, o cache é gravado no disco e a
+ * quantidade de títulos já processados (em ordem) é salva em um arquivo de
+ * checkpoint; se a coleta for interrompida, basta executá-la novamente com os
+ * mesmos títulos para que ela continue de onde parou. Os títulos dos lotes que
+ * falharam (mesmo após as retentativas da Wiki) são acrescentados a um arquivo
+ * de falhas, para que possam ser coletados depois.
+ * 
+ * Use ColetorPaginas.builder(wiki) para configurar o coletor.
+ */
+public class ColetorPaginas {
+    private final Wiki wiki;
+    private final Path arquivoCheckpoint;
+    private final Path arquivoFalhas;
+    private final int threads;
+    private final int tamanhoLote;
+    private final int capacidadeFila;
+    private final Duration intervaloRelatorio;
+    private final Consumer<Progresso> ouvinte;
+
+    // Contadores da coleta em andamento
+    private final LongAdder titulosProcessados = new LongAdder();
+    private final LongAdder paginasEncontradas = new LongAdder();
+    private final LongAdder titulosComFalha = new LongAdder();
+    // Lotes concluídos fora de ordem (sequência -> posição após o lote)
+    private final Map<Long, Long> concluidosForaDeOrdem = new HashMap<>();
+    // Próximo lote cuja conclusão avança o checkpoint
+    private long proximaSequencia;
+    // Quantidade de títulos (desde o início da lista) cujos lotes, e todos os
+    // anteriores, foram concluídos
+    private long titulosConcluidos;
+    private long titulosPulados;
+    private long inicioNanos;
+    // Indica que a coleta foi interrompida e as threads devem parar
+    private volatile boolean parando;
+
+    private ColetorPaginas(Builder builder) {
+        wiki = builder.wiki;
+        arquivoCheckpoint = builder.arquivoCheckpoint;
+        arquivoFalhas = (arquivoCheckpoint == null) ? null : arquivoCheckpoint.resolveSibling(arquivoCheckpoint.getFileName() + ".falhas");
+        threads = builder.threads;
+        tamanhoLote = builder.tamanhoLote;
+        capacidadeFila = builder.capacidadeFila;
+        intervaloRelatorio = builder.intervaloRelatorio;
+        ouvinte = builder.ouvinte;
+    }
+
+    /**
+     * Cria um builder para configurar o coletor
+     * (ex: ColetorPaginas.builder(wiki).checkpoint(Path.of("coleta.ckpt")).build())
+     * 
+     * @param wiki Wiki a ser consultada; ela deve ter um cache (veja
+     *             Wiki.Builder.cache), onde as páginas coletadas são guardadas,
+     *             e o cache deve ser persistente para usar checkpoint
+     * 
+     * @return O builder com as configurações padrões
+     */
+    public static Builder builder(Wiki wiki) {
+        if (wiki.getCache() == null) {
+            throw new IllegalArgumentException("A Wiki deve ter um cache, onde as páginas coletadas são guardadas");
+        }
+        return new Builder(wiki);
+    }
+
+    /**
+     * Coleta as páginas dos títulos (veja coletar(Iterator))
+     */
+    public Progresso coletar(Stream<String> titulos) throws IOException, InterruptedException {
+        return coletar(titulos.iterator());
+    }
+
+    /**
+     * Coleta as páginas dos títulos, continuando do último checkpoint (se houver).
+     * Os títulos devem vir sempre na mesma ordem, para que a continuação
+     * funcione. O método só retorna quando todos os títulos forem processados.
+     * Um mesmo coletor não deve executar duas coletas ao mesmo tempo.
+     * 
+     * @param titulos Títulos a serem coletados
+     * 
+     * @return O resumo da coleta
+     * @throws IOException          Se não for possível ler ou gravar o checkpoint
+     * @throws InterruptedException Se a thread for interrompida (os lotes em
+     *                              andamento são concluídos e o checkpoint é
+     *                              salvo antes)
+     */
+    public Progresso coletar(Iterator<String> titulos) throws IOException, InterruptedException {
+        reiniciarContadores(lerCheckpoint());
+
+        // Pula os títulos já processados em execuções anteriores
+        long posicao = 0;
+        while (posicao < titulosConcluidos && titulos.hasNext()) {
+            titulos.next();
+            posicao++;
+        }
+        titulosPulados = posicao;
+
+        BlockingQueue<Lote> fila = new ArrayBlockingQueue<>(capacidadeFila);
+        ExecutorService executor = Executors.newFixedThreadPool(threads, criarThread("javaWikiAPI-coletor"));
+        ScheduledExecutorService relator = Executors.newSingleThreadScheduledExecutor(criarThread("javaWikiAPI-coletor-progresso"));
+        parando = false;
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> consumir(fila));
+        }
+        relator.scheduleAtFixedRate(this::relatar, intervaloRelatorio.toMillis(), intervaloRelatorio.toMillis(), TimeUnit.MILLISECONDS);
+
+        boolean concluida = false;
+        try {
+            // Lê os títulos em lotes; put espera enquanto a fila estiver cheia
+            long sequencia = 0;
+            List<String> lote = new ArrayList<>(tamanhoLote);
+            while (titulos.hasNext()) {
+                lote.add(titulos.next());
+                posicao++;
+                if (lote.size() == tamanhoLote || !titulos.hasNext()) {
+                    fila.put(new Lote(sequencia++, posicao, lote));
+                    lote = new ArrayList<>(tamanhoLote);
+                }
+            }
+            for (int t = 0; t < threads; t++) {
+                fila.put(Lote.FIM);
+            }
+            concluida = true;
+        }
+        finally {
+            // Se a coleta foi interrompida, os lotes da fila são descartados e as
+            // threads param após concluírem os lotes que já começaram. As threads
+            // não são interrompidas: a interrupção fecharia o arquivo do cache
+            // (FileChannel) no meio de uma escrita.
+            if (!concluida) {
+                parando = true;
+                fila.clear();
+            }
+            executor.shutdown();
+            relator.shutdown();
+            boolean interrompida = aguardarTermino(executor) | aguardarTermino(relator) | Thread.interrupted();
+            try {
+                salvarCheckpoint();
+            }
+            finally {
+                if (interrompida) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        Progresso progresso = progresso();
+        ouvinte.accept(progresso);
+        return progresso;
+    }
+
+    /**
+     * Laço de uma thread de coleta: consulta os lotes da fila até encontrar o
+     * indicador de fim
+     */
+    private void consumir(BlockingQueue<Lote> fila) {
+        try {
+            while (!parando) {
+                Lote lote = fila.poll(100, TimeUnit.MILLISECONDS);
+                if (lote == Lote.FIM) {
+                    break;
+                }
+                if (lote == null) {
+                    continue;
+                }
+                try {
+                    Map<String, PaginaWiki> paginas = wiki.consultarPaginas(lote.titulos);
+                    paginasEncontradas.add(paginas.size());
+                }
+                catch (Exception e) {
+                    titulosComFalha.add(lote.titulos.size());
+                    registrarFalha(lote, e);
+                }
+                titulosProcessados.add(lote.titulos.size());
+                concluir(lote);
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Aguarda o término das tarefas do executor, mesmo que a thread seja
+     * interrompida
+     * 
+     * @return true se a thread foi interrompida durante a espera
+     */
+    private static boolean aguardarTermino(ExecutorService executor) {
+        boolean interrompida = false;
+        while (true) {
+            try {
+                if (executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                    return interrompida;
+                }
+            }
+            catch (InterruptedException e) {
+                interrompida = true;
+            }
+        }
+    }
+
+    /**
+     * Registra a conclusão do lote, avançando a posição do checkpoint se todos
+     * os lotes anteriores já foram concluídos
+     */
+    private synchronized void concluir(Lote lote) {
+        concluidosForaDeOrdem.put(lote.sequencia, lote.posicaoFinal);
+        Long posicaoFinal;
+        while ((posicaoFinal = concluidosForaDeOrdem.remove(proximaSequencia)) != null) {
+            titulosConcluidos = posicaoFinal;
+            proximaSequencia++;
+        }
+    }
+
+    /**
+     * Acrescenta os títulos do lote ao arquivo de falhas (um por linha)
+     */
+    private synchronized void registrarFalha(Lote lote, Exception erro) {
+        wiki.depurar(() -> "Falha ao coletar lote de " + lote.titulos.size() + " título(s): " + erro);
+        if (arquivoFalhas == null) {
+            return;
+        }
+        try {
+            Files.write(arquivoFalhas, lote.titulos, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        catch (IOException e) {
+            wiki.depurar(() -> "Não foi possível registrar as falhas: " + e);
+        }
+    }
+
+    /**
+     * Salva o checkpoint e informa o progresso ao ouvinte (executado
+     * periodicamente)
+     */
+    private void relatar() {
+        try {
+            salvarCheckpoint();
+        }
+        catch (IOException e) {
+            wiki.depurar(() -> "Não foi possível salvar o checkpoint: " + e);
+        }
+        ouvinte.accept(progresso());
+    }
+
+    /**
+     * Grava o cache no disco e depois a posição do checkpoint (nessa ordem, para
+     * que o checkpoint nunca indique páginas que ainda não estão no cache). O
+     * arquivo é escrito em um temporário e renomeado, para que uma queda durante
+     * a escrita não o corrompa.
+     */
+    private void salvarCheckpoint() throws IOException {
+        if (arquivoCheckpoint == null) {
+            return;
+        }
+        long posicao;
+        synchronized (this) {
+            posicao = titulosConcluidos;
+        }
+        if (wiki.getCache() instanceof Flushable) {
+            ((Flushable) wiki.getCache()).flush();
+        }
+        Path temporario = arquivoCheckpoint.resolveSibling(arquivoCheckpoint.getFileName() + ".tmp");
+        Files.writeString(temporario, Long.toString(posicao), StandardCharsets.UTF_8);
+        Files.move(temporario, arquivoCheckpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Lê a quantidade de títulos já processados do arquivo de checkpoint
+     * 
+     * @return A quantidade (0 se não houver checkpoint)
+     */
+    private long lerCheckpoint() throws IOException {
+        if (arquivoCheckpoint == null || !Files.exists(arquivoCheckpoint)) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(Files.readString(arquivoCheckpoint, StandardCharsets.UTF_8).strip());
+        }
+        catch (NumberFormatException e) {
+            throw new IOException("Checkpoint inválido: " + arquivoCheckpoint, e);
+        }
+    }
+
+    private synchronized void reiniciarContadores(long posicaoInicial) {
+        titulosProcessados.reset();
+        paginasEncontradas.reset();
+        titulosComFalha.reset();
+        concluidosForaDeOrdem.clear();
+        proximaSequencia = 0;
+        titulosConcluidos = posicaoInicial;
+        inicioNanos = System.nanoTime();
+    }
+
+    /**
+     * Progresso da coleta em andamento (ou da última coleta)
+     */
+    public Progresso progresso() {
+        long concluidos;
+        synchronized (this) {
+            concluidos = titulosConcluidos;
+        }
+        return new Progresso(titulosPulados, titulosProcessados.sum(), paginasEncontradas.sum(),
+                             titulosComFalha.sum(), concluidos, Duration.ofNanos(System.nanoTime() - inicioNanos));
+    }
+
+    /**
+     * Fábrica de threads (daemon) com o nome passado
+     */
+    private static java.util.concurrent.ThreadFactory criarThread(String nome) {
+        return tarefa -> {
+            Thread thread = new Thread(tarefa, nome);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Lote de títulos a ser consultado
+     */
+    private static class Lote {
+        // Indicador de que não há mais lotes
+        private static final Lote FIM = new Lote(-1, -1, List.of());
+
+        private final long sequencia;
+        private final long posicaoFinal;
+        private final List<String> titulos;
+
+        public Lote(long sequencia, long posicaoFinal, List<String> titulos) {
+            this.sequencia = sequencia;
+            this.posicaoFinal = posicaoFinal;
+            // Títulos repetidos no mesmo lote são consultados uma só vez
+            this.titulos = new ArrayList<>(new LinkedHashSet<>(titulos));
+        }
+    }
+
+    /**
+     * Resumo do andamento de uma coleta
+     */
+    public static final class Progresso {
+        private final long titulosPulados;
+        private final long titulosProcessados;
+        private final long paginasEncontradas;
+        private final long titulosComFalha;
+        private final long posicaoCheckpoint;
+        private final Duration duracao;
+
+        private Progresso(long titulosPulados, long titulosProcessados, long paginasEncontradas,
+                          long titulosComFalha, long posicaoCheckpoint, Duration duracao) {
+            this.titulosPulados = titulosPulados;
+            this.titulosProcessados = titulosProcessados;
+            this.paginasEncontradas = paginasEncontradas;
+            this.titulosComFalha = titulosComFalha;
+            this.posicaoCheckpoint = posicaoCheckpoint;
+            this.duracao = duracao;
+        }
+
+        /**
+         * Títulos pulados por já terem sido processados em execuções anteriores
+         */
+        public long getTitulosPulados() {
+            return titulosPulados;
+        }
+
+        /**
+         * Títulos (distintos em cada lote) processados nesta execução, inclusive
+         * os que falharam
+         */
+        public long getTitulosProcessados() {
+            return titulosProcessados;
+        }
+
+        /**
+         * Páginas encontradas nesta execução
+         */
+        public long getPaginasEncontradas() {
+            return paginasEncontradas;
+        }
+
+        /**
+         * Títulos processados cujas páginas não existem na Wiki
+         */
+        public long getTitulosNaoEncontrados() {
+            return titulosProcessados - titulosComFalha - paginasEncontradas;
+        }
+
+        /**
+         * Títulos de lotes que falharam (veja o arquivo de falhas)
+         */
+        public long getTitulosComFalha() {
+            return titulosComFalha;
+        }
+
+        /**
+         * Quantidade de títulos (desde o início da lista) já processados em ordem,
+         * que serão pulados se a coleta for reiniciada
+         */
+        public long getPosicaoCheckpoint() {
+            return posicaoCheckpoint;
+        }
+
+        public Duration getDuracao() {
+            return duracao;
+        }
+
+        /**
+         * Vazão da coleta em títulos por segundo
+         */
+        public double getVazao() {
+            double segundos = duracao.toNanos() / 1e9;
+            return (segundos == 0) ? 0 : titulosProcessados / segundos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d título(s) processado(s) em %.1f s (%.1f/s): %d encontrado(s), %d inexistente(s), %d com falha; checkpoint em %d",
+                                 titulosProcessados, duracao.toMillis() / 1000.0, getVazao(), paginasEncontradas,
+                                 getTitulosNaoEncontrados(), titulosComFalha, posicaoCheckpoint);
+        }
+    }
+
+    /**
+     * Classe que permite configurar e construir um ColetorPaginas.
+     * Todos os métodos retornam o próprio builder, para que possam ser encadeados.
+     */
+    public static class Builder {
+        private final Wiki wiki;
+        private Path arquivoCheckpoint = null;
+        private int threads = 4;
+        private int tamanhoLote = 50;
+        private int capacidadeFila = 16;
+        private Duration intervaloRelatorio = Duration.ofSeconds(5);
+        private Consumer<Progresso> ouvinte = progresso -> { };
+
+        /**
+         * Builder com as configurações padrões (use ColetorPaginas.builder(wiki))
+         */
+        private Builder(Wiki wiki) {
+            this.wiki = wiki;
+        }
+
+        /**
+         * Arquivo onde a posição da coleta é salva, para que ela possa continuar
+         * de onde parou (por padrão, não há checkpoint). Os títulos com falha são
+         * gravados em um arquivo de mesmo nome acrescido de ".falhas". Para
+         * recomeçar a coleta do início, apague o arquivo.
+         * 
+         * O checkpoint exige que o cache da Wiki seja persistente (veja
+         * CachePaginas.persistente): com um cache só em memória, as páginas se
+         * perderiam com o programa e a continuação pularia títulos que não estão
+         * mais no cache.
+         */
+        public Builder checkpoint(Path arquivoCheckpoint) {
+            if (arquivoCheckpoint != null && !wiki.getCache().persistente()) {
+                throw new IllegalArgumentException("O checkpoint exige que o cache da Wiki seja persistente (ex: CacheDisco)");
+            }
+            this.arquivoCheckpoint = arquivoCheckpoint;
+            return this;
+        }
+
+        /**
+         * Quantidade de lotes consultados simultaneamente (o padrão é 4). Não
+         * adianta passar do tamanho do pool de conexões da Wiki.
+         */
+        public Builder threads(int threads) {
+            if (threads <= 0) {
+                throw new IllegalArgumentException("A quantidade de threads deve ser positiva");
+            }
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * Quantidade de títulos de cada lote (o padrão é 50, o máximo que a Wiki
+         * aceita em uma requisição)
+         */
+        public Builder tamanhoLote(int tamanhoLote) {
+            if (tamanhoLote <= 0) {
+                throw new IllegalArgumentException("O tamanho do lote deve ser positivo");
+            }
+            this.tamanhoLote = tamanhoLote;
+            return this;
+        }
+
+        /**
+         * Quantidade máxima de lotes esperando na fila (o padrão é 16)
+         */
+        public Builder capacidadeFila(int capacidadeFila) {
+            if (capacidadeFila <= 0) {
+                throw new IllegalArgumentException("A capacidade da fila deve ser positiva");
+            }
+            this.capacidadeFila = capacidadeFila;
+            return this;
+        }
+
+        /**
+         * Intervalo entre os checkpoints e os relatórios de progresso (o padrão é
+         * 5 segundos, e o mínimo é 1 milissegundo)
+         */
+        public Builder intervaloRelatorio(Duration intervaloRelatorio) {
+            if (intervaloRelatorio.toMillis() < 1) {
+                throw new IllegalArgumentException("O intervalo dos relatórios deve ser de pelo menos 1 ms");
+            }
+            this.intervaloRelatorio = intervaloRelatorio;
+            return this;
+        }
+
+        /**
+         * Função chamada com o progresso a cada relatório e ao final da coleta
+         * (ex: System.out::println)
+         */
+        public Builder ouvinte(Consumer<Progresso> ouvinte) {
+            this.ouvinte = ouvinte;
+            return this;
+        }
+
+        /**
+         * Constrói o coletor com as configurações definidas
+         * 
+         * @return O coletor construído
+         */
+        public ColetorPaginas build() {
+            return new ColetorPaginas(this);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package br.ufla.gac106.javaWikiAPI;
+
+/**
+ * Classe que representa uma entrada armazenada em um cache de páginas Wiki.
+ * 
+ * Uma entrada pode guardar uma página ou o resultado negativo de uma consulta
+ * (página inexistente ou título inválido), para que consultas repetidas por
+ * títulos inexistentes também não precisem ir à rede.
+ */
+public class EntradaCache {
+    // Página armazenada (null se a página não existe na Wiki)
+    private PaginaWiki pagina;
+    // Instante (em milissegundos desde a época) em que a entrada foi obtida da Wiki
+    private long instante;
+
+    /**
+     * Constrói uma entrada com a página passada, obtida no instante atual
+     * 
+     * @param pagina Página a ser armazenada (ou null se a página não existe)
+     */
+    public EntradaCache(PaginaWiki pagina) {
+        this(pagina, System.currentTimeMillis());
+    }
+
+    /**
+     * Constrói uma entrada com a página passada, obtida no instante informado
+     * 
+     * @param pagina   Página a ser armazenada (ou null se a página não existe)
+     * @param instante Instante (em milissegundos desde a época) em que a página
+     *                 foi obtida
+     */
+    public EntradaCache(PaginaWiki pagina, long instante) {
+        this.pagina = pagina;
+        this.instante = instante;
+    }
+
+    /**
+     * Página armazenada
+     * 
+     * @return A página (ou null se a página não existe na Wiki)
+     */
+    public PaginaWiki getPagina() {
+        return pagina;
+    }
+
+    /**
+     * Instante em que a entrada foi obtida da Wiki
+     * 
+     * @return O instante em milissegundos desde a época
+     */
+    public long getInstante() {
+        return instante;
+    }
+
+    /**
+     * Indica se a entrada representa uma página inexistente (resultado negativo)
+     * 
+     * @return true se a página não existe na Wiki
+     */
+    public boolean isPaginaInexistente() {
+        return pagina == null;
+    }
+
+    /**
+     * Indica se a entrada já expirou
+     * 
+     * @param validadeMillis Tempo de validade das entradas em milissegundos (ou 0
+     *                       se as entradas não expiram)
+     * 
+     * @return true se a entrada expirou
+     */
+    public boolean expirou(long validadeMillis) {
+        return validadeMillis > 0 && System.currentTimeMillis() - instante > validadeMillis;
+    }
+}
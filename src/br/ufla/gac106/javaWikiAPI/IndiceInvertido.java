@@ -0,0 +1,444 @@
+package br.ufla.gac106.javaWikiAPI;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido local sobre o título e o resumo de páginas Wiki, que permite
+ * pesquisar páginas já obtidas sem acessar a rede.
+ * 
+ * Os textos são divididos em termos pelo Tokenizador (sem acentos e sem palavras
+ * vazias). Para cada termo é guardada a lista das páginas que o contêm (com a
+ * quantidade de ocorrências), compactada: os números das páginas são guardados
+ * como diferenças em relação ao anterior, em inteiros de tamanho variável (7
+ * bits por byte). Os resultados são ordenados pela relevância calculada com o
+ * BM25, e as ocorrências no título valem mais que as do resumo.
+ * 
+ * Páginas adicionadas novamente (mesmo título) substituem as anteriores. As
+ * páginas substituídas ou removidas são apenas marcadas como removidas; quando
+ * elas passam de 1/4 das páginas ativas, o índice é compactado (os documentos
+ * são renumerados e as listas são recodificadas sem eles), de forma que a
+ * memória e o tempo das pesquisas não crescem com as substituições. Os
+ * métodos podem ser chamados por várias threads; as pesquisas podem ser feitas
+ * simultaneamente entre si.
+ * 
+ * Para que as páginas consultadas por um objeto Wiki sejam indexadas
+ * automaticamente, passe o índice a Wiki.builder().indice(...).
+ */
+public class IndiceInvertido {
+    // Parâmetros do BM25: saturação da frequência dos termos e normalização pelo
+    // tamanho do texto
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    // Quantas ocorrências no resumo vale uma ocorrência no título
+    private static final int PESO_TITULO = 3;
+    // O índice é compactado quando os documentos removidos passam desta fração
+    // dos documentos ativos (e desta quantidade mínima)
+    private static final int DIVISOR_COMPACTACAO = 4;
+    private static final int MINIMO_COMPACTACAO = 32;
+
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+    // Páginas indexadas, pelo número do documento
+    private final List<PaginaWiki> paginas = new ArrayList<>();
+    // Tamanho (em termos, com o peso do título) de cada documento
+    private int[] tamanhos = new int[64];
+    // Documentos substituídos ou removidos (que são ignorados nas pesquisas)
+    private final BitSet removidos = new BitSet();
+    private int documentosRemovidos;
+    // Número do documento atual de cada título
+    private final Map<String, Integer> documentoDoTitulo = new HashMap<>();
+    // Lista de ocorrências de cada termo
+    private final Map<String, ListaOcorrencias> termos = new HashMap<>();
+    // Soma dos tamanhos e quantidade dos documentos não removidos
+    private long somaTamanhos;
+    private int documentosAtivos;
+
+    /**
+     * Adiciona a página ao índice. Se já houver uma página com o mesmo título e o
+     * mesmo resumo, nada é feito; se o resumo for diferente, ela é substituída.
+     * 
+     * @param pagina Página a ser indexada
+     * 
+     * @return true se a página foi indexada
+     */
+    public boolean adicionar(PaginaWiki pagina) {
+        // Evita tokenizar páginas que já estão indexadas (ex: obtidas do cache)
+        PaginaWiki indexada = obter(pagina.getTitulo());
+        if (indexada != null && (indexada == pagina || mesmoTexto(indexada, pagina))) {
+            return false;
+        }
+
+        Map<String, Integer> frequencias = contarTermos(pagina);
+        trava.writeLock().lock();
+        try {
+            Integer anterior = documentoDoTitulo.get(pagina.getTitulo());
+            if (anterior != null) {
+                if (mesmoTexto(paginas.get(anterior), pagina)) {
+                    return false;
+                }
+                removerDocumento(anterior);
+            }
+
+            int documento = paginas.size();
+            paginas.add(pagina);
+            if (documento == tamanhos.length) {
+                tamanhos = Arrays.copyOf(tamanhos, tamanhos.length * 2);
+            }
+            int tamanho = 0;
+            for (Map.Entry<String, Integer> frequencia : frequencias.entrySet()) {
+                termos.computeIfAbsent(frequencia.getKey(), termo -> new ListaOcorrencias())
+                      .adicionar(documento, frequencia.getValue());
+                tamanho += frequencia.getValue();
+            }
+            tamanhos[documento] = tamanho;
+            somaTamanhos += tamanho;
+            documentosAtivos++;
+            documentoDoTitulo.put(pagina.getTitulo(), documento);
+            compactarSeNecessario();
+            return true;
+        }
+        finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adiciona as páginas ao índice (veja adicionar)
+     * 
+     * @param paginas Páginas a serem indexadas
+     * 
+     * @return Quantidade de páginas indexadas
+     */
+    public int adicionarTodas(Collection<PaginaWiki> paginas) {
+        int adicionadas = 0;
+        for (PaginaWiki pagina : paginas) {
+            if (adicionar(pagina)) {
+                adicionadas++;
+            }
+        }
+        return adicionadas;
+    }
+
+    /**
+     * Remove a página de título passado do índice
+     * 
+     * @param titulo Título da página
+     * 
+     * @return true se a página estava no índice
+     */
+    public boolean remover(String titulo) {
+        trava.writeLock().lock();
+        try {
+            Integer documento = documentoDoTitulo.remove(titulo);
+            if (documento == null) {
+                return false;
+            }
+            removerDocumento(documento);
+            compactarSeNecessario();
+            return true;
+        }
+        finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Marca o documento como removido, descontando seus termos das estatísticas
+     * (as ocorrências continuam nas listas compactadas e são ignoradas)
+     */
+    private void removerDocumento(int documento) {
+        for (String termo : contarTermos(paginas.get(documento)).keySet()) {
+            termos.get(termo).documentos--;
+        }
+        removidos.set(documento);
+        paginas.set(documento, null);
+        somaTamanhos -= tamanhos[documento];
+        documentosAtivos--;
+        documentosRemovidos++;
+    }
+
+    /**
+     * Compacta o índice se os documentos removidos passaram do limite. Como a
+     * compactação só acontece depois de uma quantidade de remoções
+     * proporcional ao tamanho do índice, seu custo por remoção é constante.
+     */
+    private void compactarSeNecessario() {
+        if (documentosRemovidos >= MINIMO_COMPACTACAO && documentosRemovidos > documentosAtivos / DIVISOR_COMPACTACAO) {
+            compactar();
+        }
+    }
+
+    /**
+     * Renumera os documentos ativos (mantendo a ordem) e recodifica as listas
+     * de ocorrências sem os documentos removidos; termos que só ocorriam em
+     * documentos removidos são descartados
+     */
+    private void compactar() {
+        int[] novoNumero = new int[paginas.size()];
+        int ativos = 0;
+        for (int documento = 0; documento < paginas.size(); documento++) {
+            if (removidos.get(documento)) {
+                novoNumero[documento] = -1;
+            }
+            else {
+                PaginaWiki pagina = paginas.get(documento);
+                novoNumero[documento] = ativos;
+                paginas.set(ativos, pagina);
+                tamanhos[ativos] = tamanhos[documento];
+                documentoDoTitulo.put(pagina.getTitulo(), ativos);
+                ativos++;
+            }
+        }
+        paginas.subList(ativos, paginas.size()).clear();
+        tamanhos = Arrays.copyOf(tamanhos, Math.max(64, Integer.highestOneBit(Math.max(ativos, 1)) * 2));
+
+        Iterator<Map.Entry<String, ListaOcorrencias>> iterador = termos.entrySet().iterator();
+        while (iterador.hasNext()) {
+            Map.Entry<String, ListaOcorrencias> termo = iterador.next();
+            ListaOcorrencias antiga = termo.getValue();
+            if (antiga.documentos == 0) {
+                iterador.remove();
+                continue;
+            }
+
+            ListaOcorrencias nova = new ListaOcorrencias();
+            byte[] bytes = antiga.bytes;
+            int posicao = 0;
+            int documento = 0;
+            while (posicao < antiga.tamanho) {
+                int valor = 0;
+                for (int deslocamento = 0; ; deslocamento += 7) {
+                    byte b = bytes[posicao++];
+                    valor |= (b & 0x7F) << deslocamento;
+                    if (b >= 0) break;
+                }
+                documento += valor;
+                int frequencia = 0;
+                for (int deslocamento = 0; ; deslocamento += 7) {
+                    byte b = bytes[posicao++];
+                    frequencia |= (b & 0x7F) << deslocamento;
+                    if (b >= 0) break;
+                }
+                if (novoNumero[documento] >= 0) {
+                    nova.adicionar(novoNumero[documento], frequencia);
+                }
+            }
+            termo.setValue(nova);
+        }
+
+        removidos.clear();
+        documentosRemovidos = 0;
+    }
+
+    private static boolean mesmoTexto(PaginaWiki pagina, PaginaWiki outra) {
+        return pagina.getTitulo().equals(outra.getTitulo())
+                && String.valueOf(pagina.getResumo()).equals(String.valueOf(outra.getResumo()));
+    }
+
+    /**
+     * Conta as ocorrências de cada termo no título (com peso) e no resumo da página
+     */
+    private static Map<String, Integer> contarTermos(PaginaWiki pagina) {
+        Map<String, Integer> frequencias = new HashMap<>();
+        for (String termo : Tokenizador.tokenizar(pagina.getTitulo())) {
+            frequencias.merge(termo, PESO_TITULO, Integer::sum);
+        }
+        for (String termo : Tokenizador.tokenizar(pagina.getResumo())) {
+            frequencias.merge(termo, 1, Integer::sum);
+        }
+        return frequencias;
+    }
+
+    /**
+     * Pesquisa as páginas mais relevantes para a consulta. Basta que a página
+     * contenha um dos termos da consulta, mas as que contêm mais termos (e
+     * termos mais raros) vêm primeiro.
+     * 
+     * @param consulta   Texto da consulta
+     * @param quantidade Quantidade máxima de páginas retornadas
+     * 
+     * @return As páginas encontradas, da mais relevante para a menos relevante
+     */
+    public List<PaginaWiki> pesquisar(String consulta, int quantidade) {
+        Set<String> termosConsulta = new LinkedHashSet<>(Tokenizador.tokenizar(consulta));
+        List<PaginaWiki> resultado = new ArrayList<>();
+        trava.readLock().lock();
+        try {
+            if (termosConsulta.isEmpty() || documentosAtivos == 0 || quantidade <= 0) {
+                return resultado;
+            }
+            float[] pontuacoes = new float[paginas.size()];
+            int[] encontrados = new int[paginas.size()];
+            int quantidadeEncontrados = 0;
+            float tamanhoMedio = (float) somaTamanhos / documentosAtivos;
+
+            for (String termo : termosConsulta) {
+                ListaOcorrencias ocorrencias = termos.get(termo);
+                if (ocorrencias == null || ocorrencias.documentos == 0) {
+                    continue;
+                }
+                double idf = Math.log(1 + (documentosAtivos - ocorrencias.documentos + 0.5) / (ocorrencias.documentos + 0.5));
+
+                // Percorre a lista compactada: (diferença do documento, frequência)
+                byte[] bytes = ocorrencias.bytes;
+                int posicao = 0;
+                int documento = 0;
+                while (posicao < ocorrencias.tamanho) {
+                    int valor = 0;
+                    for (int deslocamento = 0; ; deslocamento += 7) {
+                        byte b = bytes[posicao++];
+                        valor |= (b & 0x7F) << deslocamento;
+                        if (b >= 0) break;
+                    }
+                    documento += valor;
+                    int frequencia = 0;
+                    for (int deslocamento = 0; ; deslocamento += 7) {
+                        byte b = bytes[posicao++];
+                        frequencia |= (b & 0x7F) << deslocamento;
+                        if (b >= 0) break;
+                    }
+                    if (removidos.get(documento)) {
+                        continue;
+                    }
+
+                    float normalizacao = K1 * (1 - B + B * tamanhos[documento] / tamanhoMedio);
+                    if (pontuacoes[documento] == 0) {
+                        encontrados[quantidadeEncontrados++] = documento;
+                    }
+                    pontuacoes[documento] += (float) (idf * frequencia * (K1 + 1) / (frequencia + normalizacao));
+                }
+            }
+
+            // Ordena pela pontuação (positiva, então a ordem dos bits do float é a
+            // ordem dos valores), decrescente
+            long[] chaves = new long[quantidadeEncontrados];
+            for (int e = 0; e < quantidadeEncontrados; e++) {
+                int documento = encontrados[e];
+                chaves[e] = ((long) Float.floatToIntBits(pontuacoes[documento]) << 32) | (Integer.MAX_VALUE - documento);
+            }
+            Arrays.sort(chaves);
+            for (int e = chaves.length - 1; e >= 0 && resultado.size() < quantidade; e--) {
+                resultado.add(paginas.get(Integer.MAX_VALUE - (int) chaves[e]));
+            }
+            return resultado;
+        }
+        finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Pesquisa os títulos das páginas mais relevantes para a consulta (veja
+     * pesquisar)
+     * 
+     * @param consulta   Texto da consulta
+     * @param quantidade Quantidade máxima de títulos retornados
+     * 
+     * @return Os títulos encontrados, do mais relevante para o menos relevante
+     */
+    public List<String> pesquisarTitulos(String consulta, int quantidade) {
+        List<String> titulos = new ArrayList<>();
+        for (PaginaWiki pagina : pesquisar(consulta, quantidade)) {
+            titulos.add(pagina.getTitulo());
+        }
+        return titulos;
+    }
+
+    /**
+     * Obtém a página indexada com o título passado
+     * 
+     * @return A página (ou null se não estiver no índice)
+     */
+    public PaginaWiki obter(String titulo) {
+        trava.readLock().lock();
+        try {
+            Integer documento = documentoDoTitulo.get(titulo);
+            return (documento == null) ? null : paginas.get(documento);
+        }
+        finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Quantidade de páginas no índice
+     */
+    public int tamanho() {
+        trava.readLock().lock();
+        try {
+            return documentosAtivos;
+        }
+        finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Quantidade de termos distintos no índice
+     */
+    public int quantidadeTermos() {
+        trava.readLock().lock();
+        try {
+            return termos.size();
+        }
+        finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Quantidade de bytes ocupados pelas listas compactadas de ocorrências
+     */
+    public long bytesOcorrencias() {
+        trava.readLock().lock();
+        try {
+            long total = 0;
+            for (ListaOcorrencias ocorrencias : termos.values()) {
+                total += ocorrencias.tamanho;
+            }
+            return total;
+        }
+        finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lista compactada das ocorrências de um termo: pares (diferença em relação
+     * ao documento anterior, frequência) em inteiros de tamanho variável
+     */
+    private static class ListaOcorrencias {
+        private byte[] bytes = new byte[8];
+        private int tamanho;
+        private int ultimoDocumento;
+        // Quantidade de documentos não removidos que contêm o termo
+        private int documentos;
+
+        public void adicionar(int documento, int frequencia) {
+            escrever(documento - ultimoDocumento);
+            escrever(frequencia);
+            ultimoDocumento = documento;
+            documentos++;
+        }
+
+        private void escrever(int valor) {
+            if (tamanho + 5 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            while ((valor & ~0x7F) != 0) {
+                bytes[tamanho++] = (byte) ((valor & 0x7F) | 0x80);
+                valor >>>= 7;
+            }
+            bytes[tamanho++] = (byte) valor;
+        }
+    }
+}
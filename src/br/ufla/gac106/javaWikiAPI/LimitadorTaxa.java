@@ -0,0 +1,78 @@
+package br.ufla.gac106.javaWikiAPI;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Classe que limita a taxa de requisições feitas a uma Wiki (algoritmo "token
+ * bucket"): as requisições consomem permissões que são repostas a uma taxa
+ * constante, e pequenas rajadas são permitidas enquanto houver permissões
+ * acumuladas.
+ * 
+ * Um mesmo limitador pode ser compartilhado por vários objetos Wiki que acessam
+ * o mesmo endpoint, para que o limite valha para todos eles juntos.
+ */
+public class LimitadorTaxa {
+    // Quantidade de permissões repostas por nanossegundo
+    private final double permissoesPorNano;
+    // Quantidade máxima de permissões acumuladas (tamanho da rajada)
+    private final double capacidade;
+    // Permissões disponíveis (negativo quando há requisições aguardando)
+    private double disponiveis;
+    // Instante (System.nanoTime) da última reposição de permissões
+    private long ultimaReposicao;
+
+    /**
+     * Constrói um limitador que permite rajadas de até 1 segundo de requisições
+     * 
+     * @param requisicoesPorSegundo Quantidade máxima de requisições por segundo
+     */
+    public LimitadorTaxa(double requisicoesPorSegundo) {
+        this(requisicoesPorSegundo, (int) Math.max(1, Math.ceil(requisicoesPorSegundo)));
+    }
+
+    /**
+     * Constrói um limitador
+     * 
+     * @param requisicoesPorSegundo Quantidade máxima de requisições por segundo
+     * @param rajada                Quantidade de requisições que podem ser feitas
+     *                              de uma vez (sem espera) após um período ocioso
+     */
+    public LimitadorTaxa(double requisicoesPorSegundo, int rajada) {
+        if (requisicoesPorSegundo <= 0 || rajada <= 0) {
+            throw new IllegalArgumentException("A taxa e a rajada do limitador devem ser positivas");
+        }
+        permissoesPorNano = requisicoesPorSegundo / TimeUnit.SECONDS.toNanos(1);
+        capacidade = rajada;
+        disponiveis = rajada;
+        ultimaReposicao = System.nanoTime();
+    }
+
+    /**
+     * Reserva uma permissão para uma requisição
+     * 
+     * @return Tempo (em nanossegundos) que a requisição deve aguardar antes de ser
+     *         feita (0 se pode ser feita imediatamente)
+     */
+    public synchronized long reservar() {
+        long agora = System.nanoTime();
+        disponiveis = Math.min(capacidade, disponiveis + (agora - ultimaReposicao) * permissoesPorNano);
+        ultimaReposicao = agora;
+
+        disponiveis -= 1;
+        if (disponiveis >= 0) {
+            return 0;
+        }
+        // Aguarda até que a "dívida" de permissões seja reposta
+        return (long) Math.ceil(-disponiveis / permissoesPorNano);
+    }
+
+    /**
+     * Reserva uma permissão e aguarda (bloqueando a thread) até que ela possa ser
+     * usada
+     * 
+     * @throws InterruptedException Se a thread for interrompida enquanto aguarda
+     */
+    public void aguardar() throws InterruptedException {
+        TimeUnit.NANOSECONDS.sleep(reservar());
+    }
+}
@@ -0,0 +1,91 @@
+package br.ufla.gac106.javaWikiAPI;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Classe que limita a quantidade de operações executadas simultaneamente (ex:
+ * requisições HTTP de um objeto Wiki).
+ * 
+ * Diferente de um semáforo comum, permite aguardar uma permissão sem bloquear a
+ * thread (adquirirAsync): o futuro retornado é completado quando uma permissão
+ * for liberada, na ordem em que foram solicitadas.
+ */
+class LimiteConcorrencia {
+    // Quantidade de permissões disponíveis
+    private int disponiveis;
+    // Solicitações aguardando uma permissão, em ordem de chegada
+    private Queue<CompletableFuture<Void>> aguardando;
+
+    /**
+     * Constrói o limite
+     * 
+     * @param permissoes Quantidade máxima de operações simultâneas
+     */
+    public LimiteConcorrencia(int permissoes) {
+        disponiveis = permissoes;
+        aguardando = new ArrayDeque<>();
+    }
+
+    /**
+     * Solicita uma permissão sem bloquear a thread
+     * 
+     * @return Futuro completado quando a permissão for concedida
+     */
+    public synchronized CompletableFuture<Void> adquirirAsync() {
+        if (disponiveis > 0) {
+            disponiveis--;
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> permissao = new CompletableFuture<>();
+        aguardando.add(permissao);
+        return permissao;
+    }
+
+    /**
+     * Solicita uma permissão, bloqueando a thread até que ela seja concedida
+     * 
+     * @throws InterruptedException Se a thread for interrompida enquanto aguarda
+     */
+    public void adquirir() throws InterruptedException {
+        CompletableFuture<Void> permissao = adquirirAsync();
+        try {
+            permissao.get();
+        }
+        catch (InterruptedException e) {
+            // Se a permissão já tinha sido concedida, devolve-a
+            if (!permissao.cancel(false)) {
+                liberar();
+            }
+            throw e;
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Libera uma permissão, passando-a para a próxima solicitação que estiver
+     * aguardando (se houver)
+     */
+    public void liberar() {
+        CompletableFuture<Void> proxima;
+        synchronized (this) {
+            do {
+                proxima = aguardando.poll();
+            } while (proxima != null && proxima.isCancelled());
+
+            if (proxima == null) {
+                disponiveis++;
+                return;
+            }
+        }
+        // Completa fora do bloco sincronizado, pois a continuação pode executar aqui
+        if (!proxima.complete(null)) {
+            // Foi cancelada entre a retirada da fila e aqui: tenta a próxima
+            liberar();
+        }
+    }
+}
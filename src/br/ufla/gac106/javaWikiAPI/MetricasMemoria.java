@@ -0,0 +1,294 @@
+package br.ufla.gac106.javaWikiAPI;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Classe que acumula em memória as métricas das requisições de um (ou mais)
+ * objetos Wiki: histogramas de latência por operação, bytes transferidos,
+ * erros por código de status, taxa de acerto do cache e requisições em
+ * andamento.
+ * 
+ * Os contadores não usam travas, de forma que o custo de registrar as métricas
+ * é pequeno mesmo com muitas threads.
+ */
+public class MetricasMemoria implements MetricasWiki {
+    // Histograma de latência de cada operação
+    private final Map<Operacao, Histograma> latencias = new EnumMap<>(Operacao.class);
+    // Requisições em andamento de cada operação
+    private final Map<Operacao, AtomicInteger> emAndamento = new EnumMap<>(Operacao.class);
+    // Retentativas de cada operação
+    private final Map<Operacao, LongAdder> retentativas = new EnumMap<>(Operacao.class);
+    // Quantidade de requisições mal-sucedidas por código de status (0 = erro de rede)
+    private final ConcurrentHashMap<Integer, LongAdder> errosPorStatus = new ConcurrentHashMap<>();
+    private final LongAdder bytesTransferidos = new LongAdder();
+    private final LongAdder acertosCache = new LongAdder();
+    private final LongAdder faltasCache = new LongAdder();
+
+    /**
+     * Constrói as métricas zeradas
+     */
+    public MetricasMemoria() {
+        for (Operacao operacao : Operacao.values()) {
+            latencias.put(operacao, new Histograma());
+            emAndamento.put(operacao, new AtomicInteger());
+            retentativas.put(operacao, new LongAdder());
+        }
+    }
+
+    @Override
+    public void requisicaoIniciada(Operacao operacao) {
+        emAndamento.get(operacao).incrementAndGet();
+    }
+
+    @Override
+    public void requisicaoConcluida(Operacao operacao, int status, long duracaoNanos, long bytes) {
+        emAndamento.get(operacao).decrementAndGet();
+        latencias.get(operacao).registrar(duracaoNanos);
+        bytesTransferidos.add(bytes);
+        if (status < 200 || status >= 300) {
+            errosPorStatus.computeIfAbsent(status, s -> new LongAdder()).increment();
+        }
+    }
+
+    @Override
+    public void retentativa(Operacao operacao) {
+        retentativas.get(operacao).increment();
+    }
+
+    @Override
+    public void acessoCache(boolean acerto) {
+        (acerto ? acertosCache : faltasCache).increment();
+    }
+
+    /**
+     * Histograma de latência das requisições de uma operação
+     * 
+     * @param operacao A operação
+     * 
+     * @return O histograma
+     */
+    public Histograma getLatencia(Operacao operacao) {
+        return latencias.get(operacao);
+    }
+
+    /**
+     * Quantidade de requisições de uma operação em andamento neste momento
+     * 
+     * @param operacao A operação
+     * 
+     * @return A quantidade
+     */
+    public int getRequisicoesEmAndamento(Operacao operacao) {
+        return emAndamento.get(operacao).get();
+    }
+
+    /**
+     * Quantidade de retentativas de requisições de uma operação
+     * 
+     * @param operacao A operação
+     * 
+     * @return A quantidade
+     */
+    public long getRetentativas(Operacao operacao) {
+        return retentativas.get(operacao).sum();
+    }
+
+    /**
+     * Total de bytes recebidos nos corpos das respostas
+     * 
+     * @return A quantidade de bytes
+     */
+    public long getBytesTransferidos() {
+        return bytesTransferidos.sum();
+    }
+
+    /**
+     * Quantidade de requisições mal-sucedidas por código de status HTTP (o código
+     * 0 indica erros de rede, em que não houve resposta)
+     * 
+     * @return Mapa (ordenado) do código de status para a quantidade
+     */
+    public Map<Integer, Long> getErrosPorStatus() {
+        Map<Integer, Long> erros = new TreeMap<>();
+        errosPorStatus.forEach((status, quantidade) -> erros.put(status, quantidade.sum()));
+        return erros;
+    }
+
+    /**
+     * Fração das páginas procuradas que estavam no cache
+     * 
+     * @return A taxa de acerto, entre 0 e 1 (0 se o cache não foi usado)
+     */
+    public double getTaxaAcertoCache() {
+        long acertos = acertosCache.sum();
+        long total = acertos + faltasCache.sum();
+        return (total == 0) ? 0 : (double) acertos / total;
+    }
+
+    /**
+     * Zera todas as métricas (exceto as requisições em andamento)
+     */
+    public void zerar() {
+        for (Operacao operacao : Operacao.values()) {
+            latencias.get(operacao).zerar();
+            retentativas.get(operacao).reset();
+        }
+        errosPorStatus.clear();
+        bytesTransferidos.reset();
+        acertosCache.reset();
+        faltasCache.reset();
+    }
+
+    /**
+     * Retorna um resumo das métricas em texto
+     */
+    @Override
+    public String toString() {
+        StringBuilder texto = new StringBuilder("MetricasWiki:");
+        for (Operacao operacao : Operacao.values()) {
+            Histograma latencia = latencias.get(operacao);
+            texto.append(String.format("%n  %-11s qtde=%d media=%.1fms p50=%.0fms p95=%.0fms p99=%.0fms emAndamento=%d retentativas=%d",
+                    operacao, latencia.getQuantidade(), latencia.getMediaMillis(), latencia.percentilMillis(50),
+                    latencia.percentilMillis(95), latencia.percentilMillis(99), getRequisicoesEmAndamento(operacao),
+                    getRetentativas(operacao)));
+        }
+        texto.append(String.format("%n  bytes=%d erros=%s acertoCache=%.1f%%", getBytesTransferidos(), getErrosPorStatus(),
+                getTaxaAcertoCache() * 100));
+        return texto.toString();
+    }
+
+    /**
+     * Histograma de latências em microssegundos com faixas log-lineares: cada
+     * intervalo [2^e, 2^(e+1)) é dividido em 16 faixas de mesma largura, de
+     * forma que a largura de uma faixa é no máximo 1/16 do seu início. Isso
+     * permite estimar percentis com memória constante e erro relativo de
+     * poucos por cento.
+     */
+    public static class Histograma {
+        // Faixas por potência de 2 (e seu logaritmo)
+        private static final int BITS_SUBFAIXAS = 4;
+        private static final int SUBFAIXAS = 1 << BITS_SUBFAIXAS;
+        // Latências abaixo de SUBFAIXAS µs têm uma faixa para cada µs; as
+        // demais vão até 2^36 µs (cerca de 19 horas), e as maiores ficam na
+        // última faixa
+        private static final int MAIOR_EXPOENTE = 36;
+        private static final int QUANTIDADE_FAIXAS = (MAIOR_EXPOENTE - BITS_SUBFAIXAS + 2) * SUBFAIXAS;
+
+        private final AtomicLongArray contagens = new AtomicLongArray(QUANTIDADE_FAIXAS);
+        private final LongAdder quantidade = new LongAdder();
+        private final LongAdder somaNanos = new LongAdder();
+
+        /**
+         * Registra uma latência
+         * 
+         * @param duracaoNanos Duração em nanossegundos
+         */
+        public void registrar(long duracaoNanos) {
+            long micros = TimeUnit.NANOSECONDS.toMicros(Math.max(0, duracaoNanos));
+            contagens.incrementAndGet(faixa(micros));
+            quantidade.increment();
+            somaNanos.add(duracaoNanos);
+        }
+
+        /**
+         * Quantidade de latências registradas
+         * 
+         * @return A quantidade
+         */
+        public long getQuantidade() {
+            return quantidade.sum();
+        }
+
+        /**
+         * Média das latências registradas em milissegundos
+         * 
+         * @return A média (0 se não há latências registradas)
+         */
+        public double getMediaMillis() {
+            long total = quantidade.sum();
+            return (total == 0) ? 0 : somaNanos.sum() / 1e6 / total;
+        }
+
+        /**
+         * Estima um percentil das latências registradas (por interpolação linear
+         * dentro da faixa em que o percentil cai)
+         * 
+         * @param percentil Percentil desejado (entre 0 e 100)
+         * 
+         * @return O percentil em milissegundos (0 se não há latências registradas)
+         */
+        public double percentilMillis(double percentil) {
+            long[] copia = new long[QUANTIDADE_FAIXAS];
+            long total = 0;
+            for (int i = 0; i < QUANTIDADE_FAIXAS; i++) {
+                copia[i] = contagens.get(i);
+                total += copia[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+
+            double posicao = total * Math.min(100, Math.max(0, percentil)) / 100;
+            long acumulado = 0;
+            int i = 0;
+            // Primeira faixa em que a quantidade acumulada alcança a posição
+            while (i < QUANTIDADE_FAIXAS - 1 && (copia[i] == 0 || acumulado + copia[i] < posicao)) {
+                acumulado += copia[i];
+                i++;
+            }
+            double fracao = (copia[i] == 0) ? 1 : Math.max(0, posicao - acumulado) / copia[i];
+            return (inicioFaixa(i) + fracao * larguraFaixa(i)) / 1000;
+        }
+
+        /**
+         * Faixa de uma latência em microssegundos
+         */
+        private static int faixa(long micros) {
+            if (micros < SUBFAIXAS) {
+                return (int) micros;
+            }
+            int expoente = 63 - Long.numberOfLeadingZeros(micros);
+            if (expoente > MAIOR_EXPOENTE) {
+                return QUANTIDADE_FAIXAS - 1;
+            }
+            int subfaixa = (int) (micros >>> (expoente - BITS_SUBFAIXAS)) & (SUBFAIXAS - 1);
+            return (expoente - BITS_SUBFAIXAS + 1) * SUBFAIXAS + subfaixa;
+        }
+
+        /**
+         * Menor latência (em microssegundos) da faixa
+         */
+        private static long inicioFaixa(int faixa) {
+            if (faixa < SUBFAIXAS) {
+                return faixa;
+            }
+            int deslocamento = faixa / SUBFAIXAS - 1;
+            return (long) (SUBFAIXAS + faixa % SUBFAIXAS) << deslocamento;
+        }
+
+        /**
+         * Largura (em microssegundos) da faixa
+         */
+        private static long larguraFaixa(int faixa) {
+            return (faixa < SUBFAIXAS) ? 1 : 1L << (faixa / SUBFAIXAS - 1);
+        }
+
+        /**
+         * Zera o histograma
+         */
+        public void zerar() {
+            for (int i = 0; i < QUANTIDADE_FAIXAS; i++) {
+                contagens.set(i, 0);
+            }
+            quantidade.reset();
+            somaNanos.reset();
+        }
+    }
+}
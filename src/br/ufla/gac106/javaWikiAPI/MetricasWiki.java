@@ -0,0 +1,70 @@
+package br.ufla.gac106.javaWikiAPI;
+
+/**
+ * Interface para receber as métricas das requisições feitas por um objeto Wiki
+ * (ex: para exibi-las ou enviá-las a um sistema de monitoramento).
+ * 
+ * Os métodos são chamados pelas threads que fazem as requisições, possivelmente
+ * ao mesmo tempo, e por isso devem ser rápidos e seguros para uso concorrente.
+ * Todos têm implementação padrão vazia, de forma que basta implementar os que
+ * interessam. Veja MetricasMemoria para uma implementação pronta.
+ */
+public interface MetricasWiki {
+    /**
+     * Tipos de operação medidos
+     */
+    enum Operacao {
+        /** Consulta de páginas pelo título */
+        CONSULTA,
+        /** Pesquisa de títulos de páginas */
+        PESQUISA,
+        /** Consulta das revisões das páginas (revalidação do cache) */
+        REVALIDACAO,
+        /** Download da imagem (thumbnail) de uma página */
+        THUMBNAIL
+    }
+
+    /**
+     * Métricas que não fazem nada (usadas quando nenhuma é configurada)
+     */
+    MetricasWiki NENHUMA = new MetricasWiki() {
+    };
+
+    /**
+     * Chamado quando uma requisição HTTP (ou uma retentativa) é enviada
+     * 
+     * @param operacao Operação da requisição
+     */
+    default void requisicaoIniciada(Operacao operacao) {
+    }
+
+    /**
+     * Chamado quando uma requisição HTTP termina (com sucesso ou não)
+     * 
+     * @param operacao     Operação da requisição
+     * @param status       Código de status HTTP da resposta (0 se não houve
+     *                     resposta, por erro de rede)
+     * @param duracaoNanos Duração da requisição em nanossegundos (do envio até o
+     *                     corpo da resposta ser lido)
+     * @param bytes        Quantidade de bytes recebidos no corpo da resposta (como
+     *                     transferidos, ou seja, compactados se for o caso)
+     */
+    default void requisicaoConcluida(Operacao operacao, int status, long duracaoNanos, long bytes) {
+    }
+
+    /**
+     * Chamado quando uma requisição mal-sucedida vai ser repetida
+     * 
+     * @param operacao Operação da requisição
+     */
+    default void retentativa(Operacao operacao) {
+    }
+
+    /**
+     * Chamado quando uma página é procurada no cache
+     * 
+     * @param acerto true se a página estava no cache
+     */
+    default void acessoCache(boolean acerto) {
+    }
+}
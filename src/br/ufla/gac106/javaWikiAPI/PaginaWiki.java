@@ -1,6 +1,20 @@
 package br.ufla.gac106.javaWikiAPI;
 
 import java.awt.image.BufferedImage;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.imageio.ImageIO;
 
 /**
  * Classe que representa uma Página Wiki consultada
@@ -13,8 +27,29 @@ public class PaginaWiki {
     private int id;
     // Resumo da página
     private String resumo;
-    // Imagem (thumbnail) representativa da página
+    // Identificador da revisão atual da página na Wiki (0 se desconhecida)
+    private long revisao;
+    // Instante da última atualização da página na Wiki (null se desconhecido)
+    private Instant atualizadaEm;
+    // Endereço (URL) da imagem (thumbnail) da página (null se não há endereço)
+    private String enderecoImagem;
+    // Largura e altura da imagem em pixels, informadas pela Wiki (0 se desconhecidas)
+    private int larguraImagem;
+    private int alturaImagem;
+    // Imagem (thumbnail) representativa da página, quando fornecida já decodificada
     private BufferedImage imagem;
+    // Bytes da imagem no formato em que foi baixada (ex: JPEG), obtidos somente
+    // quando solicitados. Ocupam bem menos memória que a imagem decodificada
+    private volatile ByteBuffer bytesImagem;
+    // Indica se os bytes da imagem já foram obtidos (ou se já se tentou obtê-los)
+    private volatile boolean imagemCarregada;
+    // Indica se os bytes da imagem devem ser guardados fora do heap da JVM
+    private boolean imagemForaDoHeap;
+    // Responsável por baixar a imagem (null para usar a conexão padrão do Java)
+    private BaixadorImagem baixadorImagem;
+    // Última imagem decodificada (pode ser descartada pelo coletor de lixo
+    // quando falta memória; nesse caso, é decodificada novamente)
+    private volatile SoftReference<BufferedImage> imagemDecodificada;
 
     /*
      * Constrói um objeto de uma página Wiki a partir de seu título e identificador
@@ -59,6 +94,94 @@ public class PaginaWiki {
         this.id = id;
         this.resumo = resumo;
         this.imagem = imagem;
+        this.imagemCarregada = true;
+    }
+
+    /*
+     * Constrói um objeto de uma página Wiki a partir de seu título, identificador,
+     * texto de resumo e endereço da imagem representativa. A imagem só é obtida
+     * quando for solicitada pela primeira vez (veja getImagem).
+     * 
+     * @param titulo Título da página na Wiki
+     * 
+     * @param id Identificador da página na Wiki
+     * 
+     * @param resumo Texto de resumo da página na Wiki
+     * 
+     * @param enderecoImagem Endereço (URL) da imagem (thumbnail) da página (ou
+     * null se a página não tem imagem)
+     * 
+     * @param larguraImagem Largura da imagem em pixels (0 se desconhecida)
+     * 
+     * @param alturaImagem Altura da imagem em pixels (0 se desconhecida)
+     */
+    public PaginaWiki(String titulo, int id, String resumo, String enderecoImagem, int larguraImagem, int alturaImagem) {
+        this.titulo = titulo;
+        this.id = id;
+        this.resumo = resumo;
+        this.enderecoImagem = enderecoImagem;
+        this.larguraImagem = larguraImagem;
+        this.alturaImagem = alturaImagem;
+        this.imagemCarregada = (enderecoImagem == null);
+    }
+
+    /*
+     * Constrói um objeto de uma página Wiki a partir de seu título, identificador,
+     * texto de resumo e endereço e bytes (no formato original, ex: JPEG) da
+     * imagem representativa. A imagem só é decodificada quando for solicitada.
+     * 
+     * @param titulo Título da página na Wiki
+     * 
+     * @param id Identificador da página na Wiki
+     * 
+     * @param resumo Texto de resumo da página na Wiki
+     * 
+     * @param enderecoImagem Endereço (URL) da imagem (thumbnail) da página (ou
+     * null se a página não tem imagem)
+     * 
+     * @param larguraImagem Largura da imagem em pixels (0 se desconhecida)
+     * 
+     * @param alturaImagem Altura da imagem em pixels (0 se desconhecida)
+     * 
+     * @param bytesImagem Bytes da imagem (ou null se ela ainda não foi baixada)
+     */
+    public PaginaWiki(String titulo, int id, String resumo, String enderecoImagem, int larguraImagem, int alturaImagem,
+            ByteBuffer bytesImagem) {
+        this(titulo, id, resumo, enderecoImagem, larguraImagem, alturaImagem);
+        if (bytesImagem != null) {
+            this.bytesImagem = bytesImagem.asReadOnlyBuffer();
+            this.imagemCarregada = true;
+        }
+    }
+
+    /*
+     * Constrói um objeto de uma página Wiki com todos os seus dados, inclusive a
+     * revisão (ex: ao carregar páginas guardadas em disco)
+     * 
+     * @param titulo Título da página na Wiki
+     * 
+     * @param id Identificador da página na Wiki
+     * 
+     * @param resumo Texto de resumo da página na Wiki
+     * 
+     * @param enderecoImagem Endereço (URL) da imagem (thumbnail) da página (ou
+     * null se a página não tem imagem)
+     * 
+     * @param larguraImagem Largura da imagem em pixels (0 se desconhecida)
+     * 
+     * @param alturaImagem Altura da imagem em pixels (0 se desconhecida)
+     * 
+     * @param bytesImagem Bytes da imagem (ou null se ela ainda não foi baixada)
+     * 
+     * @param revisao Identificador da revisão da página (0 se desconhecido)
+     * 
+     * @param atualizadaEm Instante da última atualização da página (ou null se
+     * desconhecido)
+     */
+    public PaginaWiki(String titulo, int id, String resumo, String enderecoImagem, int larguraImagem, int alturaImagem,
+            ByteBuffer bytesImagem, long revisao, Instant atualizadaEm) {
+        this(titulo, id, resumo, enderecoImagem, larguraImagem, alturaImagem, bytesImagem);
+        configurarRevisao(revisao, atualizadaEm);
     }
 
     /**
@@ -89,12 +212,232 @@ public class PaginaWiki {
     }
 
     /**
-     * Imagem (thubmnail) representativa da página
+     * Imagem (thubmnail) representativa da página.
+     * Na primeira chamada, a imagem é baixada (o que pode demorar). A página guarda
+     * somente os bytes compactados da imagem, e ela é decodificada quando
+     * solicitada (a imagem decodificada é reaproveitada enquanto houver memória).
      * 
-     * @return A imagem
+     * @return A imagem (ou null se a página não tem imagem ou se ela não pôde ser obtida)
      */
     public BufferedImage getImagem() {
-        return imagem;
+        if (imagem != null) {
+            return imagem;
+        }
+
+        SoftReference<BufferedImage> referencia = imagemDecodificada;
+        BufferedImage decodificada = (referencia == null) ? null : referencia.get();
+        if (decodificada == null) {
+            ByteBuffer bytes = getBytesImagem();
+            if (bytes != null) {
+                decodificada = decodificarImagem(bytes);
+                if (decodificada != null) {
+                    imagemDecodificada = new SoftReference<>(decodificada);
+                }
+            }
+        }
+        return decodificada;
+    }
+
+    /**
+     * Bytes da imagem no formato em que foi baixada (ex: JPEG).
+     * Na primeira chamada, a imagem é baixada (o que pode demorar).
+     * 
+     * @return Buffer somente de leitura com os bytes (ou null se a página não tem
+     *         imagem ou se ela não pôde ser obtida)
+     */
+    public ByteBuffer getBytesImagem() {
+        if (!imagemCarregada) {
+            baixarImagem();
+        }
+        ByteBuffer bytes = bytesImagem;
+        return (bytes == null) ? null : bytes.duplicate();
+    }
+
+    /**
+     * Versão assíncrona de getImagem, que obtém a imagem usando o executor passado
+     * 
+     * @param executor Executor onde a imagem será baixada e decodificada
+     * 
+     * @return Futuro com a imagem (ou null se a página não tem imagem ou se ela
+     *         não pôde ser obtida)
+     */
+    public CompletableFuture<BufferedImage> getImagemAsync(Executor executor) {
+        return CompletableFuture.supplyAsync(this::getImagem, executor);
+    }
+
+    /**
+     * Versão assíncrona de getImagem, que obtém a imagem em um pool de threads
+     * compartilhado pelas páginas
+     * 
+     * @return Futuro com a imagem (ou null se a página não tem imagem ou se ela
+     *         não pôde ser obtida)
+     */
+    public CompletableFuture<BufferedImage> getImagemAsync() {
+        return getImagemAsync(ExecutorImagens.EXECUTOR);
+    }
+
+    /**
+     * Indica se a página tem imagem (sem precisar obtê-la)
+     * 
+     * @return true se a página tem imagem
+     */
+    public boolean temImagem() {
+        return enderecoImagem != null || imagem != null;
+    }
+
+    /**
+     * Endereço (URL) da imagem (thumbnail) da página
+     * 
+     * @return O endereço (ou null se não há endereço)
+     */
+    public String getEnderecoImagem() {
+        return enderecoImagem;
+    }
+
+    /**
+     * Largura da imagem em pixels, informada pela Wiki
+     * 
+     * @return A largura (0 se desconhecida)
+     */
+    public int getLarguraImagem() {
+        return larguraImagem;
+    }
+
+    /**
+     * Altura da imagem em pixels, informada pela Wiki
+     * 
+     * @return A altura (0 se desconhecida)
+     */
+    public int getAlturaImagem() {
+        return alturaImagem;
+    }
+
+    /**
+     * Interface usada pela classe Wiki para baixar as imagens com seu próprio
+     * cliente HTTP
+     */
+    interface BaixadorImagem {
+        byte[] baixar(String endereco) throws IOException;
+    }
+
+    /**
+     * Exceção lançada pelo BaixadorImagem quando a imagem não pode ser obtida
+     * por um motivo permanente (ex: status 404), em que não adianta tentar de
+     * novo
+     */
+    static class ImagemIndisponivelException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        ImagemIndisponivelException(String mensagem, Throwable causa) {
+            super(mensagem, causa);
+        }
+    }
+
+    /**
+     * Define como a imagem deve ser baixada e guardada (usado pela classe Wiki
+     * antes de a imagem ser baixada)
+     * 
+     * @param imagemForaDoHeap Indica se os bytes devem ser guardados fora do heap
+     * @param baixadorImagem   Responsável por baixar a imagem
+     */
+    void configurarImagem(boolean imagemForaDoHeap, BaixadorImagem baixadorImagem) {
+        this.imagemForaDoHeap = imagemForaDoHeap;
+        this.baixadorImagem = baixadorImagem;
+    }
+
+    /**
+     * Identificador da revisão atual da página na Wiki (campo lastrevid da API).
+     * Muda a cada edição da página.
+     * 
+     * @return O identificador da revisão (ou 0 se for desconhecido)
+     */
+    public long getRevisao() {
+        return revisao;
+    }
+
+    /**
+     * Instante da última atualização da página na Wiki (campo touched da API).
+     * Além das edições, muda quando alguma predefinição usada pela página é
+     * alterada.
+     * 
+     * @return O instante (ou null se for desconhecido)
+     */
+    public Instant getAtualizadaEm() {
+        return atualizadaEm;
+    }
+
+    /**
+     * Define a revisão e o instante da última atualização da página (usado ao
+     * criar a página a partir da resposta da Wiki ou do cache)
+     */
+    void configurarRevisao(long revisao, Instant atualizadaEm) {
+        this.revisao = revisao;
+        this.atualizadaEm = atualizadaEm;
+    }
+
+    /**
+     * Retorna os bytes da imagem se eles já foram baixados (sem baixá-los)
+     * 
+     * @return Buffer somente de leitura com os bytes (ou null se não foram baixados)
+     */
+    public ByteBuffer bytesImagemBaixados() {
+        ByteBuffer bytes = bytesImagem;
+        return (bytes == null) ? null : bytes.duplicate();
+    }
+
+    /**
+     * Baixa os bytes da imagem da página (somente uma vez, mesmo que várias
+     * threads solicitem a imagem ao mesmo tempo). Se o download falhar por um
+     * problema temporário (ex: erro de rede ou interrupção da thread), a página
+     * continua sem os bytes, e o download é tentado de novo na próxima
+     * solicitação; só uma falha permanente deixa a página sem imagem.
+     */
+    private synchronized void baixarImagem() {
+        if (!imagemCarregada) {
+            try {
+                byte[] bytes = (baixadorImagem != null) ? baixadorImagem.baixar(enderecoImagem) : baixarPelaURL(enderecoImagem);
+                ByteBuffer buffer = imagemForaDoHeap ? ByteBuffer.allocateDirect(bytes.length) : ByteBuffer.allocate(bytes.length);
+                buffer.put(bytes).flip();
+                bytesImagem = buffer.asReadOnlyBuffer();
+            }
+            catch (ImagemIndisponivelException | FileNotFoundException | MalformedURLException | IllegalArgumentException e) {
+                // A imagem não existe (ou o endereço é inválido): a página fica sem imagem
+                bytesImagem = null;
+            }
+            catch (IOException e) {
+                // Falha temporária: a imagem será baixada na próxima solicitação
+                if (e.getCause() instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                return;
+            }
+            imagemCarregada = true;
+        }
+    }
+
+    /**
+     * Baixa os bytes de uma imagem usando a conexão padrão do Java
+     */
+    private static byte[] baixarPelaURL(String endereco) throws IOException {
+        try (InputStream entrada = URI.create(endereco).toURL().openStream()) {
+            return entrada.readAllBytes();
+        }
+    }
+
+    /**
+     * Decodifica os bytes de uma imagem
+     * 
+     * @param bytes Bytes da imagem (ex: JPEG ou PNG)
+     * 
+     * @return A imagem decodificada (ou null se os bytes não são de uma imagem válida)
+     */
+    static BufferedImage decodificarImagem(ByteBuffer bytes) {
+        try {
+            return ImageIO.read(new EntradaBuffer(bytes.duplicate()));
+        }
+        catch (IOException e) {
+            return null;
+        }
     }
 
     /**
@@ -104,4 +447,48 @@ public class PaginaWiki {
     public String toString() {
         return "PaginaWiki: " + titulo + " (id=" + id + ")\n" + resumo;
     }
+
+    /**
+     * Classe interna que permite ler um ByteBuffer (inclusive fora do heap) como
+     * um InputStream, sem copiar os bytes
+     */
+    private static class EntradaBuffer extends InputStream {
+        private ByteBuffer buffer;
+
+        public EntradaBuffer(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? (buffer.get() & 0xFF) : -1;
+        }
+
+        @Override
+        public int read(byte[] destino, int inicio, int quantidade) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            quantidade = Math.min(quantidade, buffer.remaining());
+            buffer.get(destino, inicio, quantidade);
+            return quantidade;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    /**
+     * Classe interna que guarda o pool de threads usado para obter as imagens
+     * assincronamente (criado somente quando for usado pela primeira vez)
+     */
+    private static class ExecutorImagens {
+        private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(tarefa -> {
+            Thread thread = new Thread(tarefa, "javaWikiAPI-imagens");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 }
@@ -0,0 +1,123 @@
+package br.ufla.gac106.javaWikiAPI;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Classe que define quando e após quanto tempo uma requisição mal-sucedida deve
+ * ser repetida.
+ * 
+ * São repetidas as requisições que falharam por erro de rede ou com status que
+ * indicam um problema temporário (408, 429, 500, 502, 503 e 504). O tempo de
+ * espera cresce exponencialmente a cada tentativa e é sorteado entre zero e
+ * esse limite ("full jitter"), para que vários clientes não repitam suas
+ * requisições ao mesmo tempo. Se a Wiki informar quanto tempo esperar
+ * (cabeçalho Retry-After), esse tempo é respeitado.
+ */
+public class PoliticaRetentativa {
+    // Quantidade máxima de tentativas (incluindo a primeira)
+    private final int maximoTentativas;
+    // Limite do tempo de espera antes da segunda tentativa, em milissegundos
+    private final long atrasoInicialMillis;
+    // Limite máximo do tempo de espera entre tentativas, em milissegundos
+    private final long atrasoMaximoMillis;
+
+    /**
+     * Constrói a política
+     * 
+     * @param maximoTentativas Quantidade máxima de tentativas (incluindo a primeira)
+     * @param atrasoInicial    Limite do tempo de espera antes da segunda tentativa
+     *                         (dobra a cada nova tentativa)
+     * @param atrasoMaximo     Limite máximo do tempo de espera entre tentativas.
+     *                         Se a Wiki pedir uma espera maior (Retry-After), a
+     *                         requisição não é repetida
+     */
+    public PoliticaRetentativa(int maximoTentativas, Duration atrasoInicial, Duration atrasoMaximo) {
+        if (maximoTentativas <= 0) {
+            throw new IllegalArgumentException("A quantidade máxima de tentativas deve ser positiva");
+        }
+        this.maximoTentativas = maximoTentativas;
+        this.atrasoInicialMillis = atrasoInicial.toMillis();
+        this.atrasoMaximoMillis = atrasoMaximo.toMillis();
+    }
+
+    /**
+     * Política padrão: até 4 tentativas, com espera inicial de até 500 ms e
+     * máxima de 30 segundos
+     * 
+     * @return A política
+     */
+    public static PoliticaRetentativa padrao() {
+        return new PoliticaRetentativa(4, Duration.ofMillis(500), Duration.ofSeconds(30));
+    }
+
+    /**
+     * Política que nunca repete as requisições
+     * 
+     * @return A política
+     */
+    public static PoliticaRetentativa semRetentativas() {
+        return new PoliticaRetentativa(1, Duration.ZERO, Duration.ZERO);
+    }
+
+    /**
+     * Quantidade máxima de tentativas (incluindo a primeira)
+     * 
+     * @return A quantidade
+     */
+    public int getMaximoTentativas() {
+        return maximoTentativas;
+    }
+
+    /**
+     * Indica se a falha passada é temporária (e, portanto, a requisição pode ser
+     * repetida)
+     * 
+     * @param falha Exceção que causou a falha da requisição
+     * 
+     * @return true se a requisição pode ser repetida
+     */
+    public boolean falhaTemporaria(Exception falha) {
+        if (falha instanceof UnsuccessfulHTTPRequestException) {
+            switch (((UnsuccessfulHTTPRequestException) falha).getStatusCode()) {
+                case 408: case 429: case 500: case 502: case 503: case 504:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+        return falha instanceof IOException;
+    }
+
+    /**
+     * Calcula quanto tempo esperar antes da próxima tentativa
+     * 
+     * @param tentativasFeitas Quantidade de tentativas já feitas
+     * @param falha            Exceção que causou a falha da última tentativa
+     * 
+     * @return Tempo de espera em milissegundos (ou -1 se a requisição não deve ser
+     *         repetida)
+     */
+    public long atrasoMillis(int tentativasFeitas, Exception falha) {
+        if (tentativasFeitas >= maximoTentativas || !falhaTemporaria(falha)) {
+            return -1;
+        }
+
+        // Limite exponencial (dobra a cada tentativa), sorteando a espera abaixo dele
+        long limite = Math.min(atrasoMaximoMillis, atrasoInicialMillis << Math.min(tentativasFeitas - 1, 30));
+        long atraso = ThreadLocalRandom.current().nextLong(Math.max(limite, 0) + 1);
+
+        // Se a Wiki informou quanto tempo esperar, respeita
+        if (falha instanceof UnsuccessfulHTTPRequestException) {
+            Duration esperaSugerida = ((UnsuccessfulHTTPRequestException) falha).getEsperaSugerida();
+            if (esperaSugerida != null) {
+                if (esperaSugerida.toMillis() > atrasoMaximoMillis) {
+                    return -1;
+                }
+                atraso = Math.max(atraso, esperaSugerida.toMillis());
+            }
+        }
+        return atraso;
+    }
+}
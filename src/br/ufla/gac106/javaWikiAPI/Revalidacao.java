@@ -0,0 +1,59 @@
+package br.ufla.gac106.javaWikiAPI;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resultado da revalidação de páginas (veja Wiki.revalidarCache)
+ */
+public final class Revalidacao {
+    private final Map<String, PaginaWiki> paginasAtualizadas;
+    private final List<String> titulosInalterados;
+    private final List<String> titulosRemovidos;
+    private final List<String> titulosIgnorados;
+
+    Revalidacao(Map<String, PaginaWiki> paginasAtualizadas, List<String> titulosInalterados,
+                List<String> titulosRemovidos, List<String> titulosIgnorados) {
+        this.paginasAtualizadas = Collections.unmodifiableMap(paginasAtualizadas);
+        this.titulosInalterados = Collections.unmodifiableList(titulosInalterados);
+        this.titulosRemovidos = Collections.unmodifiableList(titulosRemovidos);
+        this.titulosIgnorados = Collections.unmodifiableList(titulosIgnorados);
+    }
+
+    /**
+     * Páginas que mudaram (ou passaram a existir) e foram obtidas novamente
+     * 
+     * @return Mapa do título passado para a nova versão da página
+     */
+    public Map<String, PaginaWiki> getPaginasAtualizadas() {
+        return paginasAtualizadas;
+    }
+
+    /**
+     * Títulos cujas páginas não mudaram (inclusive os que continuam sem página)
+     */
+    public List<String> getTitulosInalterados() {
+        return titulosInalterados;
+    }
+
+    /**
+     * Títulos cujas páginas deixaram de existir na Wiki
+     */
+    public List<String> getTitulosRemovidos() {
+        return titulosRemovidos;
+    }
+
+    /**
+     * Títulos ignorados por não estarem no cache
+     */
+    public List<String> getTitulosIgnorados() {
+        return titulosIgnorados;
+    }
+
+    @Override
+    public String toString() {
+        return "Revalidacao: " + paginasAtualizadas.size() + " atualizada(s), " + titulosInalterados.size()
+               + " inalterada(s), " + titulosRemovidos.size() + " removida(s), " + titulosIgnorados.size() + " ignorada(s)";
+    }
+}
@@ -0,0 +1,104 @@
+package br.ufla.gac106.javaWikiAPI;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Classe que divide textos em termos para indexação e pesquisa.
+ * 
+ * Os termos são sequências de letras e dígitos, convertidas para minúsculas e
+ * sem acentos (ex: "Ação" e "acao" geram o mesmo termo "acao"). As palavras
+ * muito comuns em português (artigos, preposições, etc.), que não ajudam a
+ * distinguir os textos, são descartadas.
+ */
+public final class Tokenizador {
+    // Palavras descartadas (já sem acentos). "são" não está na lista porque, sem
+    // acento, não se distingue de "São" (ex: "São Paulo")
+    private static final Set<String> PALAVRAS_VAZIAS = new HashSet<>(Arrays.asList(
+            "a", "o", "as", "os", "um", "uma", "uns", "umas",
+            "de", "do", "da", "dos", "das", "em", "no", "na", "nos", "nas",
+            "ao", "aos", "por", "pelo", "pela", "pelos", "pelas", "para", "pra",
+            "com", "sem", "sob", "sobre", "entre", "ate", "apos", "desde",
+            "num", "numa", "dum", "duma", "neste", "nesta", "nesse", "nessa", "naquele", "naquela",
+            "e", "ou", "mas", "nem", "que", "se", "como", "porque", "quando", "onde",
+            "este", "esta", "esse", "essa", "aquele", "aquela", "isto", "isso", "aquilo",
+            "seu", "sua", "seus", "suas", "ele", "ela", "eles", "elas",
+            "foi", "ser", "era", "eram", "tem", "ter", "tinha", "ha",
+            "mais", "muito", "tambem", "ja", "nao", "sim"));
+
+    private Tokenizador() {
+    }
+
+    /**
+     * Divide o texto em termos
+     * 
+     * @param texto Texto a ser dividido
+     * 
+     * @return Os termos do texto, na ordem em que aparecem (com repetições)
+     */
+    public static List<String> tokenizar(String texto) {
+        List<String> termos = new ArrayList<>();
+        if (texto == null) {
+            return termos;
+        }
+        String normalizado = normalizar(texto);
+        int inicio = -1;
+        for (int posicao = 0; posicao <= normalizado.length(); posicao++) {
+            boolean letra = posicao < normalizado.length() && Character.isLetterOrDigit(normalizado.charAt(posicao));
+            if (letra && inicio < 0) {
+                inicio = posicao;
+            } else if (!letra && inicio >= 0) {
+                String termo = normalizado.substring(inicio, posicao);
+                if (!PALAVRAS_VAZIAS.contains(termo)) {
+                    termos.add(termo);
+                }
+                inicio = -1;
+            }
+        }
+        return termos;
+    }
+
+    /**
+     * Converte o texto para minúsculas e remove os acentos (sem dividi-lo em
+     * termos nem descartar palavras)
+     * 
+     * @param texto Texto a ser normalizado
+     * 
+     * @return O texto normalizado
+     */
+    public static String normalizar(String texto) {
+        String minusculo = texto.toLowerCase(Locale.ROOT);
+        // Textos só com caracteres ASCII não têm acentos
+        boolean ascii = true;
+        for (int posicao = 0; posicao < minusculo.length() && ascii; posicao++) {
+            ascii = minusculo.charAt(posicao) < 128;
+        }
+        if (ascii) {
+            return minusculo;
+        }
+
+        // Decompõe os caracteres acentuados (ex: "ã" em "a" + "~") e remove os acentos
+        String decomposto = Normalizer.normalize(minusculo, Normalizer.Form.NFD);
+        StringBuilder semAcentos = new StringBuilder(decomposto.length());
+        for (int posicao = 0; posicao < decomposto.length(); posicao++) {
+            char caractere = decomposto.charAt(posicao);
+            if (Character.getType(caractere) != Character.NON_SPACING_MARK) {
+                semAcentos.append(caractere);
+            }
+        }
+        return semAcentos.toString();
+    }
+
+    /**
+     * Indica se o termo (já normalizado) é uma palavra descartada pela
+     * tokenização
+     */
+    public static boolean palavraVazia(String termo) {
+        return PALAVRAS_VAZIAS.contains(termo);
+    }
+}
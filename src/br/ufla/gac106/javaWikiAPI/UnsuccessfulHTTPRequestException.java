@@ -1,5 +1,7 @@
 package br.ufla.gac106.javaWikiAPI;
 
+import java.time.Duration;
+
 /**
  * Exceção lançada quando uma requisição a uma Wiki não é bem-sucedida.
  * Basicamente sempre que o status da requisição HTTP for diferente de 200.
@@ -9,6 +11,8 @@ public class UnsuccessfulHTTPRequestException extends Exception {
     public int statusCode;
     // Descrição da requisição HTTP mal-sucedida
     public String statusText;
+    // Tempo que a Wiki pediu para esperar antes de repetir a requisição (null se não informado)
+    private Duration esperaSugerida;
 
     /**
      * Constrói a exceção
@@ -17,9 +21,22 @@ public class UnsuccessfulHTTPRequestException extends Exception {
      * @param statusText Descrição da requisição HTTP mal-sucedida
      */
     public UnsuccessfulHTTPRequestException(int statusCode, String statusText) {
+        this(statusCode, statusText, null);
+    }
+
+    /**
+     * Constrói a exceção
+     * 
+     * @param statusCode     Código de status da requisição HTTP mal-sucedida
+     * @param statusText     Descrição da requisição HTTP mal-sucedida
+     * @param esperaSugerida Tempo que a Wiki pediu para esperar antes de repetir a
+     *                       requisição (cabeçalho Retry-After), ou null
+     */
+    public UnsuccessfulHTTPRequestException(int statusCode, String statusText, Duration esperaSugerida) {
         super("Requisição HTTP mal-sucedida (status code " + statusCode + ")");
         this.statusCode = statusCode;
         this.statusText = statusText;
+        this.esperaSugerida = esperaSugerida;
     }
 
     /**
@@ -40,4 +57,14 @@ public class UnsuccessfulHTTPRequestException extends Exception {
         return statusText;
     }
 
+    /**
+     * Tempo que a Wiki pediu para esperar antes de repetir a requisição
+     * (cabeçalho Retry-After)
+     * 
+     * @return O tempo (ou null se não foi informado)
+     */
+    public Duration getEsperaSugerida() {
+        return esperaSugerida;
+    }
+
 }
\ No newline at end of file
@@ -1,82 +1,189 @@
 package br.ufla.gac106.javaWikiAPI;
 
-import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.Closeable;
+import java.io.FilterInputStream;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
-import java.net.MalformedURLException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.net.URI;
-import java.net.URISyntaxException;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
 
-import javax.imageio.ImageIO;
-
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
-import com.mashape.unirest.http.HttpResponse;
-import com.mashape.unirest.http.JsonNode;
-import com.mashape.unirest.http.Unirest;
-import com.mashape.unirest.http.exceptions.UnirestException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 /**
  * Classe para obter dados de uma plataforma Wiki.
  * 
  * Pode ser a Wikipedia em qualquer idioma, ou qualquer outro site que utilize a
- * plataforma Wiki
+ * plataforma Wiki.
+ * 
+ * Cada objeto tem seu próprio cliente HTTP (com pool de conexões persistentes e
+ * HTTP/2 quando a Wiki suporta) e suas configurações não mudam depois de
+ * construído, de forma que um mesmo objeto pode ser compartilhado por várias
+ * threads. Para configurá-lo, use Wiki.builder().
+ * 
+ * Consultas idênticas feitas ao mesmo tempo (por várias threads) compartilham
+ * uma única requisição. As requisições que falham por problemas temporários
+ * são repetidas (veja PoliticaRetentativa), e a taxa de requisições pode ser
+ * limitada (veja LimitadorTaxa).
+ * 
+ * As métricas das requisições (latência, bytes, erros, uso do cache) podem ser
+ * acompanhadas configurando um objeto MetricasWiki (ex: MetricasMemoria). As
+ * mensagens de depuração são enviadas ao System.Logger de nome
+ * "br.ufla.gac106.javaWikiAPI.Wiki" (nível DEBUG, e TRACE para o corpo das
+ * respostas) e só são montadas se esse nível estiver habilitado; no modo de
+ * debug, elas são exibidas na saída padrão.
  */
 public class Wiki implements Closeable {
+    // Quantidade máxima de títulos que a API do MediaWiki aceita em uma mesma
+    // requisição de consulta (limite para usuários comuns)
+    private static final int MAXIMO_TITULOS_POR_REQUISICAO = 50;
+    // Logger das mensagens de depuração
+    private static final System.Logger LOGGER = System.getLogger(Wiki.class.getName());
+
     // Endereço completo da API a ser utilizada
-    private String endpoint;
+    private final String endpoint;
     // Parâmetros padrões a serem utilizados em uma ação de consulta
-    private Map<String, String> parametrosConsulta;
+    private final Map<String, String> parametrosConsulta;
     // Parâmetros padrões a serem utilizados em uma ação de pesquisa
-    private Map<String, String> parametrosPesquisa;
+    private final Map<String, String> parametrosPesquisa;
     // indica se está em modo de debug (nesse caso, são exibidas mensagens
     // detalhadas do que é feito)
-    private boolean debug;
+    private final boolean debug;
+    // Executor passado pelo builder, usado no processamento das respostas das
+    // consultas assíncronas (null se o objeto usa um executor próprio)
+    private final Executor executorExterno;
+    // Executor criado pela própria classe na primeira consulta assíncrona, se
+    // nenhum foi passado (é encerrado em close)
+    private ExecutorService executorPadrao;
+    // indica se as consultas assíncronas devem executar a API síncrona em
+    // threads virtuais (em vez de usar o cliente HTTP assíncrono); antes do
+    // Java 21 não há threads virtuais (veja executorDeThreadsVirtuais)
+    private final boolean usarThreadsVirtuais;
+    // Cache das páginas consultadas (null se não for usado cache)
+    private final CachePaginas cache;
+    // Índice local onde as páginas consultadas são adicionadas (null se não for usado)
+    private final IndiceInvertido indice;
+    // indica se as consultas devem obter os endereços das imagens (thumbnails) das páginas
+    private final boolean carregarImagens;
+    // Largura máxima em pixels das imagens (thumbnails) solicitadas à Wiki
+    private final int tamanhoThumbnail;
+    // indica se os bytes das imagens das páginas devem ser guardados fora do heap
+    private final boolean imagensForaDoHeap;
+    // Cliente HTTP usado nas requisições (exclusivo deste objeto)
+    private final HttpClient cliente;
+    // Limita a quantidade de requisições simultâneas (e, portanto, de conexões)
+    private final LimiteConcorrencia limiteConexoes;
+    // Tempo máximo de espera pela resposta de uma requisição
+    private final Duration tempoLimiteRequisicao;
+    // indica se as respostas devem ser pedidas compactadas (gzip)
+    private final boolean gzip;
+    // Identificação do cliente enviada à Wiki (cabeçalho User-Agent)
+    private final String agenteUsuario;
+    // Limita a taxa de requisições (null se não houver limite)
+    private final LimitadorTaxa limitadorTaxa;
+    // Define quando as requisições mal-sucedidas são repetidas
+    private final PoliticaRetentativa politicaRetentativa;
+    // Recebe as métricas das requisições
+    private final MetricasWiki metricas;
+    // Consultas e pesquisas em andamento, indexadas pelo que foi pedido, para que
+    // pedidos idênticos simultâneos compartilhem a mesma requisição
+    private final ConcurrentMap<String, CompletableFuture<?>> requisicoesEmAndamento = new ConcurrentHashMap<>();
+    // indica se o objeto já foi fechado
+    private volatile boolean fechado;
 
     /**
      * Constrói o objeto capaz de obter dados da Wikipedia em Português (endpoint
-     * "https://pt.wikipedia.org/w/api.php").
-     * Lembre-se de usar o método terminar quando não for mais usar o objeto.
+     * "https://pt.wikipedia.org/w/api.php"), com as configurações padrões.
+     * Lembre-se de usar o método close quando não for mais usar o objeto.
      * 
-     * Para obter dados de outras Wikis, utilize outro construtor (ou o método
-     * setEndpoint).
+     * Para obter dados de outras Wikis, utilize outro construtor (ou
+     * Wiki.builder()).
      */
     public Wiki() {
-        this("https://pt.wikipedia.org/w/api.php");
+        this(new Builder());
     }
 
     /**
-     * Constrói o objeto capaz de obter dados de uma Wiki
-     * Lembre-se de usar o método terminar quando não for mais usar o objeto.
+     * Constrói o objeto capaz de obter dados de uma Wiki, com as configurações
+     * padrões.
+     * Lembre-se de usar o método close quando não for mais usar o objeto.
      * 
      * @param endpoint Endpoint da Wiki a ser consultada (ex:
      *                 "https://en.wikipedia.org/w/api.php").
      */
     public Wiki(String endpoint) {
-        this.endpoint = endpoint;
-        debug = false;
-
-        definirParametrosPadroes();
+        this(new Builder().endpoint(endpoint));
     }
 
     /**
-     * Define parâmetros padrões a serem utilizados em todas as consultas
+     * Constrói o objeto com as configurações do builder passado
      */
-    private void definirParametrosPadroes() {
+    private Wiki(Builder builder) {
+        endpoint = builder.endpoint;
+        debug = builder.debug;
+        usarThreadsVirtuais = builder.usarThreadsVirtuais;
+        cache = builder.cache;
+        indice = builder.indice;
+        carregarImagens = builder.carregarImagens;
+        tamanhoThumbnail = builder.tamanhoThumbnail;
+        imagensForaDoHeap = builder.imagensForaDoHeap;
+        tempoLimiteRequisicao = builder.tempoLimiteRequisicao;
+        gzip = builder.gzip;
+        agenteUsuario = builder.agenteUsuario;
+        limitadorTaxa = builder.limitadorTaxa;
+        politicaRetentativa = builder.politicaRetentativa;
+        metricas = builder.metricas;
+
+        // Se nenhum executor foi passado, um executor próprio é criado somente
+        // quando for necessário (veja executor())
+        executorExterno = builder.executor;
+
+        cliente = HttpClient.newBuilder()
+                .version(builder.http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(builder.tempoLimiteConexao)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        limiteConexoes = new LimiteConcorrencia(builder.tamanhoPoolConexoes);
+
         parametrosConsulta = Map.of(
                 "action", "query",             // vamos fazer uma consulta
-                "prop", "extracts|pageimages", // buscando pelo resumo e pela imagem (thumbnail) da página
+                "prop", "extracts|pageimages|info", // buscando pelo resumo, pela imagem (thumbnail) e pela revisão da página
                 "exintro", "true",             // queremos o resumo que vem antes da primeira seção
                 "explaintext", "true",         // queremos o texto puro em vez de HTML limitado
                 "exsectionformat", "plain",    // e com o texto sem nenhuma formatação
-                "pithumbsize", "300",          // a imagem deve ter largura máxima da imagem em pixels
+                "pithumbsize", String.valueOf(tamanhoThumbnail), // a imagem deve ter largura máxima da imagem em pixels
                 "redirects", "resolve",        // os redirecionamentos de página devem ser tratados
                 "format", "json",              // a resposta deve vir no formato JSON
                 "formatversion", "2"           // na versão 2
@@ -88,23 +195,27 @@ public class Wiki implements Closeable {
                 "format", "json",       // a resposta deve vir no formato JSON
                 "formatversion", "2"    // na versão 2
         );
+
+        if (debug) System.out.println("=> Wiki em modo de debug (endpoint: " + endpoint + ")");
     }
 
     /**
-     * Domínio que está sendo utilizado nas consultas
+     * Cria um builder para configurar e construir um objeto Wiki
+     * (ex: Wiki.builder().endpoint("https://en.wikipedia.org/w/api.php").debug(true).build())
      * 
-     * @return Domínio da Wiki
+     * @return O builder, com as configurações padrões
      */
-    public String getEndpoint() {
-        return endpoint;
+    public static Builder builder() {
+        return new Builder();
     }
 
     /**
-     * Muda o domínio Wiki utilizado nas consultas (ex:
-     * "https://en.wikipedia.org/w/api.php")
+     * Domínio que está sendo utilizado nas consultas
+     * 
+     * @return Domínio da Wiki
      */
-    public void setEndpoint(String endpoint) {
-        this.endpoint = endpoint;
+    public String getEndpoint() {
+        return endpoint;
     }
 
     /**
@@ -118,23 +229,130 @@ public class Wiki implements Closeable {
     }
 
     /**
-     * Permite ligar/desligar modo de debug
+     * Retorna se as consultas assíncronas executam a API síncrona em threads
+     * virtuais (antes do Java 21, em threads comuns; veja
+     * executorDeThreadsVirtuais)
      * 
-     * @param debug Estado do modo de debug
+     * @return Indica se usa threads virtuais
      */
-    public void setDebug(boolean debug) {
-        this.debug = debug;
+    public boolean getUsarThreadsVirtuais() {
+        return usarThreadsVirtuais;
+    }
 
-        if (debug) System.out.println("=> Wiki em modo de debug (endpoint: " + endpoint + ")");
+    /**
+     * Retorna se as consultas obtêm as imagens (thumbnails) das páginas
+     * 
+     * @return Indica se obtém as imagens
+     */
+    public boolean getCarregarImagens() {
+        return carregarImagens;
+    }
+
+    /**
+     * Retorna a largura máxima em pixels das imagens (thumbnails) das páginas
+     * 
+     * @return A largura máxima
+     */
+    public int getTamanhoThumbnail() {
+        return tamanhoThumbnail;
+    }
+
+    /**
+     * Retorna se os bytes das imagens das páginas são guardados fora do heap
+     * 
+     * @return Indica se guarda fora do heap
+     */
+    public boolean getImagensForaDoHeap() {
+        return imagensForaDoHeap;
+    }
+
+    /**
+     * Retorna o cache de páginas utilizado
+     * 
+     * @return O cache (ou null se não é usado cache)
+     */
+    public CachePaginas getCache() {
+        return cache;
+    }
+
+    /**
+     * Retorna o índice local onde as páginas consultadas são adicionadas
+     * 
+     * @return O índice (ou null se não é usado índice)
+     */
+    public IndiceInvertido getIndice() {
+        return indice;
+    }
+
+    /**
+     * Retorna o objeto que recebe as métricas das requisições
+     * 
+     * @return As métricas (MetricasWiki.NENHUMA se não foram configuradas)
+     */
+    public MetricasWiki getMetricas() {
+        return metricas;
+    }
+
+    /**
+     * Cria um executor que cria uma thread virtual por tarefa (disponível a
+     * partir do Java 21). Em versões anteriores do Java (como o Java 17 usado
+     * no projeto), retorna um pool de threads comuns (daemon) que cria threads
+     * sob demanda: nesse caso não há nenhuma thread virtual, e cada tarefa
+     * bloqueante ocupa uma thread do sistema enquanto espera.
+     * 
+     * @return O executor criado
+     */
+    public static ExecutorService executorDeThreadsVirtuais() {
+        try {
+            // Obtido por reflexão para que o código continue compilando no Java 17
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(tarefa -> {
+                Thread thread = new Thread(tarefa, "javaWikiAPI");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
     }
 
     /**
-     * Libera os recursos utilizados
+     * Libera os recursos utilizados por este objeto (outros objetos Wiki não são
+     * afetados). O cache não é fechado, pois pode ser compartilhado com outros
+     * objetos.
      */
     @Override
     public void close() throws IOException {
-        // É necessário terminar o loop do Unirest para conseguir fechar o programa
-        Unirest.shutdown();
+        fechado = true;
+        // Somente o executor criado por este objeto é encerrado (um executor
+        // passado pelo builder pertence a quem o passou)
+        synchronized (this) {
+            if (executorPadrao != null) {
+                executorPadrao.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Executor usado nas consultas assíncronas: o passado pelo builder ou, se
+     * nenhum foi passado, um executor próprio, criado na primeira vez em que é
+     * necessário (objetos que só fazem consultas síncronas não criam threads)
+     */
+    private Executor executor() {
+        if (executorExterno != null) {
+            return executorExterno;
+        }
+        synchronized (this) {
+            if (fechado) {
+                // As tarefas de um objeto fechado são executadas na própria thread
+                // (e as requisições falham ao verificar que o objeto foi fechado)
+                return Runnable::run;
+            }
+            if (executorPadrao == null) {
+                executorPadrao = executorDeThreadsVirtuais();
+            }
+            return executorPadrao;
+        }
     }
 
     /*
@@ -150,182 +368,1775 @@ public class Wiki implements Closeable {
      * @returns Objeto da página Wiki buscada (ou null se ela não for encontrada)
      */
     public PaginaWiki consultarPagina(String titulo) throws JavaWikiInternalException, UnsuccessfulHTTPRequestException {
-        try {
-            if (debug) System.out.println("=> Wiki: Montando parâmetros da busca por uma página pelo título");
+        return consultarPaginas(List.of(titulo)).get(titulo);
+    }
+
+    /**
+     * Consulta várias páginas de uma vez, agrupando os títulos em lotes (de até 50
+     * títulos) para que cada requisição à API traga várias páginas.
+     * 
+     * Títulos normalizados e redirecionados pela Wiki são mapeados de volta para o
+     * título passado. Ex: uma consulta por "brasil" retorna a página "Brasil"
+     * associada à chave "brasil".
+     * 
+     * @param titulos Títulos das páginas a serem buscadas
+     * 
+     * @return Mapa do título passado para a página encontrada (títulos cujas
+     *         páginas não foram encontradas não aparecem no mapa)
+     */
+    public Map<String, PaginaWiki> consultarPaginas(Collection<String> titulos) throws JavaWikiInternalException, UnsuccessfulHTTPRequestException {
+        Map<String, PaginaWiki> paginas = new HashMap<>();
 
-            Map<String, String> parametros = new HashMap<>(parametrosConsulta);
+        // Títulos distintos (na ordem original) que não estão no cache
+        List<String> titulosDistintos = obterDoCache(titulos, paginas);
+
+        for (int inicio = 0; inicio < titulosDistintos.size(); inicio += MAXIMO_TITULOS_POR_REQUISICAO) {
+            int fim = Math.min(inicio + MAXIMO_TITULOS_POR_REQUISICAO, titulosDistintos.size());
+            paginas.putAll(consultarLote(titulosDistintos.subList(inicio, fim)));
+        }
+
+        return paginas;
+    }
 
-            // Vamos buscar a página cujo título foi passado
-            parametros.put("titles", titulo);
+    /**
+     * Consulta um lote de títulos (que cabe em uma requisição). Se o mesmo lote já
+     * está sendo consultado por outra thread, aguarda o resultado dessa consulta.
+     * 
+     * @param lote Títulos a serem consultados
+     * 
+     * @return Mapa do título passado para a página encontrada (não deve ser
+     *         alterado, pois pode ser compartilhado)
+     */
+    private Map<String, PaginaWiki> consultarLote(List<String> lote) throws JavaWikiInternalException, UnsuccessfulHTTPRequestException {
+        return compartilhar(chaveConsulta(lote), String.join("|", lote), () -> requisitarLote(lote));
+    }
 
-            // Faz a requisição de consulta na API
-            JsonObject jsonResposta = fazerRequisicao(parametros).getAsJsonObject();
+    /**
+     * Requisita um lote de títulos à Wiki, seguindo as continuações indicadas
+     * pela API até que a resposta esteja completa.
+     * 
+     * @param lote Títulos a serem consultados
+     * 
+     * @return Mapa do título passado para a página encontrada
+     */
+    private Map<String, PaginaWiki> requisitarLote(List<String> lote) throws JavaWikiInternalException, UnsuccessfulHTTPRequestException {
+        try {
+            RespostaConsulta resposta = requisitarConsulta(MetricasWiki.Operacao.CONSULTA, montarParametrosLote(lote));
 
-            // Processa a resposta e retorna a página
-            return processarRespostaConsulta(jsonResposta);
+            Map<String, PaginaWiki> paginas = new HashMap<>();
+            criarPaginasDoLote(lote, resposta, paginas);
+            return paginas;
         }
         catch (UnsuccessfulHTTPRequestException e) {
             // se ocorrer uma exceção de requisição HTTP mal-sucedida, ela é simplesmente relançada
             throw e;
         }
         catch (Exception e) {
+            // Se a thread foi interrompida, mantém a indicação de interrupção
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+
             // Caso ocorra qualquer outra exceção, lança uma exceção de erro interno na JavaWikiAPI,
             // passando a exceção original como a causa
-            throw new JavaWikiInternalException(titulo, endpoint, e);
+            throw new JavaWikiInternalException(String.join("|", lote), endpoint, e);
         }
     }
 
     /**
-     * Faz uma busca pelo termo passado e retorna títulos de páginas relacionados ao
-     * termo de busca (no máximo 10 títulos).
-     * É útil quando se pretende buscar uma página mas não se tem certeza do título
-     * dela na Wiki
+     * Faz uma requisição de consulta (action=query), seguindo as continuações
+     * indicadas pela API até que a resposta esteja completa
      * 
-     * @param termoDeBusca String utilizada para a busca
+     * @param operacao   Operação (para as métricas)
+     * @param parametros Parâmetros da consulta
      * 
-     * @return Uma lista de páginas retornada pela busca
-     * @throws UnsuccessfulHTTPRequestException
+     * @return A resposta completa
      */
-    public List<String> pesquisarTitulosDePaginas(String termoDeBusca) throws JavaWikiInternalException, UnsuccessfulHTTPRequestException {
-        try {            
-            if (debug) System.out.println("=> Wiki: Montando parâmetros da pesquisa por títulos de páginas");
+    private RespostaConsulta requisitarConsulta(MetricasWiki.Operacao operacao, Map<String, String> parametros) throws UnsuccessfulHTTPRequestException, IOException, InterruptedException {
+        RespostaConsulta resposta = new RespostaConsulta();
+        Map<String, String> continuacao = Map.of();
 
-            Map<String, String> parametros = new HashMap<>(parametrosPesquisa);
+        // Enquanto a API indicar que há mais dados a serem obtidos
+        while (continuacao != null) {
+            Map<String, String> parametrosRequisicao = new HashMap<>(parametros);
+            parametrosRequisicao.putAll(continuacao);
 
-            // Parâmetro para passar o termo de busca
-            parametros.put("search", termoDeBusca);
+            // Faz a requisição de consulta na API, acumulando a resposta e
+            // obtendo a continuação (se houver)
+            continuacao = fazerRequisicao(operacao, parametrosRequisicao, leitor -> processarRespostaConsulta(leitor, resposta));
+        }
+        return resposta;
+    }
+
+    /**
+     * Versão assíncrona de consultarPagina.
+     * Em caso de erro, o futuro é completado com uma UnsuccessfulHTTPRequestException
+     * ou uma JavaWikiInternalException.
+     * 
+     * @param titulo Título da página a ser buscada
+     * 
+     * @return Futuro com o objeto da página Wiki buscada (ou null se ela não for encontrada)
+     */
+    public CompletableFuture<PaginaWiki> consultarPaginaAsync(String titulo) {
+        return consultarPaginasAsync(List.of(titulo)).thenApply(paginas -> paginas.get(titulo));
+    }
 
-            // Faz a requisição de pesquisa na API
-            JsonArray jsonResposta = fazerRequisicao(parametros).getAsJsonArray();
+    /**
+     * Versão assíncrona de consultarPaginas. Os lotes de títulos são consultados
+     * simultaneamente.
+     * Em caso de erro, o futuro é completado com uma UnsuccessfulHTTPRequestException
+     * ou uma JavaWikiInternalException.
+     * 
+     * @param titulos Títulos das páginas a serem buscadas
+     * 
+     * @return Futuro com o mapa do título passado para a página encontrada
+     */
+    public CompletableFuture<Map<String, PaginaWiki>> consultarPaginasAsync(Collection<String> titulos) {
+        if (usarThreadsVirtuais) {
+            return executarSincronoAsync(() -> consultarPaginas(titulos));
+        }
+
+        Map<String, PaginaWiki> paginasArmazenadas = new HashMap<>();
+        List<String> titulosDistintos = obterDoCache(titulos, paginasArmazenadas);
+        List<CompletableFuture<Map<String, PaginaWiki>>> futurosLotes = new ArrayList<>();
 
-            // Processa a resposta da pesquisa e retorna a lista de títulos de página
-            return processarRespostaPesquisa(jsonResposta);
+        for (int inicio = 0; inicio < titulosDistintos.size(); inicio += MAXIMO_TITULOS_POR_REQUISICAO) {
+            int fim = Math.min(inicio + MAXIMO_TITULOS_POR_REQUISICAO, titulosDistintos.size());
+            futurosLotes.add(consultarLoteAsync(new ArrayList<>(titulosDistintos.subList(inicio, fim))));
         }
-        catch (UnsuccessfulHTTPRequestException e) {
-            // se ocorrer uma exceção de requisição HTTP mal-sucedida, ela é simplesmente relançada
-            throw e;
+
+        // Quando todos os lotes terminarem, junta as páginas em um só mapa
+        return CompletableFuture.allOf(futurosLotes.toArray(new CompletableFuture<?>[0])).thenApply(nada -> {
+            Map<String, PaginaWiki> paginas = new HashMap<>(paginasArmazenadas);
+            for (CompletableFuture<Map<String, PaginaWiki>> futuro : futurosLotes) {
+                paginas.putAll(futuro.join());
+            }
+            return paginas;
+        });
+    }
+
+    /**
+     * Versão assíncrona de consultarLote
+     * 
+     * @param lote Títulos a serem consultados
+     * 
+     * @return Futuro com o mapa do título passado para a página encontrada
+     */
+    private CompletableFuture<Map<String, PaginaWiki>> consultarLoteAsync(List<String> lote) {
+        return compartilharAsync(chaveConsulta(lote), () -> requisitarLoteAsync(lote));
+    }
+
+    /**
+     * Versão assíncrona de requisitarLote
+     * 
+     * @param lote Títulos a serem consultados
+     * 
+     * @return Futuro com o mapa do título passado para a página encontrada
+     */
+    private CompletableFuture<Map<String, PaginaWiki>> requisitarLoteAsync(List<String> lote) {
+        String termo = String.join("|", lote);
+        try {
+            Map<String, String> parametros = montarParametrosLote(lote);
+
+            return continuarLoteAsync(parametros, Map.of(), new RespostaConsulta())
+                    .thenApplyAsync(resposta -> {
+                        Map<String, PaginaWiki> paginas = new HashMap<>();
+                        criarPaginasDoLote(lote, resposta, paginas);
+                        return paginas;
+                    }, executor())
+                    .handle((paginas, erro) -> {
+                        if (erro != null) {
+                            throw new CompletionException(converterExcecao(erro, termo));
+                        }
+                        return paginas;
+                    });
         }
         catch (Exception e) {
-            // Caso ocorra qualquer outra exceção, lança uma exceção de erro interno na JavaWikiAPI,
-            // passando a exceção original como a causa
-            throw new JavaWikiInternalException(termoDeBusca, endpoint, e);
+            return CompletableFuture.failedFuture(converterExcecao(e, termo));
         }
     }
 
     /**
-     * Faz uma requisição na API da Wiki utilizando os parâmetros passados.
+     * Faz (assincronamente) a requisição de um lote com os parâmetros de
+     * continuação passados e, se a resposta não estiver completa, encadeia a
+     * requisição da próxima continuação
      * 
-     * @param parametros Parâmetros da chamada da API
-     * @return Elemento JSON retornado como resposta
-     * @throws UnsuccessfulHTTPRequestException
-     * @throws URISyntaxException
-     * @throws MalformedURLException
-     * @throws UnsupportedEncodingException
-     * @throws UnirestException
-     * @throws Exception
-     */
-    private JsonElement fazerRequisicao(Map<String, String> parametros) throws UnsuccessfulHTTPRequestException, UnsupportedEncodingException, MalformedURLException, URISyntaxException, UnirestException {
-        // se está em modo de debug, monta a requisição sem executá-la para obter a URL de consulta
-        if (debug) {
-            System.out.println("=> Wiki: URL da requisição: " + Unirest.get(endpoint).queryString(new HashMap<String, Object>(parametros)).getUrl());
-        }
-        // Faz a requisição na API
-        HttpResponse<JsonNode> response = Unirest.get(endpoint).queryString(new HashMap<String, Object>(parametros)).asJson();        
+     * @param parametros  Parâmetros da consulta do lote
+     * @param continuacao Parâmetros de continuação da requisição
+     * @param resposta    Resposta acumulada do lote
+     * 
+     * @return Futuro com a resposta completa do lote
+     */
+    private CompletableFuture<RespostaConsulta> continuarLoteAsync(Map<String, String> parametros,
+            Map<String, String> continuacao, RespostaConsulta resposta) {
+        Map<String, String> parametrosRequisicao = new HashMap<>(parametros);
+        parametrosRequisicao.putAll(continuacao);
 
-        // Se a requisição foi bem-sucedida
-        if (response.getStatus() >= 200 && response.getStatus() < 300) {
-            // se está em modo de debug, exibe a resposta da requisição em formato amigável
-            if (debug)  System.out.println("=> Wiki: Resposta da requisição: " + JSONUtils.stringAmigavel(response.getBody().toString()));
+        return fazerRequisicaoAsync(MetricasWiki.Operacao.CONSULTA, parametrosRequisicao, leitor -> processarRespostaConsulta(leitor, resposta)).thenCompose(proximaContinuacao -> {
+            if (proximaContinuacao == null) {
+                return CompletableFuture.completedFuture(resposta);
+            }
+            return continuarLoteAsync(parametros, proximaContinuacao, resposta);
+        });
+    }
 
-            // Cria um elemento JSON a partir da String JSON restornada
-            return JsonParser.parseString(response.getBody().toString());
-        } 
-        // se a requisição NÃO deu certo
-        else {
-            // Lança uma exceção específica para essa situação           
-            throw new UnsuccessfulHTTPRequestException(response.getStatus(), response.getStatusText());
+    /**
+     * Monta os parâmetros da consulta de um lote de títulos
+     * 
+     * @param lote Títulos a serem consultados
+     * 
+     * @return Os parâmetros da consulta
+     */
+    private Map<String, String> montarParametrosLote(List<String> lote) {
+        depurar(() -> "Montando parâmetros da consulta de " + lote.size() + " página(s) pelo título");
+
+        Map<String, String> parametros = new HashMap<>(parametrosConsulta);
+
+        // Vamos buscar as páginas cujos títulos foram passados
+        parametros.put("titles", String.join("|", lote));
+        // e queremos o resumo de todas elas (e não só da primeira)
+        parametros.put("exlimit", "max");
+
+        // Se as imagens não devem ser obtidas, nem pede os endereços delas
+        if (!carregarImagens) {
+            parametros.put("prop", "extracts|info");
+            parametros.remove("pithumbsize");
         }
+
+        return parametros;
     }
 
     /**
-     * Processa a resposta a uma requisição de consulta
-     * @throws IOException
-     * @throws MalformedURLException
-     * 
-     * @para jsonConsulta Objeto JSON retornado pela API
-     */
-    private PaginaWiki processarRespostaConsulta(JsonObject jsonConsulta) throws MalformedURLException {
-        if (debug) System.out.println("=> Wiki: Processando retorno da requisição");
-
-        // se a resposta veio completa
-        if (jsonConsulta.get("batchcomplete").getAsBoolean()) {
-
-            // Obtém o elemento com informações da consulta
-            JsonObject query = jsonConsulta.get("query").getAsJsonObject();
-
-            // Se encontrou informações da página
-            if (query.get("pages") != null) {
-
-                // Obtém o elemento com informações da página
-                JsonObject pagina =  query.get("pages").getAsJsonArray().get(0).getAsJsonObject();
-
-                // Se o retorno é inválido
-                if (pagina.get("invalid") != null) {
-                    if (debug) System.out.println("=> Wiki: página não encontrada, motivo: " + pagina.get("invalidreason").getAsString());            
-                } 
-                // Se a página ainda não existe
-                else if (pagina.get("missing") != null) {
-                    if (debug) System.out.println("=> Wiki: página de título '" + pagina.get("title").getAsString() + "' não existe.");
-                } 
-                // Se a página foi encontrada
-                else {
-                    // Obtém o resumo da página (se ele foi retornado)
-                    String resumo = "";
-                    if (pagina.get("extract") != null) {
-                        resumo = pagina.get("extract").getAsString();
-                    }
-                    
-                    // Obtém o imagem (thumbnail) da página (se ela foi retornada)
-                    BufferedImage imagem = null;
-                    if (pagina.get("thumbnail") != null) {
-                        String endereçoDaImagem = pagina.get("thumbnail").getAsJsonObject().get("source").getAsString();
-                        try {
-                            imagem = ImageIO.read(URI.create(endereçoDaImagem).toURL());
-                        }
-                        catch (IOException e) {
-                            if (debug) System.err.println("=> Wiki: Erro ao tentar obter imagem da página '" + pagina.get("title").getAsString() + "'. URL: " + endereçoDaImagem);
-                        }
-                    }
+     * Obtém do cache as páginas dos títulos passados
+     * 
+     * @param titulos Títulos das páginas a serem buscadas
+     * @param paginas Mapa onde as páginas encontradas no cache são adicionadas
+     * 
+     * @return Títulos distintos (na ordem original) que não estão no cache
+     */
+    private List<String> obterDoCache(Collection<String> titulos, Map<String, PaginaWiki> paginas) {
+        List<String> titulosNaoArmazenados = new ArrayList<>();
 
-                    // Cria e retorna um objeto que representa a página Wiki obtida
-                    return new PaginaWiki(pagina.get("title").getAsString(),
-                                        pagina.get("pageid").getAsInt(),
-                                        resumo, imagem);
+        for (String titulo : new LinkedHashSet<>(titulos)) {
+            EntradaCache entrada = (cache == null) ? null : lerCache(titulo);
+            if (cache != null) {
+                metricas.acessoCache(entrada != null);
+            }
+            if (entrada == null) {
+                titulosNaoArmazenados.add(titulo);
+            } else if (!entrada.isPaginaInexistente()) {
+                paginas.put(titulo, entrada.getPagina());
+                if (indice != null) {
+                    indice.adicionar(entrada.getPagina());
                 }
             }
-            // Se a página não foi obtida com sucesso, retorna null
+        }
+
+        if (cache != null) depurar(() -> paginas.size() + " página(s) obtida(s) do cache");
+        return titulosNaoArmazenados;
+    }
+
+    /**
+     * Monta a chave que identifica a consulta de um lote entre as requisições em
+     * andamento (a ordem dos títulos não importa)
+     */
+    private static String chaveConsulta(List<String> lote) {
+        return "consulta|" + String.join("|", new TreeSet<>(lote));
+    }
+
+    /**
+     * Obtém do cache a entrada de um título. O cache é só uma otimização: se ele
+     * falhar (ex: arquivo corrompido), a falha é registrada nas mensagens de
+     * depuração e o título é tratado como se não estivesse no cache.
+     * 
+     * @param titulo Título da página
+     * @return A entrada (ou null se não está no cache)
+     */
+    private EntradaCache lerCache(String titulo) {
+        try {
+            return cache.obter(chaveCache(endpoint, titulo));
+        }
+        catch (UncheckedIOException e) {
+            depurar(() -> "Falha ao ler o cache (" + e.getCause().getMessage() + "), consultando a Wiki");
             return null;
-        } else {
-            // Caso o retorno não seja completo, lança exceção indicando a situação
-            throw new UnsupportedOperationException("Wiki: Ainda não há tratamento para consultas em lote");
         }
     }
 
     /**
-     * Processa a resposta a uma requisição de pesquisa
+     * Armazena no cache a entrada de um título (se o cache falhar, por exemplo
+     * com o disco cheio, a entrada simplesmente não é armazenada)
      * 
-     * @para jsonArray Objeto JSON Array retornado pela API
+     * @param titulo  Título da página
+     * @param entrada Entrada a ser armazenada
      */
-    private List<String> processarRespostaPesquisa(JsonArray jsonArray) {
-        if (debug)
-            System.out.println("=> Wiki: Processando retorno da requisição");
+    private void gravarCache(String titulo, EntradaCache entrada) {
+        try {
+            cache.armazenar(chaveCache(endpoint, titulo), entrada);
+        }
+        catch (UncheckedIOException e) {
+            depurar(() -> "Falha ao armazenar no cache (" + e.getCause().getMessage() + ")");
+        }
+    }
 
-        List<String> titulos = new ArrayList<>();
+    /**
+     * Renova no cache a entrada de um título (se o cache falhar, a entrada não
+     * é renovada)
+     * 
+     * @param titulo Título da página
+     */
+    private void renovarCache(String titulo) {
+        try {
+            cache.renovar(chaveCache(endpoint, titulo));
+        }
+        catch (UncheckedIOException e) {
+            depurar(() -> "Falha ao renovar o cache (" + e.getCause().getMessage() + ")");
+        }
+    }
 
-        for (JsonElement element : jsonArray.get(1).getAsJsonArray()) {
-            titulos.add(element.getAsString());
+    /**
+     * Monta a chave de uma página no cache a partir do endpoint e do título
+     * normalizado (da mesma forma que a Wiki normaliza títulos: espaços nas
+     * extremidades removidos, '_' trocado por espaço e primeira letra maiúscula)
+     * 
+     * @param endpoint Endpoint da Wiki
+     * @param titulo   Título da página
+     * 
+     * @return A chave
+     */
+    static String chaveCache(String endpoint, String titulo) {
+        String normalizado = titulo.replace('_', ' ').trim().replaceAll("\\s+", " ");
+        if (!normalizado.isEmpty()) {
+            int primeiraLetra = normalizado.codePointAt(0);
+            normalizado = new StringBuilder().appendCodePoint(Character.toUpperCase(primeiraLetra))
+                    .append(normalizado, Character.charCount(primeiraLetra), normalizado.length()).toString();
         }
+        return endpoint + "|" + normalizado;
+    }
 
-        return titulos;
+    /**
+     * Cria as páginas da resposta de um lote e associa cada uma ao título
+     * passado correspondente (armazenando o resultado no cache, se houver)
+     * 
+     * @param lote     Títulos consultados
+     * @param resposta Resposta completa do lote
+     * @param paginas  Mapa onde as páginas encontradas são adicionadas
+     */
+    private void criarPaginasDoLote(List<String> lote, RespostaConsulta resposta, Map<String, PaginaWiki> paginas) {
+        Map<String, PaginaWiki> paginasCriadas = new HashMap<>();
+        for (String titulo : lote) {
+            DadosPagina pagina = resposta.paginaDoTitulo(titulo);
+            if (pagina != null) {
+                String tituloFinal = pagina.titulo;
+                if (!paginasCriadas.containsKey(tituloFinal)) {
+                    paginasCriadas.put(tituloFinal, criarPagina(pagina));
+                }
+                if (paginasCriadas.get(tituloFinal) != null) {
+                    paginas.put(titulo, paginasCriadas.get(tituloFinal));
+                }
+            }
+
+            // Armazena também os resultados negativos (páginas inexistentes ou inválidas)
+            if (cache != null) {
+                gravarCache(titulo, new EntradaCache(paginas.get(titulo)));
+            }
+        }
+
+        if (indice != null) {
+            for (PaginaWiki pagina : paginasCriadas.values()) {
+                if (pagina != null) {
+                    indice.adicionar(pagina);
+                }
+            }
+        }
+
+        // As páginas também ficam acessíveis no cache pelo título final (após redirecionamentos)
+        if (cache != null) {
+            for (PaginaWiki pagina : paginasCriadas.values()) {
+                if (pagina != null && !lote.contains(pagina.getTitulo())) {
+                    gravarCache(pagina.getTitulo(), new EntradaCache(pagina));
+                }
+            }
+        }
+    }
+
+    /**
+     * Revalida as páginas do cache com os títulos passados: a Wiki é consultada
+     * somente pelas revisões atuais das páginas (sem resumos nem imagens, em
+     * lotes de 50 títulos), e o conteúdo completo só é obtido novamente para as
+     * páginas que mudaram. As páginas que não mudaram são renovadas no cache
+     * (veja CachePaginas.renovar), e as que deixaram de existir são registradas
+     * como inexistentes.
+     * 
+     * Títulos que não estão no cache (ou cujas entradas expiraram) são
+     * ignorados; títulos registrados no cache como inexistentes são verificados
+     * novamente.
+     * 
+     * @param titulos Títulos a serem revalidados
+     * 
+     * @return O resultado da revalidação
+     * @throws IllegalStateException Se o objeto não usa cache
+     */
+    public Revalidacao revalidarCache(Collection<String> titulos) throws JavaWikiInternalException, UnsuccessfulHTTPRequestException {
+        if (cache == null) {
+            throw new IllegalStateException("A Wiki não usa cache");
+        }
+        Map<String, PaginaWiki> anteriores = new LinkedHashMap<>();
+        List<String> naoArmazenados = new ArrayList<>();
+        for (String titulo : new LinkedHashSet<>(titulos)) {
+            EntradaCache entrada = lerCache(titulo);
+            if (entrada == null) {
+                naoArmazenados.add(titulo);
+            } else {
+                anteriores.put(titulo, entrada.getPagina());
+            }
+        }
+        return revalidar(anteriores, naoArmazenados);
+    }
+
+    /**
+     * Revalida as páginas passadas (veja revalidarCache). As páginas que mudaram
+     * são obtidas novamente (e, se houver cache, armazenadas nele); as que não
+     * mudaram são renovadas no cache (se houver).
+     * 
+     * @param paginas Páginas obtidas anteriormente
+     * 
+     * @return O resultado da revalidação
+     */
+    public Revalidacao revalidarPaginas(Collection<PaginaWiki> paginas) throws JavaWikiInternalException, UnsuccessfulHTTPRequestException {
+        Map<String, PaginaWiki> anteriores = new LinkedHashMap<>();
+        for (PaginaWiki pagina : paginas) {
+            anteriores.put(pagina.getTitulo(), pagina);
+        }
+        return revalidar(anteriores, List.of());
+    }
+
+    /**
+     * Compara as revisões das páginas anteriores com as revisões atuais da Wiki
+     * e obtém novamente as páginas que mudaram
+     * 
+     * @param anteriores     Página anterior de cada título (null se a página não
+     *                       existia)
+     * @param naoArmazenados Títulos ignorados (para o resultado)
+     */
+    private Revalidacao revalidar(Map<String, PaginaWiki> anteriores, List<String> naoArmazenados) throws JavaWikiInternalException, UnsuccessfulHTTPRequestException {
+        List<String> titulos = new ArrayList<>(anteriores.keySet());
+        List<String> alterados = new ArrayList<>();
+        List<String> inalterados = new ArrayList<>();
+        List<String> removidos = new ArrayList<>();
+
+        for (int inicio = 0; inicio < titulos.size(); inicio += MAXIMO_TITULOS_POR_REQUISICAO) {
+            List<String> lote = titulos.subList(inicio, Math.min(inicio + MAXIMO_TITULOS_POR_REQUISICAO, titulos.size()));
+            RespostaConsulta resposta = requisitarRevisoes(lote);
+
+            for (String titulo : lote) {
+                DadosPagina atual = resposta.paginaDoTitulo(titulo);
+                boolean existe = atual != null && !atual.invalida && !atual.inexistente;
+                PaginaWiki anterior = anteriores.get(titulo);
+
+                if (!existe) {
+                    if (anterior != null) {
+                        removidos.add(titulo);
+                        if (cache != null) {
+                            gravarCache(titulo, new EntradaCache(null));
+                        }
+                        if (indice != null) {
+                            indice.remover(anterior.getTitulo());
+                        }
+                    } else {
+                        inalterados.add(titulo);
+                        if (cache != null) {
+                            renovarCache(titulo);
+                        }
+                    }
+                } else if (anterior != null && anterior.getRevisao() != 0 && anterior.getRevisao() == atual.revisao
+                           && anterior.getTitulo().equals(atual.titulo)) {
+                    inalterados.add(titulo);
+                    if (cache != null) {
+                        renovarCache(titulo);
+                    }
+                } else {
+                    // Mudou, passou a existir ou a revisão anterior é desconhecida
+                    alterados.add(titulo);
+                }
+            }
+        }
+        depurar(() -> "Revalidação: " + alterados.size() + " página(s) alterada(s), " + inalterados.size()
+                      + " inalterada(s), " + removidos.size() + " removida(s)");
+
+        // Obtém novamente o conteúdo completo das páginas alteradas (sem passar
+        // pelo cache, que ainda tem as versões anteriores)
+        Map<String, PaginaWiki> atualizadas = new LinkedHashMap<>();
+        for (int inicio = 0; inicio < alterados.size(); inicio += MAXIMO_TITULOS_POR_REQUISICAO) {
+            List<String> lote = alterados.subList(inicio, Math.min(inicio + MAXIMO_TITULOS_POR_REQUISICAO, alterados.size()));
+            Map<String, PaginaWiki> paginas = consultarLote(lote);
+            for (String titulo : lote) {
+                if (paginas.containsKey(titulo)) {
+                    atualizadas.put(titulo, paginas.get(titulo));
+                } else if (anteriores.get(titulo) != null) {
+                    // A página deixou de existir entre as duas requisições
+                    removidos.add(titulo);
+                }
+            }
+        }
+
+        return new Revalidacao(atualizadas, inalterados, removidos, naoArmazenados);
+    }
+
+    /**
+     * Requisita à Wiki somente as informações básicas (inclusive a revisão
+     * atual) das páginas de um lote de títulos
+     * 
+     * @param lote Títulos a serem consultados
+     * 
+     * @return A resposta da consulta
+     */
+    private RespostaConsulta requisitarRevisoes(List<String> lote) throws JavaWikiInternalException, UnsuccessfulHTTPRequestException {
+        try {
+            depurar(() -> "Montando parâmetros da consulta das revisões de " + lote.size() + " página(s)");
+
+            Map<String, String> parametros = new HashMap<>();
+            parametros.put("action", "query");
+            parametros.put("prop", "info");
+            parametros.put("titles", String.join("|", lote));
+            parametros.put("redirects", "resolve");
+            parametros.put("format", "json");
+            parametros.put("formatversion", "2");
+
+            return requisitarConsulta(MetricasWiki.Operacao.REVALIDACAO, parametros);
+        }
+        catch (UnsuccessfulHTTPRequestException e) {
+            // se ocorrer uma exceção de requisição HTTP mal-sucedida, ela é simplesmente relançada
+            throw e;
+        }
+        catch (Exception e) {
+            // Se a thread foi interrompida, mantém a indicação de interrupção
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+
+            // Caso ocorra qualquer outra exceção, lança uma exceção de erro interno na JavaWikiAPI,
+            // passando a exceção original como a causa
+            throw new JavaWikiInternalException(String.join("|", lote), endpoint, e);
+        }
+    }
+
+    /**
+     * Faz uma busca pelo termo passado e retorna títulos de páginas relacionados ao
+     * termo de busca (no máximo 10 títulos).
+     * É útil quando se pretende buscar uma página mas não se tem certeza do título
+     * dela na Wiki
+     * 
+     * @param termoDeBusca String utilizada para a busca
+     * 
+     * @return Uma lista de páginas retornada pela busca
+     * @throws UnsuccessfulHTTPRequestException
+     */
+    public List<String> pesquisarTitulosDePaginas(String termoDeBusca) throws JavaWikiInternalException, UnsuccessfulHTTPRequestException {
+        return compartilhar("pesquisa|" + termoDeBusca, termoDeBusca, () -> requisitarPesquisa(termoDeBusca));
+    }
+
+    /**
+     * Requisita à Wiki a pesquisa pelo termo passado
+     * 
+     * @param termoDeBusca String utilizada para a busca
+     * 
+     * @return Uma lista de páginas retornada pela busca
+     */
+    private List<String> requisitarPesquisa(String termoDeBusca) throws JavaWikiInternalException, UnsuccessfulHTTPRequestException {
+        try {            
+            depurar(() -> "Montando parâmetros da pesquisa por títulos de páginas");
+
+            Map<String, String> parametros = new HashMap<>(parametrosPesquisa);
+
+            // Parâmetro para passar o termo de busca
+            parametros.put("search", termoDeBusca);
+
+            // Faz a requisição de pesquisa na API, processando a resposta da pesquisa
+            // e retornando a lista de títulos de página
+            return fazerRequisicao(MetricasWiki.Operacao.PESQUISA, parametros, this::processarRespostaPesquisa);
+        }
+        catch (UnsuccessfulHTTPRequestException e) {
+            // se ocorrer uma exceção de requisição HTTP mal-sucedida, ela é simplesmente relançada
+            throw e;
+        }
+        catch (Exception e) {
+            // Se a thread foi interrompida, mantém a indicação de interrupção
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+
+            // Caso ocorra qualquer outra exceção, lança uma exceção de erro interno na JavaWikiAPI,
+            // passando a exceção original como a causa
+            throw new JavaWikiInternalException(termoDeBusca, endpoint, e);
+        }
+    }
+
+    /**
+     * Versão assíncrona de pesquisarTitulosDePaginas.
+     * Em caso de erro, o futuro é completado com uma UnsuccessfulHTTPRequestException
+     * ou uma JavaWikiInternalException.
+     * 
+     * @param termoDeBusca String utilizada para a busca
+     * 
+     * @return Futuro com a lista de páginas retornada pela busca
+     */
+    public CompletableFuture<List<String>> pesquisarTitulosDePaginasAsync(String termoDeBusca) {
+        if (usarThreadsVirtuais) {
+            return executarSincronoAsync(() -> pesquisarTitulosDePaginas(termoDeBusca));
+        }
+
+        return compartilharAsync("pesquisa|" + termoDeBusca, () -> {
+            depurar(() -> "Montando parâmetros da pesquisa por títulos de páginas");
+
+            Map<String, String> parametros = new HashMap<>(parametrosPesquisa);
+            parametros.put("search", termoDeBusca);
+
+            return fazerRequisicaoAsync(MetricasWiki.Operacao.PESQUISA, parametros, this::processarRespostaPesquisa)
+                    .handle((titulos, erro) -> {
+                        if (erro != null) {
+                            throw new CompletionException(converterExcecao(erro, termoDeBusca));
+                        }
+                        return titulos;
+                    });
+        });
+    }
+
+    /**
+     * Executa uma operação síncrona, a não ser que uma operação com a mesma chave
+     * já esteja em andamento: nesse caso, aguarda e retorna o resultado dela
+     * (inclusive se ela lançar uma exceção)
+     * 
+     * @param chave    Chave que identifica a operação
+     * @param termo    Termo usado na requisição (para as mensagens de erro)
+     * @param operacao Operação a ser executada
+     * 
+     * @return Resultado da operação
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T compartilhar(String chave, String termo, OperacaoWiki<T> operacao) throws JavaWikiInternalException, UnsuccessfulHTTPRequestException {
+        CompletableFuture<T> futuro = new CompletableFuture<>();
+        CompletableFuture<T> emAndamento = (CompletableFuture<T>) requisicoesEmAndamento.putIfAbsent(chave, futuro);
+        if (emAndamento != null) {
+            depurar(() -> "Aguardando requisição idêntica em andamento");
+            return aguardar(emAndamento, termo);
+        }
+
+        try {
+            T resultado = operacao.executar();
+            requisicoesEmAndamento.remove(chave, futuro);
+            futuro.complete(resultado);
+            return resultado;
+        }
+        catch (Throwable e) {
+            requisicoesEmAndamento.remove(chave, futuro);
+            futuro.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Versão assíncrona de compartilhar
+     * 
+     * @param chave    Chave que identifica a operação
+     * @param operacao Operação a ser iniciada
+     * 
+     * @return Futuro com o resultado da operação
+     */
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> compartilharAsync(String chave, Supplier<CompletableFuture<T>> operacao) {
+        CompletableFuture<T> futuro = new CompletableFuture<>();
+        CompletableFuture<T> emAndamento = (CompletableFuture<T>) requisicoesEmAndamento.putIfAbsent(chave, futuro);
+        if (emAndamento != null) {
+            depurar(() -> "Aguardando requisição idêntica em andamento");
+            // Cópia, para que quem recebe o futuro não consiga completá-lo para os demais
+            return emAndamento.copy();
+        }
+
+        CompletableFuture<T> resultado;
+        try {
+            resultado = operacao.get();
+        }
+        catch (RuntimeException e) {
+            resultado = CompletableFuture.failedFuture(e);
+        }
+        resultado.whenComplete((valor, erro) -> {
+            requisicoesEmAndamento.remove(chave, futuro);
+            if (erro != null) {
+                futuro.completeExceptionally(erro);
+            } else {
+                futuro.complete(valor);
+            }
+        });
+        return futuro.copy();
+    }
+
+    /**
+     * Aguarda uma operação em andamento, lançando as mesmas exceções que a API
+     * síncrona lançaria
+     */
+    private <T> T aguardar(CompletableFuture<T> futuro, String termo) throws JavaWikiInternalException, UnsuccessfulHTTPRequestException {
+        try {
+            return futuro.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JavaWikiInternalException(termo, endpoint, e);
+        }
+        catch (ExecutionException e) {
+            Throwable causa = converterExcecao(e.getCause(), termo);
+            if (causa instanceof UnsuccessfulHTTPRequestException) throw (UnsuccessfulHTTPRequestException) causa;
+            if (causa instanceof JavaWikiInternalException) throw (JavaWikiInternalException) causa;
+            if (causa instanceof Error) throw (Error) causa;
+            throw new JavaWikiInternalException(termo, endpoint, e);
+        }
+    }
+
+    /**
+     * Interface funcional para operações síncronas da Wiki (que lançam exceções
+     * verificadas)
+     */
+    private interface OperacaoWiki<T> {
+        T executar() throws JavaWikiInternalException, UnsuccessfulHTTPRequestException;
+    }
+
+    /**
+     * Executa uma operação síncrona no executor, retornando um futuro com o
+     * resultado
+     */
+    private <T> CompletableFuture<T> executarSincronoAsync(OperacaoWiki<T> operacao) {
+        CompletableFuture<T> futuro = new CompletableFuture<>();
+        executor().execute(() -> {
+            try {
+                futuro.complete(operacao.executar());
+            }
+            catch (Exception e) {
+                futuro.completeExceptionally(e);
+            }
+        });
+        return futuro;
+    }
+
+    /**
+     * Converte uma exceção ocorrida em uma consulta assíncrona para as exceções
+     * lançadas pela API síncrona
+     * 
+     * @param erro  Exceção ocorrida
+     * @param termo Termo usado na requisição
+     * 
+     * @return UnsuccessfulHTTPRequestException ou JavaWikiInternalException
+     */
+    private Throwable converterExcecao(Throwable erro, String termo) {
+        while (erro instanceof CompletionException && erro.getCause() != null) {
+            erro = erro.getCause();
+        }
+        if (erro instanceof UnsuccessfulHTTPRequestException || erro instanceof JavaWikiInternalException
+                || !(erro instanceof Exception)) {
+            return erro;
+        }
+        return new JavaWikiInternalException(termo, endpoint, (Exception) erro);
+    }
+
+    /**
+     * Interface funcional para os métodos que leem (em um único passo, sem montar
+     * uma árvore JSON intermediária) o corpo de uma resposta da API
+     */
+    private interface LeitorResposta<T> {
+        T ler(JsonReader leitor) throws IOException;
+    }
+
+    /**
+     * Faz uma requisição na API da Wiki utilizando os parâmetros passados.
+     * 
+     * O corpo da resposta é lido diretamente como um fluxo de bytes pelo leitor
+     * passado, que extrai somente os campos necessários. Se a requisição falhar
+     * por um problema temporário, ela é repetida conforme a política de
+     * retentativas.
+     * 
+     * @param operacao   Operação (para as métricas)
+     * @param parametros Parâmetros da chamada da API
+     * @param leitor     Método que lê o corpo da resposta
+     * @return Resultado retornado pelo leitor
+     * @throws UnsuccessfulHTTPRequestException
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    private <T> T fazerRequisicao(MetricasWiki.Operacao operacao, Map<String, String> parametros, LeitorResposta<T> leitor) throws UnsuccessfulHTTPRequestException, IOException, InterruptedException {
+        HttpRequest requisicao = montarRequisicao(parametros);
+
+        for (int tentativa = 1; ; tentativa++) {
+            // Respeita o limite de requisições por segundo
+            if (limitadorTaxa != null) {
+                limitadorTaxa.aguardar();
+            }
+
+            // Aguarda uma conexão livre do pool e faz a requisição na API
+            Exception falha = null;
+            limiteConexoes.adquirir();
+            metricas.requisicaoIniciada(operacao);
+            long inicio = System.nanoTime();
+            int status = 0;
+            ContadorBytes corpo = null;
+            try {
+                HttpResponse<InputStream> response = null;
+                try {
+                    response = cliente.send(requisicao, HttpResponse.BodyHandlers.ofInputStream());
+                }
+                catch (IOException e) {
+                    falha = e;
+                }
+
+                if (response != null) {
+                    status = response.statusCode();
+                    corpo = new ContadorBytes(response.body());
+                    try (InputStream entrada = corpo) {
+                        if (sucesso(status)) {
+                            return lerResposta(abrirCorpo(response, entrada), leitor);
+                        }
+                        falha = excecaoDeStatus(response);
+                    }
+                }
+            }
+            finally {
+                limiteConexoes.liberar();
+                registrarConclusao(operacao, status, inicio, (corpo == null) ? 0 : corpo.quantidade, tentativa);
+            }
+
+            // Decide se a requisição deve ser repetida (e após quanto tempo)
+            long atraso = politicaRetentativa.atrasoMillis(tentativa, falha);
+            if (atraso < 0) {
+                if (falha instanceof UnsuccessfulHTTPRequestException) throw (UnsuccessfulHTTPRequestException) falha;
+                throw (IOException) falha;
+            }
+            metricas.retentativa(operacao);
+            int tentativaFeita = tentativa;
+            Exception falhaOcorrida = falha;
+            depurar(() -> "Tentativa " + tentativaFeita + " falhou (" + falhaOcorrida.getMessage() + "), repetindo em " + atraso + " ms");
+            Thread.sleep(atraso);
+        }
+    }
+
+    /**
+     * Faz uma requisição assíncrona na API da Wiki utilizando os parâmetros
+     * passados. Nenhuma thread fica bloqueada enquanto se espera pela rede (nem
+     * por uma conexão livre do pool, nem entre as retentativas), e a resposta é
+     * processada no executor.
+     * 
+     * @param operacao   Operação (para as métricas)
+     * @param parametros Parâmetros da chamada da API
+     * @param leitor     Método que lê o corpo da resposta
+     * @return Futuro com o resultado retornado pelo leitor
+     */
+    private <T> CompletableFuture<T> fazerRequisicaoAsync(MetricasWiki.Operacao operacao, Map<String, String> parametros, LeitorResposta<T> leitor) {
+        HttpRequest requisicao;
+        try {
+            requisicao = montarRequisicao(parametros);
+        }
+        catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return tentarRequisicaoAsync(operacao, requisicao, leitor, 1);
+    }
+
+    /**
+     * Faz (assincronamente) uma tentativa da requisição passada e, se ela falhar
+     * por um problema temporário, agenda a próxima tentativa
+     * 
+     * @param operacao   Operação (para as métricas)
+     * @param requisicao Requisição a ser feita
+     * @param leitor     Método que lê o corpo da resposta
+     * @param tentativa  Número da tentativa (começando em 1)
+     * @return Futuro com o resultado retornado pelo leitor
+     */
+    private <T> CompletableFuture<T> tentarRequisicaoAsync(MetricasWiki.Operacao operacao, HttpRequest requisicao, LeitorResposta<T> leitor, int tentativa) {
+        // Respeita o limite de requisições por segundo
+        long espera = (limitadorTaxa == null) ? 0 : limitadorTaxa.reservar();
+        CompletableFuture<Void> liberada = (espera == 0) ? CompletableFuture.completedFuture(null)
+                : esperarAsync(espera, TimeUnit.NANOSECONDS);
+
+        // Quando houver uma conexão livre, faz a requisição (o corpo é recebido por
+        // completo antes de ser lido, para que a leitura não bloqueie o executor)
+        return liberada
+                .thenCompose(nada -> limiteConexoes.adquirirAsync())
+                .thenCompose(nada -> {
+                    metricas.requisicaoIniciada(operacao);
+                    long inicio = System.nanoTime();
+                    return enviarAsync(requisicao).whenComplete((response, erro) -> {
+                        limiteConexoes.liberar();
+                        registrarConclusao(operacao, (response == null) ? 0 : response.statusCode(), inicio,
+                                (response == null) ? 0 : response.body().length, tentativa);
+                    });
+                })
+                .handle((response, erro) -> {
+                    Exception falha;
+                    if (erro != null) {
+                        Throwable causa = (erro instanceof CompletionException && erro.getCause() != null) ? erro.getCause() : erro;
+                        if (!(causa instanceof IOException)) {
+                            return CompletableFuture.<T>failedFuture(causa);
+                        }
+                        falha = (IOException) causa;
+                    } else if (sucesso(response.statusCode())) {
+                        return CompletableFuture.supplyAsync(() -> {
+                            try {
+                                return lerResposta(abrirCorpo(response, new ByteArrayInputStream(response.body())), leitor);
+                            }
+                            catch (IOException e) {
+                                throw new CompletionException(e);
+                            }
+                        }, executor());
+                    } else {
+                        falha = excecaoDeStatus(response);
+                    }
+
+                    // Decide se a requisição deve ser repetida (e após quanto tempo)
+                    long atraso = politicaRetentativa.atrasoMillis(tentativa, falha);
+                    if (atraso < 0) {
+                        return CompletableFuture.<T>failedFuture(falha);
+                    }
+                    metricas.retentativa(operacao);
+                    depurar(() -> "Tentativa " + tentativa + " falhou (" + falha.getMessage() + "), repetindo em " + atraso + " ms");
+                    return esperarAsync(atraso, TimeUnit.MILLISECONDS)
+                            .thenCompose(nada -> tentarRequisicaoAsync(operacao, requisicao, leitor, tentativa + 1));
+                })
+                .thenCompose(futuro -> futuro);
+    }
+
+    /**
+     * Retorna um futuro completado (no executor das consultas) depois do tempo
+     * passado. A espera usa o agendador padrão do Java, e não o executor, pois
+     * o executor pode ser encerrado (pelo close) durante a espera; nesse caso,
+     * ou se o objeto for fechado, o futuro falha em vez de nunca ser completado.
+     * 
+     * @param atraso  Tempo de espera
+     * @param unidade Unidade do tempo de espera
+     * @return O futuro
+     */
+    private CompletableFuture<Void> esperarAsync(long atraso, TimeUnit unidade) {
+        CompletableFuture<Void> espera = new CompletableFuture<>();
+        CompletableFuture.delayedExecutor(atraso, unidade).execute(() -> {
+            if (fechado) {
+                espera.completeExceptionally(new IOException("Wiki: o objeto já foi fechado"));
+                return;
+            }
+            try {
+                executor().execute(() -> espera.complete(null));
+            }
+            catch (RejectedExecutionException e) {
+                espera.completeExceptionally(new IOException("Wiki: o objeto já foi fechado", e));
+            }
+        });
+        return espera;
+    }
+
+    /**
+     * Registra nas métricas (e nas mensagens de depuração) o fim de uma requisição
+     * 
+     * @param operacao  Operação da requisição
+     * @param status    Código de status HTTP da resposta (0 se não houve resposta)
+     * @param inicio    Instante (System.nanoTime) em que a requisição foi enviada
+     * @param bytes     Bytes recebidos no corpo da resposta
+     * @param tentativa Número da tentativa
+     */
+    private void registrarConclusao(MetricasWiki.Operacao operacao, int status, long inicio, long bytes, int tentativa) {
+        long duracao = System.nanoTime() - inicio;
+        metricas.requisicaoConcluida(operacao, status, duracao, bytes);
+        depurar(() -> String.format("requisicao operacao=%s status=%d duracao_ms=%.1f bytes=%d tentativa=%d",
+                operacao.name().toLowerCase(), status, duracao / 1e6, bytes, tentativa));
+    }
+
+    /**
+     * Exibe (no modo de debug) ou envia ao logger uma mensagem de depuração. A
+     * mensagem só é montada se for de fato usada.
+     * 
+     * @param mensagem Função que monta a mensagem
+     */
+    void depurar(Supplier<String> mensagem) {
+        if (debug) {
+            System.out.println("=> Wiki: " + mensagem.get());
+        } else {
+            LOGGER.log(System.Logger.Level.DEBUG, mensagem);
+        }
+    }
+
+    /**
+     * Envia a requisição assincronamente (erros no envio completam o futuro, em
+     * vez de serem lançados)
+     */
+    private CompletableFuture<HttpResponse<byte[]>> enviarAsync(HttpRequest requisicao) {
+        try {
+            return cliente.sendAsync(requisicao, HttpResponse.BodyHandlers.ofByteArray());
+        }
+        catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Monta a requisição HTTP com os parâmetros passados
+     * 
+     * @param parametros Parâmetros da chamada da API
+     * @return A requisição
+     * @throws IOException Se o objeto já foi fechado
+     */
+    private HttpRequest montarRequisicao(Map<String, String> parametros) throws IOException {
+        if (fechado) {
+            throw new IOException("Wiki: o objeto já foi fechado");
+        }
+
+        StringBuilder url = new StringBuilder(endpoint).append('?');
+        for (Map.Entry<String, String> parametro : parametros.entrySet()) {
+            if (url.charAt(url.length() - 1) != '?') {
+                url.append('&');
+            }
+            url.append(URLEncoder.encode(parametro.getKey(), StandardCharsets.UTF_8)).append('=')
+               .append(URLEncoder.encode(parametro.getValue(), StandardCharsets.UTF_8));
+        }
+
+        depurar(() -> "URL da requisição: " + url);
+
+        HttpRequest.Builder requisicao = HttpRequest.newBuilder(URI.create(url.toString()))
+                .timeout(tempoLimiteRequisicao)
+                .header("User-Agent", agenteUsuario)
+                .GET();
+        if (gzip) {
+            requisicao.header("Accept-Encoding", "gzip");
+        }
+        return requisicao.build();
+    }
+
+    /**
+     * Retorna o fluxo de leitura do corpo da resposta, descompactando-o se ele
+     * veio compactado (gzip)
+     */
+    private static InputStream abrirCorpo(HttpResponse<?> response, InputStream corpo) throws IOException {
+        String codificacao = response.headers().firstValue("Content-Encoding").orElse("");
+        if (codificacao.equalsIgnoreCase("gzip")) {
+            return new GZIPInputStream(corpo);
+        }
+        return corpo;
+    }
+
+    /**
+     * Indica se o código de status HTTP é de uma requisição bem-sucedida
+     */
+    private static boolean sucesso(int status) {
+        return status >= 200 && status < 300;
+    }
+
+    /**
+     * Lê o corpo de uma resposta bem-sucedida com o leitor passado
+     * 
+     * @param corpo  Corpo da resposta
+     * @param leitor Método que lê o corpo da resposta
+     * @return Resultado retornado pelo leitor
+     * @throws IOException
+     */
+    private <T> T lerResposta(InputStream corpo, LeitorResposta<T> leitor) throws IOException {
+        // se está em modo de debug (ou o nível TRACE do logger está habilitado), exibe a
+        // resposta da requisição em formato amigável (somente nesse caso o corpo é
+        // guardado em memória como uma String)
+        if (debug || LOGGER.isLoggable(System.Logger.Level.TRACE)) {
+            byte[] bytes = corpo.readAllBytes();
+            String resposta = "Resposta da requisição: " + JSONUtils.stringAmigavel(new String(bytes, StandardCharsets.UTF_8));
+            if (debug) {
+                System.out.println("=> Wiki: " + resposta);
+            } else {
+                LOGGER.log(System.Logger.Level.TRACE, resposta);
+            }
+            corpo = new ByteArrayInputStream(bytes);
+        }
+
+        // Lê o corpo da resposta diretamente do fluxo de bytes
+        JsonReader leitorJson = new JsonReader(new InputStreamReader(corpo, StandardCharsets.UTF_8));
+        return leitor.ler(leitorJson);
+    }
+
+    /**
+     * Cria a exceção correspondente a uma resposta mal-sucedida, incluindo o
+     * tempo de espera pedido pela Wiki (cabeçalho Retry-After), se houver
+     */
+    private static UnsuccessfulHTTPRequestException excecaoDeStatus(HttpResponse<?> response) {
+        int status = response.statusCode();
+        Duration esperaSugerida = response.headers().firstValue("Retry-After").map(Wiki::interpretarRetryAfter).orElse(null);
+        return new UnsuccessfulHTTPRequestException(status, descricaoStatus(status), esperaSugerida);
+    }
+
+    /**
+     * Interpreta o valor do cabeçalho Retry-After, que pode ser uma quantidade
+     * de segundos ou uma data
+     * 
+     * @return O tempo de espera (ou null se o valor for inválido)
+     */
+    static Duration interpretarRetryAfter(String valor) {
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(valor.trim())));
+        }
+        catch (NumberFormatException e) {
+            try {
+                ZonedDateTime instante = ZonedDateTime.parse(valor.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                Duration espera = Duration.between(ZonedDateTime.now(instante.getZone()), instante);
+                return espera.isNegative() ? Duration.ZERO : espera;
+            }
+            catch (DateTimeParseException e2) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Descrição dos códigos de status HTTP mais comuns em requisições mal-sucedidas
+     */
+    private static String descricaoStatus(int status) {
+        switch (status) {
+            case 400: return "Bad Request";
+            case 403: return "Forbidden";
+            case 404: return "Not Found";
+            case 408: return "Request Timeout";
+            case 429: return "Too Many Requests";
+            case 500: return "Internal Server Error";
+            case 502: return "Bad Gateway";
+            case 503: return "Service Unavailable";
+            case 504: return "Gateway Timeout";
+            default: return "HTTP " + status;
+        }
+    }
+
+    /**
+     * Baixa os bytes de uma imagem usando o cliente HTTP deste objeto,
+     * respeitando o limite de requisições por segundo e a política de
+     * retentativas (como as requisições na API)
+     * 
+     * @param endereco Endereço (URL) da imagem
+     * @return Os bytes da imagem
+     * @throws PaginaWiki.ImagemIndisponivelException Se a imagem não existe
+     *                                                (falha permanente)
+     * @throws IOException Se a imagem não pôde ser obtida (falha temporária ou
+     *                     download interrompido)
+     */
+    private byte[] baixarImagem(String endereco) throws IOException {
+        HttpRequest requisicao = HttpRequest.newBuilder(URI.create(endereco))
+                .timeout(tempoLimiteRequisicao)
+                .header("User-Agent", agenteUsuario)
+                .GET()
+                .build();
+
+        try {
+            for (int tentativa = 1; ; tentativa++) {
+                if (limitadorTaxa != null) {
+                    limitadorTaxa.aguardar();
+                }
+
+                Exception falha;
+                limiteConexoes.adquirir();
+                metricas.requisicaoIniciada(MetricasWiki.Operacao.THUMBNAIL);
+                long inicio = System.nanoTime();
+                HttpResponse<byte[]> response = null;
+                try {
+                    response = cliente.send(requisicao, HttpResponse.BodyHandlers.ofByteArray());
+                    if (sucesso(response.statusCode())) {
+                        return response.body();
+                    }
+                    falha = excecaoDeStatus(response);
+                }
+                catch (IOException e) {
+                    falha = e;
+                }
+                finally {
+                    limiteConexoes.liberar();
+                    registrarConclusao(MetricasWiki.Operacao.THUMBNAIL, (response == null) ? 0 : response.statusCode(), inicio,
+                            (response == null) ? 0 : response.body().length, tentativa);
+                }
+
+                long atraso = politicaRetentativa.atrasoMillis(tentativa, falha);
+                if (atraso < 0) {
+                    String mensagem = "Wiki: erro ao obter imagem (" + falha.getMessage() + "): " + endereco;
+                    if (!politicaRetentativa.falhaTemporaria(falha)) {
+                        throw new PaginaWiki.ImagemIndisponivelException(mensagem, falha);
+                    }
+                    throw new IOException(mensagem, falha);
+                }
+                metricas.retentativa(MetricasWiki.Operacao.THUMBNAIL);
+                int tentativaFeita = tentativa;
+                Exception falhaOcorrida = falha;
+                depurar(() -> "Download de imagem: tentativa " + tentativaFeita + " falhou (" + falhaOcorrida.getMessage()
+                        + "), repetindo em " + atraso + " ms");
+                Thread.sleep(atraso);
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Wiki: download de imagem interrompido", e);
+        }
+    }
+
+    /**
+     * Processa a resposta a uma requisição de consulta, acumulando as
+     * informações obtidas (normalizações, redirecionamentos e páginas)
+     * 
+     * @param leitor   Leitor posicionado no início do objeto JSON retornado pela API
+     * @param resposta Resposta acumulada do lote
+     * 
+     * @return Parâmetros de continuação a serem usados na próxima requisição (ou
+     *         null se a resposta do lote estiver completa)
+     */
+    Map<String, String> processarRespostaConsulta(JsonReader leitor, RespostaConsulta resposta) throws IOException {
+        depurar(() -> "Processando retorno da requisição");
+
+        Map<String, String> continuacao = null;
+
+        leitor.beginObject();
+        while (leitor.hasNext()) {
+            switch (leitor.nextName()) {
+                // Elemento com informações da consulta
+                case "query":
+                    resposta.acumular(leitor);
+                    break;
+                // Se a API indicou que há mais dados, guarda os parâmetros para obtê-los
+                case "continue":
+                    depurar(() -> "Resposta incompleta, buscando continuação");
+
+                    continuacao = new HashMap<>();
+                    leitor.beginObject();
+                    while (leitor.hasNext()) {
+                        continuacao.put(leitor.nextName(), leitor.nextString());
+                    }
+                    leitor.endObject();
+                    break;
+                default:
+                    leitor.skipValue();
+            }
+        }
+        leitor.endObject();
+
+        return continuacao;
+    }
+
+    /**
+     * Cria um objeto de página Wiki a partir dos dados de uma página retornados
+     * pela API
+     * 
+     * @param pagina Dados da página
+     * 
+     * @return A página (ou null se o retorno for inválido ou se a página não existir)
+     */
+    private PaginaWiki criarPagina(DadosPagina pagina) {
+        // Se o retorno é inválido
+        if (pagina.invalida) {
+            depurar(() -> "página não encontrada, motivo: " + pagina.motivoInvalidez);
+            return null;
+        } 
+        // Se a página ainda não existe
+        if (pagina.inexistente) {
+            depurar(() -> "página de título '" + pagina.titulo + "' não existe.");
+            return null;
+        } 
+
+        // Obtém o resumo da página (se ele foi retornado)
+        String resumo = (pagina.resumo != null) ? pagina.resumo : "";
+
+        // Cria e retorna um objeto que representa a página Wiki obtida. A imagem
+        // (thumbnail) só é baixada quando for solicitada
+        PaginaWiki paginaWiki = new PaginaWiki(pagina.titulo, pagina.id, resumo,
+                                               pagina.enderecoImagem, pagina.larguraImagem, pagina.alturaImagem);
+        paginaWiki.configurarImagem(imagensForaDoHeap, this::baixarImagem);
+        paginaWiki.configurarRevisao(pagina.revisao, pagina.atualizadaEm);
+        return paginaWiki;
+    }
+
+    /**
+     * Processa a resposta a uma requisição de pesquisa
+     * 
+     * @param leitor Leitor posicionado no início do array JSON retornado pela API
+     */
+    List<String> processarRespostaPesquisa(JsonReader leitor) throws IOException {
+        depurar(() -> "Processando retorno da requisição");
+
+        List<String> titulos = new ArrayList<>();
+
+        // A resposta é um array com o termo buscado, os títulos, as descrições e os endereços
+        leitor.beginArray();
+        leitor.skipValue();
+        leitor.beginArray();
+        while (leitor.hasNext()) {
+            titulos.add(leitor.nextString());
+        }
+        leitor.endArray();
+        while (leitor.hasNext()) {
+            leitor.skipValue();
+        }
+        leitor.endArray();
+
+        return titulos;
+    }
+
+    /**
+     * Fluxo de leitura que conta os bytes lidos (para as métricas)
+     */
+    private static class ContadorBytes extends FilterInputStream {
+        private long quantidade;
+
+        public ContadorBytes(InputStream entrada) {
+            super(entrada);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) quantidade++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] bytes, int inicio, int tamanho) throws IOException {
+            int lidos = super.read(bytes, inicio, tamanho);
+            if (lidos > 0) quantidade += lidos;
+            return lidos;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long pulados = super.skip(n);
+            quantidade += pulados;
+            return pulados;
+        }
+    }
+
+    /**
+     * Classe interna que acumula as respostas (possivelmente divididas em várias
+     * requisições) da consulta de um lote de títulos
+     */
+    static class RespostaConsulta {
+        // Títulos passados e os títulos normalizados (ou convertidos) pela Wiki
+        private Map<String, String> normalizacoes = new HashMap<>();
+        // Títulos de páginas de redirecionamento e os títulos das páginas de destino
+        private Map<String, String> redirecionamentos = new HashMap<>();
+        // Dados das páginas retornadas, indexados pelo título
+        private Map<String, DadosPagina> paginas = new HashMap<>();
+
+        /**
+         * Acumula as informações de uma resposta da API
+         * 
+         * @param leitor Leitor posicionado no início do elemento "query" da resposta
+         */
+        public void acumular(JsonReader leitor) throws IOException {
+            leitor.beginObject();
+            while (leitor.hasNext()) {
+                switch (leitor.nextName()) {
+                    case "normalized":
+                    case "converted":
+                        lerMapeamentos(leitor, normalizacoes);
+                        break;
+                    case "redirects":
+                        lerMapeamentos(leitor, redirecionamentos);
+                        break;
+                    case "pages":
+                        leitor.beginArray();
+                        while (leitor.hasNext()) {
+                            DadosPagina pagina = DadosPagina.ler(leitor);
+
+                            DadosPagina paginaAcumulada = paginas.get(pagina.titulo);
+                            if (paginaAcumulada == null) {
+                                paginas.put(pagina.titulo, pagina);
+                            } else {
+                                // Em uma continuação, a mesma página volta com as propriedades que faltavam
+                                paginaAcumulada.completar(pagina);
+                            }
+                        }
+                        leitor.endArray();
+                        break;
+                    default:
+                        leitor.skipValue();
+                }
+            }
+            leitor.endObject();
+        }
+
+        /**
+         * Lê uma lista de mapeamentos "from" -> "to" retornada pela API
+         */
+        private void lerMapeamentos(JsonReader leitor, Map<String, String> mapeamentos) throws IOException {
+            leitor.beginArray();
+            while (leitor.hasNext()) {
+                String de = null;
+                String para = null;
+
+                leitor.beginObject();
+                while (leitor.hasNext()) {
+                    switch (leitor.nextName()) {
+                        case "from":
+                            de = leitor.nextString();
+                            break;
+                        case "to":
+                            para = leitor.nextString();
+                            break;
+                        default:
+                            leitor.skipValue();
+                    }
+                }
+                leitor.endObject();
+
+                if (de != null && para != null) {
+                    mapeamentos.put(de, para);
+                }
+            }
+            leitor.endArray();
+        }
+
+        /**
+         * Retorna os dados da página correspondente ao título passado na consulta
+         * (seguindo normalizações e redirecionamentos), ou null se a página não veio
+         * na resposta
+         */
+        public DadosPagina paginaDoTitulo(String titulo) {
+            String tituloFinal = normalizacoes.getOrDefault(titulo, titulo);
+
+            // Segue os redirecionamentos (limitando a quantidade para evitar ciclos)
+            for (int i = 0; i < 10 && redirecionamentos.containsKey(tituloFinal); i++) {
+                tituloFinal = redirecionamentos.get(tituloFinal);
+            }
+
+            return paginas.get(tituloFinal);
+        }
+    }
+
+    /**
+     * Classe interna com os dados de uma página que são extraídos da resposta da
+     * API (os demais campos da resposta são ignorados)
+     */
+    private static class DadosPagina {
+        private String titulo;
+        private int id;
+        private String resumo;
+        private boolean invalida;
+        private String motivoInvalidez;
+        private boolean inexistente;
+        private String enderecoImagem;
+        private int larguraImagem;
+        private int alturaImagem;
+        private long revisao;
+        private Instant atualizadaEm;
+
+        /**
+         * Lê os dados de uma página
+         * 
+         * @param leitor Leitor posicionado no início do objeto JSON da página
+         */
+        public static DadosPagina ler(JsonReader leitor) throws IOException {
+            DadosPagina pagina = new DadosPagina();
+
+            leitor.beginObject();
+            while (leitor.hasNext()) {
+                switch (leitor.nextName()) {
+                    case "title":
+                        pagina.titulo = leitor.nextString();
+                        break;
+                    case "pageid":
+                        pagina.id = leitor.nextInt();
+                        break;
+                    case "extract":
+                        pagina.resumo = leitor.nextString();
+                        break;
+                    case "invalid":
+                        pagina.invalida = lerIndicador(leitor);
+                        break;
+                    case "invalidreason":
+                        pagina.motivoInvalidez = leitor.nextString();
+                        break;
+                    case "missing":
+                        pagina.inexistente = lerIndicador(leitor);
+                        break;
+                    case "lastrevid":
+                        pagina.revisao = leitor.nextLong();
+                        break;
+                    case "touched":
+                        try {
+                            pagina.atualizadaEm = Instant.parse(leitor.nextString());
+                        }
+                        catch (DateTimeParseException e) {
+                            // instante em formato desconhecido: fica como desconhecido
+                        }
+                        break;
+                    case "thumbnail":
+                        leitor.beginObject();
+                        while (leitor.hasNext()) {
+                            switch (leitor.nextName()) {
+                                case "source":
+                                    pagina.enderecoImagem = leitor.nextString();
+                                    break;
+                                case "width":
+                                    pagina.larguraImagem = leitor.nextInt();
+                                    break;
+                                case "height":
+                                    pagina.alturaImagem = leitor.nextInt();
+                                    break;
+                                default:
+                                    leitor.skipValue();
+                            }
+                        }
+                        leitor.endObject();
+                        break;
+                    default:
+                        leitor.skipValue();
+                }
+            }
+            leitor.endObject();
+
+            return pagina;
+        }
+
+        /**
+         * Lê um campo indicador (que na versão 2 do formato é um booleano, e na
+         * versão 1 é uma string vazia cuja presença indica verdadeiro)
+         */
+        private static boolean lerIndicador(JsonReader leitor) throws IOException {
+            if (leitor.peek() == JsonToken.BOOLEAN) {
+                return leitor.nextBoolean();
+            }
+            leitor.skipValue();
+            return true;
+        }
+
+        /**
+         * Completa os dados que faltam com os dados de outra resposta da mesma página
+         */
+        public void completar(DadosPagina outra) {
+            if (id == 0) id = outra.id;
+            if (resumo == null) resumo = outra.resumo;
+            if (motivoInvalidez == null) motivoInvalidez = outra.motivoInvalidez;
+            if (revisao == 0) revisao = outra.revisao;
+            if (atualizadaEm == null) atualizadaEm = outra.atualizadaEm;
+            invalida |= outra.invalida;
+            inexistente |= outra.inexistente;
+            if (enderecoImagem == null) {
+                enderecoImagem = outra.enderecoImagem;
+                larguraImagem = outra.larguraImagem;
+                alturaImagem = outra.alturaImagem;
+            }
+        }
+    }
+
+    /**
+     * Classe que permite configurar e construir um objeto Wiki.
+     * Todos os métodos retornam o próprio builder, para que possam ser encadeados.
+     */
+    public static class Builder {
+        private String endpoint = "https://pt.wikipedia.org/w/api.php";
+        private boolean debug = false;
+        private Executor executor = null;
+        private boolean usarThreadsVirtuais = false;
+        private CachePaginas cache = null;
+        private IndiceInvertido indice = null;
+        private boolean carregarImagens = true;
+        private int tamanhoThumbnail = 300;
+        private boolean imagensForaDoHeap = false;
+        private int tamanhoPoolConexoes = 20;
+        private Duration tempoLimiteConexao = Duration.ofSeconds(10);
+        private Duration tempoLimiteRequisicao = Duration.ofSeconds(30);
+        private boolean http2 = true;
+        private boolean gzip = true;
+        private String agenteUsuario = "javaWikiAPI/1.0 (UFLA GAC106; Java " + Runtime.version().feature() + ")";
+        private LimitadorTaxa limitadorTaxa = null;
+        private PoliticaRetentativa politicaRetentativa = PoliticaRetentativa.padrao();
+        private MetricasWiki metricas = MetricasWiki.NENHUMA;
+
+        /**
+         * Builder com as configurações padrões (use Wiki.builder())
+         */
+        private Builder() {
+        }
+
+        /**
+         * Endpoint da Wiki a ser consultada (o padrão é
+         * "https://pt.wikipedia.org/w/api.php")
+         */
+        public Builder endpoint(String endpoint) {
+            this.endpoint = endpoint;
+            return this;
+        }
+
+        /**
+         * Liga/desliga o modo de debug (nesse caso, são exibidas na saída padrão
+         * mensagens detalhadas do que é feito). Fora do modo de debug, as mensagens
+         * são enviadas ao System.Logger da classe Wiki.
+         */
+        public Builder debug(boolean debug) {
+            this.debug = debug;
+            return this;
+        }
+
+        /**
+         * Executor usado no processamento das respostas das consultas assíncronas.
+         * Se não for definido, o objeto cria seu próprio executor (veja
+         * executorDeThreadsVirtuais) na primeira consulta assíncrona e o encerra
+         * em close; um executor passado aqui não é encerrado pelo objeto.
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Faz com que as consultas assíncronas executem a API síncrona (bloqueante)
+         * em threads virtuais, em vez de usar as requisições assíncronas.
+         * Threads virtuais só existem a partir do Java 21. Em versões anteriores
+         * (como o Java 17) esta opção não cria threads virtuais: cada consulta
+         * assíncrona passa a ocupar uma thread comum de um pool enquanto espera a
+         * resposta (veja executorDeThreadsVirtuais), o que costuma ser pior que as
+         * requisições assíncronas do padrão. Só a ative a partir do Java 21.
+         */
+        public Builder usarThreadsVirtuais(boolean usarThreadsVirtuais) {
+            this.usarThreadsVirtuais = usarThreadsVirtuais;
+            return this;
+        }
+
+        /**
+         * Cache para as páginas consultadas. Páginas que estão no cache (inclusive
+         * páginas inexistentes) não são buscadas novamente na Wiki.
+         */
+        public Builder cache(CachePaginas cache) {
+            this.cache = cache;
+            return this;
+        }
+
+        /**
+         * Índice local onde as páginas consultadas (inclusive as obtidas do cache)
+         * são adicionadas, para que possam ser pesquisadas sem acessar a rede
+         * (veja IndiceInvertido.pesquisar)
+         */
+        public Builder indice(IndiceInvertido indice) {
+            this.indice = indice;
+            return this;
+        }
+
+        /**
+         * Liga/desliga a obtenção das imagens (thumbnails) das páginas. Quando
+         * desligada, as páginas consultadas não têm imagem, e as consultas não
+         * geram nenhum tráfego de imagens (útil quando só o resumo é necessário).
+         * 
+         * Mesmo quando ligada, a imagem de cada página só é baixada quando for
+         * solicitada pela primeira vez (veja PaginaWiki.getImagem).
+         */
+        public Builder carregarImagens(boolean carregarImagens) {
+            this.carregarImagens = carregarImagens;
+            return this;
+        }
+
+        /**
+         * Largura máxima em pixels das imagens (thumbnails) solicitadas à Wiki (o
+         * padrão é 300). Imagens menores ocupam menos memória e são baixadas mais
+         * rapidamente.
+         */
+        public Builder tamanhoThumbnail(int tamanhoThumbnail) {
+            if (tamanhoThumbnail <= 0) {
+                throw new IllegalArgumentException("O tamanho do thumbnail deve ser positivo");
+            }
+            this.tamanhoThumbnail = tamanhoThumbnail;
+            return this;
+        }
+
+        /**
+         * Faz com que os bytes (compactados) das imagens das páginas consultadas
+         * sejam guardados fora do heap da JVM, o que reduz o trabalho do coletor de
+         * lixo quando há muitas páginas em memória
+         */
+        public Builder imagensForaDoHeap(boolean imagensForaDoHeap) {
+            this.imagensForaDoHeap = imagensForaDoHeap;
+            return this;
+        }
+
+        /**
+         * Quantidade máxima de requisições simultâneas (e, portanto, de conexões
+         * abertas com a Wiki). O padrão é 20. As conexões são persistentes
+         * (keep-alive) e reaproveitadas entre as requisições.
+         */
+        public Builder tamanhoPoolConexoes(int tamanhoPoolConexoes) {
+            if (tamanhoPoolConexoes <= 0) {
+                throw new IllegalArgumentException("O tamanho do pool de conexões deve ser positivo");
+            }
+            this.tamanhoPoolConexoes = tamanhoPoolConexoes;
+            return this;
+        }
+
+        /**
+         * Tempo máximo para estabelecer uma conexão com a Wiki (o padrão é 10 segundos)
+         */
+        public Builder tempoLimiteConexao(Duration tempoLimiteConexao) {
+            this.tempoLimiteConexao = tempoLimiteConexao;
+            return this;
+        }
+
+        /**
+         * Tempo máximo de espera pela resposta de uma requisição (o padrão é 30 segundos)
+         */
+        public Builder tempoLimiteRequisicao(Duration tempoLimiteRequisicao) {
+            this.tempoLimiteRequisicao = tempoLimiteRequisicao;
+            return this;
+        }
+
+        /**
+         * Liga/desliga o uso de HTTP/2 (usado somente se a Wiki suportar; o padrão
+         * é ligado)
+         */
+        public Builder http2(boolean http2) {
+            this.http2 = http2;
+            return this;
+        }
+
+        /**
+         * Liga/desliga a compactação (gzip) das respostas (o padrão é ligado)
+         */
+        public Builder gzip(boolean gzip) {
+            this.gzip = gzip;
+            return this;
+        }
+
+        /**
+         * Identificação do cliente enviada à Wiki no cabeçalho User-Agent (as Wikis
+         * da Wikimedia pedem que ela identifique a aplicação)
+         */
+        public Builder agenteUsuario(String agenteUsuario) {
+            this.agenteUsuario = agenteUsuario;
+            return this;
+        }
+
+        /**
+         * Limita a taxa de requisições à Wiki (por padrão não há limite). O mesmo
+         * limitador pode ser passado a vários objetos Wiki, para que o limite valha
+         * para todos eles juntos.
+         */
+        public Builder limitadorTaxa(LimitadorTaxa limitadorTaxa) {
+            this.limitadorTaxa = limitadorTaxa;
+            return this;
+        }
+
+        /**
+         * Limita a quantidade de requisições por segundo feitas por este objeto
+         * (atalho para limitadorTaxa(new LimitadorTaxa(requisicoesPorSegundo)))
+         */
+        public Builder limiteRequisicoesPorSegundo(double requisicoesPorSegundo) {
+            return limitadorTaxa(new LimitadorTaxa(requisicoesPorSegundo));
+        }
+
+        /**
+         * Política que define quando as requisições mal-sucedidas são repetidas (o
+         * padrão é PoliticaRetentativa.padrao(); use
+         * PoliticaRetentativa.semRetentativas() para nunca repetir)
+         */
+        public Builder politicaRetentativa(PoliticaRetentativa politicaRetentativa) {
+            this.politicaRetentativa = politicaRetentativa;
+            return this;
+        }
+
+        /**
+         * Objeto que recebe as métricas das requisições (ex: new MetricasMemoria()).
+         * O mesmo objeto pode ser passado a vários objetos Wiki.
+         */
+        public Builder metricas(MetricasWiki metricas) {
+            this.metricas = (metricas == null) ? MetricasWiki.NENHUMA : metricas;
+            return this;
+        }
+
+        /**
+         * Constrói o objeto Wiki com as configurações definidas.
+         * Lembre-se de usar o método close quando não for mais usar o objeto.
+         * 
+         * @return O objeto construído
+         */
+        public Wiki build() {
+            return new Wiki(this);
+        }
     }
 }
@@ -0,0 +1,430 @@
+package br.ufla.gac106.s2022_2.base;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Implementação de Avaliacoes voltada para grandes quantidades de itens (milhões),
+ * que guarda as avaliações em colunas de tipos primitivos em vez de um objeto por
+ * item.
+ * 
+ * Cada item recebe um identificador inteiro (0, 1, 2, ...) na primeira vez em que
+ * seu nome aparece, e a soma, a quantidade e a média das avaliações de cada item
+ * ficam em vetores de double, int e float indexados por esse identificador (a
+ * média é sempre recalculada a partir da soma e da quantidade). A coleção retornada por
+ * colecaoAvaliacoes é uma visão desses vetores: os objetos Avaliacao são criados
+ * somente durante a iteração e refletem o estado atual das colunas.
+ * 
+ * Para laços em que o desempenho importa, use os métodos que trabalham com os
+ * identificadores (classificacaoMedia(int), copiarMedias, paraCadaItem), que não
+ * criam nenhum objeto.
+ * 
+ * Esta classe não é segura para uso por várias threads ao mesmo tempo (veja
+ * AvaliacoesConcorrentes).
+ */
+public class AvaliacoesColunares implements Avaliacoes {
+    private static final int CAPACIDADE_PADRAO = 16;
+
+    private final String tema;
+    // Nome de cada item, indexado pelo identificador
+    private String[] nomes;
+    // Soma das notas das avaliações de cada item, indexada pelo identificador
+    private double[] somas;
+    // Média das avaliações de cada item (soma / quantidade, guardada para as
+    // leituras não precisarem dividir), indexada pelo identificador
+    private float[] medias;
+    // Quantidade de avaliações de cada item, indexada pelo identificador
+    private int[] quantidades;
+    // Quantidade de itens
+    private int tamanho;
+    // Tabela de espalhamento (endereçamento aberto) dos nomes para os
+    // identificadores; cada posição guarda o identificador + 1 (0 = vazia)
+    private int[] tabela;
+
+    /**
+     * Constrói o conjunto de avaliações vazio
+     * 
+     * @param tema Tema das avaliações (ex: "Obras Audiovisuais")
+     */
+    public AvaliacoesColunares(String tema) {
+        this(tema, CAPACIDADE_PADRAO);
+    }
+
+    /**
+     * Constrói o conjunto de avaliações vazio, já com espaço para a quantidade de
+     * itens indicada (evita realocar os vetores quando ela é conhecida)
+     * 
+     * @param tema       Tema das avaliações (ex: "Obras Audiovisuais")
+     * @param capacidade Quantidade de itens esperada
+     */
+    public AvaliacoesColunares(String tema, int capacidade) {
+        this.tema = tema;
+        capacidade = Math.max(capacidade, 1);
+        nomes = new String[capacidade];
+        somas = new double[capacidade];
+        medias = new float[capacidade];
+        quantidades = new int[capacidade];
+        tabela = new int[tamanhoTabela(capacidade)];
+    }
+
+    /**
+     * Cria um conjunto colunar com as mesmas avaliações de outro conjunto. Cada
+     * avaliação da coleção de origem conta como uma avaliação com a nota igual à
+     * classificação média dela.
+     * 
+     * @param avaliacoes Conjunto de avaliações de origem
+     * 
+     * @return O conjunto colunar
+     */
+    public static AvaliacoesColunares de(Avaliacoes avaliacoes) {
+        Collection<Avaliacao> colecao = avaliacoes.colecaoAvaliacoes();
+        AvaliacoesColunares colunares = new AvaliacoesColunares(avaliacoes.temaAvaliacao(), colecao.size());
+        for (Avaliacao avaliacao : colecao) {
+            colunares.adicionarAvaliacao(avaliacao.nomeItemAvaliado(), avaliacao.classificacaoMedia());
+        }
+        return colunares;
+    }
+
+    @Override
+    public String temaAvaliacao() {
+        return tema;
+    }
+
+    /**
+     * Coleção com a avaliação (média) de cada item, na ordem em que os itens
+     * foram adicionados. A coleção é uma visão das colunas (alterações posteriores
+     * nas avaliações aparecem nela) e não pode ser modificada.
+     */
+    @Override
+    public Collection<Avaliacao> colecaoAvaliacoes() {
+        return new AbstractCollection<Avaliacao>() {
+            @Override
+            public Iterator<Avaliacao> iterator() {
+                return new Iterator<Avaliacao>() {
+                    private int proximo = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return proximo < tamanho;
+                    }
+
+                    @Override
+                    public Avaliacao next() {
+                        if (proximo >= tamanho) {
+                            throw new NoSuchElementException();
+                        }
+                        return new VisaoAvaliacao(proximo++);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return tamanho;
+            }
+        };
+    }
+
+    /**
+     * Retorna o identificador do item, criando-o se o item ainda não existir
+     * 
+     * @param nome Nome do item
+     * 
+     * @return O identificador (entre 0 e quantidadeItens() - 1)
+     */
+    public int idItem(String nome) {
+        int posicao = posicaoNaTabela(nome);
+        if (tabela[posicao] != 0) {
+            return tabela[posicao] - 1;
+        }
+
+        if (tamanho == nomes.length) {
+            int novaCapacidade = Math.max(nomes.length * 2, CAPACIDADE_PADRAO);
+            nomes = Arrays.copyOf(nomes, novaCapacidade);
+            somas = Arrays.copyOf(somas, novaCapacidade);
+            medias = Arrays.copyOf(medias, novaCapacidade);
+            quantidades = Arrays.copyOf(quantidades, novaCapacidade);
+        }
+        int id = tamanho++;
+        nomes[id] = nome;
+
+        if (tamanho * 2 > tabela.length) {
+            reconstruirTabela(tamanhoTabela(tamanho * 2));
+        } else {
+            tabela[posicao] = id + 1;
+        }
+        return id;
+    }
+
+    /**
+     * Retorna o identificador do item (sem criá-lo)
+     * 
+     * @param nome Nome do item
+     * 
+     * @return O identificador (ou -1 se o item não existir)
+     */
+    public int buscarId(String nome) {
+        return tabela[posicaoNaTabela(nome)] - 1;
+    }
+
+    /**
+     * Nome do item com o identificador passado
+     * 
+     * @param id Identificador do item
+     * 
+     * @return O nome do item
+     */
+    public String nomeItem(int id) {
+        verificarId(id);
+        return nomes[id];
+    }
+
+    /**
+     * Quantidade de itens avaliados
+     * 
+     * @return A quantidade
+     */
+    public int quantidadeItens() {
+        return tamanho;
+    }
+
+    /**
+     * Adiciona uma avaliação (nota) de um item, atualizando sua média
+     * 
+     * @param nome Nome do item (é criado se ainda não existir)
+     * @param nota Nota da avaliação
+     * 
+     * @return O identificador do item
+     */
+    public int adicionarAvaliacao(String nome, double nota) {
+        int id = idItem(nome);
+        adicionarAvaliacao(id, nota);
+        return id;
+    }
+
+    /**
+     * Adiciona uma avaliação (nota) de um item, atualizando sua média
+     * 
+     * @param id   Identificador do item
+     * @param nota Nota da avaliação
+     */
+    public void adicionarAvaliacao(int id, double nota) {
+        verificarId(id);
+        somas[id] += nota;
+        quantidades[id]++;
+        medias[id] = (float) (somas[id] / quantidades[id]);
+    }
+
+    /**
+     * Define diretamente a média e a quantidade de avaliações de um item (ex: ao
+     * carregar dados já agregados)
+     * 
+     * @param nome       Nome do item (é criado se ainda não existir)
+     * @param media      Média das avaliações
+     * @param quantidade Quantidade de avaliações
+     * 
+     * @return O identificador do item
+     */
+    public int definirAvaliacoes(String nome, double media, int quantidade) {
+        int id = idItem(nome);
+        somas[id] = media * quantidade;
+        medias[id] = (float) media;
+        quantidades[id] = quantidade;
+        return id;
+    }
+
+    /**
+     * Classificação média do item com o identificador passado
+     * 
+     * @param id Identificador do item
+     * 
+     * @return A média (0 se o item não tem avaliações)
+     */
+    public double classificacaoMedia(int id) {
+        verificarId(id);
+        return medias[id];
+    }
+
+    /**
+     * Quantidade de avaliações do item com o identificador passado
+     * 
+     * @param id Identificador do item
+     * 
+     * @return A quantidade
+     */
+    public int quantidadeAvaliacoes(int id) {
+        verificarId(id);
+        return quantidades[id];
+    }
+
+    /**
+     * Soma das notas das avaliações do item com o identificador passado
+     * 
+     * @param id Identificador do item
+     * 
+     * @return A soma
+     */
+    public double somaAvaliacoes(int id) {
+        verificarId(id);
+        return somas[id];
+    }
+
+    /**
+     * Copia as médias de todos os itens para o vetor passado (indexado pelo
+     * identificador do item)
+     * 
+     * @param destino Vetor de destino (se for null ou menor que a quantidade de
+     *                itens, um novo vetor é criado)
+     * 
+     * @return O vetor com as médias
+     */
+    public float[] copiarMedias(float[] destino) {
+        if (destino == null || destino.length < tamanho) {
+            destino = new float[tamanho];
+        }
+        System.arraycopy(medias, 0, destino, 0, tamanho);
+        return destino;
+    }
+
+    /**
+     * Copia as quantidades de avaliações de todos os itens para o vetor passado
+     * (indexado pelo identificador do item)
+     * 
+     * @param destino Vetor de destino (se for null ou menor que a quantidade de
+     *                itens, um novo vetor é criado)
+     * 
+     * @return O vetor com as quantidades
+     */
+    public int[] copiarQuantidades(int[] destino) {
+        if (destino == null || destino.length < tamanho) {
+            destino = new int[tamanho];
+        }
+        System.arraycopy(quantidades, 0, destino, 0, tamanho);
+        return destino;
+    }
+
+    /**
+     * Interface funcional para percorrer os itens sem criar objetos
+     */
+    public interface ConsumidorItem {
+        void aceitar(int id, float media, int quantidade);
+    }
+
+    /**
+     * Chama o consumidor passado para cada item (na ordem dos identificadores)
+     * 
+     * @param consumidor Consumidor chamado para cada item
+     */
+    public void paraCadaItem(ConsumidorItem consumidor) {
+        for (int id = 0; id < tamanho; id++) {
+            consumidor.aceitar(id, medias[id], quantidades[id]);
+        }
+    }
+
+    /**
+     * Média de todas as avaliações de todos os itens (ponderada pela quantidade
+     * de avaliações de cada item)
+     * 
+     * @return A média geral (0 se não há avaliações)
+     */
+    public double mediaGeral() {
+        double soma = 0;
+        long quantidade = 0;
+        for (int id = 0; id < tamanho; id++) {
+            soma += somas[id];
+            quantidade += quantidades[id];
+        }
+        return (quantidade == 0) ? 0 : soma / quantidade;
+    }
+
+    /**
+     * Retorna a avaliação do item com o identificador passado (uma visão das
+     * colunas, que reflete alterações posteriores)
+     * 
+     * @param id Identificador do item
+     * 
+     * @return A avaliação
+     */
+    public Avaliacao avaliacao(int id) {
+        verificarId(id);
+        return new VisaoAvaliacao(id);
+    }
+
+    private void verificarId(int id) {
+        if (id < 0 || id >= tamanho) {
+            throw new IndexOutOfBoundsException("Identificador de item inválido: " + id);
+        }
+    }
+
+    /**
+     * Retorna a posição da tabela onde está (ou deveria estar) o nome passado
+     */
+    private int posicaoNaTabela(String nome) {
+        int mascara = tabela.length - 1;
+        int posicao = espalhar(nome.hashCode()) & mascara;
+        while (tabela[posicao] != 0 && !nomes[tabela[posicao] - 1].equals(nome)) {
+            posicao = (posicao + 1) & mascara;
+        }
+        return posicao;
+    }
+
+    /**
+     * Reconstrói a tabela de espalhamento com o tamanho passado
+     */
+    private void reconstruirTabela(int novoTamanho) {
+        tabela = new int[novoTamanho];
+        int mascara = novoTamanho - 1;
+        for (int id = 0; id < tamanho; id++) {
+            int posicao = espalhar(nomes[id].hashCode()) & mascara;
+            while (tabela[posicao] != 0) {
+                posicao = (posicao + 1) & mascara;
+            }
+            tabela[posicao] = id + 1;
+        }
+    }
+
+    /**
+     * Tamanho da tabela (potência de 2) que mantém a ocupação abaixo de 50%
+     */
+    private static int tamanhoTabela(int itens) {
+        return Integer.highestOneBit(Math.max(itens, 4) * 2 - 1) * 2;
+    }
+
+    /**
+     * Mistura os bits do código de espalhamento (os códigos das strings costumam
+     * variar pouco nos bits mais baixos)
+     */
+    private static int espalhar(int codigo) {
+        codigo *= 0x9E3779B9;
+        return codigo ^ (codigo >>> 16);
+    }
+
+    /**
+     * Avaliação que é uma visão de um item das colunas (guarda só o identificador)
+     */
+    private class VisaoAvaliacao implements Avaliacao {
+        private final int id;
+
+        public VisaoAvaliacao(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public String nomeItemAvaliado() {
+            return nomes[id];
+        }
+
+        @Override
+        public double classificacaoMedia() {
+            return medias[id];
+        }
+
+        @Override
+        public String toString() {
+            return nomes[id] + ": " + medias[id];
+        }
+    }
+}
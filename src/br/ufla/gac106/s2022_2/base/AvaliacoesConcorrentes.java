@@ -0,0 +1,265 @@
+package br.ufla.gac106.s2022_2.base;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Implementação de Avaliacoes que recebe as avaliações (notas) individuais dos
+ * itens, possivelmente de várias threads ao mesmo tempo, e mantém a média de
+ * cada item sempre atualizada, sem nunca precisar recalculá-la.
+ * 
+ * A soma e a quantidade de avaliações de cada item ficam em um único acumulador
+ * sem travas (LongAdder), de forma que threads que avaliam o mesmo item não
+ * disputam uma trava, e quem lê a média sempre vê uma soma e uma quantidade
+ * coerentes entre si. colecaoAvaliacoes retorna uma fotografia imutável das
+ * médias.
+ * 
+ * As notas são guardadas com precisão de milésimos e devem estar entre -1000 e
+ * 1000.
+ */
+public class AvaliacoesConcorrentes implements Avaliacoes {
+    // Maior nota (em valor absoluto) aceita
+    private static final double NOTA_MAXIMA = 1000;
+
+    private final String tema;
+    // Acumuladores dos itens, indexados pelo nome
+    private final ConcurrentHashMap<String, Acumulador> itens = new ConcurrentHashMap<>();
+    // Ordem em que os itens foram avaliados pela primeira vez
+    private final AtomicInteger proximaOrdem = new AtomicInteger();
+
+    /**
+     * Constrói o conjunto de avaliações vazio
+     * 
+     * @param tema Tema das avaliações (ex: "Obras Audiovisuais")
+     */
+    public AvaliacoesConcorrentes(String tema) {
+        this.tema = tema;
+    }
+
+    @Override
+    public String temaAvaliacao() {
+        return tema;
+    }
+
+    /**
+     * Registra uma avaliação (nota) de um item, atualizando sua média. Pode ser
+     * chamado por várias threads ao mesmo tempo.
+     * 
+     * @param nome Nome do item avaliado
+     * @param nota Nota da avaliação (entre -1000 e 1000)
+     */
+    public void registrarAvaliacao(String nome, double nota) {
+        if (!(Math.abs(nota) <= NOTA_MAXIMA)) {
+            throw new IllegalArgumentException("Nota inválida: " + nota);
+        }
+        Acumulador acumulador = itens.get(nome);
+        if (acumulador == null) {
+            acumulador = itens.computeIfAbsent(nome, n -> new Acumulador(n, proximaOrdem.getAndIncrement()));
+        }
+        acumulador.registrar(Math.round(nota * 1000));
+    }
+
+    /**
+     * Classificação média atual do item
+     * 
+     * @param nome Nome do item
+     * 
+     * @return A média (0 se o item não tem avaliações)
+     */
+    public double classificacaoMedia(String nome) {
+        Acumulador acumulador = itens.get(nome);
+        return (acumulador == null) ? 0 : acumulador.fotografar().classificacaoMedia();
+    }
+
+    /**
+     * Quantidade atual de avaliações do item
+     * 
+     * @param nome Nome do item
+     * 
+     * @return A quantidade
+     */
+    public long quantidadeAvaliacoes(String nome) {
+        Acumulador acumulador = itens.get(nome);
+        return (acumulador == null) ? 0 : acumulador.fotografar().quantidadeAvaliacoes();
+    }
+
+    /**
+     * Quantidade de itens avaliados
+     * 
+     * @return A quantidade
+     */
+    public int quantidadeItens() {
+        return itens.size();
+    }
+
+    /**
+     * Fotografia imutável das médias dos itens, na ordem em que os itens foram
+     * avaliados pela primeira vez. A média e a quantidade de cada item são
+     * coerentes entre si; avaliações registradas enquanto a fotografia é tirada
+     * podem ou não aparecer nela.
+     */
+    @Override
+    public Collection<Avaliacao> colecaoAvaliacoes() {
+        return Collections.unmodifiableList(fotografar());
+    }
+
+    /**
+     * Cria um conjunto colunar (AvaliacoesColunares) com uma fotografia das
+     * médias e quantidades atuais dos itens
+     * 
+     * @return O conjunto colunar
+     */
+    public AvaliacoesColunares fotografiaColunar() {
+        List<AvaliacaoItem> fotografia = fotografar();
+        AvaliacoesColunares colunares = new AvaliacoesColunares(tema, fotografia.size());
+        for (AvaliacaoItem avaliacao : fotografia) {
+            colunares.definirAvaliacoes(avaliacao.nomeItemAvaliado(), avaliacao.classificacaoMedia(),
+                    (int) Math.min(Integer.MAX_VALUE, avaliacao.quantidadeAvaliacoes()));
+        }
+        return colunares;
+    }
+
+    private List<AvaliacaoItem> fotografar() {
+        List<Acumulador> acumuladores = new ArrayList<>(itens.values());
+        acumuladores.sort(Comparator.comparingInt(acumulador -> acumulador.ordem));
+
+        List<AvaliacaoItem> fotografia = new ArrayList<>(acumuladores.size());
+        for (Acumulador acumulador : acumuladores) {
+            fotografia.add(acumulador.fotografar());
+        }
+        return fotografia;
+    }
+
+    /**
+     * Avaliação de um item em um determinado momento (imutável)
+     */
+    public static final class AvaliacaoItem implements Avaliacao {
+        private final String nome;
+        private final double media;
+        private final long quantidade;
+
+        private AvaliacaoItem(String nome, double media, long quantidade) {
+            this.nome = nome;
+            this.media = media;
+            this.quantidade = quantidade;
+        }
+
+        @Override
+        public String nomeItemAvaliado() {
+            return nome;
+        }
+
+        @Override
+        public double classificacaoMedia() {
+            return media;
+        }
+
+        /**
+         * Quantidade de avaliações do item
+         */
+        public long quantidadeAvaliacoes() {
+            return quantidade;
+        }
+
+        @Override
+        public String toString() {
+            return nome + ": " + media + " (" + quantidade + " avaliações)";
+        }
+    }
+
+    /**
+     * Acumulador da soma e da quantidade de avaliações de um item.
+     * 
+     * Cada avaliação soma ao LongAdder o valor (nota em milésimos * 2^24 + 1): os
+     * 24 bits mais baixos do total guardam a quantidade de avaliações e os demais
+     * guardam a soma das notas. Como cada avaliação é uma única soma, o total
+     * lido sempre tem uma soma e uma quantidade coerentes. Para que a quantidade
+     * não transborde os 24 bits, de tempos em tempos o total é transferido para
+     * os campos base (sob uma trava que só os leitores respeitam).
+     */
+    private static class Acumulador {
+        private static final int BITS_QUANTIDADE = 24;
+        private static final long MASCARA_QUANTIDADE = (1L << BITS_QUANTIDADE) - 1;
+        // Quantidade no LongAdder a partir da qual o total é transferido para a base
+        private static final long LIMITE_TRANSFERENCIA = 1L << 18;
+        // Em média, uma a cada tantas avaliações verifica se é hora de transferir
+        private static final int INTERVALO_VERIFICACAO = 1 << 12;
+
+        private final String nome;
+        private final int ordem;
+        private final LongAdder empacotado = new LongAdder();
+        private final StampedLock trava = new StampedLock();
+        private long somaBase;
+        private long quantidadeBase;
+
+        public Acumulador(String nome, int ordem) {
+            this.nome = nome;
+            this.ordem = ordem;
+        }
+
+        /**
+         * Registra uma nota (em milésimos)
+         */
+        public void registrar(long notaMilesimos) {
+            empacotado.add((notaMilesimos << BITS_QUANTIDADE) + 1);
+
+            if (ThreadLocalRandom.current().nextInt(INTERVALO_VERIFICACAO) == 0
+                    && (empacotado.sum() & MASCARA_QUANTIDADE) >= LIMITE_TRANSFERENCIA) {
+                transferir();
+            }
+        }
+
+        /**
+         * Transfere o total do LongAdder para os campos base
+         */
+        private void transferir() {
+            long carimbo = trava.tryWriteLock();
+            if (carimbo == 0) {
+                return; // outra thread já está transferindo
+            }
+            try {
+                long total = empacotado.sumThenReset();
+                long quantidade = total & MASCARA_QUANTIDADE;
+                somaBase += (total - quantidade) >> BITS_QUANTIDADE;
+                quantidadeBase += quantidade;
+            }
+            finally {
+                trava.unlockWrite(carimbo);
+            }
+        }
+
+        /**
+         * Retorna a avaliação atual do item
+         */
+        public AvaliacaoItem fotografar() {
+            long carimbo = trava.tryOptimisticRead();
+            long soma = somaBase;
+            long quantidade = quantidadeBase;
+            long total = empacotado.sum();
+            if (!trava.validate(carimbo)) {
+                carimbo = trava.readLock();
+                try {
+                    soma = somaBase;
+                    quantidade = quantidadeBase;
+                    total = empacotado.sum();
+                }
+                finally {
+                    trava.unlockRead(carimbo);
+                }
+            }
+
+            long quantidadeRecente = total & MASCARA_QUANTIDADE;
+            soma += (total - quantidadeRecente) >> BITS_QUANTIDADE;
+            quantidade += quantidadeRecente;
+            return new AvaliacaoItem(nome, (quantidade == 0) ? 0 : soma / 1000.0 / quantidade, quantidade);
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package br.ufla.gac106.s2022_2.base.estatisticas;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Contador aproximado da quantidade de valores distintos de um fluxo (ex: a
+ * quantidade de usuários distintos que avaliaram um item), usando memória
+ * limitada, qualquer que seja a quantidade de valores.
+ *
+ * O contador é um HyperLogLog: cada valor é espalhado em 64 bits; os p bits
+ * mais altos escolhem um de 2^p registradores, e o registrador guarda a maior
+ * posição do primeiro bit 1 entre os bits restantes. A estimativa é a média
+ * harmônica dos registradores corrigida (com contagem linear quando há poucos
+ * valores), com erro relativo de aproximadamente 1,04 / raiz(2^p): cerca de
+ * 1,6% para a precisão padrão (12, com 4 KB de registradores).
+ *
+ * Enquanto houver poucos valores distintos, o contador guarda os próprios
+ * espalhamentos (modo esparso), o que dá contagens exatas e usa pouca memória;
+ * ao passar de 2^p / 16 valores, ele passa a usar os registradores. Assim, é
+ * barato manter um contador para cada item, mesmo que a maioria dos itens
+ * tenha poucas avaliações.
+ *
+ * Contadores com a mesma precisão podem ser combinados (combinar), resultando
+ * na contagem da união dos valores. Esta classe não é segura para uso por
+ * várias threads ao mesmo tempo.
+ */
+public class ContadorDistintos {
+    /** Precisão padrão (2^12 registradores) */
+    public static final int PRECISAO_PADRAO = 12;
+    // Menor e maior precisões aceitas
+    private static final int PRECISAO_MINIMA = 4;
+    private static final int PRECISAO_MAXIMA = 18;
+    // Identificador do formato de paraBytes
+    private static final int IDENTIFICADOR_FORMATO = 0x484C4C01;
+
+    private final int precisao;
+    // Registradores (null enquanto o contador está no modo esparso)
+    private byte[] registradores;
+    // Tabela de espalhamento (endereçamento aberto) com os espalhamentos dos
+    // valores distintos no modo esparso (0 = posição vazia)
+    private long[] esparsos;
+    // Quantidade de espalhamentos na tabela esparsa
+    private int quantidadeEsparsos;
+
+    /**
+     * Constrói o contador vazio, com a precisão padrão
+     */
+    public ContadorDistintos() {
+        this(PRECISAO_PADRAO);
+    }
+
+    /**
+     * Constrói o contador vazio
+     *
+     * @param precisao Logaritmo da quantidade de registradores, entre 4 e 18
+     *                 (quanto maior, menor o erro e maior a memória usada)
+     */
+    public ContadorDistintos(int precisao) {
+        if (precisao < PRECISAO_MINIMA || precisao > PRECISAO_MAXIMA) {
+            throw new IllegalArgumentException("Precisão inválida: " + precisao);
+        }
+        this.precisao = precisao;
+        esparsos = new long[8];
+    }
+
+    /**
+     * Logaritmo da quantidade de registradores
+     *
+     * @return A precisão
+     */
+    public int getPrecisao() {
+        return precisao;
+    }
+
+    /**
+     * Registra um valor (texto)
+     *
+     * @param valor O valor (ex: o nome do usuário)
+     */
+    public void registrar(String valor) {
+        // FNV-1a de 64 bits sobre os caracteres, seguido da mistura final
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < valor.length(); i++) {
+            h = (h ^ valor.charAt(i)) * 0x100000001B3L;
+        }
+        registrarEspalhamento(misturar(h));
+    }
+
+    /**
+     * Registra um valor (número)
+     *
+     * @param valor O valor (ex: o identificador do usuário)
+     */
+    public void registrar(long valor) {
+        registrarEspalhamento(misturar(valor ^ 0x9E3779B97F4A7C15L));
+    }
+
+    /**
+     * Acrescenta ao contador os valores de outro contador (o outro contador não
+     * é alterado)
+     *
+     * @param outro Contador com a mesma precisão
+     */
+    public void combinar(ContadorDistintos outro) {
+        if (outro.precisao != precisao) {
+            throw new IllegalArgumentException("Contadores com precisões diferentes: " + precisao + " e "
+                    + outro.precisao);
+        }
+        if (outro.registradores != null) {
+            if (registradores == null) {
+                converterParaRegistradores();
+            }
+            for (int i = 0; i < registradores.length; i++) {
+                registradores[i] = (byte) Math.max(registradores[i], outro.registradores[i]);
+            }
+        }
+        else {
+            long[] espalhamentos = outro.esparsos.clone();
+            for (long espalhamento : espalhamentos) {
+                if (espalhamento != 0) {
+                    registrarEspalhamento(espalhamento);
+                }
+            }
+        }
+    }
+
+    /**
+     * Cria uma cópia independente do contador
+     *
+     * @return A cópia
+     */
+    public ContadorDistintos copiar() {
+        ContadorDistintos copia = new ContadorDistintos(precisao);
+        copia.registradores = (registradores == null) ? null : registradores.clone();
+        copia.esparsos = (esparsos == null) ? null : esparsos.clone();
+        copia.quantidadeEsparsos = quantidadeEsparsos;
+        return copia;
+    }
+
+    /**
+     * Estimativa da quantidade de valores distintos registrados (exata enquanto
+     * há poucos valores)
+     *
+     * @return A estimativa
+     */
+    public long estimativa() {
+        if (registradores == null) {
+            return quantidadeEsparsos;
+        }
+
+        int m = registradores.length;
+        double soma = 0;
+        int zeros = 0;
+        for (byte registrador : registradores) {
+            soma += Double.longBitsToDouble((1023L - registrador) << 52); // 2^-registrador
+            if (registrador == 0) {
+                zeros++;
+            }
+        }
+        double estimativa = alfa(m) * m * m / soma;
+        // Para estimativas baixas, a contagem linear é mais precisa
+        if (estimativa <= 2.5 * m && zeros > 0) {
+            estimativa = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimativa);
+    }
+
+    /**
+     * Serializa o contador (por exemplo, para combiná-lo com os contadores de
+     * outras máquinas)
+     *
+     * @return Os bytes do contador
+     */
+    public byte[] paraBytes() {
+        ByteBuffer buffer;
+        if (registradores == null) {
+            buffer = ByteBuffer.allocate(4 + 4 + 4 + 8 * quantidadeEsparsos).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(IDENTIFICADOR_FORMATO).putInt(precisao).putInt(quantidadeEsparsos);
+            for (long espalhamento : esparsos) {
+                if (espalhamento != 0) {
+                    buffer.putLong(espalhamento);
+                }
+            }
+        }
+        else {
+            buffer = ByteBuffer.allocate(4 + 4 + 4 + registradores.length).order(ByteOrder.LITTLE_ENDIAN);
+            // Quantidade -1 indica que o contador usa os registradores
+            buffer.putInt(IDENTIFICADOR_FORMATO).putInt(precisao).putInt(-1).put(registradores);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Reconstrói um contador serializado por paraBytes
+     *
+     * @param bytes Os bytes do contador
+     *
+     * @return O contador
+     */
+    public static ContadorDistintos deBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            if (buffer.getInt() != IDENTIFICADOR_FORMATO) {
+                throw new IllegalArgumentException("Os bytes não são de um contador de distintos");
+            }
+            ContadorDistintos contador = new ContadorDistintos(buffer.getInt());
+            int quantidade = buffer.getInt();
+            if (quantidade < 0) {
+                contador.converterParaRegistradores();
+                buffer.get(contador.registradores);
+            }
+            else {
+                if (quantidade > buffer.remaining() / 8) {
+                    throw new IllegalArgumentException("Quantidade de valores inválida: " + quantidade);
+                }
+                for (int i = 0; i < quantidade; i++) {
+                    contador.registrarEspalhamento(buffer.getLong());
+                }
+            }
+            return contador;
+        }
+        catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Contador de distintos incompleto", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ContadorDistintos (" + estimativa() + " distintos)";
+    }
+
+    /**
+     * Registra o espalhamento (64 bits) de um valor
+     */
+    private void registrarEspalhamento(long espalhamento) {
+        if (registradores != null) {
+            atualizarRegistrador(espalhamento);
+            return;
+        }
+
+        // 0 marca as posições vazias da tabela esparsa
+        if (espalhamento == 0) {
+            espalhamento = 1;
+        }
+        int mascara = esparsos.length - 1;
+        int posicao = (int) (espalhamento ^ (espalhamento >>> 32)) & mascara;
+        while (esparsos[posicao] != 0) {
+            if (esparsos[posicao] == espalhamento) {
+                return;
+            }
+            posicao = (posicao + 1) & mascara;
+        }
+        esparsos[posicao] = espalhamento;
+        quantidadeEsparsos++;
+
+        if (quantidadeEsparsos > (1 << precisao) / 16) {
+            converterParaRegistradores();
+        }
+        else if (quantidadeEsparsos * 2 > esparsos.length) {
+            long[] antigos = esparsos;
+            esparsos = new long[antigos.length * 2];
+            quantidadeEsparsos = 0;
+            for (long antigo : antigos) {
+                if (antigo != 0) {
+                    registrarEspalhamento(antigo);
+                }
+            }
+        }
+    }
+
+    /**
+     * Passa do modo esparso para os registradores
+     */
+    private void converterParaRegistradores() {
+        long[] antigos = esparsos;
+        registradores = new byte[1 << precisao];
+        esparsos = null;
+        quantidadeEsparsos = 0;
+        for (long espalhamento : antigos) {
+            if (espalhamento != 0) {
+                atualizarRegistrador(espalhamento);
+            }
+        }
+    }
+
+    /**
+     * Atualiza o registrador escolhido pelo espalhamento
+     */
+    private void atualizarRegistrador(long espalhamento) {
+        int indice = (int) (espalhamento >>> (64 - precisao));
+        // Posição do primeiro bit 1 nos bits restantes (o bit extra limita a posição)
+        long restantes = (espalhamento << precisao) | (1L << (precisao - 1));
+        byte posicao = (byte) (Long.numberOfLeadingZeros(restantes) + 1);
+        if (posicao > registradores[indice]) {
+            registradores[indice] = posicao;
+        }
+    }
+
+    /**
+     * Constante de correção do HyperLogLog para m registradores
+     */
+    private static double alfa(int m) {
+        switch (m) {
+        case 16:
+            return 0.673;
+        case 32:
+            return 0.697;
+        case 64:
+            return 0.709;
+        default:
+            return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+
+    /**
+     * Mistura final do MurmurHash3 (espalha bem os bits de valores parecidos)
+     */
+    private static long misturar(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB3FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,369 @@
+package br.ufla.gac106.s2022_2.base.estatisticas;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import br.ufla.gac106.s2022_2.base.Avaliacao;
+import br.ufla.gac106.s2022_2.base.Avaliacoes;
+import br.ufla.gac106.s2022_2.base.AvaliacoesColunares;
+
+/**
+ * Implementação de Avaliacoes que, além da média, mantém estatísticas
+ * aproximadas das avaliações individuais de cada item e do tema como um todo:
+ * a distribuição das notas (quantis, percentis e histogramas, com um
+ * ResumoQuantis) e a quantidade de usuários distintos que avaliaram (com um
+ * ContadorDistintos). A média e a quantidade de avaliações são exatas.
+ *
+ * A memória usada por item é limitada, qualquer que seja a quantidade de
+ * avaliações, e pequena para os itens com poucas avaliações. Assim, as
+ * estatísticas podem ser calculadas sobre fluxos de avaliações que não caberiam
+ * na memória.
+ *
+ * Esta classe não é segura para uso por várias threads ao mesmo tempo. Para
+ * processar as avaliações em paralelo (ou em várias máquinas), cada thread
+ * mantém suas próprias estatísticas (com os mesmos parâmetros), e elas são
+ * combinadas no final com combinar ou combinarTodas; o resultado tem o mesmo
+ * erro de estatísticas que tivessem recebido todas as avaliações.
+ *
+ * Para gráficos e rankings baseados em outra estatística que não a média (ex:
+ * a mediana, menos sensível a avaliações extremas), use porQuantil.
+ */
+public class EstatisticasAvaliacoes implements Avaliacoes {
+    private final String tema;
+    private final int k;
+    private final int precisao;
+    // Estatísticas de cada item, na ordem em que os itens foram avaliados pela
+    // primeira vez
+    private final Map<String, EstatisticasItem> itens = new LinkedHashMap<>();
+    // Estatísticas de todas as avaliações do tema
+    private final EstatisticasItem geral;
+
+    /**
+     * Constrói as estatísticas vazias, com os parâmetros padrão
+     *
+     * @param tema Tema das avaliações (ex: "Obras Audiovisuais")
+     */
+    public EstatisticasAvaliacoes(String tema) {
+        this(tema, ResumoQuantis.K_PADRAO, ContadorDistintos.PRECISAO_PADRAO);
+    }
+
+    /**
+     * Constrói as estatísticas vazias
+     *
+     * @param tema     Tema das avaliações (ex: "Obras Audiovisuais")
+     * @param k        Parâmetro k dos resumos de quantis (veja ResumoQuantis)
+     * @param precisao Precisão dos contadores de usuários distintos (veja
+     *                 ContadorDistintos)
+     */
+    public EstatisticasAvaliacoes(String tema, int k, int precisao) {
+        this.tema = tema;
+        this.k = k;
+        this.precisao = precisao;
+        geral = new EstatisticasItem(tema, k, precisao);
+    }
+
+    /**
+     * Combina as estatísticas de várias partes (ex: uma por thread) em novas
+     * estatísticas (as partes não são alteradas)
+     *
+     * @param partes Estatísticas do mesmo tema, com os mesmos parâmetros
+     *
+     * @return As estatísticas combinadas
+     */
+    public static EstatisticasAvaliacoes combinarTodas(Collection<EstatisticasAvaliacoes> partes) {
+        Iterator<EstatisticasAvaliacoes> iterador = partes.iterator();
+        if (!iterador.hasNext()) {
+            throw new IllegalArgumentException("Não há estatísticas para combinar");
+        }
+        EstatisticasAvaliacoes primeira = iterador.next();
+        EstatisticasAvaliacoes combinadas = new EstatisticasAvaliacoes(primeira.tema, primeira.k, primeira.precisao);
+        combinadas.combinar(primeira);
+        while (iterador.hasNext()) {
+            combinadas.combinar(iterador.next());
+        }
+        return combinadas;
+    }
+
+    @Override
+    public String temaAvaliacao() {
+        return tema;
+    }
+
+    /**
+     * Coleção com as estatísticas de cada item (que são também a avaliação
+     * média do item), na ordem em que os itens foram avaliados pela primeira
+     * vez. A coleção é uma visão (avaliações posteriores aparecem nela) e não
+     * pode ser modificada.
+     */
+    @Override
+    public Collection<Avaliacao> colecaoAvaliacoes() {
+        return Collections.unmodifiableCollection(itens.values());
+    }
+
+    /**
+     * Registra uma avaliação (nota) de um item feita por um usuário
+     *
+     * @param item    Nome do item avaliado
+     * @param usuario Identificação do usuário que avaliou (ex: o nome)
+     * @param nota    Nota da avaliação
+     */
+    public void registrarAvaliacao(String item, String usuario, double nota) {
+        EstatisticasItem estatisticas = registrarNota(item, nota);
+        estatisticas.usuarios.registrar(usuario);
+        geral.usuarios.registrar(usuario);
+    }
+
+    /**
+     * Registra uma avaliação (nota) de um item, sem identificação do usuário
+     * (a avaliação não entra na contagem de usuários distintos)
+     *
+     * @param item Nome do item avaliado
+     * @param nota Nota da avaliação
+     */
+    public void registrarAvaliacao(String item, double nota) {
+        registrarNota(item, nota);
+    }
+
+    /**
+     * Acrescenta às estatísticas as avaliações de outras estatísticas (as outras
+     * estatísticas não são alteradas)
+     *
+     * @param outras Estatísticas do mesmo tema, com os mesmos parâmetros
+     */
+    public void combinar(EstatisticasAvaliacoes outras) {
+        if (!tema.equals(outras.tema)) {
+            throw new IllegalArgumentException("Estatísticas de temas diferentes: " + tema + " e " + outras.tema);
+        }
+        if (outras.k != k || outras.precisao != precisao) {
+            throw new IllegalArgumentException("Estatísticas com parâmetros diferentes");
+        }
+        if (outras == this) {
+            throw new IllegalArgumentException("As estatísticas não podem ser combinadas com elas mesmas");
+        }
+        for (EstatisticasItem outro : outras.itens.values()) {
+            itens.computeIfAbsent(outro.nome, nome -> new EstatisticasItem(nome, k, precisao)).combinar(outro);
+        }
+        geral.combinar(outras.geral);
+    }
+
+    /**
+     * Estatísticas de um item
+     *
+     * @param nome Nome do item
+     *
+     * @return As estatísticas (ou null se o item não tem avaliações)
+     */
+    public EstatisticasItem estatisticasItem(String nome) {
+        return itens.get(nome);
+    }
+
+    /**
+     * Estatísticas de todas as avaliações do tema (o nome do "item" é o tema)
+     *
+     * @return As estatísticas
+     */
+    public EstatisticasItem estatisticasTema() {
+        return geral;
+    }
+
+    /**
+     * Quantidade de itens avaliados
+     *
+     * @return A quantidade
+     */
+    public int quantidadeItens() {
+        return itens.size();
+    }
+
+    /**
+     * Cria um conjunto colunar em que a classificação de cada item é um quantil
+     * das suas notas em vez da média (ex: 0.5 para classificar pela mediana),
+     * com a quantidade de avaliações de cada item. O conjunto pode ser usado nos
+     * gráficos e rankings como qualquer outro conjunto de avaliações.
+     *
+     * @param fracao Fração do quantil (entre 0 e 1)
+     *
+     * @return O conjunto colunar
+     */
+    public AvaliacoesColunares porQuantil(double fracao) {
+        if (!(fracao >= 0 && fracao <= 1)) {
+            throw new IllegalArgumentException("Fração inválida: " + fracao);
+        }
+        AvaliacoesColunares colunares = new AvaliacoesColunares(tema, itens.size());
+        for (EstatisticasItem estatisticas : itens.values()) {
+            colunares.definirAvaliacoes(estatisticas.nome, estatisticas.quantil(fracao),
+                    (int) Math.min(Integer.MAX_VALUE, estatisticas.quantidade));
+        }
+        return colunares;
+    }
+
+    private EstatisticasItem registrarNota(String item, double nota) {
+        if (Double.isNaN(nota) || Double.isInfinite(nota)) {
+            throw new IllegalArgumentException("Nota inválida: " + nota);
+        }
+        EstatisticasItem estatisticas = itens.get(item);
+        if (estatisticas == null) {
+            estatisticas = new EstatisticasItem(item, k, precisao);
+            itens.put(item, estatisticas);
+        }
+        estatisticas.registrar(nota);
+        geral.registrar(nota);
+        return estatisticas;
+    }
+
+    /**
+     * Estatísticas das avaliações de um item (ou de todo o tema). A
+     * classificação média e a quantidade de avaliações são exatas; as demais
+     * estatísticas são aproximadas.
+     */
+    public static final class EstatisticasItem implements Avaliacao {
+        private final String nome;
+        private double soma;
+        private long quantidade;
+        private final ResumoQuantis notas;
+        private final ContadorDistintos usuarios;
+
+        private EstatisticasItem(String nome, int k, int precisao) {
+            this.nome = nome;
+            notas = new ResumoQuantis(k);
+            usuarios = new ContadorDistintos(precisao);
+        }
+
+        private void registrar(double nota) {
+            soma += nota;
+            quantidade++;
+            notas.registrar(nota);
+        }
+
+        private void combinar(EstatisticasItem outro) {
+            soma += outro.soma;
+            quantidade += outro.quantidade;
+            notas.combinar(outro.notas);
+            usuarios.combinar(outro.usuarios);
+        }
+
+        @Override
+        public String nomeItemAvaliado() {
+            return nome;
+        }
+
+        /**
+         * Classificação média (exata) do item
+         *
+         * @return A média (0 se o item não tem avaliações)
+         */
+        @Override
+        public double classificacaoMedia() {
+            return (quantidade == 0) ? 0 : soma / quantidade;
+        }
+
+        /**
+         * Quantidade (exata) de avaliações
+         *
+         * @return A quantidade
+         */
+        public long quantidadeAvaliacoes() {
+            return quantidade;
+        }
+
+        /**
+         * Menor nota (exata)
+         *
+         * @return A nota (NaN se não há avaliações)
+         */
+        public double notaMinima() {
+            return notas.minimo();
+        }
+
+        /**
+         * Maior nota (exata)
+         *
+         * @return A nota (NaN se não há avaliações)
+         */
+        public double notaMaxima() {
+            return notas.maximo();
+        }
+
+        /**
+         * Quantil aproximado das notas
+         *
+         * @param fracao Fração das notas abaixo do quantil (ex: 0.5 para a
+         *               mediana, 0.9 para o percentil 90)
+         *
+         * @return O quantil (NaN se não há avaliações)
+         */
+        public double quantil(double fracao) {
+            return notas.quantil(fracao);
+        }
+
+        /**
+         * Mediana aproximada das notas
+         *
+         * @return A mediana (NaN se não há avaliações)
+         */
+        public double mediana() {
+            return notas.quantil(0.5);
+        }
+
+        /**
+         * Fração aproximada das notas menores ou iguais à nota passada
+         *
+         * @param nota A nota
+         *
+         * @return A fração, entre 0 e 1 (NaN se não há avaliações)
+         */
+        public double posicao(double nota) {
+            return notas.posicao(nota);
+        }
+
+        /**
+         * Quantidade aproximada de notas em cada faixa (veja
+         * ResumoQuantis.distribuicao)
+         *
+         * @param limites Limites das faixas, em ordem crescente
+         *
+         * @return As quantidades (limites.length + 1 faixas)
+         */
+        public long[] distribuicao(double... limites) {
+            return notas.distribuicao(limites);
+        }
+
+        /**
+         * Quantidade aproximada de usuários distintos que avaliaram (exata
+         * enquanto são poucos)
+         *
+         * @return A quantidade
+         */
+        public long usuariosDistintos() {
+            return usuarios.estimativa();
+        }
+
+        /**
+         * Cópia do resumo das notas (ex: para serializá-lo com paraBytes)
+         *
+         * @return A cópia
+         */
+        public ResumoQuantis resumoNotas() {
+            return notas.copiar();
+        }
+
+        /**
+         * Cópia do contador de usuários distintos (ex: para serializá-lo com
+         * paraBytes)
+         *
+         * @return A cópia
+         */
+        public ContadorDistintos contadorUsuarios() {
+            return usuarios.copiar();
+        }
+
+        @Override
+        public String toString() {
+            return nome + ": " + classificacaoMedia() + " (" + quantidade + " avaliações, mediana " + mediana()
+                    + ", " + usuariosDistintos() + " usuários)";
+        }
+    }
+}
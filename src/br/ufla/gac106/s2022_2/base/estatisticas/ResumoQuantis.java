@@ -0,0 +1,526 @@
+package br.ufla.gac106.s2022_2.base.estatisticas;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Resumo aproximado da distribuição de um fluxo de valores (ex: as notas de um
+ * item), que responde quantis (mediana, percentis), posições e histogramas
+ * usando memória limitada, qualquer que seja a quantidade de valores.
+ *
+ * O resumo é um KLL (Karnin, Lang e Liberty): os valores ficam em níveis, e um
+ * valor do nível h representa 2^h valores do fluxo. Quando um nível enche, ele
+ * é ordenado e metade dos seus valores (os de posição par ou ímpar, escolhidos
+ * ao acaso) sobe para o nível seguinte. Os níveis mais altos têm capacidade k e
+ * os mais baixos, capacidades cada vez menores (fator 2/3), de forma que o
+ * resumo guarda no máximo cerca de 3k valores. O erro na posição de um quantil
+ * é de aproximadamente 1,7 / k da quantidade de valores (cerca de 1% para o k
+ * padrão, 200), e o mínimo e o máximo são exatos.
+ *
+ * Resumos com o mesmo k podem ser combinados (combinar), com o mesmo erro de um
+ * resumo que tivesse recebido todos os valores. Assim, cada thread (ou cada
+ * máquina) pode manter o seu resumo, e os resumos são combinados no final; para
+ * enviar um resumo a outra máquina, use paraBytes e deBytes.
+ *
+ * Esta classe não é segura para uso por várias threads ao mesmo tempo.
+ */
+public class ResumoQuantis {
+    /** Valor padrão de k */
+    public static final int K_PADRAO = 200;
+    // Menor k aceito
+    private static final int K_MINIMO = 8;
+    // Menor capacidade de um nível
+    private static final int CAPACIDADE_MINIMA = 8;
+    // Fator entre as capacidades de níveis consecutivos
+    private static final double FATOR_CAPACIDADE = 2.0 / 3.0;
+    // Identificador do formato de paraBytes
+    private static final int IDENTIFICADOR_FORMATO = 0x4B4C4C01;
+
+    private final int k;
+    // Valores de cada nível (o peso de um valor do nível h é 2^h)
+    private double[][] niveis;
+    // Quantidade de valores em cada nível
+    private int[] tamanhos;
+    // Quantidade de níveis em uso
+    private int quantidadeNiveis;
+    // Capacidade de cada nível (muda quando um nível é criado)
+    private int[] capacidades;
+    // Quantidade de valores recebidos
+    private long quantidade;
+    private double minimo = Double.NaN;
+    private double maximo = Double.NaN;
+    // Valores ordenados com os pesos acumulados (null se precisa ser refeita)
+    private VisaoOrdenada visao;
+
+    /**
+     * Constrói o resumo vazio, com o k padrão
+     */
+    public ResumoQuantis() {
+        this(K_PADRAO);
+    }
+
+    /**
+     * Constrói o resumo vazio
+     *
+     * @param k Capacidade dos níveis mais altos (quanto maior, menor o erro e
+     *          maior a memória usada)
+     */
+    public ResumoQuantis(int k) {
+        if (k < K_MINIMO || k > 0xFFFF) {
+            throw new IllegalArgumentException("k inválido: " + k);
+        }
+        this.k = k;
+        niveis = new double[][] { new double[CAPACIDADE_MINIMA] };
+        tamanhos = new int[1];
+        quantidadeNiveis = 1;
+        calcularCapacidades();
+    }
+
+    /**
+     * Capacidade dos níveis mais altos
+     *
+     * @return O valor de k
+     */
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * Registra um valor
+     *
+     * @param valor O valor (não pode ser NaN)
+     */
+    public void registrar(double valor) {
+        if (Double.isNaN(valor)) {
+            throw new IllegalArgumentException("Valor inválido: " + valor);
+        }
+        if (quantidade == 0) {
+            minimo = valor;
+            maximo = valor;
+        }
+        else {
+            minimo = Math.min(minimo, valor);
+            maximo = Math.max(maximo, valor);
+        }
+        quantidade++;
+        acrescentar(0, valor);
+        visao = null;
+        if (tamanhos[0] >= capacidades[0]) {
+            compactar();
+        }
+    }
+
+    /**
+     * Acrescenta ao resumo os valores de outro resumo (o outro resumo não é
+     * alterado)
+     *
+     * @param outro Resumo com o mesmo k
+     */
+    public void combinar(ResumoQuantis outro) {
+        if (outro.k != k) {
+            throw new IllegalArgumentException("Resumos com k diferentes: " + k + " e " + outro.k);
+        }
+        if (outro.quantidade == 0) {
+            return;
+        }
+        if (quantidade == 0) {
+            minimo = outro.minimo;
+            maximo = outro.maximo;
+        }
+        else {
+            minimo = Math.min(minimo, outro.minimo);
+            maximo = Math.max(maximo, outro.maximo);
+        }
+        quantidade += outro.quantidade;
+
+        // outro pode ser este mesmo resumo: os tamanhos são lidos antes de acrescentar
+        int niveisOutro = outro.quantidadeNiveis;
+        int[] tamanhosOutro = Arrays.copyOf(outro.tamanhos, niveisOutro);
+        double[][] valoresOutro = outro.niveis;
+        for (int nivel = 0; nivel < niveisOutro; nivel++) {
+            for (int i = 0; i < tamanhosOutro[nivel]; i++) {
+                acrescentar(nivel, valoresOutro[nivel][i]);
+            }
+        }
+        visao = null;
+        compactar();
+        reduzirNiveis();
+    }
+
+    /**
+     * Cria uma cópia independente do resumo
+     *
+     * @return A cópia
+     */
+    public ResumoQuantis copiar() {
+        ResumoQuantis copia = new ResumoQuantis(k);
+        copia.niveis = new double[quantidadeNiveis][];
+        for (int nivel = 0; nivel < quantidadeNiveis; nivel++) {
+            copia.niveis[nivel] = niveis[nivel].clone();
+        }
+        copia.tamanhos = Arrays.copyOf(tamanhos, quantidadeNiveis);
+        copia.quantidadeNiveis = quantidadeNiveis;
+        copia.capacidades = capacidades.clone();
+        copia.quantidade = quantidade;
+        copia.minimo = minimo;
+        copia.maximo = maximo;
+        return copia;
+    }
+
+    /**
+     * Quantidade de valores registrados (exata)
+     *
+     * @return A quantidade
+     */
+    public long quantidade() {
+        return quantidade;
+    }
+
+    /**
+     * Menor valor registrado (exato)
+     *
+     * @return O mínimo (NaN se o resumo está vazio)
+     */
+    public double minimo() {
+        return minimo;
+    }
+
+    /**
+     * Maior valor registrado (exato)
+     *
+     * @return O máximo (NaN se o resumo está vazio)
+     */
+    public double maximo() {
+        return maximo;
+    }
+
+    /**
+     * Quantil aproximado dos valores registrados
+     *
+     * @param fracao Fração dos valores que ficam abaixo do quantil (ex: 0.5 para
+     *               a mediana, 0.9 para o percentil 90)
+     *
+     * @return O quantil (NaN se o resumo está vazio)
+     */
+    public double quantil(double fracao) {
+        if (!(fracao >= 0 && fracao <= 1)) {
+            throw new IllegalArgumentException("Fração inválida: " + fracao);
+        }
+        if (quantidade == 0) {
+            return Double.NaN;
+        }
+        if (fracao == 0) {
+            return minimo;
+        }
+        if (fracao == 1) {
+            return maximo;
+        }
+
+        VisaoOrdenada ordenada = visaoOrdenada();
+        // Primeiro valor cujo peso acumulado alcança a posição procurada
+        long posicao = (long) Math.ceil(fracao * ordenada.pesoTotal);
+        int indice = Arrays.binarySearch(ordenada.acumulados, Math.max(posicao, 1));
+        if (indice < 0) {
+            indice = -indice - 1;
+        }
+        return ordenada.valores[Math.min(indice, ordenada.valores.length - 1)];
+    }
+
+    /**
+     * Quantis aproximados para várias frações de uma só vez
+     *
+     * @param fracoes Frações (ex: {0.25, 0.5, 0.75})
+     *
+     * @return Os quantis, na ordem das frações
+     */
+    public double[] quantis(double... fracoes) {
+        double[] resultado = new double[fracoes.length];
+        for (int i = 0; i < fracoes.length; i++) {
+            resultado[i] = quantil(fracoes[i]);
+        }
+        return resultado;
+    }
+
+    /**
+     * Fração aproximada dos valores registrados que são menores ou iguais ao
+     * valor passado (função de distribuição acumulada)
+     *
+     * @param valor O valor
+     *
+     * @return A fração, entre 0 e 1 (NaN se o resumo está vazio)
+     */
+    public double posicao(double valor) {
+        if (quantidade == 0) {
+            return Double.NaN;
+        }
+        VisaoOrdenada ordenada = visaoOrdenada();
+        return (double) ordenada.pesoAte(valor) / ordenada.pesoTotal;
+    }
+
+    /**
+     * Quantidade aproximada de valores em cada faixa definida pelos limites
+     * passados: a faixa i contém os valores maiores que limites[i - 1] e menores
+     * ou iguais a limites[i]; a primeira faixa não tem limite inferior e a
+     * última (limites.length) não tem limite superior.
+     *
+     * @param limites Limites das faixas, em ordem crescente
+     *
+     * @return As quantidades (limites.length + 1 faixas), que somam quantidade()
+     */
+    public long[] distribuicao(double... limites) {
+        for (int i = 1; i < limites.length; i++) {
+            if (!(limites[i] > limites[i - 1])) {
+                throw new IllegalArgumentException("Os limites das faixas devem ser crescentes");
+            }
+        }
+
+        long[] contagens = new long[limites.length + 1];
+        if (quantidade == 0) {
+            return contagens;
+        }
+        VisaoOrdenada ordenada = visaoOrdenada();
+        long anterior = 0;
+        for (int i = 0; i < limites.length; i++) {
+            long acumulado = ordenada.pesoAte(limites[i]);
+            contagens[i] = acumulado - anterior;
+            anterior = acumulado;
+        }
+        // As compactações preservam o peso total, que é sempre igual à quantidade
+        contagens[limites.length] = quantidade - anterior;
+        return contagens;
+    }
+
+    /**
+     * Quantidade de valores guardados pelo resumo (que determina a memória usada)
+     *
+     * @return A quantidade
+     */
+    public int quantidadeGuardada() {
+        int total = 0;
+        for (int nivel = 0; nivel < quantidadeNiveis; nivel++) {
+            total += tamanhos[nivel];
+        }
+        return total;
+    }
+
+    /**
+     * Serializa o resumo (por exemplo, para combiná-lo com os resumos de outras
+     * máquinas)
+     *
+     * @return Os bytes do resumo
+     */
+    public byte[] paraBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 4 + 4 + 8 + 8 + 8 + 4 * quantidadeNiveis + 8 * quantidadeGuardada())
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(IDENTIFICADOR_FORMATO).putInt(k).putInt(quantidadeNiveis);
+        buffer.putLong(quantidade).putDouble(minimo).putDouble(maximo);
+        for (int nivel = 0; nivel < quantidadeNiveis; nivel++) {
+            buffer.putInt(tamanhos[nivel]);
+            for (int i = 0; i < tamanhos[nivel]; i++) {
+                buffer.putDouble(niveis[nivel][i]);
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Reconstrói um resumo serializado por paraBytes
+     *
+     * @param bytes Os bytes do resumo
+     *
+     * @return O resumo
+     */
+    public static ResumoQuantis deBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            if (buffer.getInt() != IDENTIFICADOR_FORMATO) {
+                throw new IllegalArgumentException("Os bytes não são de um resumo de quantis");
+            }
+            ResumoQuantis resumo = new ResumoQuantis(buffer.getInt());
+            int niveis = buffer.getInt();
+            if (niveis < 1 || niveis > 64) {
+                throw new IllegalArgumentException("Quantidade de níveis inválida: " + niveis);
+            }
+            resumo.quantidade = buffer.getLong();
+            resumo.minimo = buffer.getDouble();
+            resumo.maximo = buffer.getDouble();
+            for (int nivel = 0; nivel < niveis; nivel++) {
+                int tamanho = buffer.getInt();
+                if (tamanho < 0 || tamanho > buffer.remaining() / 8) {
+                    throw new IllegalArgumentException("Tamanho de nível inválido: " + tamanho);
+                }
+                for (int i = 0; i < tamanho; i++) {
+                    resumo.acrescentar(nivel, buffer.getDouble());
+                }
+            }
+            return resumo;
+        }
+        catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Resumo de quantis incompleto", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (quantidade == 0) {
+            return "ResumoQuantis (vazio)";
+        }
+        double[] q = quantis(0.25, 0.5, 0.75);
+        return "ResumoQuantis (" + quantidade + " valores, mín " + minimo + ", q1 " + q[0] + ", mediana " + q[1]
+                + ", q3 " + q[2] + ", máx " + maximo + ")";
+    }
+
+    /**
+     * Calcula a capacidade de cada nível: k no nível mais alto, diminuindo pelo
+     * fator 2/3 a cada nível abaixo dele
+     */
+    private void calcularCapacidades() {
+        capacidades = new int[quantidadeNiveis];
+        for (int nivel = 0; nivel < quantidadeNiveis; nivel++) {
+            int profundidade = quantidadeNiveis - 1 - nivel;
+            capacidades[nivel] = Math.max(CAPACIDADE_MINIMA,
+                    (int) Math.ceil(k * Math.pow(FATOR_CAPACIDADE, profundidade)));
+        }
+    }
+
+    /**
+     * Acrescenta um valor ao nível passado (criando o nível se necessário), sem
+     * compactar
+     */
+    private void acrescentar(int nivel, double valor) {
+        if (nivel >= quantidadeNiveis) {
+            if (nivel >= niveis.length) {
+                niveis = Arrays.copyOf(niveis, nivel + 1);
+                tamanhos = Arrays.copyOf(tamanhos, nivel + 1);
+            }
+            for (int novo = quantidadeNiveis; novo <= nivel; novo++) {
+                niveis[novo] = new double[CAPACIDADE_MINIMA];
+            }
+            quantidadeNiveis = nivel + 1;
+            calcularCapacidades();
+        }
+        double[] valores = niveis[nivel];
+        if (tamanhos[nivel] == valores.length) {
+            niveis[nivel] = valores = Arrays.copyOf(valores, valores.length * 2);
+        }
+        valores[tamanhos[nivel]++] = valor;
+    }
+
+    /**
+     * Compacta os níveis cheios, do mais baixo para o mais alto, até que
+     * nenhum nível passe da sua capacidade
+     */
+    private void compactar() {
+        int nivel = 0;
+        while (nivel < quantidadeNiveis) {
+            if (tamanhos[nivel] < capacidades[nivel]) {
+                nivel++;
+                continue;
+            }
+
+            int niveisAntes = quantidadeNiveis;
+            double[] valores = niveis[nivel];
+            int tamanho = tamanhos[nivel];
+            Arrays.sort(valores, 0, tamanho);
+            // Com quantidade ímpar, o maior valor continua no nível
+            int pares = tamanho & ~1;
+            int deslocamento = ThreadLocalRandom.current().nextBoolean() ? 1 : 0;
+            for (int i = deslocamento; i < pares; i += 2) {
+                acrescentar(nivel + 1, valores[i]);
+            }
+            valores[0] = valores[tamanho - 1];
+            tamanhos[nivel] = tamanho - pares;
+            // A criação de um nível novo diminui as capacidades dos níveis de
+            // baixo, que precisam ser verificados novamente
+            nivel = (quantidadeNiveis == niveisAntes) ? nivel + 1 : 0;
+        }
+    }
+
+    /**
+     * Libera a memória dos níveis que ficaram maiores que suas capacidades
+     * durante uma combinação
+     */
+    private void reduzirNiveis() {
+        for (int nivel = 0; nivel < quantidadeNiveis; nivel++) {
+            int limite = Math.max(CAPACIDADE_MINIMA, Integer.highestOneBit(capacidades[nivel] - 1) << 1);
+            if (niveis[nivel].length > limite && tamanhos[nivel] <= limite) {
+                niveis[nivel] = Arrays.copyOf(niveis[nivel], limite);
+            }
+        }
+    }
+
+    /**
+     * Retorna os valores ordenados com os pesos acumulados, refazendo-os se o
+     * resumo mudou desde a última consulta
+     */
+    private VisaoOrdenada visaoOrdenada() {
+        if (visao == null) {
+            visao = new VisaoOrdenada();
+        }
+        return visao;
+    }
+
+    /**
+     * Valores guardados pelo resumo, em ordem crescente, com o peso acumulado até
+     * cada um deles
+     */
+    private class VisaoOrdenada {
+        private final double[] valores;
+        private final long[] acumulados;
+        private final long pesoTotal;
+
+        VisaoOrdenada() {
+            int total = quantidadeGuardada();
+            valores = new double[total];
+            long[] pesos = new long[total];
+            int posicao = 0;
+            for (int nivel = 0; nivel < quantidadeNiveis; nivel++) {
+                for (int i = 0; i < tamanhos[nivel]; i++) {
+                    valores[posicao] = niveis[nivel][i];
+                    pesos[posicao] = 1L << nivel;
+                    posicao++;
+                }
+            }
+
+            // Ordena os índices pelos valores (valores e pesos são reordenados juntos)
+            Integer[] ordem = new Integer[total];
+            for (int i = 0; i < total; i++) {
+                ordem[i] = i;
+            }
+            double[] copia = valores.clone();
+            Arrays.sort(ordem, (a, b) -> Double.compare(copia[a], copia[b]));
+
+            acumulados = new long[total];
+            long soma = 0;
+            for (int i = 0; i < total; i++) {
+                valores[i] = copia[ordem[i]];
+                soma += pesos[ordem[i]];
+                acumulados[i] = soma;
+            }
+            pesoTotal = soma;
+        }
+
+        /**
+         * Peso dos valores menores ou iguais ao valor passado
+         */
+        long pesoAte(double valor) {
+            // Último índice com valor <= valor procurado
+            int inicio = 0;
+            int fim = valores.length;
+            while (inicio < fim) {
+                int meio = (inicio + fim) >>> 1;
+                if (valores[meio] <= valor) {
+                    inicio = meio + 1;
+                }
+                else {
+                    fim = meio;
+                }
+            }
+            return (inicio == 0) ? 0 : acumulados[inicio - 1];
+        }
+    }
+
+}
@@ -0,0 +1,280 @@
+package br.ufla.gac106.s2022_2.base.persistencia;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import br.ufla.gac106.javaWikiAPI.PaginaWiki;
+
+/**
+ * Classe que abre um arquivo de instantâneos gravado por um
+ * EscritorInstantaneo (o formato é descrito em FormatoInstantaneo).
+ *
+ * Ao abrir o arquivo, somente os cabeçalhos dos segmentos são lidos: cada
+ * segmento é mapeado em memória (somente leitura), e as avaliações e páginas
+ * são visões diretamente sobre os buffers mapeados. Assim, o tempo de abertura
+ * depende da quantidade de segmentos, e não do tamanho do arquivo, e o sistema
+ * operacional só lê do disco as partes que forem acessadas.
+ *
+ * Se o arquivo continuar sendo gravado por um EscritorInstantaneo, o método
+ * atualizar mapeia os segmentos acrescentados depois da abertura. Se o
+ * escritor compactar o arquivo, o objeto continua vendo o arquivo de antes da
+ * compactação; abra o arquivo novamente para ver os segmentos gravados depois.
+ *
+ * Para que a abertura não precise ler o arquivo inteiro, somente o CRC do
+ * último segmento é verificado (o que detecta gravações interrompidas). Os CRCs
+ * dos segmentos anteriores não são verificados na abertura, só quando o
+ * escritor compacta o arquivo; um segmento antigo corrompido no disco não é
+ * detectado aqui.
+ *
+ * A classe pode ser usada por várias threads ao mesmo tempo. As visões obtidas
+ * continuam válidas depois que o arquivo é fechado.
+ */
+public class ArquivoInstantaneo implements Closeable {
+    // Caminho do arquivo
+    private final Path arquivo;
+    // Canal usado para ler e mapear o arquivo
+    private final FileChannel canal;
+    // Posição do fim do último segmento mapeado
+    private long fimMapeado;
+    // Avaliações mais recentes de cada tema
+    private final Map<String, AvaliacoesMapeadas> avaliacoes = new LinkedHashMap<>();
+    // Segmentos de páginas, do mais antigo para o mais recente
+    private volatile List<SegmentoPaginas> segmentosPaginas = Collections.emptyList();
+
+    /**
+     * Abre um arquivo de instantâneos
+     *
+     * @param arquivo Caminho do arquivo
+     */
+    public ArquivoInstantaneo(Path arquivo) throws IOException {
+        this.arquivo = arquivo;
+        canal = FileChannel.open(arquivo, StandardOpenOption.READ);
+        try {
+            verificarCabecalho(canal, arquivo);
+            fimMapeado = FormatoInstantaneo.TAMANHO_CABECALHO_ARQUIVO;
+            atualizar();
+        }
+        catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Mapeia os segmentos acrescentados ao arquivo desde a abertura (ou desde a
+     * última atualização)
+     *
+     * @return Se algum segmento novo foi encontrado
+     */
+    public synchronized boolean atualizar() throws IOException {
+        long fim = fimDosSegmentosValidos(canal, arquivo, fimMapeado);
+        if (fim == fimMapeado) {
+            return false;
+        }
+
+        List<SegmentoPaginas> novosSegmentosPaginas = new ArrayList<>(segmentosPaginas);
+        long posicao = fimMapeado;
+        while (posicao < fim) {
+            ByteBuffer cabecalho = ler(canal, arquivo, posicao, FormatoInstantaneo.TAMANHO_CABECALHO_SEGMENTO);
+            int tamanho = cabecalho.getInt(0);
+            byte tipo = cabecalho.get(4);
+            ByteBuffer conteudo = canal.map(FileChannel.MapMode.READ_ONLY,
+                    posicao + FormatoInstantaneo.TAMANHO_CABECALHO_SEGMENTO, tamanho).order(ByteOrder.LITTLE_ENDIAN);
+
+            if (tipo == FormatoInstantaneo.SEGMENTO_AVALIACOES) {
+                AvaliacoesMapeadas mapeadas = new AvaliacoesMapeadas(conteudo);
+                // Um instantâneo mais recente do tema substitui o anterior (o tema
+                // mantém sua posição na ordem dos temas)
+                avaliacoes.put(mapeadas.temaAvaliacao(), mapeadas);
+            }
+            else if (tipo == FormatoInstantaneo.SEGMENTO_PAGINAS) {
+                novosSegmentosPaginas.add(new SegmentoPaginas(conteudo));
+            }
+            // Segmentos de tipos desconhecidos (de versões futuras) são ignorados
+
+            posicao += FormatoInstantaneo.TAMANHO_CABECALHO_SEGMENTO + tamanho + FormatoInstantaneo.TAMANHO_RODAPE_SEGMENTO;
+        }
+        segmentosPaginas = Collections.unmodifiableList(novosSegmentosPaginas);
+        fimMapeado = fim;
+        return true;
+    }
+
+    /**
+     * Temas que têm avaliações no arquivo
+     *
+     * @return Os temas, na ordem em que foram gravados pela primeira vez
+     */
+    public synchronized Set<String> getTemas() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(avaliacoes.keySet()));
+    }
+
+    /**
+     * Avaliações mais recentes gravadas para o tema
+     *
+     * @param tema Tema das avaliações
+     *
+     * @return As avaliações (ou null se não há avaliações do tema)
+     */
+    public synchronized AvaliacoesMapeadas getAvaliacoes(String tema) {
+        return avaliacoes.get(tema);
+    }
+
+    /**
+     * Versão mais recente da página com o título passado. A busca é feita nas
+     * tabelas de espalhamento dos segmentos, do mais recente para o mais
+     * antigo, sem carregar os demais títulos.
+     *
+     * @param titulo Título da página
+     *
+     * @return A página (ou null se ela não está no arquivo)
+     */
+    public PaginaWiki obterPagina(String titulo) {
+        List<SegmentoPaginas> segmentos = segmentosPaginas;
+        for (int s = segmentos.size() - 1; s >= 0; s--) {
+            int indice = segmentos.get(s).buscar(titulo);
+            if (indice >= 0) {
+                return segmentos.get(s).pagina(indice);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Chama o consumidor passado para a versão mais recente de cada página do
+     * arquivo (as páginas são criadas uma a uma, à medida que são consumidas)
+     *
+     * @param consumidor Consumidor chamado para cada página
+     */
+    public void paraCadaPagina(Consumer<PaginaWiki> consumidor) {
+        List<SegmentoPaginas> segmentos = segmentosPaginas;
+        for (int s = 0; s < segmentos.size(); s++) {
+            SegmentoPaginas segmento = segmentos.get(s);
+            for (int i = 0; i < segmento.quantidade(); i++) {
+                if (!substituidaDepois(segmentos, s, segmento.titulo(i))) {
+                    consumidor.accept(segmento.pagina(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Quantidade de páginas distintas do arquivo
+     *
+     * @return A quantidade
+     */
+    public int quantidadePaginas() {
+        List<SegmentoPaginas> segmentos = segmentosPaginas;
+        if (segmentos.size() == 1) {
+            return segmentos.get(0).quantidade();
+        }
+        Set<String> titulos = new HashSet<>();
+        for (SegmentoPaginas segmento : segmentos) {
+            for (int i = 0; i < segmento.quantidade(); i++) {
+                titulos.add(segmento.titulo(i));
+            }
+        }
+        return titulos.size();
+    }
+
+    /**
+     * Indica se a página foi gravada novamente em um segmento mais recente
+     */
+    private static boolean substituidaDepois(List<SegmentoPaginas> segmentos, int segmento, String titulo) {
+        for (int s = segmento + 1; s < segmentos.size(); s++) {
+            if (segmentos.get(s).buscar(titulo) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+
+    /**
+     * Verifica o cabeçalho de um arquivo de instantâneos
+     */
+    static void verificarCabecalho(FileChannel canal, Path arquivo) throws IOException {
+        if (canal.size() < FormatoInstantaneo.TAMANHO_CABECALHO_ARQUIVO
+                || ler(canal, arquivo, 0, 4).getInt(0) != FormatoInstantaneo.IDENTIFICADOR_FORMATO) {
+            throw new IOException("O arquivo " + arquivo + " não é um arquivo de instantâneos");
+        }
+    }
+
+    /**
+     * Posição do fim do último segmento completo do arquivo (os segmentos
+     * incompletos no final, de gravações interrompidas, não são considerados)
+     */
+    static long fimDosSegmentosValidos(FileChannel canal, Path arquivo) throws IOException {
+        verificarCabecalho(canal, arquivo);
+        return fimDosSegmentosValidos(canal, arquivo, FormatoInstantaneo.TAMANHO_CABECALHO_ARQUIVO);
+    }
+
+    /**
+     * Posição do fim do último segmento completo, a partir da posição passada.
+     * Somente o CRC do último segmento é verificado (um segmento só é
+     * acrescentado depois que o anterior foi escrito por completo), para que a
+     * abertura não precise ler o arquivo inteiro.
+     */
+    private static long fimDosSegmentosValidos(FileChannel canal, Path arquivo, long inicio) throws IOException {
+        long tamanhoArquivo = canal.size();
+        long posicao = inicio;
+        long inicioUltimo = -1;
+        while (posicao + FormatoInstantaneo.TAMANHO_CABECALHO_SEGMENTO <= tamanhoArquivo) {
+            int tamanho = ler(canal, arquivo, posicao, 4).getInt(0);
+            long fim = posicao + FormatoInstantaneo.TAMANHO_CABECALHO_SEGMENTO + (long) tamanho
+                    + FormatoInstantaneo.TAMANHO_RODAPE_SEGMENTO;
+            if (tamanho < 0 || tamanho % 8 != 0 || fim > tamanhoArquivo) {
+                break;
+            }
+            inicioUltimo = posicao;
+            posicao = fim;
+        }
+
+        if (inicioUltimo >= 0 && !crcValido(canal, arquivo, inicioUltimo)) {
+            return inicioUltimo;
+        }
+        return posicao;
+    }
+
+    /**
+     * Verifica o CRC do conteúdo do segmento que começa na posição passada
+     */
+    private static boolean crcValido(FileChannel canal, Path arquivo, long posicao) throws IOException {
+        int tamanho = ler(canal, arquivo, posicao, 4).getInt(0);
+        long inicioConteudo = posicao + FormatoInstantaneo.TAMANHO_CABECALHO_SEGMENTO;
+        ByteBuffer conteudo = canal.map(FileChannel.MapMode.READ_ONLY, inicioConteudo, tamanho);
+        int crcGravado = ler(canal, arquivo, inicioConteudo + tamanho, 4).getInt(0);
+        return FormatoInstantaneo.crc(conteudo) == crcGravado;
+    }
+
+    /**
+     * Lê bytes do arquivo na posição passada
+     */
+    private static ByteBuffer ler(FileChannel canal, Path arquivo, long posicao, int tamanho) throws IOException {
+        ByteBuffer buffer = FormatoInstantaneo.alocar(tamanho);
+        while (buffer.hasRemaining()) {
+            if (canal.read(buffer, posicao + buffer.position()) < 0) {
+                throw new EOFException("Fim inesperado do arquivo de instantâneos " + arquivo);
+            }
+        }
+        return buffer;
+    }
+}
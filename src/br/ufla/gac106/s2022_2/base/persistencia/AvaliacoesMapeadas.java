@@ -0,0 +1,282 @@
+package br.ufla.gac106.s2022_2.base.persistencia;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import br.ufla.gac106.s2022_2.base.Avaliacao;
+import br.ufla.gac106.s2022_2.base.Avaliacoes;
+import br.ufla.gac106.s2022_2.base.AvaliacoesColunares;
+
+/**
+ * Avaliações de um tema lidas de um arquivo de instantâneos
+ * (ArquivoInstantaneo), com a mesma interface de consulta de
+ * AvaliacoesColunares.
+ *
+ * As colunas de médias e quantidades e o dicionário de nomes são visões
+ * diretamente sobre o arquivo mapeado em memória: nada é copiado ao abrir o
+ * arquivo, e o sistema operacional só lê do disco as partes que forem
+ * acessadas. Os nomes dos itens só são decodificados quando solicitados.
+ *
+ * As avaliações são somente de leitura (para alterá-las, copie-as com
+ * paraColunares e grave um novo instantâneo). A classe pode ser usada por
+ * várias threads ao mesmo tempo.
+ */
+public class AvaliacoesMapeadas implements Avaliacoes {
+    private final String tema;
+    private final FloatBuffer medias;
+    private final IntBuffer quantidades;
+    private final DicionarioStrings nomes;
+
+    /**
+     * Cria a visão sobre o conteúdo de um segmento de avaliações
+     */
+    AvaliacoesMapeadas(ByteBuffer conteudo) {
+        int n = conteudo.getInt(0);
+        int t = conteudo.getInt(4);
+        int bytesTema = conteudo.getInt(8);
+        int bytesNomes = conteudo.getInt(12);
+
+        int posicao = FormatoInstantaneo.CAMPOS_AVALIACOES;
+        medias = FormatoInstantaneo.fatia(conteudo, posicao, posicao + 4 * n).asFloatBuffer();
+        posicao += 4 * n;
+        quantidades = FormatoInstantaneo.fatia(conteudo, posicao, posicao + 4 * n).asIntBuffer();
+        posicao += 4 * n;
+        IntBuffer inicios = FormatoInstantaneo.fatia(conteudo, posicao, posicao + 4 * (n + 1)).asIntBuffer();
+        posicao += 4 * (n + 1);
+        IntBuffer tabela = FormatoInstantaneo.fatia(conteudo, posicao, posicao + 4 * t).asIntBuffer();
+        posicao += 4 * t;
+
+        posicao += bytesTema;
+        nomes = new DicionarioStrings(inicios, FormatoInstantaneo.fatia(conteudo, posicao, posicao + bytesNomes), tabela);
+        tema = lerTema(conteudo);
+    }
+
+    /**
+     * Lê somente o tema de um segmento de avaliações (sem criar a visão)
+     */
+    static String lerTema(ByteBuffer conteudo) {
+        int n = conteudo.getInt(0);
+        int t = conteudo.getInt(4);
+        int bytesTema = conteudo.getInt(8);
+        int posicao = FormatoInstantaneo.CAMPOS_AVALIACOES + 4 * n + 4 * n + 4 * (n + 1) + 4 * t;
+        byte[] utf8 = new byte[bytesTema];
+        FormatoInstantaneo.fatia(conteudo, posicao, posicao + bytesTema).get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String temaAvaliacao() {
+        return tema;
+    }
+
+    /**
+     * Coleção com a avaliação (média) de cada item, na ordem dos
+     * identificadores. Os objetos Avaliacao são criados somente durante a
+     * iteração, e os nomes só são decodificados quando solicitados.
+     */
+    @Override
+    public Collection<Avaliacao> colecaoAvaliacoes() {
+        return new AbstractCollection<Avaliacao>() {
+            @Override
+            public Iterator<Avaliacao> iterator() {
+                return new Iterator<Avaliacao>() {
+                    private int proximo = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return proximo < quantidadeItens();
+                    }
+
+                    @Override
+                    public Avaliacao next() {
+                        if (proximo >= quantidadeItens()) {
+                            throw new NoSuchElementException();
+                        }
+                        return new VisaoAvaliacao(proximo++);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return quantidadeItens();
+            }
+        };
+    }
+
+    /**
+     * Quantidade de itens avaliados
+     *
+     * @return A quantidade
+     */
+    public int quantidadeItens() {
+        return medias.limit();
+    }
+
+    /**
+     * Retorna o identificador do item (buscado na tabela de espalhamento do
+     * arquivo, sem decodificar os nomes)
+     *
+     * @param nome Nome do item
+     *
+     * @return O identificador (ou -1 se o item não existir)
+     */
+    public int buscarId(String nome) {
+        return nomes.buscar(nome);
+    }
+
+    /**
+     * Nome do item com o identificador passado
+     *
+     * @param id Identificador do item
+     *
+     * @return O nome do item
+     */
+    public String nomeItem(int id) {
+        verificarId(id);
+        return nomes.obter(id);
+    }
+
+    /**
+     * Classificação média do item com o identificador passado
+     *
+     * @param id Identificador do item
+     *
+     * @return A média (0 se o item não tem avaliações)
+     */
+    public double classificacaoMedia(int id) {
+        verificarId(id);
+        return medias.get(id);
+    }
+
+    /**
+     * Quantidade de avaliações do item com o identificador passado
+     *
+     * @param id Identificador do item
+     *
+     * @return A quantidade
+     */
+    public int quantidadeAvaliacoes(int id) {
+        verificarId(id);
+        return quantidades.get(id);
+    }
+
+    /**
+     * Copia as médias de todos os itens para o vetor passado (indexado pelo
+     * identificador do item)
+     *
+     * @param destino Vetor de destino (se for null ou menor que a quantidade de
+     *                itens, um novo vetor é criado)
+     *
+     * @return O vetor com as médias
+     */
+    public float[] copiarMedias(float[] destino) {
+        int tamanho = quantidadeItens();
+        if (destino == null || destino.length < tamanho) {
+            destino = new float[tamanho];
+        }
+        medias.duplicate().get(destino, 0, tamanho);
+        return destino;
+    }
+
+    /**
+     * Copia as quantidades de avaliações de todos os itens para o vetor passado
+     * (indexado pelo identificador do item)
+     *
+     * @param destino Vetor de destino (se for null ou menor que a quantidade de
+     *                itens, um novo vetor é criado)
+     *
+     * @return O vetor com as quantidades
+     */
+    public int[] copiarQuantidades(int[] destino) {
+        int tamanho = quantidadeItens();
+        if (destino == null || destino.length < tamanho) {
+            destino = new int[tamanho];
+        }
+        quantidades.duplicate().get(destino, 0, tamanho);
+        return destino;
+    }
+
+    /**
+     * Chama o consumidor passado para cada item (na ordem dos identificadores),
+     * sem criar objetos
+     *
+     * @param consumidor Consumidor chamado para cada item
+     */
+    public void paraCadaItem(AvaliacoesColunares.ConsumidorItem consumidor) {
+        int tamanho = quantidadeItens();
+        for (int id = 0; id < tamanho; id++) {
+            consumidor.aceitar(id, medias.get(id), quantidades.get(id));
+        }
+    }
+
+    /**
+     * Média de todas as avaliações de todos os itens (ponderada pela quantidade
+     * de avaliações de cada item)
+     *
+     * @return A média geral (0 se não há avaliações)
+     */
+    public double mediaGeral() {
+        double soma = 0;
+        long quantidade = 0;
+        int tamanho = quantidadeItens();
+        for (int id = 0; id < tamanho; id++) {
+            soma += (double) medias.get(id) * quantidades.get(id);
+            quantidade += quantidades.get(id);
+        }
+        return (quantidade == 0) ? 0 : soma / quantidade;
+    }
+
+    /**
+     * Copia as avaliações para um conjunto colunar (que pode ser alterado), com
+     * os mesmos identificadores
+     *
+     * @return O conjunto colunar
+     */
+    public AvaliacoesColunares paraColunares() {
+        int tamanho = quantidadeItens();
+        AvaliacoesColunares colunares = new AvaliacoesColunares(tema, tamanho);
+        for (int id = 0; id < tamanho; id++) {
+            colunares.definirAvaliacoes(nomes.obter(id), medias.get(id), quantidades.get(id));
+        }
+        return colunares;
+    }
+
+    private void verificarId(int id) {
+        if (id < 0 || id >= quantidadeItens()) {
+            throw new IndexOutOfBoundsException("Identificador de item inválido: " + id);
+        }
+    }
+
+    /**
+     * Avaliação que é uma visão de um item das colunas (guarda só o identificador)
+     */
+    private class VisaoAvaliacao implements Avaliacao {
+        private final int id;
+
+        public VisaoAvaliacao(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public String nomeItemAvaliado() {
+            return nomes.obter(id);
+        }
+
+        @Override
+        public double classificacaoMedia() {
+            return medias.get(id);
+        }
+
+        @Override
+        public String toString() {
+            return nomeItemAvaliado() + ": " + classificacaoMedia();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package br.ufla.gac106.s2022_2.base.persistencia;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Visão somente de leitura de um dicionário de strings de um segmento mapeado:
+ * os bytes (UTF-8) das strings concatenados, a posição de início de cada uma e,
+ * opcionalmente, a tabela de espalhamento que permite buscar o índice de uma
+ * string sem carregar o dicionário.
+ *
+ * As strings só são decodificadas quando solicitadas, e as buscas comparam os
+ * bytes diretamente no arquivo mapeado. A classe só usa leituras em posições
+ * absolutas dos buffers e, portanto, pode ser usada por várias threads.
+ */
+class DicionarioStrings {
+    private final IntBuffer inicios;
+    private final ByteBuffer bytes;
+    private final IntBuffer tabela;
+
+    /**
+     * Constrói a visão
+     *
+     * @param inicios Início de cada string (quantidade + 1 posições)
+     * @param bytes   Bytes das strings concatenados
+     * @param tabela  Tabela de espalhamento (ou null se não há buscas)
+     */
+    DicionarioStrings(IntBuffer inicios, ByteBuffer bytes, IntBuffer tabela) {
+        this.inicios = inicios;
+        this.bytes = bytes;
+        this.tabela = tabela;
+    }
+
+    /**
+     * Quantidade de strings
+     */
+    int quantidade() {
+        return inicios.limit() - 1;
+    }
+
+    /**
+     * Tamanho em bytes da string
+     */
+    int tamanhoBytes(int indice) {
+        return inicios.get(indice + 1) - inicios.get(indice);
+    }
+
+    /**
+     * Decodifica a string com o índice passado
+     */
+    String obter(int indice) {
+        int inicio = inicios.get(indice);
+        int tamanho = inicios.get(indice + 1) - inicio;
+        byte[] utf8 = new byte[tamanho];
+        bytes.duplicate().position(inicio).get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Bytes da entrada com o índice passado, sem cópia (fatia do arquivo mapeado)
+     */
+    ByteBuffer fatia(int indice) {
+        return FormatoInstantaneo.fatia(bytes, inicios.get(indice), inicios.get(indice + 1));
+    }
+
+    /**
+     * Busca o índice de uma string pela tabela de espalhamento
+     *
+     * @return O índice (ou -1 se a string não está no dicionário)
+     */
+    int buscar(String texto) {
+        byte[] utf8 = texto.getBytes(StandardCharsets.UTF_8);
+        int mascara = tabela.limit() - 1;
+        int posicao = FormatoInstantaneo.espalhar(texto.hashCode()) & mascara;
+        while (true) {
+            int indice = tabela.get(posicao) - 1;
+            if (indice < 0) {
+                return -1;
+            }
+            if (iguais(indice, utf8)) {
+                return indice;
+            }
+            posicao = (posicao + 1) & mascara;
+        }
+    }
+
+    /**
+     * Compara os bytes da string com o índice passado com os bytes procurados
+     */
+    private boolean iguais(int indice, byte[] utf8) {
+        int inicio = inicios.get(indice);
+        if (inicios.get(indice + 1) - inicio != utf8.length) {
+            return false;
+        }
+        for (int i = 0; i < utf8.length; i++) {
+            if (bytes.get(inicio + i) != utf8[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
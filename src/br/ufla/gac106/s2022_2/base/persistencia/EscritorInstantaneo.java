@@ -0,0 +1,618 @@
+package br.ufla.gac106.s2022_2.base.persistencia;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+import br.ufla.gac106.javaWikiAPI.CarregadorImagens;
+import br.ufla.gac106.javaWikiAPI.PaginaWiki;
+import br.ufla.gac106.s2022_2.base.Avaliacoes;
+import br.ufla.gac106.s2022_2.base.AvaliacoesColunares;
+import br.ufla.gac106.s2022_2.base.AvaliacoesConcorrentes;
+
+/**
+ * Classe que grava instantâneos de avaliações e páginas Wiki em um arquivo
+ * binário, que depois pode ser aberto rapidamente (mapeado em memória) por um
+ * ArquivoInstantaneo. O formato do arquivo é descrito em FormatoInstantaneo.
+ *
+ * Cada gravação acrescenta um segmento ao final, e nada do que já foi gravado é
+ * alterado. Um segmento de avaliações é um instantâneo completo de um tema e
+ * substitui os segmentos anteriores do mesmo tema; um segmento de páginas
+ * acrescenta páginas (ou novas versões de páginas já gravadas). Se o programa
+ * for encerrado durante uma gravação, o segmento incompleto é descartado na
+ * próxima abertura.
+ *
+ * Para que o arquivo não cresça sem limite, o escritor contabiliza os bytes dos
+ * instantâneos e páginas substituídos; quando eles passam da metade do arquivo
+ * (e de 1 MB), o arquivo é compactado: os segmentos ainda válidos são copiados
+ * (e verificados pelo CRC) para um arquivo novo, que substitui o antigo. Os
+ * ArquivoInstantaneo abertos antes da compactação continuam lendo o arquivo
+ * antigo; abra-os novamente para ver os segmentos gravados depois dela.
+ *
+ * Lembre-se de usar o método close quando não for mais usar o objeto.
+ */
+public class EscritorInstantaneo implements Closeable, Flushable {
+    // Caminho do arquivo
+    private final Path arquivo;
+    // Largura e altura máximas das miniaturas das imagens (0 se não são gravadas)
+    private final int tamanhoMiniaturas;
+    // Bytes substituídos a partir dos quais o arquivo pode ser compactado
+    private static final long MINIMO_COMPACTACAO = 1 << 20;
+
+    // Canal usado para escrever no arquivo (trocado na compactação)
+    private FileChannel canal;
+    // Posição do segmento mais recente de cada tema, na ordem em que os temas
+    // foram gravados pela primeira vez
+    private final Map<String, Long> segmentoDoTema = new LinkedHashMap<>();
+    // Segmentos de páginas, na ordem do arquivo
+    private final List<SegmentoGravado> segmentosPaginas = new ArrayList<>();
+    // Índice (em segmentosPaginas) do segmento com a versão mais recente de cada página
+    private final Map<String, Integer> segmentoDaPagina = new HashMap<>();
+    // Bytes de segmentos (ou partes de segmentos) substituídos
+    private long bytesSubstituidos;
+
+    /**
+     * Abre (ou cria) um arquivo de instantâneos, sem gravar as imagens das páginas
+     *
+     * @param arquivo Caminho do arquivo
+     */
+    public EscritorInstantaneo(Path arquivo) throws IOException {
+        this(arquivo, 0);
+    }
+
+    /**
+     * Abre (ou cria) um arquivo de instantâneos
+     *
+     * @param arquivo           Caminho do arquivo
+     * @param tamanhoMiniaturas Largura e altura máximas, em pixels, das
+     *                          miniaturas das imagens das páginas (0 para não
+     *                          gravar as imagens). Só são gravadas as imagens
+     *                          que já foram baixadas.
+     */
+    public EscritorInstantaneo(Path arquivo, int tamanhoMiniaturas) throws IOException {
+        if (tamanhoMiniaturas < 0) {
+            throw new IllegalArgumentException("Tamanho de miniaturas inválido: " + tamanhoMiniaturas);
+        }
+        this.arquivo = arquivo;
+        this.tamanhoMiniaturas = tamanhoMiniaturas;
+        canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            prepararArquivo();
+            lerSegmentos();
+        }
+        catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Escreve o cabeçalho em um arquivo novo, ou descarta o segmento
+     * incompleto no final de um arquivo existente
+     */
+    private void prepararArquivo() throws IOException {
+        if (canal.size() == 0) {
+            ByteBuffer cabecalho = FormatoInstantaneo.alocar(FormatoInstantaneo.TAMANHO_CABECALHO_ARQUIVO);
+            cabecalho.putInt(0, FormatoInstantaneo.IDENTIFICADOR_FORMATO);
+            escreverTudo(canal, cabecalho, 0);
+            return;
+        }
+        // Ao contrário de um cache, um arquivo de outro formato não é descartado
+        long fim = ArquivoInstantaneo.fimDosSegmentosValidos(canal, arquivo);
+        if (fim < canal.size()) {
+            canal.truncate(fim);
+        }
+    }
+
+    /**
+     * Lê os temas e os títulos dos segmentos já gravados, para contabilizar os
+     * bytes substituídos
+     */
+    private void lerSegmentos() throws IOException {
+        segmentoDoTema.clear();
+        segmentosPaginas.clear();
+        segmentoDaPagina.clear();
+        bytesSubstituidos = 0;
+
+        long posicao = FormatoInstantaneo.TAMANHO_CABECALHO_ARQUIVO;
+        while (posicao < canal.size()) {
+            ByteBuffer cabecalho = ler(posicao, FormatoInstantaneo.TAMANHO_CABECALHO_SEGMENTO);
+            int tamanho = cabecalho.getInt(0);
+            byte tipo = cabecalho.get(4);
+            if (tipo == FormatoInstantaneo.SEGMENTO_AVALIACOES) {
+                registrarAvaliacoes(new AvaliacoesMapeadas(mapearConteudo(posicao, tamanho)).temaAvaliacao(), posicao, tamanho);
+            }
+            else if (tipo == FormatoInstantaneo.SEGMENTO_PAGINAS) {
+                SegmentoPaginas segmento = new SegmentoPaginas(mapearConteudo(posicao, tamanho));
+                List<String> titulos = new ArrayList<>(segmento.quantidade());
+                for (int i = 0; i < segmento.quantidade(); i++) {
+                    titulos.add(segmento.titulo(i));
+                }
+                registrarPaginas(titulos, tamanho);
+            }
+            posicao += tamanhoTotal(tamanho);
+        }
+    }
+
+    /**
+     * Registra um segmento de avaliações (o segmento anterior do tema passa a
+     * ser substituído)
+     */
+    private void registrarAvaliacoes(String tema, long posicao, int tamanho) throws IOException {
+        Long anterior = segmentoDoTema.put(tema, posicao);
+        if (anterior != null) {
+            bytesSubstituidos += tamanhoTotal(ler(anterior, 4).getInt(0));
+        }
+    }
+
+    /**
+     * Registra um segmento de páginas (as versões anteriores das páginas passam
+     * a ser substituídas). Os bytes de um segmento são atribuídos igualmente às
+     * suas páginas.
+     */
+    private void registrarPaginas(List<String> titulos, int tamanho) {
+        SegmentoGravado novo = new SegmentoGravado(tamanhoTotal(tamanho), titulos.size());
+        int indice = segmentosPaginas.size();
+        segmentosPaginas.add(novo);
+        if (titulos.isEmpty()) {
+            bytesSubstituidos += novo.tamanhoTotal;
+        }
+        for (String titulo : titulos) {
+            Integer anterior = segmentoDaPagina.put(titulo, indice);
+            if (anterior != null) {
+                SegmentoGravado segmento = segmentosPaginas.get(anterior);
+                segmento.vivas--;
+                bytesSubstituidos += segmento.tamanhoTotal / segmento.paginas;
+                if (segmento.vivas == 0) {
+                    bytesSubstituidos += segmento.tamanhoTotal % segmento.paginas;
+                }
+            }
+        }
+    }
+
+    /**
+     * Grava um instantâneo completo das avaliações de um tema (que substitui os
+     * instantâneos anteriores do mesmo tema)
+     *
+     * @param avaliacoes Avaliações gravadas. A quantidade de avaliações de cada
+     *                   item é gravada para AvaliacoesColunares,
+     *                   AvaliacoesConcorrentes e AvaliacoesMapeadas; para as
+     *                   demais, cada item conta como uma avaliação.
+     */
+    public synchronized void escreverAvaliacoes(Avaliacoes avaliacoes) throws IOException {
+        AvaliacoesColunares colunares;
+        if (avaliacoes instanceof AvaliacoesColunares) {
+            colunares = (AvaliacoesColunares) avaliacoes;
+        }
+        else if (avaliacoes instanceof AvaliacoesConcorrentes) {
+            colunares = ((AvaliacoesConcorrentes) avaliacoes).fotografiaColunar();
+        }
+        else if (avaliacoes instanceof AvaliacoesMapeadas) {
+            colunares = ((AvaliacoesMapeadas) avaliacoes).paraColunares();
+        }
+        else {
+            colunares = AvaliacoesColunares.de(avaliacoes);
+        }
+
+        int n = colunares.quantidadeItens();
+        byte[] tema = colunares.temaAvaliacao().getBytes(StandardCharsets.UTF_8);
+        byte[][] nomes = new byte[n][];
+        String[] textos = new String[n];
+        long bytesNomes = 0;
+        for (int id = 0; id < n; id++) {
+            textos[id] = colunares.nomeItem(id);
+            nomes[id] = textos[id].getBytes(StandardCharsets.UTF_8);
+            bytesNomes += nomes[id].length;
+        }
+        int t = FormatoInstantaneo.tamanhoTabela(n);
+
+        long tamanho = FormatoInstantaneo.alinhar(FormatoInstantaneo.CAMPOS_AVALIACOES + 4L * n + 4L * n
+                + 4L * (n + 1) + 4L * t + tema.length + bytesNomes);
+        ByteBuffer conteudo = alocarConteudo(tamanho);
+        conteudo.putInt(n).putInt(t).putInt(tema.length).putInt((int) bytesNomes);
+        conteudo.asFloatBuffer().put(colunares.copiarMedias(null), 0, n);
+        conteudo.position(conteudo.position() + 4 * n);
+        conteudo.asIntBuffer().put(colunares.copiarQuantidades(null), 0, n);
+        conteudo.position(conteudo.position() + 4 * n);
+        escreverInicios(conteudo, nomes);
+        escreverTabela(conteudo, textos, t);
+        conteudo.put(tema);
+        for (byte[] nome : nomes) {
+            conteudo.put(nome);
+        }
+
+        long posicao = acrescentarSegmento(canal, FormatoInstantaneo.SEGMENTO_AVALIACOES, conteudo);
+        registrarAvaliacoes(colunares.temaAvaliacao(), posicao, conteudo.capacity());
+        compactarSeNecessario();
+    }
+
+    /**
+     * Grava um lote de páginas. Páginas já gravadas antes com o mesmo título são
+     * substituídas pelas novas; se o lote tiver títulos repetidos, vale a
+     * última página.
+     *
+     * @param paginas Páginas gravadas
+     */
+    public synchronized void escreverPaginas(Collection<PaginaWiki> paginas) throws IOException {
+        Map<String, PaginaWiki> unicas = new LinkedHashMap<>();
+        for (PaginaWiki pagina : paginas) {
+            unicas.remove(pagina.getTitulo());
+            unicas.put(pagina.getTitulo(), pagina);
+        }
+        List<PaginaWiki> lista = new ArrayList<>(unicas.values());
+
+        ByteBuffer conteudo = codificarPaginas(lista, false);
+        acrescentarSegmento(canal, FormatoInstantaneo.SEGMENTO_PAGINAS, conteudo);
+        registrarPaginas(new ArrayList<>(unicas.keySet()), conteudo.capacity());
+        compactarSeNecessario();
+    }
+
+    /**
+     * Monta o conteúdo de um segmento com as páginas passadas (com títulos
+     * distintos)
+     *
+     * @param miniaturasProntas Indica se os bytes das imagens das páginas já são
+     *                          miniaturas (ex: páginas lidas do próprio arquivo) e
+     *                          devem ser gravados como estão
+     */
+    private ByteBuffer codificarPaginas(List<PaginaWiki> lista, boolean miniaturasProntas) throws IOException {
+        int n = lista.size();
+        String[] textosTitulos = new String[n];
+        byte[][][] blocos = new byte[4][n][];
+        long[] bytesBlocos = new long[4];
+        for (int i = 0; i < n; i++) {
+            PaginaWiki pagina = lista.get(i);
+            textosTitulos[i] = pagina.getTitulo();
+            String endereco = pagina.getEnderecoImagem();
+            blocos[0][i] = pagina.getTitulo().getBytes(StandardCharsets.UTF_8);
+            blocos[1][i] = pagina.getResumo().getBytes(StandardCharsets.UTF_8);
+            blocos[2][i] = (endereco == null) ? new byte[0] : endereco.getBytes(StandardCharsets.UTF_8);
+            blocos[3][i] = miniaturasProntas ? bytesBaixados(pagina) : criarMiniatura(pagina);
+            for (int b = 0; b < 4; b++) {
+                bytesBlocos[b] += blocos[b][i].length;
+            }
+        }
+        for (long bytes : bytesBlocos) {
+            if (bytes > FormatoInstantaneo.TAMANHO_MAXIMO_SEGMENTO) {
+                throw new IllegalArgumentException("Lote de páginas grande demais para um segmento; grave-o em lotes menores");
+            }
+        }
+        int t = FormatoInstantaneo.tamanhoTabela(n);
+
+        long tamanho = FormatoInstantaneo.alinhar(FormatoInstantaneo.CAMPOS_PAGINAS + 16L * n + 12L * n
+                + 16L * (n + 1) + 4L * t + bytesBlocos[0] + bytesBlocos[1] + bytesBlocos[2] + bytesBlocos[3]);
+        ByteBuffer conteudo = alocarConteudo(tamanho);
+        conteudo.putInt(n).putInt(t);
+        for (long bytes : bytesBlocos) {
+            conteudo.putInt((int) bytes);
+        }
+        for (PaginaWiki pagina : lista) {
+            conteudo.putLong(pagina.getRevisao());
+        }
+        for (PaginaWiki pagina : lista) {
+            conteudo.putLong(pagina.getAtualizadaEm() == null ? Long.MIN_VALUE : pagina.getAtualizadaEm().toEpochMilli());
+        }
+        for (PaginaWiki pagina : lista) {
+            conteudo.putInt(pagina.getId());
+        }
+        for (PaginaWiki pagina : lista) {
+            conteudo.putInt(pagina.getLarguraImagem());
+        }
+        for (PaginaWiki pagina : lista) {
+            conteudo.putInt(pagina.getAlturaImagem());
+        }
+        for (byte[][] bloco : blocos) {
+            escreverInicios(conteudo, bloco);
+        }
+        escreverTabela(conteudo, textosTitulos, t);
+        for (byte[][] bloco : blocos) {
+            for (byte[] bytes : bloco) {
+                conteudo.put(bytes);
+            }
+        }
+
+        return conteudo;
+    }
+
+    /**
+     * Cria a miniatura da imagem da página (se ela já foi baixada): a imagem é
+     * reduzida ao tamanho das miniaturas e codificada em JPEG (ou em PNG, se
+     * tiver transparência). Imagens que já são pequenas são gravadas como
+     * foram baixadas.
+     *
+     * @return Os bytes da miniatura (vazio se não há miniatura)
+     */
+    private byte[] criarMiniatura(PaginaWiki pagina) throws IOException {
+        byte[] originais = (tamanhoMiniaturas == 0) ? new byte[0] : bytesBaixados(pagina);
+        if (originais.length == 0) {
+            return originais;
+        }
+
+        BufferedImage imagem = ImageIO.read(new ByteArrayInputStream(originais));
+        if (imagem == null) {
+            return new byte[0];
+        }
+        BufferedImage reduzida = CarregadorImagens.redimensionar(imagem, tamanhoMiniaturas);
+        if (reduzida == imagem) {
+            return originais;
+        }
+
+        ByteArrayOutputStream miniatura = new ByteArrayOutputStream();
+        boolean escrita = !reduzida.getColorModel().hasAlpha() && ImageIO.write(reduzida, "jpg", miniatura);
+        if (!escrita) {
+            miniatura.reset();
+            ImageIO.write(reduzida, "png", miniatura);
+        }
+        return miniatura.toByteArray();
+    }
+
+    /**
+     * Bytes da imagem da página, se ela já foi baixada (vazio se não foi)
+     */
+    private static byte[] bytesBaixados(PaginaWiki pagina) {
+        ByteBuffer baixados = pagina.bytesImagemBaixados();
+        if (baixados == null) {
+            return new byte[0];
+        }
+        byte[] bytes = new byte[baixados.remaining()];
+        baixados.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Aloca o buffer do conteúdo de um segmento
+     */
+    private static ByteBuffer alocarConteudo(long tamanho) {
+        if (tamanho > FormatoInstantaneo.TAMANHO_MAXIMO_SEGMENTO) {
+            throw new IllegalArgumentException("Dados grandes demais para um segmento: " + tamanho + " bytes");
+        }
+        return FormatoInstantaneo.alocar((int) tamanho);
+    }
+
+    /**
+     * Escreve a posição de início de cada entrada no bloco concatenado (e a
+     * posição do fim do bloco)
+     */
+    private static void escreverInicios(ByteBuffer conteudo, byte[][] entradas) {
+        int inicio = 0;
+        for (byte[] entrada : entradas) {
+            conteudo.putInt(inicio);
+            inicio += entrada.length;
+        }
+        conteudo.putInt(inicio);
+    }
+
+    /**
+     * Escreve a tabela de espalhamento (endereçamento aberto) das strings
+     */
+    private static void escreverTabela(ByteBuffer conteudo, String[] textos, int tamanhoTabela) {
+        int[] tabela = new int[tamanhoTabela];
+        int mascara = tamanhoTabela - 1;
+        for (int indice = 0; indice < textos.length; indice++) {
+            int posicao = FormatoInstantaneo.espalhar(textos[indice].hashCode()) & mascara;
+            while (tabela[posicao] != 0) {
+                posicao = (posicao + 1) & mascara;
+            }
+            tabela[posicao] = indice + 1;
+        }
+        conteudo.asIntBuffer().put(tabela);
+        conteudo.position(conteudo.position() + 4 * tamanhoTabela);
+    }
+
+    /**
+     * Acrescenta um segmento (cabeçalho, conteúdo e rodapé) ao final do arquivo
+     *
+     * @return A posição do segmento
+     */
+    private static long acrescentarSegmento(FileChannel canal, byte tipo, ByteBuffer conteudo) throws IOException {
+        conteudo.clear();
+        ByteBuffer cabecalho = FormatoInstantaneo.alocar(FormatoInstantaneo.TAMANHO_CABECALHO_SEGMENTO);
+        cabecalho.putInt(0, conteudo.capacity()).put(4, tipo);
+        ByteBuffer rodape = FormatoInstantaneo.alocar(FormatoInstantaneo.TAMANHO_RODAPE_SEGMENTO);
+        rodape.putInt(0, FormatoInstantaneo.crc(conteudo));
+
+        long posicao = canal.size();
+        escreverTudo(canal, cabecalho, posicao);
+        escreverTudo(canal, conteudo, posicao + cabecalho.capacity());
+        escreverTudo(canal, rodape, posicao + cabecalho.capacity() + conteudo.capacity());
+        return posicao;
+    }
+
+    /**
+     * Escreve todo o buffer no arquivo
+     */
+    private static void escreverTudo(FileChannel canal, ByteBuffer buffer, long posicao) throws IOException {
+        long inicio = posicao - buffer.position();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer, inicio + buffer.position());
+        }
+    }
+
+    /**
+     * Compacta o arquivo se os bytes substituídos passaram do limite
+     */
+    private void compactarSeNecessario() throws IOException {
+        if (bytesSubstituidos >= MINIMO_COMPACTACAO && bytesSubstituidos * 2 > canal.size()) {
+            compactar();
+        }
+    }
+
+    /**
+     * Reescreve o arquivo somente com os segmentos ainda válidos: o instantâneo
+     * mais recente de cada tema (na ordem em que os temas foram gravados pela
+     * primeira vez) e as versões mais recentes das páginas (os segmentos de
+     * páginas em que algumas páginas foram substituídas são recodificados só
+     * com as demais). O CRC de cada segmento copiado é verificado. O arquivo novo é escrito em um temporário e só substitui o
+     * antigo depois de gravado no disco; se algo falhar, o arquivo antigo
+     * continua sendo usado.
+     *
+     * A compactação é feita automaticamente quando necessário, mas também pode
+     * ser solicitada (ex: antes de copiar o arquivo).
+     */
+    public synchronized void compactar() throws IOException {
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".compactando");
+        try (FileChannel novo = FileChannel.open(temporario, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer cabecalhoArquivo = FormatoInstantaneo.alocar(FormatoInstantaneo.TAMANHO_CABECALHO_ARQUIVO);
+            cabecalhoArquivo.putInt(0, FormatoInstantaneo.IDENTIFICADOR_FORMATO);
+            escreverTudo(novo, cabecalhoArquivo, 0);
+
+            // Como só resta um instantâneo de cada tema, eles podem ser copiados
+            // na ordem dos temas
+            for (long posicao : segmentoDoTema.values()) {
+                int tamanho = ler(posicao, 4).getInt(0);
+                verificarCrc(posicao, mapearConteudo(posicao, tamanho));
+                copiarSegmento(novo, posicao, tamanho);
+            }
+
+            long posicao = FormatoInstantaneo.TAMANHO_CABECALHO_ARQUIVO;
+            int indicePaginas = 0;
+            while (posicao < canal.size()) {
+                ByteBuffer cabecalho = ler(posicao, FormatoInstantaneo.TAMANHO_CABECALHO_SEGMENTO);
+                int tamanho = cabecalho.getInt(0);
+                byte tipo = cabecalho.get(4);
+                ByteBuffer conteudo = mapearConteudo(posicao, tamanho);
+                verificarCrc(posicao, conteudo);
+
+                // Os instantâneos de avaliações já foram copiados
+                if (tipo == FormatoInstantaneo.SEGMENTO_PAGINAS) {
+                    SegmentoGravado gravado = segmentosPaginas.get(indicePaginas);
+                    if (gravado.vivas == gravado.paginas && gravado.paginas > 0) {
+                        copiarSegmento(novo, posicao, tamanho);
+                    }
+                    else if (gravado.vivas > 0) {
+                        SegmentoPaginas segmento = new SegmentoPaginas(conteudo);
+                        List<PaginaWiki> vivas = new ArrayList<>(gravado.vivas);
+                        for (int i = 0; i < segmento.quantidade(); i++) {
+                            if (segmentoDaPagina.get(segmento.titulo(i)) == indicePaginas) {
+                                vivas.add(segmento.pagina(i));
+                            }
+                        }
+                        acrescentarSegmento(novo, FormatoInstantaneo.SEGMENTO_PAGINAS, codificarPaginas(vivas, true));
+                    }
+                    indicePaginas++;
+                }
+                else if (tipo != FormatoInstantaneo.SEGMENTO_AVALIACOES) {
+                    // Segmentos de tipos desconhecidos (de versões futuras) são mantidos
+                    copiarSegmento(novo, posicao, tamanho);
+                }
+                posicao += tamanhoTotal(tamanho);
+            }
+            novo.force(true);
+        }
+        catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporario);
+            throw e;
+        }
+
+        Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        canal.close();
+        canal = FileChannel.open(arquivo, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        lerSegmentos();
+    }
+
+    /**
+     * Verifica o CRC do conteúdo do segmento que começa na posição passada
+     */
+    private void verificarCrc(long posicao, ByteBuffer conteudo) throws IOException {
+        int crcGravado = ler(posicao + FormatoInstantaneo.TAMANHO_CABECALHO_SEGMENTO + conteudo.capacity(), 4).getInt(0);
+        if (FormatoInstantaneo.crc(conteudo) != crcGravado) {
+            throw new IOException("Segmento corrompido na posição " + posicao + " do arquivo " + arquivo);
+        }
+    }
+
+    /**
+     * Copia um segmento inteiro (cabeçalho, conteúdo e rodapé) do arquivo para
+     * o final do canal passado
+     */
+    private void copiarSegmento(FileChannel destino, long posicao, int tamanho) throws IOException {
+        long total = tamanhoTotal(tamanho);
+        long inicioDestino = destino.size();
+        long copiados = 0;
+        while (copiados < total) {
+            long transferidos = canal.transferTo(posicao + copiados, total - copiados, destino.position(inicioDestino + copiados));
+            if (transferidos <= 0) {
+                throw new IOException("Não foi possível copiar o segmento na posição " + posicao + " do arquivo " + arquivo);
+            }
+            copiados += transferidos;
+        }
+    }
+
+    /**
+     * Mapeia (somente leitura) o conteúdo do segmento que começa na posição passada
+     */
+    private ByteBuffer mapearConteudo(long posicao, int tamanho) throws IOException {
+        return canal.map(FileChannel.MapMode.READ_ONLY, posicao + FormatoInstantaneo.TAMANHO_CABECALHO_SEGMENTO, tamanho)
+                .order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Lê bytes do arquivo na posição passada
+     */
+    private ByteBuffer ler(long posicao, int tamanho) throws IOException {
+        ByteBuffer buffer = FormatoInstantaneo.alocar(tamanho);
+        while (buffer.hasRemaining()) {
+            if (canal.read(buffer, posicao + buffer.position()) < 0) {
+                throw new EOFException("Fim inesperado do arquivo de instantâneos " + arquivo);
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * Tamanho de um segmento com cabeçalho e rodapé
+     */
+    private static long tamanhoTotal(int tamanhoConteudo) {
+        return FormatoInstantaneo.TAMANHO_CABECALHO_SEGMENTO + (long) tamanhoConteudo + FormatoInstantaneo.TAMANHO_RODAPE_SEGMENTO;
+    }
+
+    /**
+     * Garante que os segmentos já gravados estão no disco (e não só nos buffers
+     * do sistema operacional)
+     */
+    @Override
+    public synchronized void flush() throws IOException {
+        canal.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        canal.close();
+    }
+
+    /**
+     * Segmento de páginas gravado no arquivo, com a quantidade de páginas que
+     * ainda não foram substituídas
+     */
+    private static class SegmentoGravado {
+        private final long tamanhoTotal;
+        private final int paginas;
+        private int vivas;
+
+        private SegmentoGravado(long tamanhoTotal, int paginas) {
+            this.tamanhoTotal = tamanhoTotal;
+            this.paginas = paginas;
+            this.vivas = paginas;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package br.ufla.gac106.s2022_2.base.persistencia;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32;
+
+/**
+ * Constantes e funções do formato dos arquivos de instantâneos (usadas pelo
+ * EscritorInstantaneo e pelo ArquivoInstantaneo).
+ *
+ * O arquivo começa com um cabeçalho de 8 bytes (o identificador do formato e 4
+ * bytes reservados), seguido de segmentos que são sempre acrescentados ao
+ * final. Cada segmento tem:
+ *
+ * - um cabeçalho de 8 bytes: o tamanho do conteúdo (int), o tipo (byte) e 3
+ *   bytes reservados;
+ * - o conteúdo, com tamanho múltiplo de 8;
+ * - um rodapé de 8 bytes: o CRC-32 do conteúdo (int) e 4 bytes reservados.
+ *
+ * Todos os números são little-endian (a ordem nativa dos processadores x86 e
+ * ARM), e as colunas de cada segmento começam em posições alinhadas ao tamanho
+ * de seus elementos, de forma que podem ser lidas diretamente do arquivo
+ * mapeado em memória, sem cópias nem conversões.
+ *
+ * Conteúdo de um segmento de avaliações (um instantâneo completo de um tema):
+ * quantidade de itens n, tamanho t da tabela de espalhamento, tamanho em bytes
+ * do tema e tamanho em bytes dos nomes (4 ints); médias (float[n]); quantidades
+ * de avaliações (int[n]); início do nome de cada item (int[n + 1]); tabela de
+ * espalhamento dos nomes (int[t]); tema (UTF-8); nomes (UTF-8, concatenados).
+ *
+ * Conteúdo de um segmento de páginas: quantidade de páginas n, tamanho t da
+ * tabela e tamanhos em bytes dos títulos, resumos, endereços de imagens e
+ * miniaturas (6 ints); revisões (long[n]); instantes das últimas atualizações
+ * em milissegundos (long[n], Long.MIN_VALUE se desconhecido); identificadores,
+ * larguras e alturas das imagens (3 x int[n]); início de cada título, resumo,
+ * endereço e miniatura (4 x int[n + 1]); tabela de espalhamento dos títulos
+ * (int[t]); títulos, resumos e endereços (UTF-8) e miniaturas (bytes de imagens
+ * JPEG ou PNG), concatenados.
+ *
+ * As tabelas de espalhamento usam endereçamento aberto: cada posição guarda o
+ * índice do item + 1 (0 = vazia), e a posição inicial de um nome é calculada a
+ * partir do seu hashCode (que é definido pela especificação da classe String
+ * e, portanto, é o mesmo em qualquer JVM).
+ */
+final class FormatoInstantaneo {
+    // Identificador do formato do arquivo ("JWS" + versão)
+    static final int IDENTIFICADOR_FORMATO = 0x4A575301;
+    static final int TAMANHO_CABECALHO_ARQUIVO = 8;
+    static final int TAMANHO_CABECALHO_SEGMENTO = 8;
+    static final int TAMANHO_RODAPE_SEGMENTO = 8;
+
+    // Tipos de segmento
+    static final byte SEGMENTO_AVALIACOES = 1;
+    static final byte SEGMENTO_PAGINAS = 2;
+
+    // Tamanho dos campos iniciais do conteúdo de cada tipo de segmento
+    static final int CAMPOS_AVALIACOES = 16;
+    static final int CAMPOS_PAGINAS = 24;
+
+    // Maior conteúdo de segmento (cada segmento é mapeado em um único buffer)
+    static final int TAMANHO_MAXIMO_SEGMENTO = Integer.MAX_VALUE - 15;
+
+    private FormatoInstantaneo() {
+    }
+
+    /**
+     * Arredonda o valor para cima, até um múltiplo de 8
+     */
+    static long alinhar(long valor) {
+        return (valor + 7) & ~7L;
+    }
+
+    /**
+     * Tamanho da tabela de espalhamento (potência de 2) que mantém a ocupação
+     * abaixo de 50%
+     */
+    static int tamanhoTabela(int itens) {
+        return Integer.highestOneBit(Math.max(itens, 4) * 2 - 1) * 2;
+    }
+
+    /**
+     * Mistura os bits do código de espalhamento (os códigos das strings costumam
+     * variar pouco nos bits mais baixos)
+     */
+    static int espalhar(int codigo) {
+        codigo *= 0x9E3779B9;
+        return codigo ^ (codigo >>> 16);
+    }
+
+    /**
+     * Calcula o CRC-32 dos bytes passados (sem alterar a posição do buffer)
+     */
+    static int crc(ByteBuffer bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes.duplicate());
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Cria um buffer (no heap) com a ordem de bytes do formato
+     */
+    static ByteBuffer alocar(int tamanho) {
+        return ByteBuffer.allocate(tamanho).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Fatia do buffer entre as posições passadas, com a ordem de bytes do
+     * formato (compartilha o conteúdo com o buffer original)
+     */
+    static ByteBuffer fatia(ByteBuffer buffer, int inicio, int fim) {
+        ByteBuffer copia = buffer.duplicate();
+        copia.limit(fim).position(inicio);
+        return copia.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
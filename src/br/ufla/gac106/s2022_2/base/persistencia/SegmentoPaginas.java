@@ -0,0 +1,101 @@
+package br.ufla.gac106.s2022_2.base.persistencia;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.time.Instant;
+
+import br.ufla.gac106.javaWikiAPI.PaginaWiki;
+
+/**
+ * Visão somente de leitura de um segmento de páginas de um arquivo de
+ * instantâneos, diretamente sobre o arquivo mapeado em memória. Os objetos
+ * PaginaWiki só são criados quando solicitados, e suas miniaturas são fatias
+ * do arquivo mapeado (não são copiadas para o heap).
+ */
+class SegmentoPaginas {
+    private final LongBuffer revisoes;
+    private final LongBuffer atualizacoes;
+    private final IntBuffer ids;
+    private final IntBuffer larguras;
+    private final IntBuffer alturas;
+    private final DicionarioStrings titulos;
+    private final DicionarioStrings resumos;
+    private final DicionarioStrings enderecos;
+    private final DicionarioStrings miniaturas;
+
+    /**
+     * Cria a visão sobre o conteúdo de um segmento de páginas
+     */
+    SegmentoPaginas(ByteBuffer conteudo) {
+        int n = conteudo.getInt(0);
+        int t = conteudo.getInt(4);
+        int[] bytes = { conteudo.getInt(8), conteudo.getInt(12), conteudo.getInt(16), conteudo.getInt(20) };
+
+        int posicao = FormatoInstantaneo.CAMPOS_PAGINAS;
+        revisoes = FormatoInstantaneo.fatia(conteudo, posicao, posicao + 8 * n).asLongBuffer();
+        posicao += 8 * n;
+        atualizacoes = FormatoInstantaneo.fatia(conteudo, posicao, posicao + 8 * n).asLongBuffer();
+        posicao += 8 * n;
+        ids = FormatoInstantaneo.fatia(conteudo, posicao, posicao + 4 * n).asIntBuffer();
+        posicao += 4 * n;
+        larguras = FormatoInstantaneo.fatia(conteudo, posicao, posicao + 4 * n).asIntBuffer();
+        posicao += 4 * n;
+        alturas = FormatoInstantaneo.fatia(conteudo, posicao, posicao + 4 * n).asIntBuffer();
+        posicao += 4 * n;
+
+        IntBuffer[] inicios = new IntBuffer[4];
+        for (int i = 0; i < inicios.length; i++) {
+            inicios[i] = FormatoInstantaneo.fatia(conteudo, posicao, posicao + 4 * (n + 1)).asIntBuffer();
+            posicao += 4 * (n + 1);
+        }
+        IntBuffer tabela = FormatoInstantaneo.fatia(conteudo, posicao, posicao + 4 * t).asIntBuffer();
+        posicao += 4 * t;
+
+        ByteBuffer[] blocos = new ByteBuffer[4];
+        for (int i = 0; i < blocos.length; i++) {
+            blocos[i] = FormatoInstantaneo.fatia(conteudo, posicao, posicao + bytes[i]);
+            posicao += bytes[i];
+        }
+        titulos = new DicionarioStrings(inicios[0], blocos[0], tabela);
+        resumos = new DicionarioStrings(inicios[1], blocos[1], null);
+        enderecos = new DicionarioStrings(inicios[2], blocos[2], null);
+        miniaturas = new DicionarioStrings(inicios[3], blocos[3], null);
+    }
+
+    /**
+     * Quantidade de páginas do segmento
+     */
+    int quantidade() {
+        return ids.limit();
+    }
+
+    /**
+     * Índice da página com o título passado
+     *
+     * @return O índice (ou -1 se a página não está no segmento)
+     */
+    int buscar(String titulo) {
+        return titulos.buscar(titulo);
+    }
+
+    /**
+     * Título da página com o índice passado
+     */
+    String titulo(int indice) {
+        return titulos.obter(indice);
+    }
+
+    /**
+     * Cria o objeto da página com o índice passado
+     */
+    PaginaWiki pagina(int indice) {
+        // Páginas sem imagem são gravadas com endereço vazio
+        String endereco = (enderecos.tamanhoBytes(indice) == 0) ? null : enderecos.obter(indice);
+        ByteBuffer miniatura = (miniaturas.tamanhoBytes(indice) == 0) ? null : miniaturas.fatia(indice);
+        long atualizadaEm = atualizacoes.get(indice);
+        return new PaginaWiki(titulos.obter(indice), ids.get(indice), resumos.obter(indice), endereco,
+                larguras.get(indice), alturas.get(indice), miniatura, revisoes.get(indice),
+                (atualizadaEm == Long.MIN_VALUE) ? null : Instant.ofEpochMilli(atualizadaEm));
+    }
+}
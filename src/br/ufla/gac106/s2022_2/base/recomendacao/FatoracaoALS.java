@@ -0,0 +1,493 @@
+package br.ufla.gac106.s2022_2.base.recomendacao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Recomendador por fatoração de matrizes (fatores latentes), treinado com
+ * mínimos quadrados alternados (ALS).
+ * 
+ * Cada usuário e cada item são representados por um vetor de f fatores, e a
+ * nota prevista do usuário u para o item i é a média geral das notas mais o
+ * produto escalar dos vetores de u e de i. O treinamento alterna duas fases:
+ * com os fatores dos itens fixos, o vetor de cada usuário é a solução de um
+ * sistema linear f x f (resolvido por Cholesky); depois o mesmo é feito para
+ * os itens. Em cada fase os sistemas são independentes e são resolvidos em
+ * paralelo (fork-join).
+ * 
+ * Os fatores ficam em dois vetores de floats (f posições por usuário/item), de
+ * forma que o modelo ocupa (usuários + itens) x f floats, independentemente da
+ * quantidade de avaliações. Usuários que não estavam na matriz de treinamento
+ * podem receber recomendações sem retreinar o modelo (veja
+ * recomendarNovoUsuario).
+ * 
+ * Use FatoracaoALS.builder() para configurar e treinar o modelo.
+ */
+public class FatoracaoALS implements Recomendador {
+    // Quantidade de usuários/itens de cada bloco processado por uma tarefa do fork-join
+    private static final int TAMANHO_BLOCO = 64;
+
+    private final MatrizAvaliacoes matriz;
+    private final int fatores;
+    private final float regularizacao;
+    private final float mediaGeral;
+    // Fatores do usuário u nas posições [u * fatores, (u + 1) * fatores)
+    private final float[] fatoresUsuarios;
+    // Fatores do item i nas posições [i * fatores, (i + 1) * fatores)
+    private final float[] fatoresItens;
+    // Heap usado pelas recomendações de cada thread
+    private final ThreadLocal<HeapMinimo> heaps = ThreadLocal.withInitial(() -> new HeapMinimo(10));
+
+    private FatoracaoALS(Builder builder, MatrizAvaliacoes matriz) {
+        this.matriz = matriz;
+        this.fatores = builder.fatores;
+        this.regularizacao = builder.regularizacao;
+
+        double soma = 0;
+        for (float nota : matriz.notasDoUsuario) {
+            soma += nota;
+        }
+        mediaGeral = (matriz.quantidadeAvaliacoes() == 0) ? 0 : (float) (soma / matriz.quantidadeAvaliacoes());
+
+        fatoresUsuarios = new float[matriz.quantidadeUsuarios() * fatores];
+        fatoresItens = new float[matriz.quantidadeItens() * fatores];
+        Random aleatorio = new Random(builder.semente);
+        for (int p = 0; p < fatoresItens.length; p++) {
+            fatoresItens[p] = (float) (aleatorio.nextGaussian() * 0.1);
+        }
+
+        for (int iteracao = 0; iteracao < builder.iteracoes; iteracao++) {
+            builder.pool.invoke(new TarefaFase(true, 0, matriz.quantidadeUsuarios()));
+            builder.pool.invoke(new TarefaFase(false, 0, matriz.quantidadeItens()));
+        }
+    }
+
+    /**
+     * Cria um builder para configurar e treinar o modelo
+     * (ex: FatoracaoALS.builder().fatores(32).iteracoes(15).treinar(matriz))
+     * 
+     * @return O builder com as configurações padrões
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Tarefa do fork-join que resolve os sistemas de um intervalo de usuários
+     * (ou de itens), dividindo-o ao meio enquanto ele for maior que um bloco
+     */
+    private class TarefaFase extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final boolean usuarios;
+        private final int inicio;
+        private final int fim;
+
+        public TarefaFase(boolean usuarios, int inicio, int fim) {
+            this.usuarios = usuarios;
+            this.inicio = inicio;
+            this.fim = fim;
+        }
+
+        @Override
+        protected void compute() {
+            if (fim - inicio <= TAMANHO_BLOCO) {
+                // Matriz e vetor do sistema, reaproveitados pelo bloco todo
+                double[] a = new double[fatores * fatores];
+                double[] b = new double[fatores];
+                for (int id = inicio; id < fim; id++) {
+                    if (usuarios) {
+                        resolver(matriz.inicioUsuario[id], matriz.inicioUsuario[id + 1], matriz.itensDoUsuario,
+                                 matriz.notasDoUsuario, fatoresItens, fatoresUsuarios, id * fatores, a, b);
+                    } else {
+                        resolver(matriz.inicioItem[id], matriz.inicioItem[id + 1], matriz.usuariosDoItem,
+                                 matriz.notasDoItem, fatoresUsuarios, fatoresItens, id * fatores, a, b);
+                    }
+                }
+            } else {
+                int meio = (inicio + fim) >>> 1;
+                invokeAll(new TarefaFase(usuarios, inicio, meio), new TarefaFase(usuarios, meio, fim));
+            }
+        }
+    }
+
+    /**
+     * Calcula os fatores de um usuário (ou item) a partir de suas avaliações e
+     * dos fatores fixos do outro lado: resolve (Yt Y + lambda n I) x = Yt r
+     * 
+     * @param inicio  Posição da primeira avaliação
+     * @param fim     Posição seguinte à última avaliação
+     * @param outros  Identificadores do outro lado de cada avaliação
+     * @param notas   Notas de cada avaliação
+     * @param fixos   Fatores fixos (do outro lado)
+     * @param destino Vetor onde os fatores calculados são guardados
+     * @param posicao Posição dos fatores calculados no destino
+     * @param a       Espaço para a matriz do sistema (fatores x fatores)
+     * @param b       Espaço para o vetor do sistema (fatores)
+     */
+    private void resolver(int inicio, int fim, int[] outros, float[] notas, float[] fixos,
+                          float[] destino, int posicao, double[] a, double[] b) {
+        int n = fim - inicio;
+        if (n == 0) {
+            Arrays.fill(destino, posicao, posicao + fatores, 0);
+            return;
+        }
+        Arrays.fill(a, 0);
+        Arrays.fill(b, 0);
+        for (int p = inicio; p < fim; p++) {
+            int base = outros[p] * fatores;
+            double residuo = notas[p] - mediaGeral;
+            // Só o triângulo inferior é preenchido (a matriz é simétrica)
+            for (int l = 0; l < fatores; l++) {
+                double yl = fixos[base + l];
+                b[l] += residuo * yl;
+                int linha = l * fatores;
+                for (int c = 0; c <= l; c++) {
+                    a[linha + c] += yl * fixos[base + c];
+                }
+            }
+        }
+        double lambda = regularizacao * n;
+        for (int l = 0; l < fatores; l++) {
+            a[l * fatores + l] += lambda;
+        }
+        resolverCholesky(a, b, fatores);
+        for (int l = 0; l < fatores; l++) {
+            destino[posicao + l] = (float) b[l];
+        }
+    }
+
+    /**
+     * Resolve o sistema A x = b, com A simétrica e positiva definida, pela
+     * decomposição de Cholesky (A = L Lt). Só o triângulo inferior de A é usado;
+     * A é sobrescrita por L e b pela solução.
+     */
+    static void resolverCholesky(double[] a, double[] b, int n) {
+        for (int j = 0; j < n; j++) {
+            int linhaJ = j * n;
+            double diagonal = a[linhaJ + j];
+            for (int k = 0; k < j; k++) {
+                diagonal -= a[linhaJ + k] * a[linhaJ + k];
+            }
+            diagonal = Math.sqrt(Math.max(diagonal, 1e-12));
+            a[linhaJ + j] = diagonal;
+            for (int i = j + 1; i < n; i++) {
+                int linhaI = i * n;
+                double soma = a[linhaI + j];
+                for (int k = 0; k < j; k++) {
+                    soma -= a[linhaI + k] * a[linhaJ + k];
+                }
+                a[linhaI + j] = soma / diagonal;
+            }
+        }
+        // L y = b
+        for (int i = 0; i < n; i++) {
+            double soma = b[i];
+            for (int k = 0; k < i; k++) {
+                soma -= a[i * n + k] * b[k];
+            }
+            b[i] = soma / a[i * n + i];
+        }
+        // Lt x = y
+        for (int i = n - 1; i >= 0; i--) {
+            double soma = b[i];
+            for (int k = i + 1; k < n; k++) {
+                soma -= a[k * n + i] * b[k];
+            }
+            b[i] = soma / a[i * n + i];
+        }
+    }
+
+    /**
+     * Nota prevista do usuário para o item
+     * 
+     * @param usuario Identificador do usuário na matriz
+     * @param item    Identificador do item na matriz
+     */
+    public float preverNota(int usuario, int item) {
+        return mediaGeral + produto(fatoresUsuarios, usuario * fatores, item);
+    }
+
+    /**
+     * Produto escalar de um vetor de fatores com os fatores do item
+     */
+    private float produto(float[] vetor, int posicao, int item) {
+        int base = item * fatores;
+        float soma = 0;
+        for (int l = 0; l < fatores; l++) {
+            soma += vetor[posicao + l] * fatoresItens[base + l];
+        }
+        return soma;
+    }
+
+    /**
+     * Raiz do erro quadrático médio das notas previstas para as avaliações da
+     * matriz de treinamento
+     */
+    public double raizErroQuadraticoMedio() {
+        double soma = 0;
+        for (int u = 0; u < matriz.quantidadeUsuarios(); u++) {
+            for (int p = matriz.inicioUsuario[u]; p < matriz.inicioUsuario[u + 1]; p++) {
+                double erro = matriz.notasDoUsuario[p] - preverNota(u, matriz.itensDoUsuario[p]);
+                soma += erro * erro;
+            }
+        }
+        return Math.sqrt(soma / Math.max(1, matriz.quantidadeAvaliacoes()));
+    }
+
+    /**
+     * Recomenda itens que o usuário ainda não avaliou
+     * 
+     * @param usuario    Nome do usuário
+     * @param quantidade Quantidade máxima de itens recomendados
+     * 
+     * @return Os itens recomendados, do mais recomendado para o menos recomendado
+     *         (lista vazia se o usuário não for conhecido)
+     */
+    @Override
+    public List<Recomendacao> recomendar(String usuario, int quantidade) {
+        int id = matriz.idUsuario(usuario);
+        return (id < 0) ? Collections.emptyList() : recomendar(id, quantidade);
+    }
+
+    /**
+     * Recomenda itens que o usuário ainda não avaliou
+     * 
+     * @param usuario    Identificador do usuário na matriz
+     * @param quantidade Quantidade máxima de itens recomendados
+     * 
+     * @return Os itens recomendados, do mais recomendado para o menos recomendado
+     *         (a pontuação é a nota prevista)
+     */
+    public List<Recomendacao> recomendar(int usuario, int quantidade) {
+        return criarLista(selecionarParaUsuario(usuario, quantidade));
+    }
+
+    /**
+     * Seleciona os itens que o usuário ainda não avaliou com as maiores notas
+     * previstas, sem alocar objetos
+     * 
+     * @param usuario    Identificador do usuário na matriz
+     * @param quantidade Quantidade máxima de itens recomendados
+     * 
+     * @return Heap da thread atual com os itens selecionados (use
+     *         extrairOrdenado para obtê-los)
+     */
+    private HeapMinimo selecionarParaUsuario(int usuario, int quantidade) {
+        return selecionar(fatoresUsuarios, usuario * fatores, matriz.itensDoUsuario,
+                          matriz.inicioUsuario[usuario], matriz.inicioUsuario[usuario + 1], quantidade);
+    }
+
+    /**
+     * Copia para os vetores de destino os itens que o usuário ainda não avaliou
+     * com as maiores notas previstas. Não aloca objetos, o que é útil quando
+     * muitas recomendações são feitas em sequência.
+     * 
+     * @param usuario       Identificador do usuário na matriz
+     * @param itensDestino  Vetor que recebe os identificadores dos itens (o seu
+     *                      tamanho é a quantidade máxima de itens recomendados)
+     * @param notasDestino  Vetor que recebe as notas previstas
+     * 
+     * @return Quantidade de itens recomendados, do mais recomendado para o menos
+     *         recomendado
+     */
+    public int recomendar(int usuario, int[] itensDestino, float[] notasDestino) {
+        return selecionarParaUsuario(usuario, itensDestino.length).extrairOrdenado(itensDestino, notasDestino, 0);
+    }
+
+    /**
+     * Recomenda itens a um usuário que não estava na matriz de treinamento
+     * (fold-in): os fatores do usuário são calculados a partir das notas
+     * passadas, mantendo fixos os fatores dos itens. Itens desconhecidos são
+     * ignorados.
+     * 
+     * @param notas      Notas dadas pelo usuário, por nome do item
+     * @param quantidade Quantidade máxima de itens recomendados
+     * 
+     * @return Os itens recomendados (exceto os já avaliados), do mais
+     *         recomendado para o menos recomendado
+     */
+    public List<Recomendacao> recomendarNovoUsuario(Map<String, Double> notas, int quantidade) {
+        int[] itens = new int[notas.size()];
+        float[] valores = new float[notas.size()];
+        int n = 0;
+        for (Map.Entry<String, Double> nota : notas.entrySet()) {
+            int item = matriz.idItem(nota.getKey());
+            if (item >= 0) {
+                itens[n] = item;
+                valores[n] = nota.getValue().floatValue();
+                n++;
+            }
+        }
+        // Ordena as avaliações pelo item (usadas para excluir os itens avaliados)
+        long[] chaves = new long[n];
+        for (int p = 0; p < n; p++) {
+            chaves[p] = ((long) itens[p] << 32) | p;
+        }
+        Arrays.sort(chaves);
+        int[] itensOrdenados = new int[n];
+        float[] notasOrdenadas = new float[n];
+        for (int p = 0; p < n; p++) {
+            itensOrdenados[p] = (int) (chaves[p] >>> 32);
+            notasOrdenadas[p] = valores[(int) chaves[p]];
+        }
+
+        float[] vetor = fatoresNovoUsuario(itensOrdenados, notasOrdenadas, n);
+        return criarLista(selecionar(vetor, 0, itensOrdenados, 0, n, quantidade));
+    }
+
+    /**
+     * Calcula os fatores de um usuário novo a partir de suas avaliações
+     * 
+     * @param itens Identificadores dos itens avaliados
+     * @param notas Notas dadas aos itens
+     * @param n     Quantidade de avaliações
+     * 
+     * @return Os fatores do usuário
+     */
+    public float[] fatoresNovoUsuario(int[] itens, float[] notas, int n) {
+        float[] vetor = new float[fatores];
+        resolver(0, n, itens, notas, fatoresItens, vetor, 0, new double[fatores * fatores], new double[fatores]);
+        return vetor;
+    }
+
+    /**
+     * Seleciona os itens com maiores notas previstas para o vetor de fatores,
+     * exceto os itens avaliados (passados em ordem crescente)
+     */
+    private HeapMinimo selecionar(float[] vetor, int posicao, int[] avaliados, int inicio, int fim, int quantidade) {
+        HeapMinimo heap = heaps.get();
+        if (heap.capacidade() < quantidade) {
+            heap = new HeapMinimo(quantidade);
+            heaps.set(heap);
+        }
+        heap.limpar(quantidade);
+
+        // Os itens são percorridos em ordem, junto com os itens avaliados
+        int proximoAvaliado = inicio;
+        for (int item = 0; item < matriz.quantidadeItens(); item++) {
+            if (proximoAvaliado < fim && avaliados[proximoAvaliado] == item) {
+                proximoAvaliado++;
+                continue;
+            }
+            heap.oferecer(item, mediaGeral + produto(vetor, posicao, item));
+        }
+        return heap;
+    }
+
+    /**
+     * Cria a lista de recomendações com os itens do heap
+     */
+    private List<Recomendacao> criarLista(HeapMinimo heap) {
+        int[] itens = new int[heap.tamanho()];
+        float[] notas = new float[heap.tamanho()];
+        int total = heap.extrairOrdenado(itens, notas, 0);
+        List<Recomendacao> recomendacoes = new ArrayList<>(total);
+        for (int r = 0; r < total; r++) {
+            recomendacoes.add(new Recomendacao(itens[r], matriz.nomeItem(itens[r]), notas[r]));
+        }
+        return recomendacoes;
+    }
+
+    public int getFatores() {
+        return fatores;
+    }
+
+    public float getRegularizacao() {
+        return regularizacao;
+    }
+
+    /**
+     * Matriz de avaliações usada no treinamento
+     */
+    public MatrizAvaliacoes getMatriz() {
+        return matriz;
+    }
+
+    /**
+     * Classe que permite configurar e treinar um modelo FatoracaoALS.
+     * Todos os métodos (exceto treinar) retornam o próprio builder, para que
+     * possam ser encadeados.
+     */
+    public static class Builder {
+        private int fatores = 20;
+        private float regularizacao = 0.05f;
+        private int iteracoes = 10;
+        private long semente = 42;
+        private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+        /**
+         * Builder com as configurações padrões (use FatoracaoALS.builder())
+         */
+        private Builder() {
+        }
+
+        /**
+         * Quantidade de fatores latentes por usuário/item (o padrão é 20)
+         */
+        public Builder fatores(int fatores) {
+            if (fatores <= 0) {
+                throw new IllegalArgumentException("A quantidade de fatores deve ser positiva");
+            }
+            this.fatores = fatores;
+            return this;
+        }
+
+        /**
+         * Peso da regularização (o padrão é 0.05). O peso é multiplicado pela
+         * quantidade de avaliações de cada usuário/item.
+         */
+        public Builder regularizacao(double regularizacao) {
+            if (regularizacao <= 0) {
+                throw new IllegalArgumentException("A regularização deve ser positiva");
+            }
+            this.regularizacao = (float) regularizacao;
+            return this;
+        }
+
+        /**
+         * Quantidade de iterações (cada uma com uma fase de usuários e uma de
+         * itens). O padrão é 10.
+         */
+        public Builder iteracoes(int iteracoes) {
+            if (iteracoes < 0) {
+                throw new IllegalArgumentException("A quantidade de iterações não pode ser negativa");
+            }
+            this.iteracoes = iteracoes;
+            return this;
+        }
+
+        /**
+         * Semente da inicialização aleatória dos fatores dos itens
+         */
+        public Builder semente(long semente) {
+            this.semente = semente;
+            return this;
+        }
+
+        /**
+         * Pool do fork-join usado no treinamento (o padrão é o pool comum)
+         */
+        public Builder pool(ForkJoinPool pool) {
+            this.pool = pool;
+            return this;
+        }
+
+        /**
+         * Treina o modelo com as configurações do builder
+         * 
+         * @param matriz Matriz de avaliações de treinamento
+         * 
+         * @return O modelo treinado
+         */
+        public FatoracaoALS treinar(MatrizAvaliacoes matriz) {
+            return new FatoracaoALS(this, matriz);
+        }
+    }
+}
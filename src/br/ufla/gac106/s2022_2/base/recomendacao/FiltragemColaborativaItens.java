@@ -0,0 +1,358 @@
+package br.ufla.gac106.s2022_2.base.recomendacao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Recomendador por filtragem colaborativa item-item.
+ * 
+ * No treinamento, é calculada a similaridade entre cada par de itens avaliados
+ * pelos mesmos usuários (cosseno ou cosseno ajustado) e, para cada item, são
+ * guardados somente os k itens mais similares (vizinhos). O cálculo é feito em
+ * paralelo (fork-join), dividindo os itens em blocos.
+ * 
+ * Para recomendar itens a um usuário, a nota que ele daria a cada item não
+ * avaliado é prevista pela média das notas que ele deu aos vizinhos desse item,
+ * ponderada pela similaridade. Como só as listas de vizinhos são consultadas, a
+ * recomendação é rápida (tipicamente menos de 1 ms) e pode ser feita por várias
+ * threads ao mesmo tempo.
+ */
+public class FiltragemColaborativaItens implements Recomendador {
+    // Quantidade de itens de cada bloco processado por uma tarefa do fork-join
+    private static final int TAMANHO_BLOCO = 32;
+
+    /**
+     * Medida de similaridade entre itens
+     */
+    public enum Similaridade {
+        /** Cosseno entre os vetores de notas dos itens */
+        COSSENO,
+        /**
+         * Cosseno entre os vetores de notas dos itens, descontada a média de cada
+         * usuário (compensa usuários que dão notas sistematicamente mais altas ou
+         * mais baixas)
+         */
+        COSSENO_AJUSTADO
+    }
+
+    private final MatrizAvaliacoes matriz;
+    private final Similaridade similaridade;
+    private final int k;
+    // Vizinhos do item i: posições [i * k, i * k + quantidadeVizinhos[i]) de
+    // vizinhos e similaridades, da maior similaridade para a menor
+    private final int[] vizinhos;
+    private final float[] similaridades;
+    private final int[] quantidadeVizinhos;
+    // Vetores de trabalho de cada thread que faz recomendações
+    private final ThreadLocal<Rascunho> rascunhos;
+
+    /**
+     * Treina o recomendador usando o pool comum do fork-join
+     * 
+     * @param matriz       Matriz de avaliações
+     * @param similaridade Medida de similaridade entre itens
+     * @param k            Quantidade de vizinhos guardados por item
+     */
+    public FiltragemColaborativaItens(MatrizAvaliacoes matriz, Similaridade similaridade, int k) {
+        this(matriz, similaridade, k, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Treina o recomendador
+     * 
+     * @param matriz       Matriz de avaliações
+     * @param similaridade Medida de similaridade entre itens
+     * @param k            Quantidade de vizinhos guardados por item
+     * @param pool         Pool do fork-join usado no cálculo das similaridades
+     */
+    public FiltragemColaborativaItens(MatrizAvaliacoes matriz, Similaridade similaridade, int k, ForkJoinPool pool) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("A quantidade de vizinhos deve ser positiva");
+        }
+        this.matriz = matriz;
+        this.similaridade = similaridade;
+        this.k = k;
+        int itens = matriz.quantidadeItens();
+        vizinhos = new int[itens * k];
+        similaridades = new float[itens * k];
+        quantidadeVizinhos = new int[itens];
+        rascunhos = ThreadLocal.withInitial(() -> new Rascunho(matriz.quantidadeItens(), this.k));
+
+        float[] normas = calcularNormas();
+        ThreadLocal<Rascunho> rascunhosTreino = ThreadLocal.withInitial(() -> new Rascunho(matriz.quantidadeItens(), this.k));
+        pool.invoke(new TarefaSimilaridades(0, itens, normas, rascunhosTreino));
+    }
+
+    /**
+     * Nota usada no cálculo (descontada a média do usuário no cosseno ajustado)
+     */
+    private float valor(int usuario, float nota) {
+        return (similaridade == Similaridade.COSSENO_AJUSTADO) ? nota - matriz.mediasUsuarios[usuario] : nota;
+    }
+
+    /**
+     * Calcula a norma do vetor de notas de cada item
+     */
+    private float[] calcularNormas() {
+        float[] normas = new float[matriz.quantidadeItens()];
+        for (int i = 0; i < normas.length; i++) {
+            double soma = 0;
+            for (int p = matriz.inicioItem[i]; p < matriz.inicioItem[i + 1]; p++) {
+                float v = valor(matriz.usuariosDoItem[p], matriz.notasDoItem[p]);
+                soma += v * v;
+            }
+            normas[i] = (float) Math.sqrt(soma);
+        }
+        return normas;
+    }
+
+    /**
+     * Tarefa do fork-join que calcula os vizinhos de um intervalo de itens,
+     * dividindo-o ao meio enquanto ele for maior que um bloco
+     */
+    private class TarefaSimilaridades extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int inicio;
+        private final int fim;
+        private final float[] normas;
+        private final ThreadLocal<Rascunho> rascunhosTreino;
+
+        public TarefaSimilaridades(int inicio, int fim, float[] normas, ThreadLocal<Rascunho> rascunhosTreino) {
+            this.inicio = inicio;
+            this.fim = fim;
+            this.normas = normas;
+            this.rascunhosTreino = rascunhosTreino;
+        }
+
+        @Override
+        protected void compute() {
+            if (fim - inicio <= TAMANHO_BLOCO) {
+                Rascunho rascunho = rascunhosTreino.get();
+                for (int item = inicio; item < fim; item++) {
+                    calcularVizinhos(item, normas, rascunho);
+                }
+            } else {
+                int meio = (inicio + fim) >>> 1;
+                invokeAll(new TarefaSimilaridades(inicio, meio, normas, rascunhosTreino),
+                          new TarefaSimilaridades(meio, fim, normas, rascunhosTreino));
+            }
+        }
+    }
+
+    /**
+     * Calcula a similaridade do item com todos os itens avaliados pelos mesmos
+     * usuários e guarda os k mais similares
+     */
+    private void calcularVizinhos(int item, float[] normas, Rascunho rascunho) {
+        if (normas[item] == 0) {
+            return;
+        }
+        float[] produtos = rascunho.acumulador;
+        int[] tocados = rascunho.tocados;
+        int quantidadeTocados = 0;
+
+        // Produto escalar com os outros itens, percorrendo os usuários que avaliaram o item
+        for (int p = matriz.inicioItem[item]; p < matriz.inicioItem[item + 1]; p++) {
+            int usuario = matriz.usuariosDoItem[p];
+            float nota = valor(usuario, matriz.notasDoItem[p]);
+            if (nota == 0) {
+                continue;
+            }
+            for (int q = matriz.inicioUsuario[usuario]; q < matriz.inicioUsuario[usuario + 1]; q++) {
+                int outro = matriz.itensDoUsuario[q];
+                if (outro == item) {
+                    continue;
+                }
+                if (!rascunho.marcar(outro)) {
+                    tocados[quantidadeTocados++] = outro;
+                    produtos[outro] = 0;
+                }
+                produtos[outro] += nota * valor(usuario, matriz.notasDoUsuario[q]);
+            }
+        }
+
+        // Mantém os k vizinhos mais similares em um heap de mínimo
+        HeapMinimo heap = rascunho.heap;
+        heap.limpar(k);
+        for (int t = 0; t < quantidadeTocados; t++) {
+            int outro = tocados[t];
+            if (normas[outro] == 0) {
+                continue;
+            }
+            float sim = produtos[outro] / (normas[item] * normas[outro]);
+            if (sim > 0) {
+                heap.oferecer(outro, sim);
+            }
+        }
+        rascunho.novaMarcacao();
+
+        quantidadeVizinhos[item] = heap.extrairOrdenado(vizinhos, similaridades, item * k);
+    }
+
+    /**
+     * Recomenda itens que o usuário ainda não avaliou
+     * 
+     * @param usuario    Nome do usuário
+     * @param quantidade Quantidade máxima de itens recomendados
+     * 
+     * @return Os itens recomendados, do mais recomendado para o menos recomendado
+     *         (lista vazia se o usuário não for conhecido)
+     */
+    @Override
+    public List<Recomendacao> recomendar(String usuario, int quantidade) {
+        int id = matriz.idUsuario(usuario);
+        return (id < 0) ? Collections.emptyList() : recomendar(id, quantidade);
+    }
+
+    /**
+     * Recomenda itens que o usuário ainda não avaliou
+     * 
+     * @param usuario    Identificador do usuário na matriz
+     * @param quantidade Quantidade máxima de itens recomendados
+     * 
+     * @return Os itens recomendados, do mais recomendado para o menos recomendado
+     *         (a pontuação é a nota prevista)
+     */
+    public List<Recomendacao> recomendar(int usuario, int quantidade) {
+        Rascunho rascunho = rascunhos.get();
+        float[] numeradores = rascunho.acumulador;
+        float[] denominadores = rascunho.denominador;
+        int[] tocados = rascunho.tocados;
+        int quantidadeTocados = 0;
+        float media = matriz.mediasUsuarios[usuario];
+
+        // Marca os itens já avaliados (que não devem ser recomendados)
+        int inicio = matriz.inicioUsuario[usuario];
+        int fim = matriz.inicioUsuario[usuario + 1];
+        for (int p = inicio; p < fim; p++) {
+            rascunho.marcar(matriz.itensDoUsuario[p]);
+        }
+        int marcaAvaliados = rascunho.marcacao;
+        rascunho.novaMarcacao();
+
+        // Acumula as notas do usuário propagadas para os vizinhos dos itens avaliados
+        for (int p = inicio; p < fim; p++) {
+            int item = matriz.itensDoUsuario[p];
+            float nota = valor(usuario, matriz.notasDoUsuario[p]);
+            for (int v = item * k, ultimo = item * k + quantidadeVizinhos[item]; v < ultimo; v++) {
+                int vizinho = vizinhos[v];
+                if (rascunho.marcas[vizinho] == marcaAvaliados) {
+                    continue;
+                }
+                if (!rascunho.marcar(vizinho)) {
+                    tocados[quantidadeTocados++] = vizinho;
+                    numeradores[vizinho] = 0;
+                    denominadores[vizinho] = 0;
+                }
+                numeradores[vizinho] += similaridades[v] * nota;
+                denominadores[vizinho] += similaridades[v];
+            }
+        }
+        rascunho.novaMarcacao();
+
+        // Seleciona os itens com as maiores notas previstas
+        HeapMinimo heap = rascunho.heapRecomendacao(quantidade);
+        for (int t = 0; t < quantidadeTocados; t++) {
+            int item = tocados[t];
+            float prevista = numeradores[item] / denominadores[item];
+            if (similaridade == Similaridade.COSSENO_AJUSTADO) {
+                prevista += media;
+            }
+            heap.oferecer(item, prevista);
+        }
+
+        int[] itens = new int[heap.tamanho()];
+        float[] notas = new float[heap.tamanho()];
+        int total = heap.extrairOrdenado(itens, notas, 0);
+        List<Recomendacao> recomendacoes = new ArrayList<>(total);
+        for (int r = 0; r < total; r++) {
+            recomendacoes.add(new Recomendacao(itens[r], matriz.nomeItem(itens[r]), notas[r]));
+        }
+        return recomendacoes;
+    }
+
+    /**
+     * Itens mais similares ao item passado
+     * 
+     * @param item Nome do item
+     * 
+     * @return Os itens similares (até k), do mais similar para o menos similar; a
+     *         pontuação é a similaridade
+     */
+    public List<Recomendacao> itensSimilares(String item) {
+        int id = matriz.idItem(item);
+        if (id < 0) {
+            return Collections.emptyList();
+        }
+        List<Recomendacao> similares = new ArrayList<>(quantidadeVizinhos[id]);
+        for (int v = id * k, ultimo = id * k + quantidadeVizinhos[id]; v < ultimo; v++) {
+            similares.add(new Recomendacao(vizinhos[v], matriz.nomeItem(vizinhos[v]), similaridades[v]));
+        }
+        return similares;
+    }
+
+    /**
+     * Matriz de avaliações usada no treinamento
+     */
+    public MatrizAvaliacoes getMatriz() {
+        return matriz;
+    }
+
+    /**
+     * Vetores de trabalho reaproveitados entre os cálculos de uma mesma thread
+     * (para não alocar vetores do tamanho da quantidade de itens a cada cálculo)
+     */
+    private static class Rascunho {
+        private final float[] acumulador;
+        private final float[] denominador;
+        private final int[] tocados;
+        // Um item está marcado se marcas[item] == marcacao; trocar a marcação
+        // desmarca todos os itens de uma vez
+        private final int[] marcas;
+        private int marcacao = 1;
+        private final HeapMinimo heap;
+        private HeapMinimo heapRecomendacao;
+
+        public Rascunho(int itens, int k) {
+            acumulador = new float[itens];
+            denominador = new float[itens];
+            tocados = new int[itens];
+            marcas = new int[itens];
+            heap = new HeapMinimo(k);
+            heapRecomendacao = new HeapMinimo(10);
+        }
+
+        /**
+         * Marca o item
+         * 
+         * @return true se o item já estava marcado
+         */
+        public boolean marcar(int item) {
+            if (marcas[item] == marcacao) {
+                return true;
+            }
+            marcas[item] = marcacao;
+            return false;
+        }
+
+        public void novaMarcacao() {
+            marcacao++;
+            if (marcacao == 0) {
+                java.util.Arrays.fill(marcas, 0);
+                marcacao = 1;
+            }
+        }
+
+        public HeapMinimo heapRecomendacao(int quantidade) {
+            if (heapRecomendacao.capacidade() < quantidade) {
+                heapRecomendacao = new HeapMinimo(quantidade);
+            }
+            heapRecomendacao.limpar(quantidade);
+            return heapRecomendacao;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package br.ufla.gac106.s2022_2.base.recomendacao;
+
+/**
+ * Heap de mínimo de tamanho limitado, com vetores de tipos primitivos, usado
+ * para selecionar os n itens de maior valor sem alocar objetos: quando o heap
+ * está cheio, um novo item só entra se tiver valor maior que o menor valor do
+ * heap (que então sai).
+ */
+class HeapMinimo {
+    private final int[] itens;
+    private final float[] valores;
+    private int limite;
+    private int tamanho;
+
+    HeapMinimo(int capacidade) {
+        itens = new int[Math.max(capacidade, 1)];
+        valores = new float[Math.max(capacidade, 1)];
+        limite = itens.length;
+    }
+
+    int capacidade() {
+        return itens.length;
+    }
+
+    int tamanho() {
+        return tamanho;
+    }
+
+    /**
+     * Esvazia o heap
+     * 
+     * @param limite Quantidade máxima de itens mantidos (até a capacidade)
+     */
+    void limpar(int limite) {
+        this.limite = Math.min(limite, itens.length);
+        tamanho = 0;
+    }
+
+    /**
+     * Oferece um item ao heap
+     */
+    void oferecer(int item, float valor) {
+        if (tamanho < limite) {
+            int posicao = tamanho++;
+            // Sobe o item até sua posição
+            while (posicao > 0) {
+                int pai = (posicao - 1) >>> 1;
+                if (valores[pai] <= valor) {
+                    break;
+                }
+                itens[posicao] = itens[pai];
+                valores[posicao] = valores[pai];
+                posicao = pai;
+            }
+            itens[posicao] = item;
+            valores[posicao] = valor;
+        } else if (limite > 0 && valor > valores[0]) {
+            descer(item, valor);
+        }
+    }
+
+    /**
+     * Coloca o item na raiz (substituindo o menor) e o desce até sua posição
+     */
+    private void descer(int item, float valor) {
+        int posicao = 0;
+        while (true) {
+            int filho = 2 * posicao + 1;
+            if (filho >= tamanho) {
+                break;
+            }
+            if (filho + 1 < tamanho && valores[filho + 1] < valores[filho]) {
+                filho++;
+            }
+            if (valor <= valores[filho]) {
+                break;
+            }
+            itens[posicao] = itens[filho];
+            valores[posicao] = valores[filho];
+            posicao = filho;
+        }
+        itens[posicao] = item;
+        valores[posicao] = valor;
+    }
+
+    /**
+     * Esvazia o heap, copiando os itens para os vetores de destino em ordem
+     * decrescente de valor
+     * 
+     * @return Quantidade de itens copiados
+     */
+    int extrairOrdenado(int[] itensDestino, float[] valoresDestino, int inicio) {
+        int total = tamanho;
+        // Remove o menor repetidamente, preenchendo o destino do fim para o início
+        for (int posicao = total - 1; posicao >= 0; posicao--) {
+            itensDestino[inicio + posicao] = itens[0];
+            valoresDestino[inicio + posicao] = valores[0];
+            tamanho--;
+            if (tamanho > 0) {
+                descer(itens[tamanho], valores[tamanho]);
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,313 @@
+package br.ufla.gac106.s2022_2.base.recomendacao;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import br.ufla.gac106.s2022_2.base.AvaliacoesColunares;
+
+/**
+ * Matriz esparsa (usuários x itens) com as notas que os usuários deram aos
+ * itens. Só as avaliações existentes são guardadas.
+ * 
+ * Usuários e itens recebem identificadores inteiros (0, 1, 2, ...), e as notas
+ * ficam em vetores de tipos primitivos em dois formatos: por usuário (CSR, as
+ * avaliações de cada usuário em sequência, ordenadas pelo item) e por item (CSC,
+ * as avaliações de cada item em sequência, ordenadas pelo usuário). A matriz é
+ * imutável depois de construída; use MatrizAvaliacoes.construtor() para
+ * montá-la.
+ */
+public class MatrizAvaliacoes {
+    private final String[] nomesUsuarios;
+    private final String[] nomesItens;
+    private final Map<String, Integer> idsUsuarios;
+    private final Map<String, Integer> idsItens;
+
+    // Avaliações por usuário: as do usuário u estão nas posições
+    // [inicioUsuario[u], inicioUsuario[u + 1]) de itensDoUsuario e notasDoUsuario
+    final int[] inicioUsuario;
+    final int[] itensDoUsuario;
+    final float[] notasDoUsuario;
+
+    // Avaliações por item: as do item i estão nas posições
+    // [inicioItem[i], inicioItem[i + 1]) de usuariosDoItem e notasDoItem
+    final int[] inicioItem;
+    final int[] usuariosDoItem;
+    final float[] notasDoItem;
+
+    // Média das notas de cada usuário
+    final float[] mediasUsuarios;
+
+    private MatrizAvaliacoes(Construtor construtor) {
+        nomesUsuarios = Arrays.copyOf(construtor.nomesUsuarios, construtor.idsUsuarios.size());
+        nomesItens = Arrays.copyOf(construtor.nomesItens, construtor.idsItens.size());
+        idsUsuarios = new HashMap<>(construtor.idsUsuarios);
+        idsItens = new HashMap<>(construtor.idsItens);
+        int usuarios = nomesUsuarios.length;
+        int itens = nomesItens.length;
+
+        // Ordena as avaliações por usuário (ordenação por contagem, estável)
+        int n = construtor.quantidade;
+        int[] inicio = new int[usuarios + 1];
+        for (int a = 0; a < n; a++) {
+            inicio[construtor.usuarios[a] + 1]++;
+        }
+        for (int u = 0; u < usuarios; u++) {
+            inicio[u + 1] += inicio[u];
+        }
+        int[] ordem = new int[n];
+        int[] proxima = Arrays.copyOf(inicio, usuarios);
+        for (int a = 0; a < n; a++) {
+            ordem[proxima[construtor.usuarios[a]]++] = a;
+        }
+
+        // Ordena as avaliações de cada usuário pelo item, mantendo só a última
+        // avaliação de cada item
+        inicioUsuario = new int[usuarios + 1];
+        int[] itensTemp = new int[n];
+        float[] notasTemp = new float[n];
+        int total = 0;
+        long[] chaves = new long[0];
+        for (int u = 0; u < usuarios; u++) {
+            int tamanho = inicio[u + 1] - inicio[u];
+            if (chaves.length < tamanho) {
+                chaves = new long[Math.max(tamanho, chaves.length * 2)];
+            }
+            for (int p = 0; p < tamanho; p++) {
+                int a = ordem[inicio[u] + p];
+                chaves[p] = ((long) construtor.itens[a] << 32) | a;
+            }
+            Arrays.sort(chaves, 0, tamanho);
+
+            inicioUsuario[u] = total;
+            for (int p = 0; p < tamanho; p++) {
+                int item = (int) (chaves[p] >>> 32);
+                // Se o próximo é do mesmo item, esta avaliação foi substituída
+                if (p + 1 < tamanho && (int) (chaves[p + 1] >>> 32) == item) {
+                    continue;
+                }
+                itensTemp[total] = item;
+                notasTemp[total] = construtor.notas[(int) chaves[p]];
+                total++;
+            }
+        }
+        inicioUsuario[usuarios] = total;
+        itensDoUsuario = Arrays.copyOf(itensTemp, total);
+        notasDoUsuario = Arrays.copyOf(notasTemp, total);
+
+        // Monta as avaliações por item a partir das avaliações por usuário
+        inicioItem = new int[itens + 1];
+        for (int p = 0; p < total; p++) {
+            inicioItem[itensDoUsuario[p] + 1]++;
+        }
+        for (int i = 0; i < itens; i++) {
+            inicioItem[i + 1] += inicioItem[i];
+        }
+        usuariosDoItem = new int[total];
+        notasDoItem = new float[total];
+        int[] proximoDoItem = Arrays.copyOf(inicioItem, itens);
+        for (int u = 0; u < usuarios; u++) {
+            for (int p = inicioUsuario[u]; p < inicioUsuario[u + 1]; p++) {
+                int destino = proximoDoItem[itensDoUsuario[p]]++;
+                usuariosDoItem[destino] = u;
+                notasDoItem[destino] = notasDoUsuario[p];
+            }
+        }
+
+        mediasUsuarios = new float[usuarios];
+        for (int u = 0; u < usuarios; u++) {
+            double soma = 0;
+            for (int p = inicioUsuario[u]; p < inicioUsuario[u + 1]; p++) {
+                soma += notasDoUsuario[p];
+            }
+            int quantidade = inicioUsuario[u + 1] - inicioUsuario[u];
+            mediasUsuarios[u] = (quantidade == 0) ? 0 : (float) (soma / quantidade);
+        }
+    }
+
+    /**
+     * Cria um construtor para montar a matriz
+     * 
+     * @return O construtor (vazio)
+     */
+    public static Construtor construtor() {
+        return new Construtor();
+    }
+
+    public int quantidadeUsuarios() {
+        return nomesUsuarios.length;
+    }
+
+    public int quantidadeItens() {
+        return nomesItens.length;
+    }
+
+    /**
+     * Quantidade de avaliações (células preenchidas da matriz)
+     */
+    public int quantidadeAvaliacoes() {
+        return itensDoUsuario.length;
+    }
+
+    /**
+     * Identificador do usuário
+     * 
+     * @param nome Nome do usuário
+     * 
+     * @return O identificador (ou -1 se o usuário não existir)
+     */
+    public int idUsuario(String nome) {
+        Integer id = idsUsuarios.get(nome);
+        return (id == null) ? -1 : id;
+    }
+
+    /**
+     * Identificador do item
+     * 
+     * @param nome Nome do item
+     * 
+     * @return O identificador (ou -1 se o item não existir)
+     */
+    public int idItem(String nome) {
+        Integer id = idsItens.get(nome);
+        return (id == null) ? -1 : id;
+    }
+
+    public String nomeUsuario(int id) {
+        return nomesUsuarios[id];
+    }
+
+    public String nomeItem(int id) {
+        return nomesItens[id];
+    }
+
+    /**
+     * Nota que o usuário deu ao item
+     * 
+     * @param usuario Identificador do usuário
+     * @param item    Identificador do item
+     * 
+     * @return A nota (ou NaN se o usuário não avaliou o item)
+     */
+    public double nota(int usuario, int item) {
+        int posicao = Arrays.binarySearch(itensDoUsuario, inicioUsuario[usuario], inicioUsuario[usuario + 1], item);
+        return (posicao < 0) ? Double.NaN : notasDoUsuario[posicao];
+    }
+
+    /**
+     * Quantidade de itens avaliados pelo usuário
+     */
+    public int quantidadeAvaliacoesUsuario(int usuario) {
+        return inicioUsuario[usuario + 1] - inicioUsuario[usuario];
+    }
+
+    /**
+     * Quantidade de usuários que avaliaram o item
+     */
+    public int quantidadeAvaliacoesItem(int item) {
+        return inicioItem[item + 1] - inicioItem[item];
+    }
+
+    /**
+     * Média das notas dadas pelo usuário
+     */
+    public double mediaUsuario(int usuario) {
+        return mediasUsuarios[usuario];
+    }
+
+    /**
+     * Cria um conjunto de avaliações (médias por item) a partir da matriz, para
+     * uso com o restante do sistema (ex: relatórios)
+     * 
+     * @param tema Tema das avaliações
+     * 
+     * @return As avaliações
+     */
+    public AvaliacoesColunares comoAvaliacoes(String tema) {
+        AvaliacoesColunares avaliacoes = new AvaliacoesColunares(tema, nomesItens.length);
+        for (int i = 0; i < nomesItens.length; i++) {
+            double soma = 0;
+            for (int p = inicioItem[i]; p < inicioItem[i + 1]; p++) {
+                soma += notasDoItem[p];
+            }
+            int quantidade = quantidadeAvaliacoesItem(i);
+            avaliacoes.definirAvaliacoes(nomesItens[i], (quantidade == 0) ? 0 : soma / quantidade, quantidade);
+        }
+        return avaliacoes;
+    }
+
+    /**
+     * Classe que acumula as avaliações e constrói a matriz
+     */
+    public static class Construtor {
+        private final Map<String, Integer> idsUsuarios = new HashMap<>();
+        private final Map<String, Integer> idsItens = new HashMap<>();
+        private String[] nomesUsuarios = new String[16];
+        private String[] nomesItens = new String[16];
+        private int[] usuarios = new int[16];
+        private int[] itens = new int[16];
+        private float[] notas = new float[16];
+        private int quantidade;
+
+        private Construtor() {
+        }
+
+        /**
+         * Adiciona uma avaliação. Se o usuário já avaliou o item, vale a última
+         * avaliação adicionada.
+         * 
+         * @param usuario Nome do usuário
+         * @param item    Nome do item
+         * @param nota    Nota dada pelo usuário ao item
+         * 
+         * @return O próprio construtor
+         */
+        public Construtor adicionar(String usuario, String item, double nota) {
+            if (quantidade == usuarios.length) {
+                usuarios = Arrays.copyOf(usuarios, quantidade * 2);
+                itens = Arrays.copyOf(itens, quantidade * 2);
+                notas = Arrays.copyOf(notas, quantidade * 2);
+            }
+            usuarios[quantidade] = idUsuario(usuario);
+            itens[quantidade] = idItem(item);
+            notas[quantidade] = (float) nota;
+            quantidade++;
+            return this;
+        }
+
+        private int idUsuario(String nome) {
+            Integer id = idsUsuarios.get(nome);
+            if (id == null) {
+                id = idsUsuarios.size();
+                idsUsuarios.put(nome, id);
+                if (id == nomesUsuarios.length) {
+                    nomesUsuarios = Arrays.copyOf(nomesUsuarios, id * 2);
+                }
+                nomesUsuarios[id] = nome;
+            }
+            return id;
+        }
+
+        private int idItem(String nome) {
+            Integer id = idsItens.get(nome);
+            if (id == null) {
+                id = idsItens.size();
+                idsItens.put(nome, id);
+                if (id == nomesItens.length) {
+                    nomesItens = Arrays.copyOf(nomesItens, id * 2);
+                }
+                nomesItens[id] = nome;
+            }
+            return id;
+        }
+
+        /**
+         * Constrói a matriz com as avaliações adicionadas
+         * 
+         * @return A matriz
+         */
+        public MatrizAvaliacoes construir() {
+            return new MatrizAvaliacoes(this);
+        }
+    }
+}
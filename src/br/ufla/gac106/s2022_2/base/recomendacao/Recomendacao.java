@@ -0,0 +1,51 @@
+package br.ufla.gac106.s2022_2.base.recomendacao;
+
+/**
+ * Item recomendado a um usuário, com a pontuação que levou à recomendação
+ */
+public final class Recomendacao {
+    private final int idItem;
+    private final String item;
+    private final double pontuacao;
+
+    /**
+     * Constrói a recomendação
+     * 
+     * @param idItem    Identificador do item no recomendador (ex: na matriz de
+     *                  avaliações)
+     * @param item      Nome do item
+     * @param pontuacao Pontuação do item (quanto maior, mais recomendado)
+     */
+    public Recomendacao(int idItem, String item, double pontuacao) {
+        this.idItem = idItem;
+        this.item = item;
+        this.pontuacao = pontuacao;
+    }
+
+    /**
+     * Identificador do item no recomendador (ex: na matriz de avaliações)
+     */
+    public int getIdItem() {
+        return idItem;
+    }
+
+    /**
+     * Nome do item recomendado
+     */
+    public String getItem() {
+        return item;
+    }
+
+    /**
+     * Pontuação do item (quanto maior, mais recomendado). Dependendo do
+     * recomendador, é uma previsão da nota que o usuário daria ao item.
+     */
+    public double getPontuacao() {
+        return pontuacao;
+    }
+
+    @Override
+    public String toString() {
+        return item + " (" + String.format("%.3f", pontuacao) + ")";
+    }
+}
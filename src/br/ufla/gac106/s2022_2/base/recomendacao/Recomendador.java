@@ -0,0 +1,20 @@
+package br.ufla.gac106.s2022_2.base.recomendacao;
+
+import java.util.List;
+
+/**
+ * Interface dos sistemas que recomendam itens aos usuários a partir das
+ * avaliações feitas por eles
+ */
+public interface Recomendador {
+    /**
+     * Recomenda itens que o usuário ainda não avaliou
+     * 
+     * @param usuario    Nome do usuário
+     * @param quantidade Quantidade máxima de itens recomendados
+     * 
+     * @return Os itens recomendados, do mais recomendado para o menos recomendado
+     *         (lista vazia se o usuário não for conhecido)
+     */
+    List<Recomendacao> recomendar(String usuario, int quantidade);
+}
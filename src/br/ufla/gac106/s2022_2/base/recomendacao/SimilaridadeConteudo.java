@@ -0,0 +1,415 @@
+package br.ufla.gac106.s2022_2.base.recomendacao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import br.ufla.gac106.javaWikiAPI.PaginaWiki;
+import br.ufla.gac106.javaWikiAPI.Tokenizador;
+
+/**
+ * Encontra itens com conteúdo parecido a partir do título e do resumo de suas
+ * páginas Wiki.
+ * 
+ * O texto de cada página é transformado em um vetor esparso TF-IDF (cada termo
+ * pesa mais quanto mais aparece na página e quanto mais raro é entre as
+ * páginas), guardado em vetores de tipos primitivos. Comparar todos os pares de
+ * páginas seria inviável para catálogos grandes; por isso é montado um índice
+ * LSH com assinaturas MinHash: páginas com muitos termos em comum tendem a cair
+ * no mesmo grupo em pelo menos uma das bandas da assinatura, e só essas
+ * candidatas são comparadas pelo cosseno exato dos vetores TF-IDF.
+ * 
+ * O índice é imutável depois de construído (use
+ * SimilaridadeConteudo.builder()) e pode ser consultado por várias threads.
+ */
+public class SimilaridadeConteudo {
+    private final String[] titulos;
+    private final Map<String, Integer> idsTitulos;
+    // Identificador e quantidade de páginas que contêm cada termo
+    private final Map<String, Integer> idsTermos;
+    private final int[] documentosDoTermo;
+
+    // Vetor TF-IDF (normalizado) da página p: posições [inicio[p], inicio[p + 1])
+    // de termos (em ordem crescente) e pesos
+    private final int[] inicio;
+    private final int[] termos;
+    private final float[] pesos;
+
+    // Funções de hash do MinHash: h(x) = (multiplicador * x + soma) >>> 33 (31
+    // bits, para que o hash seja um int não negativo)
+    private final long[] multiplicadores;
+    private final long[] somas;
+    private final int bandas;
+    private final int linhasPorBanda;
+    // Para cada banda, pares (hash da banda << 32 | página) em ordem crescente
+    // (páginas sem termos não entram nos grupos, pois todas teriam a mesma
+    // assinatura e seriam candidatas umas das outras)
+    private final long[][] grupos;
+
+    private SimilaridadeConteudo(Builder builder, Collection<PaginaWiki> paginas) {
+        bandas = builder.bandas;
+        linhasPorBanda = builder.linhasPorBanda;
+        int quantidadeHashes = bandas * linhasPorBanda;
+        multiplicadores = new long[quantidadeHashes];
+        somas = new long[quantidadeHashes];
+        Random aleatorio = new Random(builder.semente);
+        for (int h = 0; h < quantidadeHashes; h++) {
+            multiplicadores[h] = aleatorio.nextLong() | 1;
+            somas[h] = aleatorio.nextLong();
+        }
+
+        // Conta os termos de cada página, atribuindo identificadores aos termos
+        String[] titulosPaginas = new String[paginas.size()];
+        idsTitulos = new HashMap<>();
+        idsTermos = new HashMap<>();
+        List<Map<Integer, Integer>> frequencias = new ArrayList<>(paginas.size());
+        int[] documentos = new int[16];
+        int total = 0;
+        for (PaginaWiki pagina : paginas) {
+            if (idsTitulos.putIfAbsent(pagina.getTitulo(), frequencias.size()) != null) {
+                continue;
+            }
+            titulosPaginas[frequencias.size()] = pagina.getTitulo();
+            Map<Integer, Integer> frequencia = contarTermos(pagina, true);
+            for (int termo : frequencia.keySet()) {
+                if (termo >= documentos.length) {
+                    documentos = Arrays.copyOf(documentos, Math.max(termo + 1, documentos.length * 2));
+                }
+                documentos[termo]++;
+            }
+            frequencias.add(frequencia);
+            total += frequencia.size();
+        }
+        titulos = Arrays.copyOf(titulosPaginas, frequencias.size());
+        documentosDoTermo = Arrays.copyOf(documentos, idsTermos.size());
+
+        // Monta os vetores TF-IDF
+        int quantidade = frequencias.size();
+        inicio = new int[quantidade + 1];
+        termos = new int[total];
+        pesos = new float[total];
+        int posicao = 0;
+        for (int p = 0; p < quantidade; p++) {
+            inicio[p] = posicao;
+            posicao += vetorizar(frequencias.get(p), termos, pesos, posicao);
+        }
+        inicio[quantidade] = posicao;
+
+        // Monta os grupos de cada banda a partir das assinaturas MinHash
+        int comTermos = 0;
+        for (int p = 0; p < quantidade; p++) {
+            if (inicio[p + 1] > inicio[p]) {
+                comTermos++;
+            }
+        }
+        grupos = new long[bandas][comTermos];
+        int[] assinatura = new int[quantidadeHashes];
+        int indice = 0;
+        for (int p = 0; p < quantidade; p++) {
+            if (inicio[p + 1] == inicio[p]) {
+                continue;
+            }
+            assinar(termos, inicio[p], inicio[p + 1], assinatura);
+            for (int banda = 0; banda < bandas; banda++) {
+                grupos[banda][indice] = ((long) hashBanda(assinatura, banda) << 32) | p;
+            }
+            indice++;
+        }
+        for (long[] grupo : grupos) {
+            Arrays.sort(grupo);
+        }
+    }
+
+    /**
+     * Cria um builder para configurar e construir o índice
+     * (ex: SimilaridadeConteudo.builder().bandas(20).construir(paginas))
+     * 
+     * @return O builder com as configurações padrões
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Conta as ocorrências de cada termo no título e no resumo da página
+     * 
+     * @param novosTermos Indica se termos desconhecidos recebem um identificador
+     *                    (senão, são ignorados)
+     */
+    private Map<Integer, Integer> contarTermos(PaginaWiki pagina, boolean novosTermos) {
+        Map<Integer, Integer> frequencias = new HashMap<>();
+        List<String> texto = Tokenizador.tokenizar(pagina.getTitulo());
+        texto.addAll(Tokenizador.tokenizar(pagina.getResumo()));
+        for (String termo : texto) {
+            Integer id = novosTermos ? idsTermos.computeIfAbsent(termo, t -> idsTermos.size()) : idsTermos.get(termo);
+            if (id != null) {
+                frequencias.merge(id, 1, Integer::sum);
+            }
+        }
+        return frequencias;
+    }
+
+    /**
+     * Calcula o vetor TF-IDF normalizado a partir das frequências dos termos
+     * 
+     * @return Quantidade de termos do vetor
+     */
+    private int vetorizar(Map<Integer, Integer> frequencias, int[] termosDestino, float[] pesosDestino, int posicao) {
+        int[] ordenados = new int[frequencias.size()];
+        int n = 0;
+        for (int termo : frequencias.keySet()) {
+            ordenados[n++] = termo;
+        }
+        Arrays.sort(ordenados);
+
+        int documentos = titulos.length;
+        double soma = 0;
+        for (int t = 0; t < n; t++) {
+            int termo = ordenados[t];
+            double peso = (1 + Math.log(frequencias.get(termo))) * Math.log((double) documentos / documentosDoTermo[termo]);
+            termosDestino[posicao + t] = termo;
+            pesosDestino[posicao + t] = (float) peso;
+            soma += peso * peso;
+        }
+        float norma = (float) Math.sqrt(soma);
+        for (int t = 0; t < n; t++) {
+            pesosDestino[posicao + t] = (norma == 0) ? 0 : pesosDestino[posicao + t] / norma;
+        }
+        return n;
+    }
+
+    /**
+     * Calcula a assinatura MinHash do conjunto de termos: para cada função de
+     * hash, o menor hash entre os termos
+     */
+    private void assinar(int[] termosVetor, int inicioVetor, int fimVetor, int[] assinatura) {
+        Arrays.fill(assinatura, Integer.MAX_VALUE);
+        for (int t = inicioVetor; t < fimVetor; t++) {
+            long termo = termosVetor[t];
+            for (int h = 0; h < assinatura.length; h++) {
+                int hash = (int) ((multiplicadores[h] * termo + somas[h]) >>> 33);
+                if (hash < assinatura[h]) {
+                    assinatura[h] = hash;
+                }
+            }
+        }
+    }
+
+    /**
+     * Combina os valores da assinatura que pertencem à banda em um único hash
+     */
+    private int hashBanda(int[] assinatura, int banda) {
+        long hash = banda;
+        for (int h = banda * linhasPorBanda; h < (banda + 1) * linhasPorBanda; h++) {
+            hash = (hash ^ assinatura[h]) * 0x9E3779B97F4A7C15L;
+        }
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * Encontra os itens com conteúdo mais parecido com o do item passado
+     * 
+     * @param titulo     Título da página do item (deve estar no índice)
+     * @param quantidade Quantidade máxima de itens retornados
+     * 
+     * @return Os itens parecidos, do mais parecido para o menos parecido; a
+     *         pontuação é o cosseno entre os vetores TF-IDF (lista vazia se o
+     *         título não estiver no índice)
+     */
+    public List<Recomendacao> similares(String titulo, int quantidade) {
+        Integer id = idsTitulos.get(titulo);
+        if (id == null) {
+            return Collections.emptyList();
+        }
+        return similares(termos, pesos, inicio[id], inicio[id + 1], id, quantidade);
+    }
+
+    /**
+     * Encontra os itens do índice com conteúdo mais parecido com o da página
+     * passada, que não precisa estar no índice (termos que não estão no índice
+     * são ignorados)
+     * 
+     * @param pagina     Página a ser comparada
+     * @param quantidade Quantidade máxima de itens retornados
+     * 
+     * @return Os itens parecidos, do mais parecido para o menos parecido; a
+     *         pontuação é o cosseno entre os vetores TF-IDF
+     */
+    public List<Recomendacao> similares(PaginaWiki pagina, int quantidade) {
+        Map<Integer, Integer> frequencias = contarTermos(pagina, false);
+        int[] termosPagina = new int[frequencias.size()];
+        float[] pesosPagina = new float[frequencias.size()];
+        int n = vetorizar(frequencias, termosPagina, pesosPagina, 0);
+        Integer id = idsTitulos.get(pagina.getTitulo());
+        return similares(termosPagina, pesosPagina, 0, n, (id == null) ? -1 : id, quantidade);
+    }
+
+    /**
+     * Busca os candidatos no índice LSH e os ordena pelo cosseno exato
+     */
+    private List<Recomendacao> similares(int[] termosVetor, float[] pesosVetor, int inicioVetor, int fimVetor,
+                                         int ignorado, int quantidade) {
+        // Um vetor sem termos não é parecido com nenhum outro
+        if (quantidade <= 0 || fimVetor == inicioVetor) {
+            return Collections.emptyList();
+        }
+        int[] assinatura = new int[bandas * linhasPorBanda];
+        assinar(termosVetor, inicioVetor, fimVetor, assinatura);
+
+        // Candidatos: páginas no mesmo grupo em pelo menos uma banda
+        int[] candidatos = new int[16];
+        int quantidadeCandidatos = 0;
+        for (int banda = 0; banda < bandas; banda++) {
+            long[] grupo = grupos[banda];
+            long chave = (long) hashBanda(assinatura, banda) << 32;
+            int posicao = Arrays.binarySearch(grupo, chave);
+            for (posicao = (posicao < 0) ? -posicao - 1 : posicao;
+                 posicao < grupo.length && (grupo[posicao] & 0xFFFFFFFF00000000L) == chave; posicao++) {
+                if (quantidadeCandidatos == candidatos.length) {
+                    candidatos = Arrays.copyOf(candidatos, candidatos.length * 2);
+                }
+                candidatos[quantidadeCandidatos++] = (int) grupo[posicao];
+            }
+        }
+        Arrays.sort(candidatos, 0, quantidadeCandidatos);
+
+        HeapMinimo heap = new HeapMinimo(quantidade);
+        for (int c = 0; c < quantidadeCandidatos; c++) {
+            int candidato = candidatos[c];
+            if (candidato == ignorado || (c > 0 && candidatos[c - 1] == candidato)) {
+                continue;
+            }
+            float cosseno = cosseno(termosVetor, pesosVetor, inicioVetor, fimVetor, candidato);
+            if (cosseno > 0) {
+                heap.oferecer(candidato, cosseno);
+            }
+        }
+
+        int[] itens = new int[heap.tamanho()];
+        float[] cossenos = new float[heap.tamanho()];
+        int total = heap.extrairOrdenado(itens, cossenos, 0);
+        List<Recomendacao> similares = new ArrayList<>(total);
+        for (int r = 0; r < total; r++) {
+            similares.add(new Recomendacao(itens[r], titulos[itens[r]], cossenos[r]));
+        }
+        return similares;
+    }
+
+    /**
+     * Cosseno entre o vetor passado e o vetor da página (ambos normalizados e
+     * com os termos em ordem crescente)
+     */
+    private float cosseno(int[] termosVetor, float[] pesosVetor, int inicioVetor, int fimVetor, int pagina) {
+        float produto = 0;
+        int a = inicioVetor;
+        int b = inicio[pagina];
+        int fimB = inicio[pagina + 1];
+        while (a < fimVetor && b < fimB) {
+            if (termosVetor[a] < termos[b]) {
+                a++;
+            } else if (termosVetor[a] > termos[b]) {
+                b++;
+            } else {
+                produto += pesosVetor[a++] * pesos[b++];
+            }
+        }
+        return produto;
+    }
+
+    /**
+     * Cosseno exato entre os vetores TF-IDF das páginas de títulos passados
+     * 
+     * @return O cosseno (ou 0 se algum título não estiver no índice)
+     */
+    public float cosseno(String titulo, String outroTitulo) {
+        Integer id = idsTitulos.get(titulo);
+        Integer outro = idsTitulos.get(outroTitulo);
+        if (id == null || outro == null) {
+            return 0;
+        }
+        return cosseno(termos, pesos, inicio[id], inicio[id + 1], outro);
+    }
+
+    /**
+     * Quantidade de páginas no índice
+     */
+    public int quantidadePaginas() {
+        return titulos.length;
+    }
+
+    /**
+     * Quantidade de termos distintos no índice
+     */
+    public int quantidadeTermos() {
+        return idsTermos.size();
+    }
+
+    /**
+     * Classe que permite configurar e construir um objeto SimilaridadeConteudo.
+     * Todos os métodos (exceto construir) retornam o próprio builder, para que
+     * possam ser encadeados.
+     * 
+     * Com b bandas de r linhas, duas páginas cuja semelhança de Jaccard (termos
+     * em comum / termos no total) é s viram candidatas com probabilidade
+     * 1 - (1 - s^r)^b. Mais linhas por banda descartam mais pares pouco
+     * parecidos; mais bandas perdem menos pares parecidos.
+     */
+    public static class Builder {
+        private int bandas = 32;
+        private int linhasPorBanda = 2;
+        private long semente = 42;
+
+        /**
+         * Builder com as configurações padrões (use SimilaridadeConteudo.builder())
+         */
+        private Builder() {
+        }
+
+        /**
+         * Quantidade de bandas da assinatura MinHash (o padrão é 32)
+         */
+        public Builder bandas(int bandas) {
+            if (bandas <= 0) {
+                throw new IllegalArgumentException("A quantidade de bandas deve ser positiva");
+            }
+            this.bandas = bandas;
+            return this;
+        }
+
+        /**
+         * Quantidade de valores da assinatura em cada banda (o padrão é 2)
+         */
+        public Builder linhasPorBanda(int linhasPorBanda) {
+            if (linhasPorBanda <= 0) {
+                throw new IllegalArgumentException("A quantidade de linhas por banda deve ser positiva");
+            }
+            this.linhasPorBanda = linhasPorBanda;
+            return this;
+        }
+
+        /**
+         * Semente das funções de hash do MinHash
+         */
+        public Builder semente(long semente) {
+            this.semente = semente;
+            return this;
+        }
+
+        /**
+         * Constrói o índice com as páginas passadas (páginas com títulos repetidos
+         * são ignoradas)
+         * 
+         * @param paginas Páginas dos itens
+         * 
+         * @return O índice construído
+         */
+        public SimilaridadeConteudo construir(Collection<PaginaWiki> paginas) {
+            return new SimilaridadeConteudo(this, paginas);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package br.ufla.gac106.s2022_2.base.relatorios;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jfree.data.UnknownKeyException;
+import org.jfree.data.category.CategoryDataset;
+import org.jfree.data.general.AbstractDataset;
+
+/**
+ * Dataset de categorias com uma única série que recebe alterações em lotes,
+ * usado pelo gráfico ao vivo. Cada lote altera apenas as barras que mudaram e
+ * gera um único evento de alteração (e portanto um único redesenho).
+ *
+ * O dataset expõe ao gráfico apenas uma janela das barras (a página atual),
+ * definida pela primeira barra e pela quantidade máxima de barras.
+ *
+ * Assim como os componentes do Swing, o dataset só deve ser usado na thread de
+ * eventos do Swing.
+ */
+class DatasetAoVivo extends AbstractDataset implements CategoryDataset {
+    private static final long serialVersionUID = 1L;
+
+    // Valor que, em um lote, indica que a barra deve ser removida
+    static final Object REMOVIDO = new Object();
+
+    private final String serie;
+    private final int maximoBarras;
+    private String[] categorias = new String[16];
+    private double[] valores = new double[16];
+    private int tamanho;
+    private final Map<String, Integer> indices = new HashMap<>();
+    private int primeira;
+
+    /**
+     * Constrói o dataset vazio
+     *
+     * @param serie        Nome da série
+     * @param maximoBarras Quantidade máxima de barras expostas ao gráfico
+     */
+    DatasetAoVivo(String serie, int maximoBarras) {
+        this.serie = serie;
+        this.maximoBarras = maximoBarras;
+    }
+
+    /**
+     * Aplica um lote de alterações: cada valor é o novo valor da barra (Double)
+     * ou REMOVIDO. Barras novas são adicionadas ao final.
+     *
+     * @param lote Alterações por categoria
+     */
+    void aplicar(Map<String, Object> lote) {
+        boolean removeu = false;
+        for (Map.Entry<String, Object> alteracao : lote.entrySet()) {
+            String categoria = alteracao.getKey();
+            Integer indice = indices.get(categoria);
+            if (alteracao.getValue() == REMOVIDO) {
+                if (indice != null) {
+                    // Marca a posição; as posições vazias são compactadas no final do lote
+                    categorias[indice] = null;
+                    indices.remove(categoria);
+                    removeu = true;
+                }
+            }
+            else if (indice != null) {
+                valores[indice] = (Double) alteracao.getValue();
+            }
+            else {
+                if (tamanho == categorias.length) {
+                    categorias = Arrays.copyOf(categorias, tamanho * 2);
+                    valores = Arrays.copyOf(valores, tamanho * 2);
+                }
+                indices.put(categoria, tamanho);
+                categorias[tamanho] = categoria;
+                valores[tamanho] = (Double) alteracao.getValue();
+                tamanho++;
+            }
+        }
+        if (removeu) {
+            compactar();
+        }
+        primeira = Math.max(0, Math.min(primeira, tamanho - maximoBarras));
+        fireDatasetChanged();
+    }
+
+    private void compactar() {
+        int destino = 0;
+        for (int i = 0; i < tamanho; i++) {
+            if (categorias[i] != null) {
+                categorias[destino] = categorias[i];
+                valores[destino] = valores[i];
+                indices.put(categorias[destino], destino);
+                destino++;
+            }
+        }
+        Arrays.fill(categorias, destino, tamanho, null);
+        tamanho = destino;
+    }
+
+    /**
+     * Quantidade total de barras (inclusive as que estão fora da janela)
+     */
+    int getQuantidadeBarras() {
+        return tamanho;
+    }
+
+    /**
+     * Desloca a janela de barras expostas ao gráfico
+     *
+     * @param primeira Índice da primeira barra exibida
+     */
+    void setPrimeiraBarra(int primeira) {
+        int ajustada = Math.max(0, Math.min(primeira, tamanho - maximoBarras));
+        if (ajustada != this.primeira) {
+            this.primeira = ajustada;
+            fireDatasetChanged();
+        }
+    }
+
+    int getPrimeiraBarra() {
+        return primeira;
+    }
+
+    @Override
+    public int getRowCount() {
+        return 1;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return Math.min(maximoBarras, tamanho - primeira);
+    }
+
+    @Override
+    public Number getValue(int linha, int coluna) {
+        if (linha != 0) {
+            throw new IndexOutOfBoundsException("Linha inválida: " + linha);
+        }
+        return valores[primeira + coluna];
+    }
+
+    @Override
+    public Comparable<?> getRowKey(int linha) {
+        if (linha != 0) {
+            throw new IndexOutOfBoundsException("Linha inválida: " + linha);
+        }
+        return serie;
+    }
+
+    @Override
+    public int getRowIndex(@SuppressWarnings("rawtypes") Comparable chave) {
+        return serie.equals(chave) ? 0 : -1;
+    }
+
+    @Override
+    public List<?> getRowKeys() {
+        return Collections.singletonList(serie);
+    }
+
+    @Override
+    public Comparable<?> getColumnKey(int coluna) {
+        return categorias[primeira + coluna];
+    }
+
+    @Override
+    public int getColumnIndex(@SuppressWarnings("rawtypes") Comparable chave) {
+        Integer indice = indices.get(chave);
+        if (indice == null || indice < primeira || indice >= primeira + getColumnCount()) {
+            return -1;
+        }
+        return indice - primeira;
+    }
+
+    @Override
+    public List<?> getColumnKeys() {
+        return Collections.unmodifiableList(Arrays.asList(categorias).subList(primeira, primeira + getColumnCount()));
+    }
+
+    @Override
+    public Number getValue(@SuppressWarnings("rawtypes") Comparable chaveLinha, @SuppressWarnings("rawtypes") Comparable chaveColuna) {
+        int coluna = getColumnIndex(chaveColuna);
+        if (getRowIndex(chaveLinha) < 0 || coluna < 0) {
+            throw new UnknownKeyException("Chave desconhecida: (" + chaveLinha + ", " + chaveColuna + ")");
+        }
+        return getValue(0, coluna);
+    }
+}
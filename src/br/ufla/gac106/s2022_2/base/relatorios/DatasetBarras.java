@@ -0,0 +1,139 @@
+package br.ufla.gac106.s2022_2.base.relatorios;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jfree.data.UnknownKeyException;
+import org.jfree.data.category.CategoryDataset;
+import org.jfree.data.general.AbstractDataset;
+
+/**
+ * Dataset de categorias com uma única série, guardado em arrays.
+ *
+ * O DefaultCategoryDataset do JFreeChart procura as chaves das colunas com uma
+ * busca linear a cada valor adicionado, o que torna a criação de um gráfico com
+ * n barras O(n²). Aqui as colunas são indexadas por um HashMap, e os valores são
+ * guardados em um array de double (sem um objeto por barra).
+ *
+ * O dataset é imutável depois de construído, e por isso pode ser criado em
+ * qualquer thread e depois entregue à thread de eventos do Swing.
+ */
+class DatasetBarras extends AbstractDataset implements CategoryDataset {
+    private static final long serialVersionUID = 1L;
+
+    private final String serie;
+    private final String[] categorias;
+    private final double[] valores;
+    private final Map<String, Integer> indices;
+
+    /**
+     * Classe que monta o dataset. Assim como no DefaultCategoryDataset, adicionar
+     * novamente uma categoria já existente substitui o seu valor.
+     */
+    static class Construtor {
+        private final String serie;
+        private String[] categorias;
+        private double[] valores;
+        private int tamanho;
+        private final Map<String, Integer> indices;
+
+        Construtor(String serie, int capacidadeEsperada) {
+            this.serie = serie;
+            int capacidade = Math.max(capacidadeEsperada, 16);
+            categorias = new String[capacidade];
+            valores = new double[capacidade];
+            indices = new HashMap<>(capacidade * 4 / 3 + 1);
+        }
+
+        Construtor adicionar(String categoria, double valor) {
+            Integer indice = indices.putIfAbsent(categoria, tamanho);
+            if (indice != null) {
+                valores[indice] = valor;
+                return this;
+            }
+            if (tamanho == categorias.length) {
+                categorias = Arrays.copyOf(categorias, tamanho * 2);
+                valores = Arrays.copyOf(valores, tamanho * 2);
+            }
+            categorias[tamanho] = categoria;
+            valores[tamanho] = valor;
+            tamanho++;
+            return this;
+        }
+
+        DatasetBarras construir() {
+            return new DatasetBarras(serie, Arrays.copyOf(categorias, tamanho), Arrays.copyOf(valores, tamanho), indices);
+        }
+    }
+
+    private DatasetBarras(String serie, String[] categorias, double[] valores, Map<String, Integer> indices) {
+        this.serie = serie;
+        this.categorias = categorias;
+        this.valores = valores;
+        this.indices = indices;
+    }
+
+    @Override
+    public int getRowCount() {
+        return 1;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return categorias.length;
+    }
+
+    @Override
+    public Number getValue(int linha, int coluna) {
+        if (linha != 0) {
+            throw new IndexOutOfBoundsException("Linha inválida: " + linha);
+        }
+        return valores[coluna];
+    }
+
+    @Override
+    public Comparable<?> getRowKey(int linha) {
+        if (linha != 0) {
+            throw new IndexOutOfBoundsException("Linha inválida: " + linha);
+        }
+        return serie;
+    }
+
+    @Override
+    public int getRowIndex(@SuppressWarnings("rawtypes") Comparable chave) {
+        return serie.equals(chave) ? 0 : -1;
+    }
+
+    @Override
+    public List<?> getRowKeys() {
+        return Collections.singletonList(serie);
+    }
+
+    @Override
+    public Comparable<?> getColumnKey(int coluna) {
+        return categorias[coluna];
+    }
+
+    @Override
+    public int getColumnIndex(@SuppressWarnings("rawtypes") Comparable chave) {
+        Integer indice = indices.get(chave);
+        return (indice == null) ? -1 : indice;
+    }
+
+    @Override
+    public List<?> getColumnKeys() {
+        return Collections.unmodifiableList(Arrays.asList(categorias));
+    }
+
+    @Override
+    public Number getValue(@SuppressWarnings("rawtypes") Comparable chaveLinha, @SuppressWarnings("rawtypes") Comparable chaveColuna) {
+        int coluna = getColumnIndex(chaveColuna);
+        if (getRowIndex(chaveLinha) < 0 || coluna < 0) {
+            throw new UnknownKeyException("Chave desconhecida: (" + chaveLinha + ", " + chaveColuna + ")");
+        }
+        return valores[coluna];
+    }
+}
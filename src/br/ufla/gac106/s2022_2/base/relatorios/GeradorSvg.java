@@ -0,0 +1,900 @@
+package br.ufla.gac106.s2022_2.base.relatorios;
+
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.GradientPaint;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.Paint;
+import java.awt.Polygon;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Area;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.BufferedImageOp;
+import java.awt.image.ImageObserver;
+import java.awt.image.RenderedImage;
+import java.awt.image.renderable.RenderableImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.text.AttributedCharacterIterator;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Graphics2D que, em vez de desenhar pixels, gera um documento SVG com as
+ * formas, textos e imagens desenhados. É usado para exportar os gráficos do
+ * JFreeChart como imagens vetoriais, sem depender de uma biblioteca de SVG e
+ * sem precisar de uma tela (funciona com java.awt.headless=true).
+ *
+ * Cada forma é escrita no sistema de coordenadas do usuário, com a
+ * transformação atual no atributo transform. O recorte (clip) é guardado em
+ * coordenadas do dispositivo e aplicado por um grupo sem transformação em
+ * volta do elemento. Tintas que não são cores sólidas nem gradientes lineares
+ * são desenhadas em cinza.
+ *
+ * Objetos obtidos por create compartilham o mesmo documento. O objeto não é
+ * thread-safe (assim como os Graphics2D do AWT).
+ */
+class GeradorSvg extends Graphics2D {
+    // Imagem usada apenas para obter as métricas das fontes e a configuração do dispositivo
+    private static final Graphics2D GRAFICOS_METRICAS = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+
+    /**
+     * Estado compartilhado pelos objetos criados a partir do mesmo gerador
+     */
+    private static class Documento {
+        private final StringBuilder definicoes = new StringBuilder();
+        private final StringBuilder corpo = new StringBuilder();
+        private final Map<String, String> idsRecortes = new HashMap<>();
+        private final Map<String, String> idsGradientes = new HashMap<>();
+        private int proximoId;
+    }
+
+    private final Documento documento;
+    private final int largura;
+    private final int altura;
+
+    private AffineTransform transformacao;
+    private Shape recorte;
+    private Paint tinta = Color.BLACK;
+    private Color cor = Color.BLACK;
+    private Color fundo = Color.WHITE;
+    private Stroke traco = new BasicStroke(1);
+    private Font fonte = new Font(Font.SANS_SERIF, Font.PLAIN, 12);
+    private Composite composicao = AlphaComposite.SrcOver;
+    private RenderingHints dicas = new RenderingHints(null);
+
+    /**
+     * Constrói o gerador de um documento SVG vazio
+     *
+     * @param largura Largura do documento em pixels
+     * @param altura  Altura do documento em pixels
+     */
+    GeradorSvg(int largura, int altura) {
+        this.documento = new Documento();
+        this.largura = largura;
+        this.altura = altura;
+        this.transformacao = new AffineTransform();
+    }
+
+    private GeradorSvg(GeradorSvg original) {
+        this.documento = original.documento;
+        this.largura = original.largura;
+        this.altura = original.altura;
+        this.transformacao = new AffineTransform(original.transformacao);
+        this.recorte = original.recorte;
+        this.tinta = original.tinta;
+        this.cor = original.cor;
+        this.fundo = original.fundo;
+        this.traco = original.traco;
+        this.fonte = original.fonte;
+        this.composicao = original.composicao;
+        this.dicas = (RenderingHints) original.dicas.clone();
+    }
+
+    /**
+     * Retorna o documento SVG com tudo que foi desenhado até o momento
+     *
+     * @return O texto do documento SVG
+     */
+    String getSvg() {
+        StringBuilder svg = new StringBuilder(documento.corpo.length() + documento.definicoes.length() + 256);
+        svg.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        svg.append("<svg xmlns=\"http://www.w3.org/2000/svg\" xmlns:xlink=\"http://www.w3.org/1999/xlink\" width=\"")
+                .append(largura).append("\" height=\"").append(altura).append("\" viewBox=\"0 0 ")
+                .append(largura).append(' ').append(altura).append("\">\n");
+        if (documento.definicoes.length() > 0) {
+            svg.append("<defs>\n").append(documento.definicoes).append("</defs>\n");
+        }
+        svg.append(documento.corpo);
+        svg.append("</svg>\n");
+        return svg.toString();
+    }
+
+    // ------------------------------------------------------------------
+    // Escrita dos elementos
+
+    /**
+     * Abre o grupo do recorte atual (se houver) e retorna o corpo do documento
+     */
+    private StringBuilder abrirElemento() {
+        StringBuilder corpo = documento.corpo;
+        if (recorte != null) {
+            corpo.append("<g clip-path=\"url(#").append(idRecorte()).append(")\">");
+        }
+        return corpo;
+    }
+
+    private void fecharElemento() {
+        if (recorte != null) {
+            documento.corpo.append("</g>");
+        }
+        documento.corpo.append('\n');
+    }
+
+    private String idRecorte() {
+        String caminho = caminho(recorte);
+        String id = documento.idsRecortes.get(caminho);
+        if (id == null) {
+            id = "recorte" + documento.proximoId++;
+            documento.idsRecortes.put(caminho, id);
+            documento.definicoes.append("<clipPath id=\"").append(id).append("\"><path d=\"").append(caminho)
+                    .append("\"/></clipPath>\n");
+        }
+        return id;
+    }
+
+    private void escreverTransformacao(StringBuilder saida) {
+        if (!transformacao.isIdentity()) {
+            // Os coeficientes de rotação e escala precisam de mais precisão que as coordenadas
+            saida.append(" transform=\"matrix(");
+            numero(saida, transformacao.getScaleX(), 6).append(' ');
+            numero(saida, transformacao.getShearY(), 6).append(' ');
+            numero(saida, transformacao.getShearX(), 6).append(' ');
+            numero(saida, transformacao.getScaleY(), 6).append(' ');
+            numero(saida, transformacao.getTranslateX()).append(' ');
+            numero(saida, transformacao.getTranslateY()).append(")\"");
+        }
+    }
+
+    /**
+     * Escreve a tinta atual como valor do atributo fill ou stroke (e sua opacidade)
+     */
+    private void escreverTinta(StringBuilder saida, String atributo) {
+        double opacidade = opacidadeComposicao();
+        if (tinta instanceof Color) {
+            Color c = (Color) tinta;
+            saida.append(' ').append(atributo).append("=\"").append(rgb(c)).append('"');
+            opacidade *= c.getAlpha() / 255.0;
+        }
+        else if (tinta instanceof GradientPaint) {
+            saida.append(' ').append(atributo).append("=\"url(#").append(idGradiente((GradientPaint) tinta)).append(")\"");
+        }
+        else {
+            saida.append(' ').append(atributo).append("=\"rgb(128,128,128)\"");
+        }
+        if (opacidade < 1) {
+            saida.append(' ').append(atributo).append("-opacity=\"");
+            numero(saida, opacidade).append('"');
+        }
+    }
+
+    private String idGradiente(GradientPaint gradiente) {
+        // Atributos e paradas do gradiente, que também identificam gradientes repetidos
+        StringBuilder conteudo = new StringBuilder(" gradientUnits=\"userSpaceOnUse\" x1=\"");
+        numero(conteudo, gradiente.getPoint1().getX()).append("\" y1=\"");
+        numero(conteudo, gradiente.getPoint1().getY()).append("\" x2=\"");
+        numero(conteudo, gradiente.getPoint2().getX()).append("\" y2=\"");
+        numero(conteudo, gradiente.getPoint2().getY()).append('"');
+        if (gradiente.isCyclic()) {
+            conteudo.append(" spreadMethod=\"reflect\"");
+        }
+        conteudo.append('>');
+        parada(conteudo, "0", gradiente.getColor1());
+        parada(conteudo, "1", gradiente.getColor2());
+
+        String chave = conteudo.toString();
+        String id = documento.idsGradientes.get(chave);
+        if (id == null) {
+            id = "gradiente" + documento.proximoId++;
+            documento.idsGradientes.put(chave, id);
+            documento.definicoes.append("<linearGradient id=\"").append(id).append('"').append(chave)
+                    .append("</linearGradient>\n");
+        }
+        return id;
+    }
+
+    private static void parada(StringBuilder saida, String posicao, Color c) {
+        saida.append("<stop offset=\"").append(posicao).append("\" stop-color=\"").append(rgb(c)).append('"');
+        if (c.getAlpha() < 255) {
+            saida.append(" stop-opacity=\"");
+            numero(saida, c.getAlpha() / 255.0).append('"');
+        }
+        saida.append("/>");
+    }
+
+    private double opacidadeComposicao() {
+        if (composicao instanceof AlphaComposite) {
+            return ((AlphaComposite) composicao).getAlpha();
+        }
+        return 1;
+    }
+
+    private void escreverTraco(StringBuilder saida) {
+        escreverTinta(saida, "stroke");
+        if (!(traco instanceof BasicStroke)) {
+            return;
+        }
+        BasicStroke basico = (BasicStroke) traco;
+        saida.append(" stroke-width=\"");
+        numero(saida, basico.getLineWidth()).append('"');
+        if (basico.getEndCap() != BasicStroke.CAP_BUTT) {
+            saida.append(" stroke-linecap=\"").append(basico.getEndCap() == BasicStroke.CAP_ROUND ? "round" : "square")
+                    .append('"');
+        }
+        if (basico.getLineJoin() != BasicStroke.JOIN_MITER) {
+            saida.append(" stroke-linejoin=\"").append(basico.getLineJoin() == BasicStroke.JOIN_ROUND ? "round" : "bevel")
+                    .append('"');
+        }
+        float[] tracejado = basico.getDashArray();
+        if (tracejado != null && tracejado.length > 0) {
+            saida.append(" stroke-dasharray=\"");
+            for (int i = 0; i < tracejado.length; i++) {
+                if (i > 0) {
+                    saida.append(',');
+                }
+                numero(saida, tracejado[i]);
+            }
+            saida.append('"');
+        }
+    }
+
+    /**
+     * Converte uma forma para os dados de um elemento path do SVG
+     */
+    private static String caminho(Shape forma) {
+        StringBuilder d = new StringBuilder();
+        double[] coordenadas = new double[6];
+        for (PathIterator iterador = forma.getPathIterator(null); !iterador.isDone(); iterador.next()) {
+            switch (iterador.currentSegment(coordenadas)) {
+                case PathIterator.SEG_MOVETO:
+                    d.append('M');
+                    pontos(d, coordenadas, 1);
+                    break;
+                case PathIterator.SEG_LINETO:
+                    d.append('L');
+                    pontos(d, coordenadas, 1);
+                    break;
+                case PathIterator.SEG_QUADTO:
+                    d.append('Q');
+                    pontos(d, coordenadas, 2);
+                    break;
+                case PathIterator.SEG_CUBICTO:
+                    d.append('C');
+                    pontos(d, coordenadas, 3);
+                    break;
+                default:
+                    d.append('Z');
+            }
+        }
+        return d.toString();
+    }
+
+    private static void pontos(StringBuilder d, double[] coordenadas, int quantidade) {
+        for (int i = 0; i < quantidade * 2; i++) {
+            if (i > 0) {
+                d.append(' ');
+            }
+            numero(d, coordenadas[i]);
+        }
+    }
+
+    /**
+     * Escreve um número com no máximo duas casas decimais (suficiente para
+     * coordenadas em pixels), sem notação científica e independente da localidade
+     */
+    private static StringBuilder numero(StringBuilder saida, double valor) {
+        return numero(saida, valor, 2);
+    }
+
+    /**
+     * Escreve um número com no máximo a quantidade de casas decimais passada
+     */
+    private static StringBuilder numero(StringBuilder saida, double valor, int casas) {
+        if (Double.isNaN(valor) || Double.isInfinite(valor)) {
+            return saida.append('0');
+        }
+        long escala = 1;
+        for (int i = 0; i < casas; i++) {
+            escala *= 10;
+        }
+        long arredondado = Math.round(valor * escala);
+        if (arredondado < 0) {
+            saida.append('-');
+            arredondado = -arredondado;
+        }
+        saida.append(arredondado / escala);
+        long fracao = arredondado % escala;
+        if (fracao != 0) {
+            saida.append('.');
+            for (long digito = escala / 10; fracao != 0; digito /= 10) {
+                saida.append(fracao / digito);
+                fracao %= digito;
+            }
+        }
+        return saida;
+    }
+
+    private static String rgb(Color c) {
+        return "rgb(" + c.getRed() + "," + c.getGreen() + "," + c.getBlue() + ")";
+    }
+
+    private static void escaparXml(StringBuilder saida, String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '<':
+                    saida.append("&lt;");
+                    break;
+                case '>':
+                    saida.append("&gt;");
+                    break;
+                case '&':
+                    saida.append("&amp;");
+                    break;
+                case '"':
+                    saida.append("&quot;");
+                    break;
+                default:
+                    // Caracteres de controle não são permitidos em XML
+                    if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                        saida.append(c);
+                    }
+            }
+        }
+    }
+
+    private static String familiaFonte(Font fonte) {
+        switch (fonte.getFamily()) {
+            case Font.SANS_SERIF:
+            case Font.DIALOG:
+            case Font.DIALOG_INPUT:
+                return "sans-serif";
+            case Font.SERIF:
+                return "serif";
+            case Font.MONOSPACED:
+                return "monospace";
+            default:
+                return fonte.getFamily();
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // Desenho
+
+    @Override
+    public void draw(Shape forma) {
+        StringBuilder saida = abrirElemento();
+        saida.append("<path d=\"").append(caminho(forma)).append("\" fill=\"none\"");
+        escreverTraco(saida);
+        escreverTransformacao(saida);
+        saida.append("/>");
+        fecharElemento();
+    }
+
+    @Override
+    public void fill(Shape forma) {
+        StringBuilder saida = abrirElemento();
+        saida.append("<path d=\"").append(caminho(forma)).append('"');
+        escreverTinta(saida, "fill");
+        if (forma.getPathIterator(null).getWindingRule() == PathIterator.WIND_EVEN_ODD) {
+            saida.append(" fill-rule=\"evenodd\"");
+        }
+        escreverTransformacao(saida);
+        saida.append("/>");
+        fecharElemento();
+    }
+
+    @Override
+    public void drawString(String texto, float x, float y) {
+        if (texto == null || texto.isEmpty()) {
+            return;
+        }
+        StringBuilder saida = abrirElemento();
+        saida.append("<text x=\"");
+        numero(saida, x).append("\" y=\"");
+        numero(saida, y).append("\" font-family=\"");
+        escaparXml(saida, familiaFonte(fonte));
+        saida.append("\" font-size=\"");
+        numero(saida, fonte.getSize2D()).append('"');
+        if (fonte.isBold()) {
+            saida.append(" font-weight=\"bold\"");
+        }
+        if (fonte.isItalic()) {
+            saida.append(" font-style=\"italic\"");
+        }
+        escreverTinta(saida, "fill");
+        escreverTransformacao(saida);
+        saida.append(" xml:space=\"preserve\">");
+        escaparXml(saida, texto);
+        saida.append("</text>");
+        fecharElemento();
+    }
+
+    @Override
+    public void drawString(String texto, int x, int y) {
+        drawString(texto, (float) x, (float) y);
+    }
+
+    @Override
+    public void drawString(AttributedCharacterIterator iterador, float x, float y) {
+        StringBuilder texto = new StringBuilder();
+        for (char c = iterador.first(); c != AttributedCharacterIterator.DONE; c = iterador.next()) {
+            texto.append(c);
+        }
+        drawString(texto.toString(), x, y);
+    }
+
+    @Override
+    public void drawString(AttributedCharacterIterator iterador, int x, int y) {
+        drawString(iterador, (float) x, (float) y);
+    }
+
+    @Override
+    public void drawGlyphVector(GlyphVector glifos, float x, float y) {
+        fill(glifos.getOutline(x, y));
+    }
+
+    @Override
+    public boolean drawImage(Image imagem, AffineTransform transformacaoImagem, ImageObserver observador) {
+        AffineTransform salva = getTransform();
+        if (transformacaoImagem != null) {
+            transform(transformacaoImagem);
+        }
+        boolean desenhada = drawImage(imagem, 0, 0, observador);
+        setTransform(salva);
+        return desenhada;
+    }
+
+    @Override
+    public void drawImage(BufferedImage imagem, BufferedImageOp operacao, int x, int y) {
+        drawImage((operacao == null) ? imagem : operacao.filter(imagem, null), x, y, null);
+    }
+
+    @Override
+    public void drawRenderedImage(RenderedImage imagem, AffineTransform transformacaoImagem) {
+        if (imagem instanceof BufferedImage) {
+            drawImage((BufferedImage) imagem, transformacaoImagem, null);
+        }
+    }
+
+    @Override
+    public void drawRenderableImage(RenderableImage imagem, AffineTransform transformacaoImagem) {
+        drawRenderedImage(imagem.createDefaultRendering(), transformacaoImagem);
+    }
+
+    @Override
+    public boolean drawImage(Image imagem, int x, int y, ImageObserver observador) {
+        int w = imagem.getWidth(observador);
+        int h = imagem.getHeight(observador);
+        return (w <= 0 || h <= 0) || drawImage(imagem, x, y, w, h, observador);
+    }
+
+    @Override
+    public boolean drawImage(Image imagem, int x, int y, int w, int h, ImageObserver observador) {
+        int larguraImagem = imagem.getWidth(observador);
+        int alturaImagem = imagem.getHeight(observador);
+        if (larguraImagem <= 0 || alturaImagem <= 0 || w <= 0 || h <= 0) {
+            return true;
+        }
+        BufferedImage copia = new BufferedImage(larguraImagem, alturaImagem, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = copia.createGraphics();
+        try {
+            g.drawImage(imagem, 0, 0, null);
+        }
+        finally {
+            g.dispose();
+        }
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(copia, "png", png);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        StringBuilder saida = abrirElemento();
+        saida.append("<image x=\"").append(x).append("\" y=\"").append(y).append("\" width=\"").append(w)
+                .append("\" height=\"").append(h).append("\" preserveAspectRatio=\"none\"");
+        escreverTransformacao(saida);
+        saida.append(" xlink:href=\"data:image/png;base64,").append(Base64.getEncoder().encodeToString(png.toByteArray()))
+                .append("\"/>");
+        fecharElemento();
+        return true;
+    }
+
+    @Override
+    public boolean drawImage(Image imagem, int x, int y, Color fundoImagem, ImageObserver observador) {
+        return drawImage(imagem, x, y, observador);
+    }
+
+    @Override
+    public boolean drawImage(Image imagem, int x, int y, int w, int h, Color fundoImagem, ImageObserver observador) {
+        return drawImage(imagem, x, y, w, h, observador);
+    }
+
+    @Override
+    public boolean drawImage(Image imagem, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2, int sy2,
+            ImageObserver observador) {
+        BufferedImage origem = new BufferedImage(imagem.getWidth(observador), imagem.getHeight(observador),
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = origem.createGraphics();
+        try {
+            g.drawImage(imagem, 0, 0, null);
+        }
+        finally {
+            g.dispose();
+        }
+        BufferedImage trecho = origem.getSubimage(Math.min(sx1, sx2), Math.min(sy1, sy2), Math.abs(sx2 - sx1),
+                Math.abs(sy2 - sy1));
+        return drawImage(trecho, Math.min(dx1, dx2), Math.min(dy1, dy2), Math.abs(dx2 - dx1), Math.abs(dy2 - dy1),
+                observador);
+    }
+
+    @Override
+    public boolean drawImage(Image imagem, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2, int sy2,
+            Color fundoImagem, ImageObserver observador) {
+        return drawImage(imagem, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, observador);
+    }
+
+    @Override
+    public void drawLine(int x1, int y1, int x2, int y2) {
+        draw(new Line2D.Double(x1, y1, x2, y2));
+    }
+
+    @Override
+    public void fillRect(int x, int y, int w, int h) {
+        fill(new Rectangle(x, y, w, h));
+    }
+
+    @Override
+    public void clearRect(int x, int y, int w, int h) {
+        Paint tintaAtual = tinta;
+        setPaint(fundo);
+        fillRect(x, y, w, h);
+        setPaint(tintaAtual);
+    }
+
+    @Override
+    public void drawRoundRect(int x, int y, int w, int h, int larguraArco, int alturaArco) {
+        draw(new RoundRectangle2D.Double(x, y, w, h, larguraArco, alturaArco));
+    }
+
+    @Override
+    public void fillRoundRect(int x, int y, int w, int h, int larguraArco, int alturaArco) {
+        fill(new RoundRectangle2D.Double(x, y, w, h, larguraArco, alturaArco));
+    }
+
+    @Override
+    public void drawOval(int x, int y, int w, int h) {
+        draw(new Ellipse2D.Double(x, y, w, h));
+    }
+
+    @Override
+    public void fillOval(int x, int y, int w, int h) {
+        fill(new Ellipse2D.Double(x, y, w, h));
+    }
+
+    @Override
+    public void drawArc(int x, int y, int w, int h, int anguloInicial, int anguloArco) {
+        draw(new Arc2D.Double(x, y, w, h, anguloInicial, anguloArco, Arc2D.OPEN));
+    }
+
+    @Override
+    public void fillArc(int x, int y, int w, int h, int anguloInicial, int anguloArco) {
+        fill(new Arc2D.Double(x, y, w, h, anguloInicial, anguloArco, Arc2D.PIE));
+    }
+
+    @Override
+    public void drawPolyline(int[] xs, int[] ys, int quantidade) {
+        if (quantidade < 2) {
+            return;
+        }
+        Path2D.Double linha = new Path2D.Double();
+        linha.moveTo(xs[0], ys[0]);
+        for (int i = 1; i < quantidade; i++) {
+            linha.lineTo(xs[i], ys[i]);
+        }
+        draw(linha);
+    }
+
+    @Override
+    public void drawPolygon(int[] xs, int[] ys, int quantidade) {
+        draw(new Polygon(xs, ys, quantidade));
+    }
+
+    @Override
+    public void fillPolygon(int[] xs, int[] ys, int quantidade) {
+        fill(new Polygon(xs, ys, quantidade));
+    }
+
+    @Override
+    public void copyArea(int x, int y, int w, int h, int dx, int dy) {
+        // Não há pixels para copiar em um documento vetorial
+    }
+
+    @Override
+    public boolean hit(Rectangle retangulo, Shape forma, boolean noTraco) {
+        Shape alvo = noTraco ? traco.createStrokedShape(forma) : forma;
+        return transformacao.createTransformedShape(alvo).intersects(retangulo);
+    }
+
+    // ------------------------------------------------------------------
+    // Estado
+
+    @Override
+    public Graphics create() {
+        return new GeradorSvg(this);
+    }
+
+    @Override
+    public void dispose() {
+    }
+
+    @Override
+    public GraphicsConfiguration getDeviceConfiguration() {
+        return GRAFICOS_METRICAS.getDeviceConfiguration();
+    }
+
+    @Override
+    public FontRenderContext getFontRenderContext() {
+        return new FontRenderContext(new AffineTransform(), true, true);
+    }
+
+    @Override
+    public FontMetrics getFontMetrics(Font f) {
+        synchronized (GRAFICOS_METRICAS) {
+            return GRAFICOS_METRICAS.getFontMetrics(f);
+        }
+    }
+
+    @Override
+    public void setComposite(Composite composicao) {
+        this.composicao = composicao;
+    }
+
+    @Override
+    public Composite getComposite() {
+        return composicao;
+    }
+
+    @Override
+    public void setPaint(Paint tinta) {
+        if (tinta == null) {
+            return;
+        }
+        this.tinta = tinta;
+        if (tinta instanceof Color) {
+            cor = (Color) tinta;
+        }
+    }
+
+    @Override
+    public Paint getPaint() {
+        return tinta;
+    }
+
+    @Override
+    public Color getColor() {
+        return cor;
+    }
+
+    @Override
+    public void setColor(Color cor) {
+        setPaint(cor);
+    }
+
+    @Override
+    public void setStroke(Stroke traco) {
+        this.traco = traco;
+    }
+
+    @Override
+    public Stroke getStroke() {
+        return traco;
+    }
+
+    @Override
+    public void setBackground(Color fundo) {
+        this.fundo = fundo;
+    }
+
+    @Override
+    public Color getBackground() {
+        return fundo;
+    }
+
+    @Override
+    public Font getFont() {
+        return fonte;
+    }
+
+    @Override
+    public void setFont(Font fonte) {
+        if (fonte != null) {
+            this.fonte = fonte;
+        }
+    }
+
+    @Override
+    public void setPaintMode() {
+    }
+
+    @Override
+    public void setXORMode(Color cor) {
+    }
+
+    @Override
+    public void setRenderingHint(RenderingHints.Key chave, Object valor) {
+        dicas.put(chave, valor);
+    }
+
+    @Override
+    public Object getRenderingHint(RenderingHints.Key chave) {
+        return dicas.get(chave);
+    }
+
+    @Override
+    public void setRenderingHints(Map<?, ?> dicas) {
+        this.dicas.clear();
+        this.dicas.putAll(dicas);
+    }
+
+    @Override
+    public void addRenderingHints(Map<?, ?> dicas) {
+        this.dicas.putAll(dicas);
+    }
+
+    @Override
+    public RenderingHints getRenderingHints() {
+        return (RenderingHints) dicas.clone();
+    }
+
+    @Override
+    public void translate(int x, int y) {
+        transformacao.translate(x, y);
+    }
+
+    @Override
+    public void translate(double x, double y) {
+        transformacao.translate(x, y);
+    }
+
+    @Override
+    public void rotate(double angulo) {
+        transformacao.rotate(angulo);
+    }
+
+    @Override
+    public void rotate(double angulo, double x, double y) {
+        transformacao.rotate(angulo, x, y);
+    }
+
+    @Override
+    public void scale(double sx, double sy) {
+        transformacao.scale(sx, sy);
+    }
+
+    @Override
+    public void shear(double shx, double shy) {
+        transformacao.shear(shx, shy);
+    }
+
+    @Override
+    public void transform(AffineTransform outra) {
+        transformacao.concatenate(outra);
+    }
+
+    @Override
+    public void setTransform(AffineTransform transformacao) {
+        this.transformacao = new AffineTransform(transformacao);
+    }
+
+    @Override
+    public AffineTransform getTransform() {
+        return new AffineTransform(transformacao);
+    }
+
+    // ------------------------------------------------------------------
+    // Recorte (guardado em coordenadas do dispositivo)
+
+    @Override
+    public Shape getClip() {
+        if (recorte == null) {
+            return null;
+        }
+        try {
+            return transformacao.createInverse().createTransformedShape(recorte);
+        }
+        catch (NoninvertibleTransformException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public Rectangle getClipBounds() {
+        Shape clip = getClip();
+        return (clip == null) ? null : clip.getBounds();
+    }
+
+    /**
+     * Converte uma forma para coordenadas do dispositivo, mantendo os
+     * retângulos como retângulos quando a transformação não tem rotação
+     */
+    private Shape paraDispositivo(Shape forma) {
+        Shape transformada = transformacao.createTransformedShape(forma);
+        if (forma instanceof Rectangle2D && transformacao.getShearX() == 0 && transformacao.getShearY() == 0) {
+            return transformada.getBounds2D();
+        }
+        return transformada;
+    }
+
+    @Override
+    public void setClip(Shape forma) {
+        recorte = (forma == null) ? null : paraDispositivo(forma);
+    }
+
+    @Override
+    public void setClip(int x, int y, int w, int h) {
+        setClip(new Rectangle(x, y, w, h));
+    }
+
+    @Override
+    public void clip(Shape forma) {
+        if (forma == null) {
+            setClip(null);
+            return;
+        }
+        Shape novo = paraDispositivo(forma);
+        if (recorte == null) {
+            recorte = novo;
+        }
+        else if (recorte instanceof Rectangle2D && novo instanceof Rectangle2D) {
+            recorte = ((Rectangle2D) recorte).createIntersection((Rectangle2D) novo);
+        }
+        else {
+            Area area = new Area(recorte);
+            area.intersect(new Area(novo));
+            recorte = area;
+        }
+    }
+
+    @Override
+    public void clipRect(int x, int y, int w, int h) {
+        clip(new Rectangle(x, y, w, h));
+    }
+}
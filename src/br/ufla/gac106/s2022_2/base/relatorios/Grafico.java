@@ -1,91 +1,614 @@
 package br.ufla.gac106.s2022_2.base.relatorios;
 
+import java.awt.BorderLayout;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
-import javax.swing.JFrame;  
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.swing.JFrame;
+import javax.swing.JPanel;
+import javax.swing.JScrollBar;
 import javax.swing.SwingUtilities;
-  
-import org.jfree.chart.ChartFactory;  
-import org.jfree.chart.ChartPanel;  
+
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.axis.CategoryLabelPositions;
 import org.jfree.chart.labels.ItemLabelAnchor;
 import org.jfree.chart.labels.ItemLabelPosition;
 import org.jfree.chart.labels.StandardCategoryItemLabelGenerator;
+import org.jfree.chart.plot.CategoryPlot;
 import org.jfree.chart.renderer.category.BarRenderer;
-import org.jfree.data.category.DefaultCategoryDataset;
+import org.jfree.data.category.CategoryDataset;
+import org.jfree.data.category.SlidingCategoryDataset;
 import org.jfree.ui.TextAnchor;
 
+import br.ufla.gac106.javaWikiAPI.Tokenizador;
 import br.ufla.gac106.s2022_2.base.Avaliacao;
-import br.ufla.gac106.s2022_2.base.Avaliacoes;  
-      
+import br.ufla.gac106.s2022_2.base.Avaliacoes;
+import br.ufla.gac106.s2022_2.base.estatisticas.EstatisticasAvaliacoes.EstatisticasItem;
+
+/**
+ * Classe que exibe gráficos de barras das avaliações.
+ *
+ * Os datasets são montados fora da thread de eventos do Swing, que só cria a
+ * tela. Para que o gráfico continue legível com muitos itens, há modos que
+ * limitam a quantidade de barras: os k melhores ou piores itens, o histograma
+ * das classificações e, quando ainda há mais barras do que cabem na tela, a
+ * exibição paginada (com uma barra de rolagem).
+ *
+ * O gráfico ao vivo (exibirAoVivo) acompanha as alterações de um conjunto de
+ * avaliações, atualizando apenas as barras que mudaram.
+ *
+ * Os mesmos gráficos podem ser exportados para PNG ou SVG sem abrir telas,
+ * inclusive em lote, para gerar relatórios em servidores sem interface gráfica.
+ */
 public class Grafico {
-    
+    // Quantidade máxima de barras exibidas de uma vez (acima disso a tela ganha uma barra de rolagem)
+    static final int BARRAS_POR_PAGINA = 50;
+
+    // Intervalo padrão entre os quadros do gráfico ao vivo (25 quadros por segundo)
+    static final int INTERVALO_QUADRO_PADRAO = 40;
+
+    // Qualidade da compressão dos PNGs exportados (0 é a compressão máxima e 1 é sem compressão)
+    private static final float COMPRESSAO_PNG = 0.5f;
+
+    // Gráfico modelo de cada thread, reaproveitado entre as exportações
+    private static final ThreadLocal<JFreeChart> MODELO = ThreadLocal.withInitial(
+            () -> criarGrafico("", "", "Classificação Média", null, new DecimalFormat("0.00")));
+
     /**
      * Cria e exibe (assincronamente) uma tela com um gráfico de barras com as avaliações feitas sobre os itens do tema
+     *
+     * @return Futuro completado quando a tela for exibida
      */
-    public void exibir(String tituloGrafico, Avaliacoes avaliacoes) {
+    public CompletableFuture<Void> exibir(String tituloGrafico, Avaliacoes avaliacoes) {
+        return exibirTela(tituloGrafico, avaliacoes.temaAvaliacao(), "Classificação Média", new DecimalFormat("0.00"),
+                () -> criarDataset(avaliacoes));
+    }
+
+    /**
+     * Cria e exibe (assincronamente) uma tela com um gráfico de barras com os
+     * itens de maior classificação média
+     *
+     * @param quantidade Quantidade de itens exibidos
+     *
+     * @return Futuro completado quando a tela for exibida
+     */
+    public CompletableFuture<Void> exibirMelhores(String tituloGrafico, Avaliacoes avaliacoes, int quantidade) {
+        validarQuantidade(quantidade);
+        return exibirTela(tituloGrafico, avaliacoes.temaAvaliacao(), "Classificação Média", new DecimalFormat("0.00"),
+                () -> criarDataset(avaliacoes.temaAvaliacao(), selecionar(avaliacoes.colecaoAvaliacoes(), quantidade, true)));
+    }
+
+    /**
+     * Cria e exibe (assincronamente) uma tela com um gráfico de barras com os
+     * itens de menor classificação média
+     *
+     * @param quantidade Quantidade de itens exibidos
+     *
+     * @return Futuro completado quando a tela for exibida
+     */
+    public CompletableFuture<Void> exibirPiores(String tituloGrafico, Avaliacoes avaliacoes, int quantidade) {
+        validarQuantidade(quantidade);
+        return exibirTela(tituloGrafico, avaliacoes.temaAvaliacao(), "Classificação Média", new DecimalFormat("0.00"),
+                () -> criarDataset(avaliacoes.temaAvaliacao(), selecionar(avaliacoes.colecaoAvaliacoes(), quantidade, false)));
+    }
+
+    /**
+     * Cria e exibe (assincronamente) uma tela com o histograma das
+     * classificações médias: o intervalo entre a menor e a maior classificação é
+     * dividido em faixas de mesma largura, e cada barra mostra quantos itens
+     * caem em cada faixa
+     *
+     * @param faixas Quantidade de faixas (barras) do histograma
+     *
+     * @return Futuro completado quando a tela for exibida
+     */
+    public CompletableFuture<Void> exibirHistograma(String tituloGrafico, Avaliacoes avaliacoes, int faixas) {
+        if (faixas <= 0) {
+            throw new IllegalArgumentException("A quantidade de faixas deve ser positiva: " + faixas);
+        }
+        return exibirTela(tituloGrafico, "Classificação Média", "Quantidade de itens", new DecimalFormat("0"),
+                () -> criarHistograma(avaliacoes, faixas));
+    }
+
+    /**
+     * Cria e exibe (assincronamente) uma tela com o histograma aproximado das
+     * notas individuais de um item (ou de todo o tema, com
+     * EstatisticasAvaliacoes.estatisticasTema), calculado a partir do resumo
+     * das notas, sem precisar das avaliações originais
+     *
+     * @param estatisticas Estatísticas do item ou do tema
+     * @param faixas       Quantidade de faixas (barras) do histograma
+     *
+     * @return Futuro completado quando a tela for exibida
+     */
+    public CompletableFuture<Void> exibirDistribuicao(String tituloGrafico, EstatisticasItem estatisticas,
+            int faixas) {
+        if (faixas <= 0) {
+            throw new IllegalArgumentException("A quantidade de faixas deve ser positiva: " + faixas);
+        }
+        return exibirTela(tituloGrafico, "Nota", "Quantidade de avaliações", new DecimalFormat("0"),
+                () -> criarHistograma(estatisticas, faixas));
+    }
+
+    /**
+     * Cria e exibe (assincronamente) uma tela com um gráfico de barras que
+     * acompanha as alterações das avaliações, redesenhado no máximo 25 vezes por
+     * segundo
+     *
+     * @return Futuro com o gráfico ao vivo (use o método close para fechá-lo)
+     */
+    public CompletableFuture<GraficoAoVivo> exibirAoVivo(String tituloGrafico, Avaliacoes avaliacoes) {
+        return exibirAoVivo(tituloGrafico, avaliacoes, INTERVALO_QUADRO_PADRAO);
+    }
+
+    /**
+     * Cria e exibe (assincronamente) uma tela com um gráfico de barras que
+     * acompanha as alterações das avaliações. A cada quadro, as avaliações são
+     * consultadas (fora da thread de eventos do Swing) e apenas as barras
+     * alteradas desde o quadro anterior são atualizadas, com no máximo um
+     * redesenho por quadro.
+     *
+     * @param intervaloQuadroMillis Intervalo entre os quadros em milissegundos
+     *
+     * @return Futuro com o gráfico ao vivo (use o método close para fechá-lo)
+     */
+    public CompletableFuture<GraficoAoVivo> exibirAoVivo(String tituloGrafico, Avaliacoes avaliacoes,
+            int intervaloQuadroMillis) {
+        if (intervaloQuadroMillis <= 0) {
+            throw new IllegalArgumentException("Intervalo entre quadros inválido: " + intervaloQuadroMillis);
+        }
+        CompletableFuture<GraficoAoVivo> exibido = new CompletableFuture<>();
         SwingUtilities.invokeLater(() -> {
-            TelaGraficoBarra tela = new TelaGraficoBarra(tituloGrafico, avaliacoes);
-            tela.setAlwaysOnTop(true);
-            tela.pack();
-            tela.setExtendedState(java.awt.Frame.MAXIMIZED_BOTH);
-            tela.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
-            tela.setVisible(true);
-        });  
-    }  
-    
+            try {
+                GraficoAoVivo grafico = new GraficoAoVivo(tituloGrafico, avaliacoes, intervaloQuadroMillis);
+                grafico.exibir();
+                exibido.complete(grafico);
+            }
+            catch (RuntimeException e) {
+                exibido.completeExceptionally(e);
+            }
+        });
+        return exibido;
+    }
+
+    private static void validarQuantidade(int quantidade) {
+        if (quantidade <= 0) {
+            throw new IllegalArgumentException("A quantidade de itens deve ser positiva: " + quantidade);
+        }
+    }
+
+    /**
+     * Monta o dataset em uma thread do pool comum e depois cria e exibe a tela
+     * na thread de eventos do Swing
+     */
+    private CompletableFuture<Void> exibirTela(String titulo, String eixoX, String eixoY, NumberFormat formatoValores,
+            Supplier<CategoryDataset> criadorDataset) {
+        CompletableFuture<Void> exibida = new CompletableFuture<>();
+        CompletableFuture.supplyAsync(criadorDataset).whenComplete((dataset, erro) -> {
+            if (erro != null) {
+                exibida.completeExceptionally(erro);
+                return;
+            }
+            SwingUtilities.invokeLater(() -> {
+                try {
+                    TelaGraficoBarra tela = new TelaGraficoBarra(titulo, eixoX, eixoY, dataset, formatoValores);
+                    tela.setAlwaysOnTop(true);
+                    tela.pack();
+                    tela.setExtendedState(java.awt.Frame.MAXIMIZED_BOTH);
+                    tela.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+                    tela.setVisible(true);
+                    exibida.complete(null);
+                }
+                catch (RuntimeException e) {
+                    exibida.completeExceptionally(e);
+                }
+            });
+        });
+        return exibida;
+    }
+
     /**
      * Classe interna criada para deifnir uma tela com gráfico de barras para as avaliações
      */
-    private class TelaGraficoBarra extends JFrame {  
-          
+    private class TelaGraficoBarra extends JFrame {
+
         private static final long serialVersionUID = 1L;
-        
+
         /**
-         * Constrói a tela com o gráfico de barras
+         * Constrói a tela com o gráfico de barras a partir de um dataset já montado.
+         * Se o dataset tiver mais barras do que cabem em uma página, o gráfico
+         * exibe uma janela do dataset, que é deslocada por uma barra de rolagem.
          */
-        public TelaGraficoBarra(String titulo, Avaliacoes avaliacoes) {  
-            super(titulo);  
-              
-            DefaultCategoryDataset dataset = criarDataset(avaliacoes);
-            
-            JFreeChart graficoBarra = ChartFactory.createBarChart(
-                titulo,   // Titulo do Grafico
-                avaliacoes.temaAvaliacao(), // Eixo X
-                "Classificação Média",      // Eixo Y
-                dataset);
-            
-            // Exibe os valores nas barras com formatação
-            BarRenderer renderizador = (BarRenderer) graficoBarra.getCategoryPlot().getRenderer();
-            renderizador.setBaseItemLabelGenerator(new StandardCategoryItemLabelGenerator("{2}", new DecimalFormat("0.00")));
-            renderizador.setBasePositiveItemLabelPosition(new ItemLabelPosition(ItemLabelAnchor.CENTER, TextAnchor.CENTER));
-            renderizador.setBaseItemLabelsVisible(true);
-            
-            // Exibindo os rótulos do eixo X na vertical
-            graficoBarra.getCategoryPlot().getDomainAxis().setCategoryLabelPositions(CategoryLabelPositions.UP_45);                        
-            // Permitindo que os rótulos do eixo X tenham até 3 linhas
-            graficoBarra.getCategoryPlot().getDomainAxis().setMaximumCategoryLabelLines(3);
-            // Escondendo a legenda
-            graficoBarra.getLegend().setVisible(false);
-
-            ChartPanel painel = new ChartPanel(graficoBarra);  
-            setContentPane(painel); 
-        }  
-        
+        public TelaGraficoBarra(String titulo, String eixoX, String eixoY, CategoryDataset dataset,
+                NumberFormat formatoValores) {
+            super(titulo);
+
+            int quantidadeBarras = dataset.getColumnCount();
+            SlidingCategoryDataset pagina = null;
+            if (quantidadeBarras > BARRAS_POR_PAGINA) {
+                pagina = new SlidingCategoryDataset(dataset, 0, BARRAS_POR_PAGINA);
+            }
+
+            JFreeChart graficoBarra = criarGrafico(titulo, eixoX, eixoY, (pagina != null) ? pagina : dataset, formatoValores);
+
+            ChartPanel painel = new ChartPanel(graficoBarra);
+            if (pagina == null) {
+                setContentPane(painel);
+                return;
+            }
+
+            // A barra de rolagem desloca a janela de barras exibidas
+            SlidingCategoryDataset janela = pagina;
+            JScrollBar rolagem = new JScrollBar(JScrollBar.HORIZONTAL, 0, BARRAS_POR_PAGINA, 0, quantidadeBarras);
+            rolagem.setBlockIncrement(BARRAS_POR_PAGINA);
+            rolagem.addAdjustmentListener(evento -> janela.setFirstCategoryIndex(evento.getValue()));
+
+            JPanel conteudo = new JPanel(new BorderLayout());
+            conteudo.add(painel, BorderLayout.CENTER);
+            conteudo.add(rolagem, BorderLayout.SOUTH);
+            setContentPane(conteudo);
+        }
+    }
+
+    /**
+     * Cria o gráfico de barras de um dataset
+     */
+    static JFreeChart criarGrafico(String titulo, String eixoX, String eixoY, CategoryDataset dataset,
+            NumberFormat formatoValores) {
+        JFreeChart graficoBarra = ChartFactory.createBarChart(
+            titulo,   // Titulo do Grafico
+            eixoX,    // Eixo X
+            eixoY,    // Eixo Y
+            dataset);
+
+        // Exibe os valores nas barras com formatação
+        BarRenderer renderizador = (BarRenderer) graficoBarra.getCategoryPlot().getRenderer();
+        renderizador.setBaseItemLabelGenerator(new StandardCategoryItemLabelGenerator("{2}", formatoValores));
+        renderizador.setBasePositiveItemLabelPosition(new ItemLabelPosition(ItemLabelAnchor.CENTER, TextAnchor.CENTER));
+        renderizador.setBaseItemLabelsVisible(true);
+
+        // Exibindo os rótulos do eixo X na vertical
+        graficoBarra.getCategoryPlot().getDomainAxis().setCategoryLabelPositions(CategoryLabelPositions.UP_45);
+        // Permitindo que os rótulos do eixo X tenham até 3 linhas
+        graficoBarra.getCategoryPlot().getDomainAxis().setMaximumCategoryLabelLines(3);
+        // Escondendo a legenda
+        graficoBarra.getLegend().setVisible(false);
+
+        return graficoBarra;
+    }
+
+    /**
+     * Formatos em que os gráficos podem ser exportados
+     */
+    public enum Formato {
+        PNG("png"), SVG("svg");
+
+        private final String extensao;
+
+        Formato(String extensao) {
+            this.extensao = extensao;
+        }
+
         /**
-         * Cria um dataset a partir das avaliações recebidas
+         * Extensão dos arquivos do formato (sem o ponto)
          */
-        private DefaultCategoryDataset criarDataset(Avaliacoes avaliacoes) {          
-            String serie = avaliacoes.temaAvaliacao();
-            
-            DefaultCategoryDataset dataset = new DefaultCategoryDataset();  
-            
-            for (Avaliacao avaliacao : avaliacoes.colecaoAvaliacoes()) {
-                dataset.addValue(avaliacao.classificacaoMedia(), serie, avaliacao.nomeItemAvaliado());
+        public String getExtensao() {
+            return extensao;
+        }
+    }
+
+    /**
+     * Exporta o mesmo gráfico de barras exibido por exibir, sem abrir telas
+     * (funciona com java.awt.headless=true)
+     *
+     * @param formato Formato da imagem
+     * @param largura Largura da imagem em pixels
+     * @param altura  Altura da imagem em pixels
+     *
+     * @return Os bytes da imagem (no caso do SVG, o texto do documento em UTF-8)
+     */
+    public byte[] exportar(String tituloGrafico, Avaliacoes avaliacoes, Formato formato, int largura, int altura) {
+        validarDimensoes(largura, altura);
+        return renderizar(tituloGrafico, avaliacoes, formato, largura, altura);
+    }
+
+    /**
+     * Exporta o gráfico de barras das avaliações para um arquivo, sem abrir telas
+     *
+     * @param formato Formato da imagem
+     * @param largura Largura da imagem em pixels
+     * @param altura  Altura da imagem em pixels
+     * @param arquivo Arquivo onde a imagem é salva (substituído se já existir)
+     */
+    public void exportar(String tituloGrafico, Avaliacoes avaliacoes, Formato formato, int largura, int altura,
+            Path arquivo) throws IOException {
+        Files.write(arquivo, exportar(tituloGrafico, avaliacoes, formato, largura, altura));
+    }
+
+    /**
+     * Exporta os gráficos de vários conjuntos de avaliações em paralelo (um
+     * arquivo por conjunto, com o tema como título do gráfico). Cada thread
+     * reaproveita o seu próprio gráfico modelo, trocando apenas o título, os
+     * rótulos e o dataset.
+     *
+     * Os arquivos recebem o nome do tema (sem acentos e caracteres especiais)
+     * com a extensão do formato; temas com o mesmo nome recebem um sufixo
+     * numérico.
+     *
+     * @param conjuntos Conjuntos de avaliações
+     * @param formato   Formato das imagens
+     * @param largura   Largura das imagens em pixels
+     * @param altura    Altura das imagens em pixels
+     * @param diretorio Diretório onde as imagens são salvas (criado se não existir)
+     *
+     * @return Os arquivos gerados, na ordem dos conjuntos
+     */
+    public List<Path> exportarTodos(Collection<? extends Avaliacoes> conjuntos, Formato formato, int largura, int altura,
+            Path diretorio) throws IOException {
+        validarDimensoes(largura, altura);
+        Files.createDirectories(diretorio);
+
+        List<Avaliacoes> lista = new ArrayList<>(conjuntos);
+        List<Path> arquivos = new ArrayList<>(lista.size());
+        Set<String> nomes = new HashSet<>();
+        for (Avaliacoes avaliacoes : lista) {
+            String base = nomeArquivo(avaliacoes.temaAvaliacao());
+            String nome = base;
+            for (int i = 2; !nomes.add(nome); i++) {
+                nome = base + "-" + i;
             }
-            
-            return dataset;  
-        }       
+            arquivos.add(diretorio.resolve(nome + "." + formato.getExtensao()));
+        }
+
+        try {
+            IntStream.range(0, lista.size()).parallel().forEach(i -> {
+                Avaliacoes avaliacoes = lista.get(i);
+                try {
+                    Files.write(arquivos.get(i),
+                            renderizar(avaliacoes.temaAvaliacao(), avaliacoes, formato, largura, altura));
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return arquivos;
+    }
+
+    private static void validarDimensoes(int largura, int altura) {
+        if (largura <= 0 || altura <= 0) {
+            throw new IllegalArgumentException("Dimensões inválidas: " + largura + "x" + altura);
+        }
+    }
+
+    /**
+     * Nome de arquivo derivado do tema: minúsculo, sem acentos e só com letras,
+     * dígitos e hífens
+     */
+    static String nomeArquivo(String tema) {
+        String nome = Tokenizador.normalizar(tema).replaceAll("[^a-z0-9]+", "-").replaceAll("^-|-$", "");
+        return nome.isEmpty() ? "grafico" : nome;
+    }
+
+    /**
+     * Desenha o gráfico das avaliações no gráfico modelo da thread e o codifica
+     * no formato pedido
+     */
+    private static byte[] renderizar(String titulo, Avaliacoes avaliacoes, Formato formato, int largura, int altura) {
+        CategoryDataset dataset = criarDataset(avaliacoes);
+        JFreeChart grafico = MODELO.get();
+        CategoryPlot plot = grafico.getCategoryPlot();
+        try {
+            grafico.setNotify(false);
+            grafico.setTitle(titulo);
+            plot.getDomainAxis().setLabel(avaliacoes.temaAvaliacao());
+            plot.setDataset(dataset);
+
+            if (formato == Formato.PNG) {
+                // O fundo do gráfico é opaco, então a imagem não precisa de canal alfa
+                return codificarPng(grafico.createBufferedImage(largura, altura, BufferedImage.TYPE_INT_RGB, null));
+            }
+            GeradorSvg svg = new GeradorSvg(largura, altura);
+            grafico.draw(svg, new Rectangle2D.Double(0, 0, largura, altura));
+            return svg.getSvg().getBytes(StandardCharsets.UTF_8);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        finally {
+            // O modelo não deve manter o dataset vivo entre as exportações
+            plot.setDataset(null);
+        }
+    }
+
+    /**
+     * Codifica a imagem em PNG com compressão leve: os gráficos têm grandes
+     * áreas de cor uniforme, então o arquivo fica só um pouco maior que com a
+     * compressão máxima (padrão do ImageIO), que é algumas vezes mais lenta
+     */
+    private static byte[] codificarPng(BufferedImage imagem) throws IOException {
+        ImageWriter escritor = ImageIO.getImageWritersByFormatName("png").next();
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        try (ImageOutputStream saida = ImageIO.createImageOutputStream(png)) {
+            escritor.setOutput(saida);
+            ImageWriteParam parametros = escritor.getDefaultWriteParam();
+            parametros.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            parametros.setCompressionQuality(COMPRESSAO_PNG);
+            escritor.write(null, new IIOImage(imagem, null, null), parametros);
+        }
+        finally {
+            escritor.dispose();
+        }
+        return png.toByteArray();
+    }
+
+    /**
+     * Cria um dataset a partir das avaliações recebidas
+     */
+    static CategoryDataset criarDataset(Avaliacoes avaliacoes) {
+        return criarDataset(avaliacoes.temaAvaliacao(), avaliacoes.colecaoAvaliacoes());
+    }
+
+    /**
+     * Cria um dataset com uma barra por avaliação, na ordem da coleção
+     */
+    static CategoryDataset criarDataset(String serie, Collection<Avaliacao> avaliacoes) {
+        DatasetBarras.Construtor dataset = new DatasetBarras.Construtor(serie, avaliacoes.size());
+
+        for (Avaliacao avaliacao : avaliacoes) {
+            dataset.adicionar(avaliacao.nomeItemAvaliado(), avaliacao.classificacaoMedia());
+        }
+
+        return dataset.construir();
+    }
+
+    /**
+     * Seleciona as k avaliações de maior (ou menor) classificação média sem
+     * ordenar a coleção inteira: um heap limitado a k elementos guarda as
+     * melhores avaliações vistas até o momento, o que custa O(n log k)
+     *
+     * @param avaliacoes Avaliações
+     * @param quantidade Quantidade k de avaliações selecionadas
+     * @param melhores   Se devem ser selecionadas as de maior classificação (ou as de menor)
+     *
+     * @return As avaliações selecionadas, da melhor para a pior (ou da pior para a melhor)
+     */
+    static Collection<Avaliacao> selecionar(Collection<Avaliacao> avaliacoes, int quantidade, boolean melhores) {
+        Comparator<Avaliacao> ordem = Comparator.comparingDouble(Avaliacao::classificacaoMedia);
+        if (!melhores) {
+            ordem = ordem.reversed();
+        }
+
+        // No topo do heap fica a pior das avaliações selecionadas, que é a substituída
+        PriorityQueue<Avaliacao> heap = new PriorityQueue<>(Math.min(quantidade, Math.max(avaliacoes.size(), 1)) + 1, ordem);
+        for (Avaliacao avaliacao : avaliacoes) {
+            if (heap.size() < quantidade) {
+                heap.add(avaliacao);
+            }
+            else if (ordem.compare(avaliacao, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(avaliacao);
+            }
+        }
+
+        Avaliacao[] selecionadas = new Avaliacao[heap.size()];
+        for (int i = selecionadas.length - 1; i >= 0; i--) {
+            selecionadas[i] = heap.poll();
+        }
+        return Arrays.asList(selecionadas);
+    }
+
+    /**
+     * Cria o dataset do histograma das classificações médias, com faixas de
+     * mesma largura entre a menor e a maior classificação (duas passagens pela
+     * coleção, sem ordená-la)
+     */
+    static CategoryDataset criarHistograma(Avaliacoes avaliacoes, int faixas) {
+        Collection<Avaliacao> colecao = avaliacoes.colecaoAvaliacoes();
+
+        double minimo = Double.POSITIVE_INFINITY;
+        double maximo = Double.NEGATIVE_INFINITY;
+        for (Avaliacao avaliacao : colecao) {
+            double classificacao = avaliacao.classificacaoMedia();
+            if (!Double.isNaN(classificacao)) {
+                minimo = Math.min(minimo, classificacao);
+                maximo = Math.max(maximo, classificacao);
+            }
+        }
+
+        DatasetBarras.Construtor dataset = new DatasetBarras.Construtor(avaliacoes.temaAvaliacao(), faixas);
+        if (minimo > maximo) {
+            return dataset.construir();
+        }
+        // Se todas as classificações forem iguais, há uma única faixa
+        if (minimo == maximo) {
+            faixas = 1;
+        }
+
+        double largura = (maximo - minimo) / faixas;
+        long[] contagens = new long[faixas];
+        for (Avaliacao avaliacao : colecao) {
+            double classificacao = avaliacao.classificacaoMedia();
+            if (!Double.isNaN(classificacao)) {
+                // A maior classificação fica na última faixa (que é fechada à direita)
+                int faixa = (largura == 0) ? 0 : (int) ((classificacao - minimo) / largura);
+                contagens[Math.min(faixa, faixas - 1)]++;
+            }
+        }
+        adicionarFaixas(dataset, minimo, maximo, contagens);
+        return dataset.construir();
+    }
+
+    /**
+     * Cria o histograma das notas de um item a partir do resumo das notas: o
+     * intervalo entre a menor e a maior nota é dividido em faixas de mesma
+     * largura, e as quantidades de cada faixa são aproximadas
+     */
+    static CategoryDataset criarHistograma(EstatisticasItem estatisticas, int faixas) {
+        DatasetBarras.Construtor dataset = new DatasetBarras.Construtor(estatisticas.nomeItemAvaliado(), faixas);
+        if (estatisticas.quantidadeAvaliacoes() == 0) {
+            return dataset.construir();
+        }
+        double minimo = estatisticas.notaMinima();
+        double maximo = estatisticas.notaMaxima();
+        if (minimo == maximo) {
+            faixas = 1;
+        }
+
+        // Os limites internos separam as faixas; a última faixa vai até o máximo
+        double largura = (maximo - minimo) / faixas;
+        double[] limites = new double[faixas - 1];
+        for (int i = 0; i < limites.length; i++) {
+            limites[i] = minimo + (i + 1) * largura;
+        }
+        adicionarFaixas(dataset, minimo, maximo, estatisticas.distribuicao(limites));
+        return dataset.construir();
+    }
+
+    /**
+     * Adiciona ao dataset uma barra para cada faixa de mesma largura entre o
+     * mínimo e o máximo, rotulada com o intervalo da faixa
+     */
+    private static void adicionarFaixas(DatasetBarras.Construtor dataset, double minimo, double maximo,
+            long[] contagens) {
+        int faixas = contagens.length;
+        double largura = (maximo - minimo) / faixas;
+        // Casas decimais suficientes para que os rótulos das faixas sejam distintos
+        int casas = (largura == 0) ? 2 : Math.min(10, Math.max(2, (int) Math.ceil(-Math.log10(largura)) + 1));
+        DecimalFormat formato = new DecimalFormat("0." + "0".repeat(casas));
+        for (int i = 0; i < faixas; i++) {
+            double inicio = minimo + i * largura;
+            double fim = (i == faixas - 1) ? maximo : minimo + (i + 1) * largura;
+            dataset.adicionar(formato.format(inicio) + " – " + formato.format(fim), contagens[i]);
+        }
     }
 }
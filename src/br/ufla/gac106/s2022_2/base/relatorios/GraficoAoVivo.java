@@ -0,0 +1,253 @@
+package br.ufla.gac106.s2022_2.base.relatorios;
+
+import java.awt.BorderLayout;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.Closeable;
+import java.text.DecimalFormat;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.swing.JFrame;
+import javax.swing.JPanel;
+import javax.swing.JScrollBar;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+import org.jfree.chart.ChartPanel;
+import org.jfree.chart.JFreeChart;
+
+import br.ufla.gac106.s2022_2.base.Avaliacao;
+import br.ufla.gac106.s2022_2.base.Avaliacoes;
+
+/**
+ * Tela com um gráfico de barras que acompanha as alterações de um conjunto de
+ * avaliações (criada por Grafico.exibirAoVivo).
+ *
+ * As alterações chegam de duas formas: uma thread separada consulta o conjunto
+ * de avaliações a cada quadro e compara a fotografia com a anterior, e quem
+ * conhece as alterações pode informá-las diretamente pelo método atualizar.
+ * Em ambos os casos as alterações são acumuladas em um mapa em que cada item
+ * guarda apenas o seu último valor; a cada quadro, um Timer do Swing aplica o
+ * mapa de uma só vez ao dataset, o que gera no máximo um redesenho por quadro.
+ * Assim, o custo na thread de eventos depende da quantidade de itens alterados
+ * no quadro, e não da quantidade de alterações.
+ *
+ * A tela é fechada (e as threads encerradas) pelo método close ou quando o
+ * usuário fecha a janela.
+ *
+ * Falhas na consulta das avaliações não interrompem as consultas seguintes:
+ * elas são contadas (getFalhasConsulta) e enviadas ao System.Logger da classe,
+ * com nível WARNING para a primeira falha de uma sequência e DEBUG para as
+ * repetições.
+ */
+public class GraficoAoVivo implements Closeable {
+    private static final System.Logger LOGGER = System.getLogger(GraficoAoVivo.class.getName());
+
+    private final Avaliacoes avaliacoes;
+    private final JFrame tela;
+    private final DatasetAoVivo dataset;
+    private final JScrollBar rolagem;
+    private final Timer temporizador;
+    private final ScheduledExecutorService consultas;
+
+    // Alterações ainda não aplicadas ao dataset (o último valor de cada item vence)
+    private final ConcurrentHashMap<String, Object> pendentes = new ConcurrentHashMap<>();
+    // Últimos valores vistos pela thread de consulta (só usado por ela)
+    private final Map<String, Double> ultimosConsultados = new HashMap<>();
+
+    private final LongAdder alteracoesRecebidas = new LongAdder();
+    private final LongAdder lotesAplicados = new LongAdder();
+    private final LongAdder falhasConsulta = new LongAdder();
+    // Quantidade de consultas seguidas que falharam (só usado pela thread de consulta)
+    private int falhasSeguidas;
+
+    /**
+     * Cria a tela (deve ser chamado na thread de eventos do Swing)
+     */
+    GraficoAoVivo(String titulo, Avaliacoes avaliacoes, int intervaloQuadroMillis) {
+        this.avaliacoes = avaliacoes;
+        dataset = new DatasetAoVivo(avaliacoes.temaAvaliacao(), Grafico.BARRAS_POR_PAGINA);
+        JFreeChart grafico = Grafico.criarGrafico(titulo, avaliacoes.temaAvaliacao(), "Classificação Média", dataset,
+                new DecimalFormat("0.00"));
+
+        rolagem = new JScrollBar(JScrollBar.HORIZONTAL, 0, Grafico.BARRAS_POR_PAGINA, 0, 0);
+        rolagem.setBlockIncrement(Grafico.BARRAS_POR_PAGINA);
+        rolagem.setVisible(false);
+        rolagem.addAdjustmentListener(evento -> dataset.setPrimeiraBarra(evento.getValue()));
+
+        JPanel conteudo = new JPanel(new BorderLayout());
+        conteudo.add(new ChartPanel(grafico), BorderLayout.CENTER);
+        conteudo.add(rolagem, BorderLayout.SOUTH);
+
+        tela = new JFrame(titulo);
+        tela.setContentPane(conteudo);
+        tela.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        tela.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                encerrar();
+            }
+        });
+
+        temporizador = new Timer(intervaloQuadroMillis, evento -> aplicarPendentes());
+        temporizador.setCoalesce(true);
+
+        consultas = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "grafico-ao-vivo");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Com atraso fixo, uma consulta lenta nunca se acumula com a seguinte
+        consultas.scheduleWithFixedDelay(this::consultar, 0, intervaloQuadroMillis, TimeUnit.MILLISECONDS);
+        temporizador.start();
+    }
+
+    /**
+     * Exibe a tela (deve ser chamado na thread de eventos do Swing)
+     */
+    void exibir() {
+        tela.setAlwaysOnTop(true);
+        tela.pack();
+        tela.setExtendedState(java.awt.Frame.MAXIMIZED_BOTH);
+        tela.setVisible(true);
+    }
+
+    /**
+     * Informa a nova classificação média de um item, sem esperar pela próxima
+     * consulta ao conjunto de avaliações. Pode ser chamado por qualquer thread,
+     * com qualquer frequência: o gráfico só é atualizado no próximo quadro.
+     *
+     * @param nome  Nome do item
+     * @param media Nova classificação média
+     */
+    public void atualizar(String nome, double media) {
+        pendentes.put(nome, media);
+        alteracoesRecebidas.increment();
+    }
+
+    /**
+     * Informa que um item não existe mais (sua barra é removida no próximo
+     * quadro)
+     *
+     * @param nome Nome do item
+     */
+    public void remover(String nome) {
+        pendentes.put(nome, DatasetAoVivo.REMOVIDO);
+        alteracoesRecebidas.increment();
+    }
+
+    /**
+     * Quantidade de alterações recebidas (pelas consultas e pelos métodos
+     * atualizar e remover)
+     */
+    public long getAlteracoesRecebidas() {
+        return alteracoesRecebidas.sum();
+    }
+
+    /**
+     * Quantidade de lotes aplicados ao gráfico (cada lote gera um redesenho)
+     */
+    public long getLotesAplicados() {
+        return lotesAplicados.sum();
+    }
+
+    /**
+     * Quantidade de consultas às avaliações que falharam (lançaram exceção)
+     */
+    public long getFalhasConsulta() {
+        return falhasConsulta.sum();
+    }
+
+    /**
+     * Compara a fotografia atual das avaliações com a anterior e acumula as
+     * diferenças (executado na thread de consulta)
+     */
+    private void consultar() {
+        try {
+            Set<String> vistos = new HashSet<>();
+            for (Avaliacao avaliacao : avaliacoes.colecaoAvaliacoes()) {
+                String nome = avaliacao.nomeItemAvaliado();
+                double media = avaliacao.classificacaoMedia();
+                vistos.add(nome);
+                Double anterior = ultimosConsultados.put(nome, media);
+                if (anterior == null || Double.compare(anterior, media) != 0) {
+                    atualizar(nome, media);
+                }
+            }
+            if (vistos.size() < ultimosConsultados.size()) {
+                ultimosConsultados.keySet().removeIf(nome -> {
+                    if (vistos.contains(nome)) {
+                        return false;
+                    }
+                    remover(nome);
+                    return true;
+                });
+            }
+            if (falhasSeguidas > 0) {
+                int falhas = falhasSeguidas;
+                LOGGER.log(System.Logger.Level.INFO, () -> "GraficoAoVivo: consultas normalizadas após " + falhas
+                        + " falha(s)");
+                falhasSeguidas = 0;
+            }
+        }
+        catch (RuntimeException e) {
+            // Uma falha na consulta não deve interromper as próximas (como a
+            // consulta é feita a cada quadro, só a primeira falha de uma
+            // sequência é registrada com a pilha de chamadas)
+            falhasConsulta.increment();
+            if (falhasSeguidas++ == 0) {
+                LOGGER.log(System.Logger.Level.WARNING, "GraficoAoVivo: falha ao consultar as avaliações", e);
+            }
+            else {
+                LOGGER.log(System.Logger.Level.DEBUG, () -> "GraficoAoVivo: nova falha ao consultar as avaliações: " + e);
+            }
+        }
+    }
+
+    /**
+     * Aplica as alterações pendentes ao dataset em um único lote (executado na
+     * thread de eventos do Swing, pelo Timer)
+     */
+    private void aplicarPendentes() {
+        if (pendentes.isEmpty()) {
+            return;
+        }
+        Map<String, Object> lote = new HashMap<>();
+        for (String nome : pendentes.keySet()) {
+            // remove devolve o valor mais recente, mesmo que o item tenha sido alterado depois de listado
+            Object valor = pendentes.remove(nome);
+            if (valor != null) {
+                lote.put(nome, valor);
+            }
+        }
+        dataset.aplicar(lote);
+        lotesAplicados.increment();
+
+        int quantidade = dataset.getQuantidadeBarras();
+        rolagem.setVisible(quantidade > Grafico.BARRAS_POR_PAGINA);
+        rolagem.setMaximum(Math.max(quantidade, Grafico.BARRAS_POR_PAGINA));
+        rolagem.setValue(dataset.getPrimeiraBarra());
+    }
+
+    /**
+     * Para as atualizações e fecha a tela
+     */
+    @Override
+    public void close() {
+        encerrar();
+        SwingUtilities.invokeLater(tela::dispose);
+    }
+
+    private void encerrar() {
+        consultas.shutdownNow();
+        SwingUtilities.invokeLater(temporizador::stop);
+    }
+}